@@ -53,6 +53,12 @@ public class JUnitPreferencesConstants {
 	 */
 	public static final String PREF_INACTIVE_FILTERS_LIST = JUnitCorePlugin.PLUGIN_ID + ".inactive_filters"; //$NON-NLS-1$
 
+	/**
+	 * Boolean preference controlling whether the binary protocol is used to communicate
+	 * with the test runner, if the runner supports it.
+	 */
+	public static final String BINARY_PROTOCOL= JUnitCorePlugin.PLUGIN_ID + ".binary_protocol"; //$NON-NLS-1$
+
 	/**
 	 * Maximum number of remembered test runs.
 	 */
@@ -144,6 +150,10 @@ public class JUnitPreferencesConstants {
 		return Platform.getPreferencesService().getBoolean(JUnitCorePlugin.CORE_PLUGIN_ID, DO_FILTER_STACK, true, null);
 	}
 
+	public static boolean getBinaryProtocol() {
+		return Platform.getPreferencesService().getBoolean(JUnitCorePlugin.CORE_PLUGIN_ID, BINARY_PROTOCOL, false, null);
+	}
+
 	public static void setFilterStack(boolean filter) {
 		InstanceScope.INSTANCE.getNode(JUnitCorePlugin.CORE_PLUGIN_ID).putBoolean(DO_FILTER_STACK, filter);
 	}
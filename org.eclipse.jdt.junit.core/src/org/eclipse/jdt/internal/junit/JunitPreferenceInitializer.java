@@ -34,6 +34,7 @@ public class JunitPreferenceInitializer extends AbstractPreferenceInitializer {
 
 		prefs.putBoolean(JUnitPreferencesConstants.SHOW_ON_ERROR_ONLY, false);
 		prefs.putBoolean(JUnitPreferencesConstants.ENABLE_ASSERTIONS, false);
+		prefs.putBoolean(JUnitPreferencesConstants.BINARY_PROTOCOL, false);
 
 		List defaults= JUnitPreferencesConstants.createDefaultStackFiltersList();
 		String[] filters= (String[]) defaults.toArray(new String[defaults.size()]);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -21,6 +21,7 @@ import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
 
 import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.runner.RemoteTestRunner;
 
 import org.eclipse.jdt.launching.IJavaLaunchConfigurationConstants;
 
@@ -54,6 +55,28 @@ public class JUnitLaunchConfigurationConstants {
 
 	public static final String ATTR_TEST_RUNNER_KIND= JUnitCorePlugin.PLUGIN_ID+".TEST_KIND"; //$NON-NLS-1$
 
+	/**
+	 * The parallel execution mode for JUnit 4 tests: "" to run tests sequentially,
+	 * {@link #PARALLEL_MODE_CLASSES} or {@link #PARALLEL_MODE_METHODS}.
+	 */
+	public static final String ATTR_PARALLEL_MODE= JUnitCorePlugin.PLUGIN_ID+".PARALLEL_MODE"; //$NON-NLS-1$
+
+	/**
+	 * Parallel execution mode that runs test classes concurrently. The value is passed to the
+	 * test runner, which runs in the test VM and therefore defines it.
+	 */
+	public static final String PARALLEL_MODE_CLASSES= RemoteTestRunner.PARALLEL_CLASSES;
+
+	/**
+	 * Parallel execution mode that runs the test methods of a class concurrently.
+	 */
+	public static final String PARALLEL_MODE_METHODS= RemoteTestRunner.PARALLEL_METHODS;
+
+	/**
+	 * The number of worker threads for parallel execution, or 0 for one per processor.
+	 */
+	public static final String ATTR_PARALLEL_WORKERS= JUnitCorePlugin.PLUGIN_ID+".PARALLEL_WORKERS"; //$NON-NLS-1$
+
 	public static ITestKind getTestRunnerKind(ILaunchConfiguration launchConfiguration) {
 		try {
 			String loaderId = launchConfiguration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_TEST_RUNNER_KIND, (String) null);
@@ -15,6 +15,7 @@ package org.eclipse.jdt.internal.junit.model;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
@@ -68,6 +69,11 @@ import org.eclipse.jdt.internal.junit.model.TestElement.Status;
  */
 public final class JUnitModel {
 
+	/**
+	 * Files of at least this size (in bytes) are imported lazily by {@link #importTestRunSession(File)}.
+	 */
+	public static final long LAZY_IMPORT_THRESHOLD= 4 * 1024 * 1024;
+
 	private final class JUnitLaunchListener implements ILaunchListener {
 
 		/**
@@ -358,20 +364,44 @@ public final class JUnitModel {
 	}
 
 	/**
-	 * Imports a test run session from the given file.
+	 * Imports a test run session from the given file. Files larger than
+	 * {@link #LAZY_IMPORT_THRESHOLD} are imported lazily.
 	 *
 	 * @param file a file containing a test run session transcript
 	 * @return the imported test run session
 	 * @throws CoreException if the import failed
+	 * @see #importTestRunSession(File, boolean)
 	 */
 	public static TestRunSession importTestRunSession(File file) throws CoreException {
+		return importTestRunSession(file, file.length() >= LAZY_IMPORT_THRESHOLD);
+	}
+
+	/**
+	 * Imports a test run session from the given file.
+	 * <p>
+	 * A lazy import only keeps the test suites in memory. Their test cases are loaded from the file
+	 * when they are requested, so the file must not be changed while the session is in use.
+	 * Files that cannot be indexed are imported eagerly.
+	 * </p>
+	 *
+	 * @param file a file containing a test run session transcript
+	 * @param lazy <code>true</code> to load the test cases on demand
+	 * @return the imported test run session
+	 * @throws CoreException if the import failed
+	 */
+	public static TestRunSession importTestRunSession(File file, boolean lazy) throws CoreException {
 		try {
 			SAXParserFactory parserFactory= SAXParserFactory.newInstance();
 //			parserFactory.setValidating(true); // TODO: add DTD and debug flag
-			SAXParser parser= parserFactory.newSAXParser();
-			TestRunHandler handler= new TestRunHandler();
-			parser.parse(file, handler);
-			TestRunSession session= handler.getTestRunSession();
+			TestRunSession session= null;
+			if (lazy)
+				session= importLazily(file, parserFactory.newSAXParser());
+			if (session == null) {
+				SAXParser parser= parserFactory.newSAXParser();
+				TestRunHandler handler= new TestRunHandler();
+				parser.parse(file, handler);
+				session= handler.getTestRunSession();
+			}
 			JUnitCorePlugin.getModel().addTestRunSession(session);
 			return session;
 		} catch (ParserConfigurationException e) {
@@ -387,6 +417,39 @@ public final class JUnitModel {
 		return null; // does not happen
 	}
 
+	/**
+	 * Parses the given file with an indexing {@link TestRunHandler}.
+	 *
+	 * @param file the file
+	 * @param parser the parser
+	 * @return the session, or <code>null</code> if the file cannot be imported lazily
+	 * @throws SAXException if the file could not be parsed
+	 * @throws IOException if the file could not be read
+	 */
+	private static TestRunSession importLazily(File file, SAXParser parser) throws SAXException, IOException {
+		TestRunIndex index= TestRunIndex.create(file);
+		if (index == null)
+			return null;
+
+		TestRunHandler handler= new TestRunHandler(index);
+		InputStream in= index.openIndexingStream();
+		try {
+			InputSource source= new InputSource(in);
+			source.setSystemId(file.toURI().toString());
+			parser.parse(source, handler);
+		} catch (SAXException e) {
+			if (TestRunIndex.isIndexException(e))
+				return null;
+			throw e;
+		} finally {
+			in.close();
+		}
+		TestRunSession session= handler.getTestRunSession();
+		if (session != null)
+			session.setLazilyImported();
+		return session;
+	}
+
 	/**
 	 * Imports a test run session from the given URL.
 	 *
@@ -473,6 +536,40 @@ public final class JUnitModel {
 		}
 	}
 
+	/**
+	 * Stores the given test run session in the compact format of the test run history.
+	 *
+	 * @param testRunSession the test run session
+	 * @param file the destination
+	 * @throws CoreException if an error occurred
+	 * @see TestRunSessionStore
+	 */
+	public static void storeTestRunSession(TestRunSession testRunSession, File file) throws CoreException {
+		try {
+			TestRunSessionStore.write(testRunSession, file);
+		} catch (IOException e) {
+			throwExportError(file, e);
+		}
+	}
+
+	/**
+	 * Loads a test run session stored by {@link #storeTestRunSession(TestRunSession, File)}.
+	 *
+	 * @param file the stored test run session
+	 * @param testRunSession the test run session to load the test tree into
+	 * @throws CoreException if an error occurred
+	 */
+	public static void loadIntoTestRunSession(File file, TestRunSession testRunSession) throws CoreException {
+		try {
+			TestRunSessionStore.read(file, testRunSession);
+		} catch (IOException e) {
+			throwImportError(file, e);
+		} catch (RuntimeException e) {
+			// corrupt file
+			throwImportError(file, e);
+		}
+	}
+
 	/**
 	 * Exports the given test run session.
 	 *
@@ -27,6 +27,8 @@ import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.SafeRunner;
 
 import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.JUnitPreferencesConstants;
+import org.eclipse.jdt.internal.junit.runner.BinaryMessageReader;
 import org.eclipse.jdt.internal.junit.runner.MessageIds;
 
 /**
@@ -120,6 +122,10 @@ public class RemoteTestRunnerClient {
 	                scanOldReranMessage(arg);
 	            return this;
 	        }
+	        if (message.startsWith(MessageIds.PROTOCOL_OFFER)) {
+	            answerProtocolOffer(arg);
+	            return this;
+	        }
 	        return this;
 	    }
 	}
@@ -219,6 +225,11 @@ public class RemoteTestRunnerClient {
 	private int fPort= -1;
 	private PrintWriter fWriter;
 	private PushbackReader fPushbackReader;
+	/**
+	 * The reader for messages of the binary protocol, or <code>null</code> if
+	 * the text protocol is used
+	 */
+	private BinaryMessageReader fBinaryReader;
 	private String fLastLineDelimiter;
 	/**
 	 * The protocol version
@@ -267,7 +278,7 @@ public class RemoteTestRunnerClient {
 	                fWriter= new PrintWriter(new OutputStreamWriter(fSocket.getOutputStream()), true);
 	            }
 				String message;
-				while(fPushbackReader != null && (message= readMessage(fPushbackReader)) != null)
+				while(fPushbackReader != null && (message= readMessage()) != null)
 					receiveMessage(message);
 			} catch (SocketException e) {
 				notifyTestRunTerminated();
@@ -317,6 +328,13 @@ public class RemoteTestRunnerClient {
 			fWriter.close();
 			fWriter= null;
 		}
+		try {
+			if (fBinaryReader != null) {
+				fBinaryReader.close();
+				fBinaryReader= null;
+			}
+		} catch(IOException e) {
+		}
 		try {
 			if (fPushbackReader != null) {
 				fPushbackReader.close();
@@ -344,6 +362,45 @@ public class RemoteTestRunnerClient {
 		return fSocket != null;
 	}
 
+	private String readMessage() throws IOException {
+		BinaryMessageReader binaryReader= fBinaryReader;
+		if (binaryReader == null)
+			return readMessage(fPushbackReader);
+
+		String message= binaryReader.readMessage();
+		if (message == null) {
+			fLastLineDelimiter= null;
+		} else {
+			// a frame contains the complete message, e.g. a whole stack trace
+			fLastLineDelimiter= message.indexOf("\r\n") != -1 ? "\r\n" : "\n"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		return message;
+	}
+
+	/**
+	 * Answers a protocol offer of the RemoteTestRunner. The binary protocol is accepted
+	 * if it is enabled in the preferences. Once accepted, all further messages are read
+	 * as frames.
+	 *
+	 * @param protocol the offered protocol
+	 */
+	private void answerProtocolOffer(String protocol) {
+		String answer= MessageIds.TEXT_PROTOCOL;
+		if (MessageIds.BINARY_PROTOCOL.equals(protocol) && JUnitPreferencesConstants.getBinaryProtocol() && fSocket != null) {
+			try {
+				// the runner does not send anything before it received the answer, so nothing is buffered in fPushbackReader
+				fBinaryReader= new BinaryMessageReader(fSocket.getInputStream());
+				answer= MessageIds.BINARY_PROTOCOL;
+			} catch (IOException e) {
+				JUnitCorePlugin.log(e);
+			}
+		}
+		if (fDebug)
+			System.out.println("protocol " + answer); //$NON-NLS-1$
+		fWriter.println(MessageIds.PROTOCOL_ANSWER + answer);
+		fWriter.flush();
+	}
+
 	private String readMessage(PushbackReader in) throws IOException {
 		StringBuffer buf= new StringBuffer(128);
 		int ch;
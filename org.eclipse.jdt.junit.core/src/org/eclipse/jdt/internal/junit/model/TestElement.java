@@ -171,6 +171,10 @@ public abstract class TestElement implements ITestElement {
 	private String fTrace;
 	private String fExpected;
 	private String fActual;
+	/**
+	 * The failure to read the trace, expected and actual value from, or <code>null</code>.
+	 */
+	private TestRunSessionStore.StoredFailure fStoredFailure;
 
 	/**
 	 * Running time in seconds. Contents depend on the current {@link #getProgressState()}:
@@ -236,6 +240,7 @@ public abstract class TestElement implements ITestElement {
 	public FailureTrace getFailureTrace() {
 		Result testResult= getTestResult(false);
 		if (testResult == Result.ERROR || testResult == Result.FAILURE) {
+			loadStoredFailure();
 			return new FailureTrace(fTrace, fExpected, fActual);
 		}
 		return null;
@@ -277,6 +282,7 @@ public abstract class TestElement implements ITestElement {
 	}
 
 	public void setStatus(Status status, String trace, String expected, String actual) {
+		loadStoredFailure();
 		if (trace != null && fTrace != null) {
 			//don't overwrite first trace if same test run logs multiple errors
 			fTrace= fTrace + trace;
@@ -288,23 +294,49 @@ public abstract class TestElement implements ITestElement {
 		setStatus(status);
 	}
 
+	/**
+	 * Sets the status of this element. The failure is read from the stored test run session when
+	 * it is requested.
+	 *
+	 * @param status the status
+	 * @param storedFailure the stored failure
+	 */
+	void setStatus(Status status, TestRunSessionStore.StoredFailure storedFailure) {
+		fStoredFailure= storedFailure;
+		setStatus(status);
+	}
+
+	private synchronized void loadStoredFailure() {
+		if (fStoredFailure == null)
+			return;
+		String[] failure= fStoredFailure.load();
+		fTrace= failure[0];
+		fExpected= failure[1];
+		fActual= failure[2];
+		fStoredFailure= null;
+	}
+
 	public Status getStatus() {
 		return fStatus;
 	}
 
 	public String getTrace() {
+		loadStoredFailure();
 		return fTrace;
 	}
 
 	public String getExpected() {
+		loadStoredFailure();
 		return fExpected;
 	}
 
 	public String getActual() {
+		loadStoredFailure();
 		return fActual;
 	}
 
 	public boolean isComparisonFailure() {
+		loadStoredFailure();
 		return fExpected != null && fActual != null;
 	}
 
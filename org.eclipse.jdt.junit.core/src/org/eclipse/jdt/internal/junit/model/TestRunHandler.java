@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 IBM Corporation and others.
+ * Copyright (c) 2007, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,6 +14,7 @@
 
 package org.eclipse.jdt.internal.junit.model;
 
+import java.util.Iterator;
 import java.util.Stack;
 
 import org.xml.sax.Attributes;
@@ -61,6 +62,37 @@ public class TestRunHandler extends DefaultHandler {
 	private IProgressMonitor fMonitor;
 	private int fLastReportedLine;
 
+	/**
+	 * The index for a lazy import, or <code>null</code>.
+	 */
+	private TestRunIndex fIndex;
+	private Stack/*<LazySuite>*/ fLazySuites;
+
+	/**
+	 * The suite whose children are loaded from a lazily imported file, or <code>null</code>.
+	 */
+	private TestSuiteElement fLoadedSuite;
+	private Iterator/*<TestSuiteElement>*/ fChildSuites;
+	private int fDepth;
+	/**
+	 * The depth of the nested suite whose contents are skipped while loading, or -1.
+	 */
+	private int fSkippedSuiteDepth= -1;
+
+	/**
+	 * Test cases of a suite that are only counted during a lazy import.
+	 */
+	private static class LazySuite {
+		final long fContentOffset;
+		int fChildCount;
+		int fTestCaseCount;
+		Status fTestCasesStatus;
+
+		public LazySuite(long contentOffset) {
+			fContentOffset= contentOffset;
+		}
+	}
+
 	public TestRunHandler() {
 
 	}
@@ -73,6 +105,34 @@ public class TestRunHandler extends DefaultHandler {
 		fTestRunSession= testRunSession;
 	}
 
+	/**
+	 * Creates a handler for a lazy import. Test cases are not kept in the test run session. Their
+	 * suites load them from the index when needed.
+	 *
+	 * @param index the index of the parsed file
+	 */
+	public TestRunHandler(TestRunIndex index) {
+		fIndex= index;
+		fLazySuites= new Stack();
+	}
+
+	/**
+	 * Creates a handler that loads the children of a lazily imported suite from the suite's
+	 * contents. The test cases get the ids that the indexing handler has assigned to them, and
+	 * are registered with the test run session. The nested suites are taken from the suites that
+	 * have been created by the indexing handler.
+	 *
+	 * @param testRunSession the lazily imported test run session
+	 * @param suite the suite, must be empty
+	 * @param childSuites the nested suites of the suite, in document order
+	 */
+	public TestRunHandler(TestRunSession testRunSession, TestSuiteElement suite, Iterator childSuites) {
+		fTestRunSession= testRunSession;
+		fLoadedSuite= suite;
+		fChildSuites= childSuites;
+		fId= Integer.parseInt(suite.getId()) + 1;
+	}
+
 	public void setDocumentLocator(Locator locator) {
 		fLocator= locator;
 	}
@@ -91,7 +151,19 @@ public class TestRunHandler extends DefaultHandler {
 		}
 		if (Thread.interrupted())
 			throw new OperationCanceledException();
-		
+
+		long contentOffset= -1;
+		if (fIndex != null && fLocator != null) {
+			if (qName.equals(IXMLTags.NODE_TESTSUITE))
+				contentOffset= fIndex.getContentOffset(fLocator.getLineNumber(), fLocator.getColumnNumber());
+			else
+				fIndex.advance(fLocator.getLineNumber(), fLocator.getColumnNumber());
+		}
+
+		fDepth++;
+		if (fLoadedSuite != null && startLoadedSuiteElement(qName))
+			return;
+
 		if (qName.equals(IXMLTags.NODE_TESTRUN)) {
 			if (fTestRunSession == null) {
 				String name= attributes.getValue(IXMLTags.ATTR_NAME);
@@ -125,9 +197,15 @@ public class TestRunHandler extends DefaultHandler {
 
 			String pack= attributes.getValue(IXMLTags.ATTR_PACKAGE);
 			String suiteName= pack == null ? name : pack + "." + name; //$NON-NLS-1$
+			countLazyChild();
 			fTestSuite= (TestSuiteElement) fTestRunSession.createTestElement(fTestSuite, getNextId(), suiteName, true, 0);
 			readTime(fTestSuite, attributes);
 			fNotRun.push(Boolean.valueOf(attributes.getValue(IXMLTags.ATTR_INCOMPLETE)));
+			if (fIndex != null) {
+				if (contentOffset == -1)
+					throw new TestRunIndex.IndexException("No document locator"); //$NON-NLS-1$
+				fLazySuites.push(new LazySuite(contentOffset));
+			}
 
 		} else if (qName.equals(IXMLTags.NODE_PROPERTIES) || qName.equals(IXMLTags.NODE_PROPERTY)) {
 			// not interested
@@ -135,7 +213,12 @@ public class TestRunHandler extends DefaultHandler {
 		} else if (qName.equals(IXMLTags.NODE_TESTCASE)) {
 			String name= attributes.getValue(IXMLTags.ATTR_NAME);
 			String classname= attributes.getValue(IXMLTags.ATTR_CLASSNAME);
-			fTestCase= (TestCaseElement) fTestRunSession.createTestElement(fTestSuite, getNextId(), name + '(' + classname + ')', false, 0);
+			if (countLazyChild()) {
+				// only kept until the end of the test case, see #handleTestElementEnd(TestElement)
+				fTestCase= new TestCaseElement(fTestSuite, getNextId(), name + '(' + classname + ')');
+			} else {
+				fTestCase= (TestCaseElement) fTestRunSession.createTestElement(fTestSuite, getNextId(), name + '(' + classname + ')', false, 0);
+			}
 			fNotRun.push(Boolean.valueOf(attributes.getValue(IXMLTags.ATTR_INCOMPLETE)));
 			fTestCase.setIgnored(Boolean.valueOf(attributes.getValue(IXMLTags.ATTR_IGNORED)).booleanValue());
 			readTime(fTestCase, attributes);
@@ -170,6 +253,47 @@ public class TestRunHandler extends DefaultHandler {
 		}
 	}
 
+	/**
+	 * Handles the elements that are not read again when the children of a suite are loaded.
+	 *
+	 * @param qName the name of the started element
+	 * @return <code>true</code> iff the element has been handled
+	 */
+	private boolean startLoadedSuiteElement(String qName) {
+		boolean isTestElement= qName.equals(IXMLTags.NODE_TESTSUITE) || qName.equals(IXMLTags.NODE_TESTCASE);
+		if (fSkippedSuiteDepth != -1) {
+			// keep the ids in sync with the indexing handler
+			if (isTestElement)
+				getNextId();
+			return true;
+		}
+		if (fDepth == 1) {
+			fTestSuite= fLoadedSuite;
+			return true;
+		}
+		if (fDepth == 2 && qName.equals(IXMLTags.NODE_TESTSUITE)) {
+			getNextId();
+			if (fChildSuites.hasNext())
+				fLoadedSuite.addChild((TestElement) fChildSuites.next());
+			fSkippedSuiteDepth= fDepth;
+			return true;
+		}
+		// the failures and properties of the suite have been read by the indexing handler
+		return fTestCase == null && !qName.equals(IXMLTags.NODE_TESTCASE);
+	}
+
+	/**
+	 * Counts a child of the current suite in a lazy import.
+	 *
+	 * @return <code>true</code> iff the current suite is loaded lazily
+	 */
+	private boolean countLazyChild() {
+		if (fIndex == null || fLazySuites.isEmpty())
+			return false;
+		((LazySuite) fLazySuites.peek()).fChildCount++;
+		return true;
+	}
+
 	private void readTime(TestElement testElement, Attributes attributes) {
 		String timeString= attributes.getValue(IXMLTags.ATTR_TIME);
 		if (timeString != null) {
@@ -181,6 +305,9 @@ public class TestRunHandler extends DefaultHandler {
 	}
 
 	public void characters(char[] ch, int start, int length) throws SAXException {
+		if (fIndex != null && fLocator != null)
+			fIndex.advance(fLocator.getLineNumber(), fLocator.getColumnNumber());
+
 		if (fInExpected) {
 			fExpectedBuffer.append(ch, start, length);
 
@@ -193,6 +320,22 @@ public class TestRunHandler extends DefaultHandler {
 	}
 
 	public void endElement(String uri, String localName, String qName) throws SAXException {
+		if (fIndex != null && fLocator != null)
+			fIndex.advance(fLocator.getLineNumber(), fLocator.getColumnNumber());
+
+		int depth= fDepth--;
+		if (fLoadedSuite != null) {
+			if (depth == 1)
+				throw new TestRunIndex.SuiteEndReachedException();
+			if (fSkippedSuiteDepth != -1) {
+				if (depth == fSkippedSuiteDepth)
+					fSkippedSuiteDepth= -1;
+				return;
+			}
+			if (fTestCase == null)
+				return;
+		}
+
 		if (qName.equals(IXMLTags.NODE_TESTRUN)) {
 			// OK
 
@@ -245,12 +388,39 @@ public class TestRunHandler extends DefaultHandler {
 
 	private void handleTestElementEnd(TestElement testElement) {
 		boolean completed= fNotRun.pop() != Boolean.TRUE;
+		if (fLoadedSuite != null) {
+			// the counters of the session already include the loaded test cases
+			if (completed && !testElement.getStatus().isErrorOrFailure())
+				testElement.setStatus(Status.OK);
+			return;
+		}
 		fTestRunSession.registerTestEnded(testElement, completed);
+
+		if (fIndex != null) {
+			if (testElement instanceof TestCaseElement) {
+				if (fLazySuites.isEmpty())
+					return;
+				LazySuite lazySuite= (LazySuite) fLazySuites.peek();
+				Status status= testElement.getStatus();
+				lazySuite.fTestCasesStatus= lazySuite.fTestCasesStatus == null ? status : Status.combineStatus(lazySuite.fTestCasesStatus, status);
+				lazySuite.fTestCaseCount++;
+				testElement.getParent().removeChild(testElement);
+			} else {
+				LazySuite lazySuite= (LazySuite) fLazySuites.pop();
+				TestSuiteElement suite= (TestSuiteElement) testElement;
+				suite.setIdLimit(fId);
+				if (lazySuite.fTestCaseCount > 0)
+					suite.setLazyChildren(fIndex, lazySuite.fContentOffset, lazySuite.fChildCount, lazySuite.fTestCasesStatus);
+			}
+		}
 	}
 
 	private void handleFailure(TestElement testElement) {
 		if (fFailureBuffer != null) {
-			fTestRunSession.registerTestFailureStatus(testElement, fStatus, fFailureBuffer.toString(), toString(fExpectedBuffer), toString(fActualBuffer));
+			if (fLoadedSuite != null)
+				testElement.setStatus(fStatus, fFailureBuffer.toString(), toString(fExpectedBuffer), toString(fActualBuffer));
+			else
+				fTestRunSession.registerTestFailureStatus(testElement, fStatus, fFailureBuffer.toString(), toString(fExpectedBuffer), toString(fActualBuffer));
 			fFailureBuffer= null;
 			fExpectedBuffer= null;
 			fActualBuffer= null;
@@ -271,6 +441,11 @@ public class TestRunHandler extends DefaultHandler {
 		throw new SAXException(msg);
 	}
 
+	public void endDocument() throws SAXException {
+		if (fIndex != null)
+			fIndex.indexingDone(fTestRunSession);
+	}
+
 	public void error(SAXParseException e) throws SAXException {
 		throw e;
 	}
@@ -0,0 +1,382 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Index of a test run file that is imported lazily.
+ * <p>
+ * While the file is parsed for the first time, the {@link TestRunHandler} records the byte offset
+ * of the contents of every test suite that directly contains test cases. The test cases are only
+ * counted, and the {@link TestSuiteElement} materializes its children on demand by parsing the
+ * contents of the suite again, starting at the recorded offset.
+ * </p>
+ * <p>
+ * Only files in UTF-8 or in a single byte encoding are indexed. The file must not change
+ * while the test run session is in use.
+ * </p>
+ */
+class TestRunIndex {
+
+	/**
+	 * Thrown by the indexing {@link TestRunHandler} if the position of an element could not be
+	 * determined. The file has to be imported eagerly in that case.
+	 */
+	static class IndexException extends SAXException {
+		private static final long serialVersionUID= 1L;
+
+		public IndexException(String message) {
+			super(message);
+		}
+	}
+
+	/**
+	 * Tells whether the given exception has been caused by an {@link IndexException}.
+	 *
+	 * @param e the exception thrown by the parser
+	 * @return <code>true</code> iff the file has to be imported eagerly
+	 */
+	static boolean isIndexException(SAXException e) {
+		return e instanceof IndexException || e.getException() instanceof IndexException;
+	}
+
+	/**
+	 * Thrown by the loading {@link TestRunHandler} to stop parsing a suite's contents after the end
+	 * tag of the suite.
+	 */
+	static class SuiteEndReachedException extends SAXException {
+		private static final long serialVersionUID= 1L;
+
+		public SuiteEndReachedException() {
+			super("end of suite"); //$NON-NLS-1$
+		}
+	}
+
+	private static final String UTF_8= "UTF-8"; //$NON-NLS-1$
+
+	private final File fFile;
+	private final String fEncoding;
+	private final boolean fUTF8;
+	private final int fBOMLength;
+
+	/**
+	 * Tracks the position of the parser during the first pass, or <code>null</code>.
+	 */
+	private PositionTrackingInputStream fTracker;
+	private TestRunSession fSession;
+
+	private TestRunIndex(File file, String encoding, int bomLength) {
+		fFile= file;
+		fEncoding= encoding;
+		fUTF8= UTF_8.equals(encoding);
+		fBOMLength= bomLength;
+	}
+
+	/**
+	 * Creates an index for the given file.
+	 *
+	 * @param file the test run file
+	 * @return the index, or <code>null</code> if the encoding of the file is not supported
+	 * @throws IOException if the file could not be read
+	 */
+	public static TestRunIndex create(File file) throws IOException {
+		byte[] prolog= new byte[256];
+		int length= 0;
+		InputStream in= new FileInputStream(file);
+		try {
+			int read;
+			while (length < prolog.length && (read= in.read(prolog, length, prolog.length - length)) != -1)
+				length+= read;
+		} finally {
+			in.close();
+		}
+
+		if (length >= 3 && (prolog[0] & 0xff) == 0xEF && (prolog[1] & 0xff) == 0xBB && (prolog[2] & 0xff) == 0xBF)
+			return new TestRunIndex(file, UTF_8, 3);
+		if (length >= 2 && (prolog[0] == 0 || prolog[1] == 0 || (prolog[0] & 0xff) == 0xFE || (prolog[0] & 0xff) == 0xFF))
+			return null; // UTF-16 or UTF-32
+
+		String encoding= getDeclaredEncoding(new String(prolog, 0, length, "ISO-8859-1")); //$NON-NLS-1$
+		if (encoding == null || UTF_8.equalsIgnoreCase(encoding) || "UTF8".equalsIgnoreCase(encoding)) //$NON-NLS-1$
+			return new TestRunIndex(file, UTF_8, 0);
+		try {
+			Charset charset= Charset.forName(encoding);
+			if (charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1.0f)
+				return new TestRunIndex(file, encoding, 0);
+		} catch (IllegalArgumentException e) {
+			// unsupported encoding
+		}
+		return null;
+	}
+
+	private static String getDeclaredEncoding(String prolog) {
+		if (!prolog.startsWith("<?xml")) //$NON-NLS-1$
+			return null;
+		int end= prolog.indexOf("?>"); //$NON-NLS-1$
+		if (end == -1)
+			return null;
+		String declaration= prolog.substring(0, end);
+		int index= declaration.indexOf("encoding"); //$NON-NLS-1$
+		if (index == -1)
+			return null;
+		index= declaration.indexOf('=', index);
+		if (index == -1)
+			return null;
+		index++;
+		while (index < declaration.length() && Character.isWhitespace(declaration.charAt(index)))
+			index++;
+		if (index == declaration.length())
+			return null;
+		char quote= declaration.charAt(index);
+		int endQuote= declaration.indexOf(quote, index + 1);
+		if (endQuote == -1)
+			return null;
+		return declaration.substring(index + 1, endQuote);
+	}
+
+	/**
+	 * Opens the file for the indexing pass.
+	 *
+	 * @return the stream to be parsed by the indexing {@link TestRunHandler}
+	 * @throws IOException if the file could not be opened
+	 */
+	public InputStream openIndexingStream() throws IOException {
+		fTracker= new PositionTrackingInputStream(new FileInputStream(fFile), fUTF8, fBOMLength);
+		return fTracker;
+	}
+
+	/**
+	 * Advances the tracked parser position, so that the bytes before that position need not be
+	 * retained any longer.
+	 *
+	 * @param line the line reported by the parser's locator
+	 * @param column the column reported by the parser's locator
+	 */
+	public void advance(int line, int column) {
+		fTracker.advance(line, column);
+	}
+
+	/**
+	 * Returns the byte offset of the contents of the element whose start tag ends at the given position.
+	 *
+	 * @param line the line reported by the parser's locator in <code>startElement</code>
+	 * @param column the column reported by the parser's locator in <code>startElement</code>
+	 * @return the offset of the first byte after the start tag
+	 * @throws IndexException if the position could not be determined
+	 */
+	public long getContentOffset(int line, int column) throws IndexException {
+		long offset= fTracker.advance(line, column);
+		if (offset == -1 || fTracker.getByteBefore(offset) != '>')
+			throw new IndexException("Cannot determine start tag end at line " + line + ", column " + column); //$NON-NLS-1$ //$NON-NLS-2$
+		return offset;
+	}
+
+	/**
+	 * Ends the indexing pass.
+	 *
+	 * @param session the test run session that has been created by the indexing pass
+	 */
+	public void indexingDone(TestRunSession session) {
+		fTracker= null;
+		fSession= session;
+	}
+
+	/**
+	 * @return the test run session that has been created by the indexing pass
+	 */
+	public TestRunSession getTestRunSession() {
+		return fSession;
+	}
+
+	/**
+	 * Parses the children of the given suite and adds them to the suite. The test cases get the
+	 * ids that they had during the indexing pass and are registered with the test run session.
+	 *
+	 * @param suite the suite, must be empty
+	 * @param contentOffset the byte offset of the suite's contents
+	 * @param childSuites the suites that have been created for the nested test suites,
+	 *            in document order
+	 * @throws IOException if reading the file failed
+	 * @throws SAXException if the file could not be parsed
+	 * @throws ParserConfigurationException if no parser is available
+	 */
+	public void loadChildren(TestSuiteElement suite, long contentOffset, Iterator childSuites) throws IOException, SAXException, ParserConfigurationException {
+		FileInputStream in= new FileInputStream(fFile);
+		try {
+			in.getChannel().position(contentOffset);
+			// re-open the suite's element in a document of its own:
+			String prefix= "<?xml version=\"1.0\" encoding=\"" + fEncoding + "\"?><" + IXMLTags.NODE_TESTSUITE + '>'; //$NON-NLS-1$ //$NON-NLS-2$
+			InputStream fragment= new SequenceInputStream(new ByteArrayInputStream(prefix.getBytes("US-ASCII")), in); //$NON-NLS-1$
+
+			SAXParser parser= SAXParserFactory.newInstance().newSAXParser();
+			parser.parse(fragment, new TestRunHandler(fSession, suite, childSuites));
+		} catch (SAXException e) {
+			if (!(e instanceof SuiteEndReachedException || e.getException() instanceof SuiteEndReachedException))
+				throw e;
+			// done
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Input stream that maps the line and column positions reported by the parser to byte offsets.
+	 * Only the bytes between the last mapped position and the bytes read by the parser are retained.
+	 */
+	private static class PositionTrackingInputStream extends FilterInputStream {
+
+		private final boolean fUTF8;
+
+		private byte[] fWindow= new byte[64 * 1024];
+		/**
+		 * Offset of the first byte in the window.
+		 */
+		private long fWindowStart;
+		private int fWindowLength;
+
+		private long fOffset;
+		private int fLine= 1;
+		private int fColumn= 1;
+		private boolean fAfterCR;
+
+		public PositionTrackingInputStream(InputStream in, boolean utf8, int bomLength) {
+			super(in);
+			fUTF8= utf8;
+			// the byte order mark is not part of the document's first line
+			fOffset= bomLength;
+		}
+
+		public int read() throws IOException {
+			int b= super.read();
+			if (b != -1)
+				append(new byte[] { (byte) b }, 0, 1);
+			return b;
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read= super.read(b, off, len);
+			if (read > 0)
+				append(b, off, read);
+			return read;
+		}
+
+		public long skip(long n) throws IOException {
+			byte[] buffer= new byte[(int) Math.min(n, 8192)];
+			int read= read(buffer, 0, buffer.length);
+			return read == -1 ? 0 : read;
+		}
+
+		public boolean markSupported() {
+			return false;
+		}
+
+		private void append(byte[] b, int off, int len) {
+			if (fWindowLength + len > fWindow.length) {
+				// keep one byte before the current position, see #getByteBefore(long)
+				int discard= (int) Math.max(0, fOffset - 1 - fWindowStart);
+				int retained= fWindowLength - discard;
+				byte[] window= fWindow;
+				if (retained + len > window.length)
+					window= new byte[Math.max(2 * window.length, retained + len)];
+				System.arraycopy(fWindow, discard, window, 0, retained);
+				fWindow= window;
+				fWindowStart+= discard;
+				fWindowLength= retained;
+			}
+			System.arraycopy(b, off, fWindow, fWindowLength, len);
+			fWindowLength+= len;
+		}
+
+		/**
+		 * Advances to the given line and column.
+		 *
+		 * @param line the line, 1-based
+		 * @param column the column, 1-based
+		 * @return the byte offset of the position, or -1 if the position is unknown
+		 */
+		public long advance(int line, int column) {
+			while (fLine < line || (fLine == line && fColumn < column)) {
+				int index= (int) (fOffset - fWindowStart);
+				if (index >= fWindowLength)
+					return -1;
+
+				int b= fWindow[index] & 0xff;
+				if (b == '\n') {
+					fOffset++;
+					if (fAfterCR) {
+						fAfterCR= false; // CR LF is a single line break
+					} else {
+						fLine++;
+						fColumn= 1;
+					}
+					continue;
+				}
+				fAfterCR= false;
+				if (b == '\r') {
+					fOffset++;
+					fLine++;
+					fColumn= 1;
+					fAfterCR= true;
+					continue;
+				}
+
+				int length= 1;
+				int chars= 1;
+				if (fUTF8) {
+					if (b >= 0xF0) {
+						length= 4;
+						chars= 2; // surrogate pair
+					} else if (b >= 0xE0) {
+						length= 3;
+					} else if (b >= 0xC0) {
+						length= 2;
+					}
+				}
+				if (index + length > fWindowLength)
+					return -1;
+				fOffset+= length;
+				fColumn+= chars;
+			}
+			if (fLine != line || fColumn != column)
+				return -1; // already behind the position, or column inside a character
+			return fOffset;
+		}
+
+		/**
+		 * Returns the byte before the given offset.
+		 *
+		 * @param offset the offset
+		 * @return the byte or -1 if it is not available
+		 */
+		public int getByteBefore(long offset) {
+			int index= (int) (offset - 1 - fWindowStart);
+			if (index < 0 || index >= fWindowLength)
+				return -1;
+			return fWindow[index];
+		}
+	}
+}
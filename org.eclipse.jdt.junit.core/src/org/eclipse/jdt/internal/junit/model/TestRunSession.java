@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -98,6 +98,11 @@ public class TestRunSession implements ITestRunSession {
 	 */
 	private TestSuiteElement fUnrootedSuite;
 
+	/**
+	 * <code>true</code> iff the test cases are loaded from the imported file on demand.
+	 */
+	private boolean fLazilyImported;
+
  	/**
  	 * Number of tests started during this test run.
  	 */
@@ -218,6 +223,14 @@ public class TestRunSession implements ITestRunSession {
 		fIdToTest= new HashMap();
 	}
 
+	void restoreCounts(int totalCount, int startedCount, int failureCount, int errorCount, int ignoredCount) {
+		fTotalCount= totalCount;
+		fStartedCount= startedCount;
+		fFailureCount= failureCount;
+		fErrorCount= errorCount;
+		fIgnoredCount= ignoredCount;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.eclipse.jdt.junit.ITestRunSession#getProgressState()
 	 */
@@ -352,10 +365,16 @@ public class TestRunSession implements ITestRunSession {
 				return;
 		}
 
+		if (fLazilyImported) {
+			// the suites can load their test cases again
+			fTestRoot.unloadChildren();
+			return;
+		}
+
 		try {
 			File swapFile= getSwapFile();
 
-			JUnitModel.exportTestRunSession(this, swapFile);
+			JUnitModel.storeTestRunSession(this, swapFile);
 			fTestResult= fTestRoot.getTestResult(true);
 			fTestRoot= null;
 			fTestRunnerClient= null;
@@ -370,6 +389,17 @@ public class TestRunSession implements ITestRunSession {
 		}
 	}
 
+	/**
+	 * @return <code>true</code> iff the test cases of this imported session are loaded on demand
+	 */
+	public boolean isLazilyImported() {
+		return fLazilyImported;
+	}
+
+	void setLazilyImported() {
+		fLazilyImported= true;
+	}
+
 	public boolean isStarting() {
 		return getStartTime() == 0 && fLaunch != null && ! fLaunch.isTerminated();
 	}
@@ -384,7 +414,7 @@ public class TestRunSession implements ITestRunSession {
 	private File getSwapFile() throws IllegalStateException {
 		File historyDir= JUnitCorePlugin.getHistoryDirectory();
 		String isoTime= new SimpleDateFormat("yyyyMMdd-HHmmss.SSS").format(new Date(getStartTime())); //$NON-NLS-1$
-		String swapFileName= isoTime + ".xml"; //$NON-NLS-1$
+		String swapFileName= isoTime + ".session"; //$NON-NLS-1$
 		return new File(historyDir, swapFileName);
 	}
 
@@ -394,7 +424,7 @@ public class TestRunSession implements ITestRunSession {
 			return;
 
 		try {
-			JUnitModel.importIntoTestRunSession(getSwapFile(), this);
+			JUnitModel.loadIntoTestRunSession(getSwapFile(), this);
 		} catch (IllegalStateException e) {
 			JUnitCorePlugin.log(e);
 			fTestRoot= new TestRoot(this);
@@ -491,7 +521,26 @@ public class TestRunSession implements ITestRunSession {
 	}
 
 	public TestElement getTestElement(String id) {
-		return (TestElement) fIdToTest.get(id);
+		TestElement testElement= (TestElement) fIdToTest.get(id);
+		if (testElement == null && fLazilyImported && fTestRoot != null) {
+			// the test case may not have been loaded yet, or it has been unloaded
+			try {
+				fTestRoot.loadChildrenContaining(Integer.parseInt(id));
+			} catch (NumberFormatException e) {
+				return null;
+			}
+			testElement= (TestElement) fIdToTest.get(id);
+		}
+		return testElement;
+	}
+
+	/**
+	 * Removes an unloaded test case of a lazily imported session from the id map.
+	 *
+	 * @param testElement the test element
+	 */
+	void removeTestElement(TestElement testElement) {
+		fIdToTest.remove(testElement.getId());
 	}
 
 	private TestElement addTreeEntry(String treeEntry) {
@@ -791,7 +840,8 @@ public class TestRunSession implements ITestRunSession {
 		if (testResult == Result.ERROR || testResult == Result.FAILURE) {
 			failures.add(testElement);
 		}
-		if (testElement instanceof TestSuiteElement) {
+		if (testElement instanceof TestSuiteElement && (testResult == Result.ERROR || testResult == Result.FAILURE)) {
+			// suites without errors or failures have no failed children
 			TestSuiteElement testSuiteElement= (TestSuiteElement) testElement;
 			ITestElement[] children= testSuiteElement.getChildren();
 			for (int i= 0; i < children.length; i++) {
@@ -0,0 +1,361 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.eclipse.jdt.junit.model.ITestElement;
+
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.model.TestElement.Status;
+
+/**
+ * Compact binary format for the test run sessions in the test run history.
+ * <p>
+ * The file starts with the failure traces, followed by the test tree and the offset of the tree.
+ * Names in the tree are interned, and test elements only refer to the offsets of their failures,
+ * which are read when {@link TestElement#getTrace()} and friends are called. The XML format
+ * written by {@link TestRunSessionSerializer} is still used to export test runs.
+ * </p>
+ */
+public class TestRunSessionStore {
+
+	private static final int MAGIC= 0x4A545253; // "JTRS"
+	private static final int VERSION= 1;
+
+	private static final byte END= 0;
+	private static final byte SUITE= 1;
+	private static final byte CASE= 2;
+
+	private static final int FLAG_IGNORED= 1;
+	private static final int FLAG_FAILURE= 2;
+
+	private static final int NULL_STRING= -1;
+	private static final int NEW_STRING= -2;
+
+	private static final Status[] STATUSES= {
+			Status.NOT_RUN, Status.OK, Status.FAILURE, Status.ERROR, Status.RUNNING, Status.RUNNING_FAILURE, Status.RUNNING_ERROR };
+
+	/**
+	 * A failure that is read from a stored test run session on demand.
+	 */
+	static class StoredFailure {
+		private final File fFile;
+		private final long fOffset;
+
+		StoredFailure(File file, long offset) {
+			fFile= file;
+			fOffset= offset;
+		}
+
+		/**
+		 * @return the trace, the expected and the actual value; <code>null</code> elements if the
+		 *         failure could not be read
+		 */
+		String[] load() {
+			String[] failure= new String[3];
+			try {
+				RandomAccessFile file= new RandomAccessFile(fFile, "r"); //$NON-NLS-1$
+				try {
+					file.seek(fOffset);
+					for (int i= 0; i < failure.length; i++) {
+						int length= file.readInt();
+						if (length != NULL_STRING) {
+							byte[] bytes= new byte[length];
+							file.readFully(bytes);
+							failure[i]= new String(bytes, "UTF-8"); //$NON-NLS-1$
+						}
+					}
+				} finally {
+					file.close();
+				}
+			} catch (IOException e) {
+				JUnitCorePlugin.log(e);
+			}
+			return failure;
+		}
+	}
+
+	private TestRunSessionStore() {
+	}
+
+	/**
+	 * Writes the given session to the given file. The file is replaced after the session has
+	 * been written completely.
+	 *
+	 * @param session the test run session
+	 * @param file the destination
+	 * @throws IOException if writing failed
+	 */
+	public static void write(TestRunSession session, File file) throws IOException {
+		File tmpFile= new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+		Writer writer= new Writer(new FileOutputStream(tmpFile));
+		try {
+			writer.writeSession(session);
+		} finally {
+			writer.close();
+		}
+		if (file.exists() && !file.delete() || !tmpFile.renameTo(file)) {
+			tmpFile.delete();
+			throw new IOException("Could not rename " + tmpFile + " to " + file); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	/**
+	 * Reads the test tree of the given session from the given file. Failure traces are read
+	 * on demand, so the file must not be modified while the tree is in use.
+	 *
+	 * @param file the file written by {@link #write(TestRunSession, File)}
+	 * @param session the test run session
+	 * @throws IOException if reading failed
+	 */
+	public static void read(File file, TestRunSession session) throws IOException {
+		long treeOffset;
+		RandomAccessFile header= new RandomAccessFile(file, "r"); //$NON-NLS-1$
+		try {
+			if (header.length() < 16 || header.readInt() != MAGIC || header.readInt() != VERSION)
+				throw new IOException("Not a stored test run session: " + file); //$NON-NLS-1$
+			header.seek(header.length() - 8);
+			treeOffset= header.readLong();
+		} finally {
+			header.close();
+		}
+
+		FileInputStream in= new FileInputStream(file);
+		try {
+			in.getChannel().position(treeOffset);
+			new Reader(file, new DataInputStream(new BufferedInputStream(in, 64 * 1024)), session).readSession();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static int getStatusCode(Status status) {
+		for (int i= 0; i < STATUSES.length; i++) {
+			if (STATUSES[i] == status)
+				return i;
+		}
+		return 0;
+	}
+
+	private static class Writer {
+
+		private final DataOutputStream fOut;
+		private long fOffset;
+
+		private final ByteArrayOutputStream fTreeBytes= new ByteArrayOutputStream();
+		private final DataOutputStream fTree= new DataOutputStream(fTreeBytes);
+		private final HashMap/*<String, Integer>*/ fStrings= new HashMap();
+
+		public Writer(FileOutputStream out) {
+			fOut= new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+		}
+
+		public void writeSession(TestRunSession session) throws IOException {
+			fOut.writeInt(MAGIC);
+			fOut.writeInt(VERSION);
+			fOffset= 8;
+
+			writeString(session.getTestRunName());
+			fTree.writeInt(session.getTotalCount());
+			fTree.writeInt(session.getStartedCount());
+			fTree.writeInt(session.getFailureCount());
+			fTree.writeInt(session.getErrorCount());
+			fTree.writeInt(session.getIgnoredCount());
+
+			writeChildren(session.getTestRoot());
+
+			// the tree follows the failures
+			fTree.flush();
+			fTreeBytes.writeTo(fOut);
+			fOut.writeLong(fOffset);
+		}
+
+		private void writeChildren(TestSuiteElement suite) throws IOException {
+			ITestElement[] children= suite.getChildren();
+			for (int i= 0; i < children.length; i++) {
+				TestElement child= (TestElement) children[i];
+				if (child instanceof TestSuiteElement) {
+					TestSuiteElement childSuite= (TestSuiteElement) child;
+					fTree.writeByte(SUITE);
+					writeString(childSuite.getTestName());
+					writeElement(childSuite, childSuite.getSuiteStatus(), false);
+					writeChildren(childSuite);
+				} else {
+					TestCaseElement testCase= (TestCaseElement) child;
+					fTree.writeByte(CASE);
+					// method and class names are interned separately
+					String testName= testCase.getTestName();
+					int index= testName.indexOf('(');
+					if (index == -1)
+						index= testName.length();
+					writeString(testName.substring(0, index));
+					writeString(testName.substring(index));
+					writeElement(testCase, testCase.getStatus(), testCase.isIgnored());
+				}
+			}
+			fTree.writeByte(END);
+		}
+
+		private void writeElement(TestElement element, Status status, boolean ignored) throws IOException {
+			String trace= element.getTrace();
+			String expected= element.getExpected();
+			String actual= element.getActual();
+			boolean failure= trace != null || expected != null || actual != null;
+
+			int flags= 0;
+			if (ignored)
+				flags|= FLAG_IGNORED;
+			if (failure)
+				flags|= FLAG_FAILURE;
+			fTree.writeByte(getStatusCode(status));
+			fTree.writeByte(flags);
+			fTree.writeDouble(element.getElapsedTimeInSeconds());
+			if (failure) {
+				fTree.writeLong(fOffset);
+				writeFailureString(trace);
+				writeFailureString(expected);
+				writeFailureString(actual);
+			}
+		}
+
+		private void writeFailureString(String string) throws IOException {
+			if (string == null) {
+				fOut.writeInt(NULL_STRING);
+				fOffset+= 4;
+			} else {
+				byte[] bytes= string.getBytes("UTF-8"); //$NON-NLS-1$
+				fOut.writeInt(bytes.length);
+				fOut.write(bytes);
+				fOffset+= 4 + bytes.length;
+			}
+		}
+
+		private void writeString(String string) throws IOException {
+			if (string == null) {
+				fTree.writeInt(NULL_STRING);
+				return;
+			}
+			Integer index= (Integer) fStrings.get(string);
+			if (index != null) {
+				fTree.writeInt(index.intValue());
+			} else {
+				fStrings.put(string, new Integer(fStrings.size()));
+				byte[] bytes= string.getBytes("UTF-8"); //$NON-NLS-1$
+				fTree.writeInt(NEW_STRING);
+				fTree.writeInt(bytes.length);
+				fTree.write(bytes);
+			}
+		}
+
+		public void close() throws IOException {
+			fOut.close();
+		}
+	}
+
+	private static class Reader {
+
+		private final File fFile;
+		private final DataInputStream fIn;
+		private final TestRunSession fSession;
+
+		private final List/*<String>*/ fStrings= new ArrayList();
+		private int fNextId;
+
+		public Reader(File file, DataInputStream in, TestRunSession session) {
+			fFile= file;
+			fIn= in;
+			fSession= session;
+		}
+
+		public void readSession() throws IOException {
+			fSession.reset();
+
+			readString(); // test run name
+			int total= fIn.readInt();
+			int started= fIn.readInt();
+			int failures= fIn.readInt();
+			int errors= fIn.readInt();
+			int ignored= fIn.readInt();
+
+			readChildren(fSession.getTestRoot());
+			fSession.restoreCounts(total, started, failures, errors, ignored);
+		}
+
+		private void readChildren(TestSuiteElement parent) throws IOException {
+			byte kind;
+			while ((kind= fIn.readByte()) != END) {
+				if (kind == SUITE) {
+					String name= readString();
+					TestSuiteElement suite= (TestSuiteElement) fSession.createTestElement(parent, getNextId(), name, true, 0);
+					readElement(suite);
+					readChildren(suite);
+
+				} else if (kind == CASE) {
+					String name= readString() + readString();
+					TestCaseElement testCase= (TestCaseElement) fSession.createTestElement(parent, getNextId(), name, false, 0);
+					readElement(testCase);
+
+				} else {
+					throw new IOException("Invalid element kind: " + kind); //$NON-NLS-1$
+				}
+			}
+		}
+
+		private void readElement(TestElement element) throws IOException {
+			int statusCode= fIn.readByte();
+			int flags= fIn.readByte();
+			double time= fIn.readDouble();
+			if (statusCode < 0 || statusCode >= STATUSES.length)
+				throw new IOException("Invalid status: " + statusCode); //$NON-NLS-1$
+			Status status= STATUSES[statusCode];
+
+			if ((flags & FLAG_IGNORED) != 0)
+				((TestCaseElement) element).setIgnored(true);
+			if ((flags & FLAG_FAILURE) != 0)
+				element.setStatus(status, new StoredFailure(fFile, fIn.readLong()));
+			else if (status != Status.NOT_RUN)
+				element.setStatus(status);
+			element.setElapsedTimeInSeconds(time);
+		}
+
+		private String readString() throws IOException {
+			int index= fIn.readInt();
+			if (index == NULL_STRING)
+				return null;
+			if (index != NEW_STRING)
+				return (String) fStrings.get(index);
+
+			byte[] bytes= new byte[fIn.readInt()];
+			fIn.readFully(bytes);
+			String string= new String(bytes, "UTF-8"); //$NON-NLS-1$
+			fStrings.add(string);
+			return string;
+		}
+
+		private String getNextId() {
+			return Integer.toString(fNextId++);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,18 +11,42 @@
 
 package org.eclipse.jdt.internal.junit.model;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.xml.sax.SAXException;
+
 import org.eclipse.jdt.junit.model.ITestElement;
 import org.eclipse.jdt.junit.model.ITestSuiteElement;
 
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+
 
 public class TestSuiteElement extends TestElement implements ITestSuiteElement {
 
 	private List/*<TestElement>*/ fChildren;
 	private Status fChildrenStatus;
 
+	/**
+	 * The index to load the children from, or <code>null</code> if the children are always in memory.
+	 */
+	private TestRunIndex fIndex;
+	private long fContentOffset;
+	private int fChildCount;
+	/**
+	 * <code>false</code> iff {@link #fChildren} only contains the nested suites and the test cases
+	 * have to be loaded from {@link #fIndex}.
+	 */
+	private volatile boolean fChildrenLoaded= true;
+	/**
+	 * The first id after the ids of this suite's descendants in a lazily imported file, or -1.
+	 */
+	private int fIdLimit= -1;
+
 	public TestSuiteElement(TestSuiteElement parent, String id, String testName, int childrenCount) {
 		super(parent, id, testName);
 		fChildren= new ArrayList(childrenCount);
@@ -50,13 +74,139 @@ public class TestSuiteElement extends TestElement implements ITestSuiteElement {
 	 * @see org.eclipse.jdt.junit.model.ITestSuiteElement#getChildren()
 	 */
 	public ITestElement[] getChildren() {
+		if (!fChildrenLoaded)
+			loadChildren();
 		return (ITestElement[]) fChildren.toArray(new ITestElement[fChildren.size()]);
 	}
 
+	/**
+	 * Tells whether this suite has children. Unlike {@link #getChildren()}, this does not load
+	 * the children of a lazily imported suite.
+	 *
+	 * @return <code>true</code> iff this suite has children
+	 */
+	public boolean hasChildren() {
+		if (!fChildrenLoaded)
+			return fChildCount > 0;
+		return fChildren.size() > 0;
+	}
+
 	public void addChild(TestElement child) {
 		fChildren.add(child);
 	}
 
+	void removeChild(TestElement child) {
+		int last= fChildren.size() - 1;
+		if (last >= 0 && fChildren.get(last) == child)
+			fChildren.remove(last);
+		else
+			fChildren.remove(child);
+	}
+
+	/**
+	 * Makes this suite load its children from the given index when they are requested. Only the
+	 * nested suites are kept in memory.
+	 *
+	 * @param index the index of the imported file
+	 * @param contentOffset the byte offset of the suite's contents in the file
+	 * @param childCount the number of children
+	 * @param testCasesStatus the combined status of the test case children
+	 */
+	void setLazyChildren(TestRunIndex index, long contentOffset, int childCount, Status testCasesStatus) {
+		fIndex= index;
+		fContentOffset= contentOffset;
+		fChildCount= childCount;
+
+		Status cumulated= testCasesStatus;
+		for (int i= 0; i < fChildren.size(); i++) {
+			cumulated= Status.combineStatus(cumulated, ((TestElement) fChildren.get(i)).getStatus());
+		}
+		internalSetChildrenStatus(cumulated);
+		fChildrenLoaded= false;
+	}
+
+	/**
+	 * Sets the first id after the ids of this suite's descendants, so that a test element of a
+	 * lazily imported file can be found by its id.
+	 *
+	 * @param idLimit the next free id at the end of this suite
+	 */
+	void setIdLimit(int idLimit) {
+		fIdLimit= idLimit;
+	}
+
+	/**
+	 * Loads the children of the nested suite that contains the test element with the given id.
+	 *
+	 * @param id the id of a descendant of this suite that has been assigned while indexing
+	 */
+	void loadChildrenContaining(int id) {
+		TestSuiteElement suite= this;
+		TestSuiteElement nested;
+		while ((nested= suite.getNestedSuiteContaining(id)) != null)
+			suite= nested;
+		if (!suite.fChildrenLoaded)
+			suite.loadChildren();
+	}
+
+	private synchronized TestSuiteElement getNestedSuiteContaining(int id) {
+		for (int i= 0; i < fChildren.size(); i++) {
+			Object child= fChildren.get(i);
+			if (child instanceof TestSuiteElement && ((TestSuiteElement) child).containsId(id))
+				return (TestSuiteElement) child;
+		}
+		return null;
+	}
+
+	private boolean containsId(int id) {
+		return fIdLimit != -1 && Integer.parseInt(getId()) < id && id < fIdLimit;
+	}
+
+	private synchronized void loadChildren() {
+		if (fChildrenLoaded)
+			return;
+
+		List suites= fChildren;
+		Iterator childSuites= suites.iterator();
+		fChildren= new ArrayList(fChildCount);
+		try {
+			fIndex.loadChildren(this, fContentOffset, childSuites);
+		} catch (IOException e) {
+			JUnitCorePlugin.log(e);
+		} catch (SAXException e) {
+			JUnitCorePlugin.log(e);
+		} catch (ParserConfigurationException e) {
+			JUnitCorePlugin.log(e);
+		}
+		// don't lose nested suites if the file has been modified
+		while (childSuites.hasNext()) {
+			fChildren.add(childSuites.next());
+		}
+		fChildrenLoaded= true;
+	}
+
+	/**
+	 * Releases the loaded test cases of this suite and its nested suites, if they can be loaded again.
+	 */
+	synchronized void unloadChildren() {
+		boolean unload= fIndex != null && fChildrenLoaded;
+		List suites= new ArrayList();
+		for (int i= 0; i < fChildren.size(); i++) {
+			Object child= fChildren.get(i);
+			if (child instanceof TestSuiteElement) {
+				((TestSuiteElement) child).unloadChildren();
+				suites.add(child);
+			} else if (unload) {
+				// the test case gets the same id when it is loaded again
+				fIndex.getTestRunSession().removeTestElement((TestElement) child);
+			}
+		}
+		if (unload) {
+			fChildrenLoaded= false;
+			fChildren= suites;
+		}
+	}
+
 	public Status getStatus() {
 		Status suiteStatus= getSuiteStatus();
 		if (fChildrenStatus != null) {
@@ -89,6 +239,10 @@ public class TestSuiteElement extends TestElement implements ITestSuiteElement {
 	}
 
 	public void childChangedStatus(TestElement child, Status childStatus) {
+		if (!fChildrenLoaded) {
+			// status of the lazily loaded children is already known
+			return;
+		}
 		int childCount= fChildren.size();
 		if (child == fChildren.get(0) && childStatus.isRunning()) {
 			// is first child, and is running -> copy status
@@ -52,11 +52,13 @@ import org.eclipse.jdt.core.JavaCore;
 
 import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
 import org.eclipse.jdt.internal.junit.JUnitMessages;
+import org.eclipse.jdt.internal.junit.JUnitPreferencesConstants;
 import org.eclipse.jdt.internal.junit.Messages;
 import org.eclipse.jdt.internal.junit.launcher.ITestKind;
 import org.eclipse.jdt.internal.junit.launcher.JUnitLaunchConfigurationConstants;
 import org.eclipse.jdt.internal.junit.launcher.JUnitRuntimeClasspathEntry;
 import org.eclipse.jdt.internal.junit.launcher.TestKindRegistry;
+import org.eclipse.jdt.internal.junit.runner.MessageIds;
 import org.eclipse.jdt.internal.junit.util.CoreTestSearchEngine;
 import org.eclipse.jdt.internal.junit.util.IJUnitStatusConstants;
 
@@ -290,6 +292,11 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 		programArguments.add("-port"); //$NON-NLS-1$
 		programArguments.add(String.valueOf(fPort));
 
+		if (JUnitPreferencesConstants.getBinaryProtocol()) {
+			programArguments.add("-protocol"); //$NON-NLS-1$
+			programArguments.add(MessageIds.BINARY_PROTOCOL);
+		}
+
 		if (fKeepAlive)
 			programArguments.add(0, "-keepalive"); //$NON-NLS-1$
 
@@ -300,6 +307,17 @@ public class JUnitLaunchConfigurationDelegate extends AbstractJavaLaunchConfigur
 		programArguments.add("-loaderpluginname"); //$NON-NLS-1$
 		programArguments.add(testRunnerKind.getLoaderPluginId());
 
+		String parallelMode= configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_PARALLEL_MODE, ""); //$NON-NLS-1$
+		if (parallelMode.length() > 0 && TestKindRegistry.JUNIT4_TEST_KIND_ID.equals(testRunnerKind.getId())) {
+			programArguments.add("-parallel"); //$NON-NLS-1$
+			programArguments.add(parallelMode);
+			int workers= configuration.getAttribute(JUnitLaunchConfigurationConstants.ATTR_PARALLEL_WORKERS, 0);
+			if (workers > 0) {
+				programArguments.add("-workers"); //$NON-NLS-1$
+				programArguments.add(String.valueOf(workers));
+			}
+		}
+
 		IMember[] testElements = fTestElements;
 
 		// a test name was specified just run the single test
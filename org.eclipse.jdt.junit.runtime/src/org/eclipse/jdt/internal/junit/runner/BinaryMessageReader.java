@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.runner;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads messages of the binary protocol written by a {@link BinaryMessageWriter}.
+ */
+public class BinaryMessageReader {
+
+	private static final int BUFFER_SIZE= 64 * 1024;
+
+	private final DataInputStream fInput;
+	private byte[] fBuffer= new byte[1024];
+
+	/**
+	 * Creates a new reader.
+	 *
+	 * @param in the stream to read the frames from
+	 */
+	public BinaryMessageReader(InputStream in) {
+		fInput= new DataInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+	}
+
+	/**
+	 * Reads the next message.
+	 *
+	 * @return the message or <code>null</code> if the end of the stream has been reached
+	 * @throws IOException if reading failed or the stream does not contain valid frames
+	 */
+	public String readMessage() throws IOException {
+		int length;
+		try {
+			length= fInput.readInt();
+		} catch (EOFException e) {
+			return null;
+		}
+		if (length < 0)
+			throw new IOException("Invalid frame length: " + length); //$NON-NLS-1$
+
+		if (length > fBuffer.length)
+			fBuffer= new byte[Math.max(length, 2 * fBuffer.length)];
+		fInput.readFully(fBuffer, 0, length);
+		return new String(fBuffer, 0, length, "UTF-8"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Closes the underlying stream.
+	 *
+	 * @throws IOException if closing failed
+	 */
+	public void close() throws IOException {
+		fInput.close();
+	}
+}
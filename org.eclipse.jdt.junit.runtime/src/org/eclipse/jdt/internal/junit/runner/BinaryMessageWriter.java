@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.junit.runner;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes messages of the binary protocol. Each message is written as one frame: the
+ * length of the UTF-8 encoded message as a 4 byte big-endian integer, followed by the
+ * encoded message. Multi-line messages like stack traces are written as a single frame.
+ * <p>
+ * Frames are buffered. A non-forced {@link #flush(boolean)} only writes the buffer to the
+ * stream if the flush interval has elapsed since the last flush, so that consecutive
+ * test started and ended events are sent in batches. A background thread flushes pending
+ * frames after the flush interval.
+ * </p>
+ *
+ * @see BinaryMessageReader
+ * @see MessageIds#PROTOCOL_OFFER
+ */
+public class BinaryMessageWriter {
+
+	/**
+	 * The default interval between two flushes, in ms.
+	 */
+	public static final long DEFAULT_FLUSH_INTERVAL= 100;
+
+	private static final int BUFFER_SIZE= 64 * 1024;
+
+	private final DataOutputStream fOutput;
+	private final long fFlushInterval;
+
+	private long fLastFlush;
+	private boolean fDirty;
+	private boolean fClosed;
+
+	/**
+	 * Creates a new writer.
+	 *
+	 * @param out the stream to write the frames to
+	 * @param flushInterval the minimal interval between two non-forced flushes, in ms
+	 */
+	public BinaryMessageWriter(OutputStream out, long flushInterval) {
+		fOutput= new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+		fFlushInterval= flushInterval;
+		fLastFlush= System.currentTimeMillis();
+	}
+
+	/**
+	 * Writes a message as one frame.
+	 *
+	 * @param message the message
+	 * @throws IOException if writing to the stream failed
+	 */
+	public synchronized void writeMessage(String message) throws IOException {
+		byte[] bytes= message.getBytes("UTF-8"); //$NON-NLS-1$
+		fOutput.writeInt(bytes.length);
+		fOutput.write(bytes);
+		fDirty= true;
+	}
+
+	/**
+	 * Flushes the buffered frames.
+	 *
+	 * @param force if <code>false</code>, the frames are only flushed if the flush interval
+	 *            has elapsed since the last flush
+	 * @throws IOException if writing to the stream failed
+	 */
+	public synchronized void flush(boolean force) throws IOException {
+		if (!fDirty || fClosed)
+			return;
+
+		long now= System.currentTimeMillis();
+		if (force || now - fLastFlush >= fFlushInterval) {
+			fOutput.flush();
+			fLastFlush= now;
+			fDirty= false;
+		}
+	}
+
+	/**
+	 * Starts a daemon thread that flushes pending frames once the flush interval has elapsed.
+	 * The thread ends when the writer is closed or writing fails.
+	 */
+	public void startFlusher() {
+		Thread flusher= new Thread("BinaryMessageWriter Flusher") { //$NON-NLS-1$
+			public void run() {
+				synchronized (BinaryMessageWriter.this) {
+					try {
+						while (!fClosed) {
+							BinaryMessageWriter.this.wait(fFlushInterval);
+							flush(false);
+						}
+					} catch (InterruptedException e) {
+						// stop flushing
+					} catch (IOException e) {
+						// stop flushing, the runner notices the broken connection itself
+					}
+				}
+			}
+		};
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	/**
+	 * Flushes all pending frames and closes the stream.
+	 *
+	 * @throws IOException if writing to the stream failed
+	 */
+	public synchronized void close() throws IOException {
+		if (fClosed)
+			return;
+		try {
+			fOutput.flush();
+		} finally {
+			fClosed= true;
+			notifyAll();
+			fOutput.close();
+		}
+	}
+}
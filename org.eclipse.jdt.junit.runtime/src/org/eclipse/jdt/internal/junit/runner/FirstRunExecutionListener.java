@@ -18,6 +18,11 @@ public class FirstRunExecutionListener implements IListensToTestExecutions {
 
 	private TestIdMap fIds;
 
+	/**
+	 * Buffer for building messages, reused for all messages to avoid allocations on the event path
+	 */
+	private final StringBuffer fMessage = new StringBuffer(256);
+
 	FirstRunExecutionListener(MessageSender sender, TestIdMap ids) {
 		fSender = sender;
 		if (ids == null)
@@ -39,10 +44,6 @@ public class FirstRunExecutionListener implements IListensToTestExecutions {
 		fSender.flush();
 	}
 
-	private String getTestId(ITestIdentifier test) {
-		return fIds.getTestId(test);
-	}
-
 	protected void sendFailure(TestReferenceFailure failure, String startTrace,
 			String endTrace) {
 		FailedComparison comparison = failure.getComparison();
@@ -56,7 +57,13 @@ public class FirstRunExecutionListener implements IListensToTestExecutions {
 	}
 
 	private void sendMessage(ITestIdentifier test, String status) {
-		fSender.sendMessage(status + getTestId(test) + ',' + test.getName());
+		String message;
+		synchronized (fMessage) {
+			fMessage.setLength(0);
+			fMessage.append(status).append(fIds.getId(test)).append(',').append(test.getName());
+			message = fMessage.toString();
+		}
+		fSender.sendMessage(message);
 	}
 
 }
@@ -120,6 +120,35 @@ public class MessageIds {
 	 */
 	public static final String TEST_RERUN=	">RERUN  "; //$NON-NLS-1$
 
+	/**
+	 * Offer to switch to the binary protocol.
+	 * PROTOCOL_OFFER + BINARY_PROTOCOL
+	 * <p>
+	 * Sent as the first message by a RemoteTestRunner that has been started with
+	 * <code>-protocol binary</code>. The runner does not send further messages until the
+	 * client has answered with {@link #PROTOCOL_ANSWER}.
+	 * </p>
+	 */
+	public static final String PROTOCOL_OFFER= "%PROTOC "; //$NON-NLS-1$
+	/**
+	 * Answer to a {@link #PROTOCOL_OFFER}.
+	 * PROTOCOL_ANSWER + BINARY_PROTOCOL or PROTOCOL_ANSWER + TEXT_PROTOCOL
+	 * <p>
+	 * If the binary protocol has been accepted, all further messages from the runner are
+	 * sent as length-prefixed frames, see {@link BinaryMessageWriter}. Messages from the
+	 * client to the runner always use the text protocol.
+	 * </p>
+	 */
+	public static final String PROTOCOL_ANSWER= ">PROTOC "; //$NON-NLS-1$
+	/**
+	 * Protocol name of the line-based text protocol.
+	 */
+	public static final String TEXT_PROTOCOL= "text"; //$NON-NLS-1$
+	/**
+	 * Protocol name of the length-prefixed binary protocol.
+	 */
+	public static final String BINARY_PROTOCOL= "binary"; //$NON-NLS-1$
+
 	/**
 	 * MessageFormat to encode test method identifiers:
 	 * testMethod(testClass)
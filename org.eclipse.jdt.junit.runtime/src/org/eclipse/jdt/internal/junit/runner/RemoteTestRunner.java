@@ -53,6 +53,21 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 
 	public static final String RERAN_OK = "OK"; //$NON-NLS-1$
 
+	/**
+	 * Parallel execution mode that runs test classes concurrently (argument -parallel).
+	 */
+	public static final String PARALLEL_CLASSES = "classes"; //$NON-NLS-1$
+
+	/**
+	 * Parallel execution mode that runs the test methods of a class concurrently (argument -parallel).
+	 */
+	public static final String PARALLEL_METHODS = "methods"; //$NON-NLS-1$
+
+	/**
+	 * Time to wait for the answer to a protocol offer, in ms.
+	 */
+	private static final long PROTOCOL_NEGOTIATION_TIMEOUT= 5000;
+
 	/**
 	 * The name of the test classes to be executed
 	 */
@@ -79,6 +94,10 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * Print writer for sending messages
 	 */
 	private PrintWriter fWriter;
+	/**
+	 * Writer for sending messages once the binary protocol has been negotiated
+	 */
+	private BinaryMessageWriter fBinaryWriter;
 	/**
 	 * Reader for incoming messages
 	 */
@@ -117,6 +136,11 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 
 	private final TestIdMap fIds = new TestIdMap();
 
+	/**
+	 * Buffer for building tree entries, reused for all entries of a test tree
+	 */
+	private final StringBuffer fTreeEntry= new StringBuffer(256);
+
 	private String[] fFailureNames;
 
 	private ITestLoader fLoader;
@@ -125,6 +149,26 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 
 	private boolean fConsoleMode = false;
 
+	/**
+	 * Offer the binary protocol to the client?
+	 */
+	private boolean fOfferBinaryProtocol= false;
+
+	/**
+	 * The answer of the client to the protocol offer, or <code>null</code> if none received yet
+	 */
+	private String fProtocolAnswer;
+
+	/**
+	 * The parallel execution mode (argument -parallel), or <code>null</code> to run tests sequentially
+	 */
+	private String fParallelMode;
+
+	/**
+	 * The number of worker threads for parallel execution (argument -workers), 0 for one per processor
+	 */
+	private int fWorkerCount= 0;
+
 	/**
 	 * Reader thread that processes messages from the client.
 	 */
@@ -162,6 +206,13 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 								RemoteTestRunner.this.notifyAll();
 							}
 						}
+
+						else if (message.startsWith(MessageIds.PROTOCOL_ANSWER)) {
+							synchronized(RemoteTestRunner.this) {
+								fProtocolAnswer= message.substring(MessageIds.MSG_HEADER_LENGTH);
+								RemoteTestRunner.this.notifyAll();
+							}
+						}
 					}
 				}
 			} catch (Exception e) {
@@ -188,6 +239,9 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * -host: the host to connect to default local host
 	 * -port: the port to connect to, mandatory argument
 	 * -keepalive: keep the process alive after a test run
+	 * -protocol: the protocol to offer to the client, "text" (default) or "binary"
+	 * -parallel: run tests concurrently, "classes" or "methods" (JUnit 4 only)
+	 * -workers: the number of worker threads for parallel execution, default is one per processor
      * </pre>
      */
 	public static void main(String[] args) {
@@ -286,6 +340,19 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 			    i++;
 			} else if (args[i].toLowerCase().equals("-junitconsole")) { //$NON-NLS-1$
 			    fConsoleMode  = true;
+			} else if (args[i].toLowerCase().equals("-protocol")) { //$NON-NLS-1$
+				fOfferBinaryProtocol= MessageIds.BINARY_PROTOCOL.equals(args[i+1]);
+				i++;
+			} else if (args[i].toLowerCase().equals("-parallel")) { //$NON-NLS-1$
+				String mode= args[i+1];
+				if (PARALLEL_CLASSES.equals(mode) || PARALLEL_METHODS.equals(mode))
+					fParallelMode= mode;
+				else
+					throw new IllegalArgumentException("Invalid parallel mode: " + mode); //$NON-NLS-1$
+				i++;
+			} else if (args[i].toLowerCase().equals("-workers")) { //$NON-NLS-1$
+				fWorkerCount= Integer.parseInt(args[i+1]);
+				i++;
 			} else if (args[i].toLowerCase().equals("-testloaderclass")) { //$NON-NLS-1$
 				String className = args[i + 1];
 				createLoader(className);
@@ -515,13 +582,19 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	}
 
 	public void visitTreeEntry(ITestIdentifier id, boolean b, int i) {
-		notifyTestTreeEntry(getTestId(id) + ',' + escapeComma(id.getName()) + ',' + b + ',' + i);
+		StringBuffer entry= fTreeEntry;
+		entry.setLength(0);
+		entry.append(fIds.getId(id)).append(',');
+		appendEscapingComma(entry, id.getName());
+		entry.append(',').append(b).append(',').append(i);
+		notifyTestTreeEntry(entry.toString());
 	}
 
-	private String escapeComma(String s) {
-		if ((s.indexOf(',') < 0) && (s.indexOf('\\') < 0))
-			return s;
-		StringBuffer sb= new StringBuffer(s.length()+10);
+	private void appendEscapingComma(StringBuffer sb, String s) {
+		if ((s.indexOf(',') < 0) && (s.indexOf('\\') < 0)) {
+			sb.append(s);
+			return;
+		}
 		for (int i= 0; i < s.length(); i++) {
 			char c= s.charAt(i);
 			if (c == ',')
@@ -531,12 +604,6 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 			else
 				sb.append(c);
 		}
-		return sb.toString();
-	}
-
-	// WANT: work in bug fixes since RC2?
-	private String getTestId(ITestIdentifier id) {
-		return fIds.getTestId(id);
 	}
 
 	/**
@@ -580,6 +647,8 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
                 }
 				fReaderThread= new ReaderThread();
 				fReaderThread.start();
+				if (fOfferBinaryProtocol)
+					negotiateProtocol();
 				return true;
 			} catch(IOException e){
 				exception= e;
@@ -593,10 +662,55 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 		return false;
 	}
 
+	/**
+	 * Offers the binary protocol to the client and switches to it if the client accepts.
+	 * Stays with the text protocol if the client declines or does not answer in time.
+	 */
+	private void negotiateProtocol() {
+		fWriter.println(MessageIds.PROTOCOL_OFFER + MessageIds.BINARY_PROTOCOL);
+		fWriter.flush();
+
+		String answer;
+		synchronized (this) {
+			long end= System.currentTimeMillis() + PROTOCOL_NEGOTIATION_TIMEOUT;
+			long remaining= PROTOCOL_NEGOTIATION_TIMEOUT;
+			while (fProtocolAnswer == null && !fStopped && remaining > 0) {
+				try {
+					wait(remaining);
+				} catch (InterruptedException e) {
+					break;
+				}
+				remaining= end - System.currentTimeMillis();
+			}
+			answer= fProtocolAnswer;
+		}
+
+		if (MessageIds.BINARY_PROTOCOL.equals(answer)) {
+			try {
+				fBinaryWriter= new BinaryMessageWriter(fClientSocket.getOutputStream(), BinaryMessageWriter.DEFAULT_FLUSH_INTERVAL);
+				fBinaryWriter.startFlusher();
+			} catch (IOException e) {
+				if (fDebugMode)
+					e.printStackTrace();
+			}
+		}
+		if (fDebugMode)
+			System.out.println("RemoteTestRunner: protocol " + (fBinaryWriter != null ? MessageIds.BINARY_PROTOCOL : MessageIds.TEXT_PROTOCOL)); //$NON-NLS-1$
+	}
+
 	/**
 	 * Shutsdown the connection to the remote test listener.
 	 */
 	private void shutDown() {
+		if (fBinaryWriter != null) {
+			try {
+				fBinaryWriter.close();
+			} catch (IOException e) {
+				if (fDebugMode)
+					e.printStackTrace();
+			}
+			fBinaryWriter= null;
+		}
 		if (fWriter != null) {
 			fWriter.close();
 			fWriter= null;
@@ -632,6 +746,15 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	 * @see org.eclipse.jdt.internal.junit.runner.MessageSender#sendMessage(java.lang.String)
 	 */
 	public void sendMessage(String msg) {
+		if (fBinaryWriter != null) {
+			try {
+				fBinaryWriter.writeMessage(msg);
+			} catch (IOException e) {
+				if (fDebugMode)
+					e.printStackTrace();
+			}
+			return;
+		}
 		if(fWriter == null)
 			return;
 		fWriter.println(msg);
@@ -646,12 +769,14 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 	private void notifyTestRunEnded(long elapsedTime) {
 		fSender.sendMessage(MessageIds.TEST_RUN_END + elapsedTime);
 		fSender.flush();
+		flushBinaryWriter();
 		//shutDown();
 	}
 
 	protected void notifyTestRunStopped(long elapsedTime) {
 		fSender.sendMessage(MessageIds.TEST_STOPPED + elapsedTime);
 		fSender.flush();
+		flushBinaryWriter();
 		//shutDown();
 	}
 
@@ -667,13 +792,41 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 		if (fPort != -1) {
 			fSender.sendMessage(MessageIds.TEST_RERAN + r.fRerunTestId + " " + r.fRerunClassName + " " + r.fRerunTestName + " " + status); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 			fSender.flush();
+			flushBinaryWriter();
 		}
 	}
 
+	/*
+	 * @see org.eclipse.jdt.internal.junit.runner.MessageSender#flush()
+	 */
 	public void flush() {
+		if (fBinaryWriter != null) {
+			// batch events, the flusher thread sends pending messages
+			try {
+				fBinaryWriter.flush(false);
+			} catch (IOException e) {
+				if (fDebugMode)
+					e.printStackTrace();
+			}
+			return;
+		}
 	    fWriter.flush();
 	}
 
+	/**
+	 * Sends all messages buffered by the binary protocol.
+	 */
+	private void flushBinaryWriter() {
+		if (fBinaryWriter == null)
+			return;
+		try {
+			fBinaryWriter.flush(true);
+		} catch (IOException e) {
+			if (fDebugMode)
+				e.printStackTrace();
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 *
@@ -687,6 +840,26 @@ public class RemoteTestRunner implements MessageSender, IVisitsTestTrees {
 		return fLoader;
 	}
 
+	/**
+	 * Returns the parallel execution mode. Loaders that support parallel execution run
+	 * their tests concurrently if a mode is set.
+	 *
+	 * @return {@link #PARALLEL_CLASSES}, {@link #PARALLEL_METHODS}, or <code>null</code>
+	 *         if tests are run sequentially
+	 */
+	public String getParallelMode() {
+		return fParallelMode;
+	}
+
+	/**
+	 * @return the number of worker threads for parallel execution
+	 */
+	public int getWorkerCount() {
+		if (fWorkerCount > 0)
+			return fWorkerCount;
+		return Runtime.getRuntime().availableProcessors();
+	}
+
 	public Class loadClass(String className, RemoteTestRunner listener) {
 		Class clazz= null;
 		try {
@@ -14,10 +14,13 @@
 package org.eclipse.jdt.internal.junit.runner;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 
+/**
+ * A test execution. Test references may be run concurrently by a loader that supports
+ * parallel execution, so stop requests and stop listeners are thread-safe.
+ */
 public class TestExecution {
-	private boolean fShouldStop = false;
+	private volatile boolean fShouldStop = false;
 
 	private IListensToTestExecutions fExecutionListener;
 
@@ -45,9 +48,12 @@ public class TestExecution {
 
 	public void stop() {
 		fShouldStop = true;
-		for (Iterator iter = fStopListeners.iterator(); iter.hasNext();) {
-			IStopListener listener = (IStopListener) iter.next();
-			listener.stop();
+		IStopListener[] listeners;
+		synchronized (fStopListeners) {
+			listeners = (IStopListener[]) fStopListeners.toArray(new IStopListener[fStopListeners.size()]);
+		}
+		for (int i = 0; i < listeners.length; i++) {
+			listeners[i].stop();
 		}
 	}
 
@@ -60,6 +66,8 @@ public class TestExecution {
 	}
 
 	public void addStopListener(IStopListener listener) {
-		fStopListeners.add(listener);
+		synchronized (fStopListeners) {
+			fStopListeners.add(listener);
+		}
 	}
 }
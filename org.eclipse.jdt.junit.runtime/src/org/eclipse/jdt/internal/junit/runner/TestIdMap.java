@@ -13,23 +13,79 @@
 
 package org.eclipse.jdt.internal.junit.runner;
 
-import java.util.HashMap;
-
+/**
+ * Assigns ids to test identifiers. Ids are consecutive ints starting at 1.
+ * <p>
+ * Identifiers are kept in an open-addressing table with linear probing, so that registering
+ * and looking up a test does not allocate entry objects or boxed ids. Identifiers are compared
+ * with {@link Object#equals(Object)}, since loaders create new identifiers for every event.
+ * </p>
+ */
 public class TestIdMap {
-	private HashMap fIdMap= new HashMap();
+	private static final int INITIAL_CAPACITY= 1024;
+
+	/** Identifiers, <code>null</code> for empty slots. The length is a power of 2. */
+	private Object[] fKeys= new Object[INITIAL_CAPACITY];
+	/** Ids of the identifiers in the corresponding slots of {@link #fKeys}. */
+	private int[] fIds= new int[INITIAL_CAPACITY];
+	private int fSize= 0;
 
 	private int fNextId= 1;
 
+	/**
+	 * Returns the id of the given identifier, and assigns a new id if the identifier is unknown.
+	 *
+	 * @param identifier the test identifier
+	 * @return the id
+	 */
+	public synchronized int getId(ITestIdentifier identifier) {
+		int mask= fKeys.length - 1;
+		int index= hash(identifier) & mask;
+		Object key;
+		while ((key= fKeys[index]) != null) {
+			if (key.equals(identifier))
+				return fIds[index];
+			index= (index + 1) & mask;
+		}
+
+		int id= fNextId++;
+		fKeys[index]= identifier;
+		fIds[index]= id;
+		// keep the load factor below 1/2
+		if (++fSize * 2 > fKeys.length)
+			rehash();
+		return id;
+	}
+
 	public String getTestId(ITestIdentifier identifier) {
-		Object id= fIdMap.get(identifier);
-		if (id != null)
-			return (String) id;
-		String newId= Integer.toString(fNextId++);
-		fIdMap.put(identifier, newId);
-		return newId;
+		return Integer.toString(getId(identifier));
 	}
 
 	public String getTestId(ITestReference ref) {
 		return getTestId(ref.getIdentifier());
 	}
+
+	private void rehash() {
+		Object[] oldKeys= fKeys;
+		int[] oldIds= fIds;
+		fKeys= new Object[oldKeys.length * 2];
+		fIds= new int[oldKeys.length * 2];
+		int mask= fKeys.length - 1;
+		for (int i= 0; i < oldKeys.length; i++) {
+			Object key= oldKeys[i];
+			if (key != null) {
+				int index= hash(key) & mask;
+				while (fKeys[index] != null)
+					index= (index + 1) & mask;
+				fKeys[index]= key;
+				fIds[index]= oldIds[i];
+			}
+		}
+	}
+
+	private static int hash(Object key) {
+		// spread the bits, identifiers often have similar hash codes
+		int h= key.hashCode() * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
 }
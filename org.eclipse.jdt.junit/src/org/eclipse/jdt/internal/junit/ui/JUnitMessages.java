@@ -150,6 +150,16 @@ public final class JUnitMessages extends NLS {
 
 	public static String JUnitLaunchConfigurationTab_Test_Loader;
 
+	public static String JUnitLaunchConfigurationTab_label_parallel;
+
+	public static String JUnitLaunchConfigurationTab_parallel_off;
+
+	public static String JUnitLaunchConfigurationTab_parallel_classes;
+
+	public static String JUnitLaunchConfigurationTab_parallel_methods;
+
+	public static String JUnitLaunchConfigurationTab_label_workers;
+
 	public static String JUnitLaunchConfigurationTab_testdialog_message;
 
 	public static String JUnitLaunchConfigurationTab_testdialog_title;
@@ -1507,7 +1507,8 @@ action enablement
 				stopUpdateJobs();
 
 				fStopAction.setEnabled(fTestRunSession.isKeptAlive());
-				fTestViewer.expandFirstLevel();
+				if (!fTestRunSession.isLazilyImported()) // don't load all test cases
+					fTestViewer.expandFirstLevel();
 			}
 		}
 		return deactivatedSession;
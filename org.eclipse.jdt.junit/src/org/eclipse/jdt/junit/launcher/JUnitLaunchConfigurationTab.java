@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -29,9 +29,11 @@ import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Shell;
+import org.eclipse.swt.widgets.Spinner;
 import org.eclipse.swt.widgets.Text;
 
 import org.eclipse.core.runtime.CoreException;
@@ -157,6 +159,14 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 
 	private ComboViewer fTestLoaderViewer;
 
+	// Parallel execution UI widgets
+	private static final String[] PARALLEL_MODES= { "", JUnitLaunchConfigurationConstants.PARALLEL_MODE_CLASSES, JUnitLaunchConfigurationConstants.PARALLEL_MODE_METHODS }; //$NON-NLS-1$
+	private static final int MAX_WORKERS= 256;
+	private Label fParallelLabel;
+	private Combo fParallelCombo;
+	private Label fWorkersLabel;
+	private Spinner fWorkersSpinner;
+
 	private ILaunchConfiguration fLaunchConfiguration;
 
 	private boolean fIsValid= true;
@@ -189,6 +199,7 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 		createSpacer(comp);
 
 		createTestLoaderGroup(comp);
+		createParallelGroup(comp);
 		createSpacer(comp);
 
 		createKeepAliveGroup(comp);
@@ -218,12 +229,60 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 		fTestLoaderViewer.setInput(items);
 		fTestLoaderViewer.addSelectionChangedListener(new ISelectionChangedListener() {
 			public void selectionChanged(SelectionChangedEvent event) {
+				updateParallelEnablement();
 				validatePage();
 				updateLaunchConfigurationDialog();
 			}
 		});
 	}
 
+	private void createParallelGroup(Composite comp) {
+		fParallelLabel= new Label(comp, SWT.NONE);
+		fParallelLabel.setText(JUnitMessages.JUnitLaunchConfigurationTab_label_parallel);
+		fParallelLabel.setLayoutData(new GridData());
+
+		fParallelCombo= new Combo(comp, SWT.DROP_DOWN | SWT.READ_ONLY);
+		fParallelCombo.setItems(new String[] {
+				JUnitMessages.JUnitLaunchConfigurationTab_parallel_off,
+				JUnitMessages.JUnitLaunchConfigurationTab_parallel_classes,
+				JUnitMessages.JUnitLaunchConfigurationTab_parallel_methods });
+		GridData gd= new GridData();
+		gd.horizontalSpan= 2;
+		fParallelCombo.setLayoutData(gd);
+		fParallelCombo.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				updateParallelEnablement();
+				updateLaunchConfigurationDialog();
+			}
+		});
+
+		fWorkersLabel= new Label(comp, SWT.NONE);
+		fWorkersLabel.setText(JUnitMessages.JUnitLaunchConfigurationTab_label_workers);
+		fWorkersLabel.setLayoutData(new GridData());
+
+		fWorkersSpinner= new Spinner(comp, SWT.BORDER);
+		fWorkersSpinner.setValues(0, 0, MAX_WORKERS, 0, 1, 4);
+		gd= new GridData();
+		gd.horizontalSpan= 2;
+		fWorkersSpinner.setLayoutData(gd);
+		fWorkersSpinner.addModifyListener(new ModifyListener() {
+			public void modifyText(ModifyEvent evt) {
+				updateLaunchConfigurationDialog();
+			}
+		});
+	}
+
+	private void updateParallelEnablement() {
+		TestKind testKind= getSelectedTestKind();
+		boolean junit4= testKind != null && TestKindRegistry.JUNIT4_TEST_KIND_ID.equals(testKind.getId());
+		boolean parallel= junit4 && fParallelCombo.getSelectionIndex() > 0;
+		fParallelLabel.setEnabled(junit4);
+		fParallelCombo.setEnabled(junit4);
+		fWorkersLabel.setEnabled(parallel);
+		fWorkersSpinner.setEnabled(parallel);
+	}
+
 	private void createSpacer(Composite comp) {
 		Label label= new Label(comp, SWT.NONE);
 		GridData gd= new GridData();
@@ -423,6 +482,7 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 			updateTestTypeFromConfig(config);
 		updateKeepRunning(config);
 		updateTestLoaderFromConfig(config);
+		updateParallelFromConfig(config);
 
 		validatePage();
 	}
@@ -435,6 +495,24 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 		fTestLoaderViewer.setSelection(new StructuredSelection(testKind));
 	}
 
+	private void updateParallelFromConfig(ILaunchConfiguration config) {
+		String mode= ""; //$NON-NLS-1$
+		int workers= 0;
+		try {
+			mode= config.getAttribute(JUnitLaunchConfigurationConstants.ATTR_PARALLEL_MODE, ""); //$NON-NLS-1$
+			workers= config.getAttribute(JUnitLaunchConfigurationConstants.ATTR_PARALLEL_WORKERS, 0);
+		} catch (CoreException ce) {
+		}
+		int index= 0;
+		for (int i= 0; i < PARALLEL_MODES.length; i++) {
+			if (PARALLEL_MODES[i].equals(mode))
+				index= i;
+		}
+		fParallelCombo.select(index);
+		fWorkersSpinner.setSelection(workers);
+		updateParallelEnablement();
+	}
+
 	private TestKind getSelectedTestKind() {
 		IStructuredSelection selection= (IStructuredSelection) fTestLoaderViewer.getSelection();
 		return (TestKind) selection.getFirstElement();
@@ -524,6 +602,19 @@ public class JUnitLaunchConfigurationTab extends AbstractLaunchConfigurationTab
 			TestKind testKind= (TestKind) testKindSelection.getFirstElement();
 			config.setAttribute(JUnitLaunchConfigurationConstants.ATTR_TEST_RUNNER_KIND, testKind.getId());
 		}
+		// only store the parallel execution attributes if they are used, so that existing configurations stay unchanged
+		int parallelIndex= fParallelCombo.getSelectionIndex();
+		int workers= fWorkersSpinner.getSelection();
+		if (parallelIndex > 0) {
+			config.setAttribute(JUnitLaunchConfigurationConstants.ATTR_PARALLEL_MODE, PARALLEL_MODES[parallelIndex]);
+			if (workers > 0)
+				config.setAttribute(JUnitLaunchConfigurationConstants.ATTR_PARALLEL_WORKERS, workers);
+			else
+				config.setAttribute(JUnitLaunchConfigurationConstants.ATTR_PARALLEL_WORKERS, (String) null);
+		} else {
+			config.setAttribute(JUnitLaunchConfigurationConstants.ATTR_PARALLEL_MODE, (String) null);
+			config.setAttribute(JUnitLaunchConfigurationConstants.ATTR_PARALLEL_WORKERS, (String) null);
+		}
 	}
 
 	private void mapResources(ILaunchConfigurationWorkingCopy config)  throws CoreException {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2009 IBM Corporation and others.
+ * Copyright (c) 2006, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,6 +14,7 @@ package org.eclipse.jdt.internal.junit4.runner;
 
 import org.junit.runner.Description;
 import org.junit.runner.Request;
+import org.junit.runners.model.RunnerBuilder;
 
 import org.eclipse.jdt.internal.junit.runner.ITestIdentifier;
 import org.eclipse.jdt.internal.junit.runner.IVisitsTestTrees;
@@ -26,6 +27,18 @@ public class JUnit4TestClassReference extends JUnit4TestReference {
 		fClass= clazz;
 	}
 
+	/**
+	 * Creates a reference whose runners are created by the given builder.
+	 *
+	 * @param clazz the test class
+	 * @param failureNames the names of the tests that failed in the previous run, or <code>null</code>
+	 * @param builder the builder for the runner of the class and the runners of its children
+	 */
+	public JUnit4TestClassReference(Class<?> clazz, String[] failureNames, RunnerBuilder builder) {
+		super(Request.runner(builder.safeRunnerForClass(clazz)), failureNames);
+		fClass= clazz;
+	}
+
 	public int countTestCases() {
 		return fRunner.testCount();
 	}
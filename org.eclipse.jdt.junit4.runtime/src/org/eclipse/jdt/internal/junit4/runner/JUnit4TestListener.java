@@ -40,6 +40,10 @@ public class JUnit4TestListener extends RunListener {
 	}
 
 
+	/**
+	 * The notified listener. Tests may run concurrently, so notifications are synchronized on
+	 * the listener to keep the messages of a failure together.
+	 */
 	private final IListensToTestExecutions fNotified;
 
 	public JUnit4TestListener(IListensToTestExecutions notified) {
@@ -48,7 +52,9 @@ public class JUnit4TestListener extends RunListener {
 
 	@Override
 	public void testStarted(Description plan) throws Exception {
-		fNotified.notifyTestStarted(getIdentifier(plan));
+		synchronized (fNotified) {
+			fNotified.notifyTestStarted(getIdentifier(plan));
+		}
 	}
 
 	@Override
@@ -71,20 +77,26 @@ public class JUnit4TestListener extends RunListener {
 			e.printStackTrace(new PrintWriter(stringWriter));
 			testReferenceFailure= new TestReferenceFailure(getIdentifier(failure.getDescription()), MessageIds.TEST_FAILED, stringWriter.getBuffer().toString(), null);
 		}
-		fNotified.notifyTestFailed(testReferenceFailure);
+		synchronized (fNotified) {
+			fNotified.notifyTestFailed(testReferenceFailure);
+		}
 	}
 
 	@Override
 	public void testIgnored(Description plan) throws Exception {
 		// Send message to listeners which would be stale otherwise
 		ITestIdentifier identifier= new IgnoredTestIdentifier(plan);
-		fNotified.notifyTestStarted(identifier);
-		fNotified.notifyTestEnded(identifier);
+		synchronized (fNotified) {
+			fNotified.notifyTestStarted(identifier);
+			fNotified.notifyTestEnded(identifier);
+		}
 	}
 
 	@Override
 	public void testFinished(Description plan) throws Exception {
-		fNotified.notifyTestEnded(getIdentifier(plan));
+		synchronized (fNotified) {
+			fNotified.notifyTestEnded(getIdentifier(plan));
+		}
 	}
 
 	private ITestIdentifier getIdentifier(Description plan) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2010 IBM Corporation and others.
+ * Copyright (c) 2006, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,6 +17,8 @@ import java.lang.reflect.Modifier;
 
 import junit.framework.Test;
 
+import org.junit.runners.model.RunnerBuilder;
+
 import org.eclipse.jdt.internal.junit.runner.ITestLoader;
 import org.eclipse.jdt.internal.junit.runner.ITestReference;
 import org.eclipse.jdt.internal.junit.runner.RemoteTestRunner;
@@ -32,21 +34,38 @@ public class JUnit4TestLoader implements ITestLoader {
 			String[] failureNames,
 			RemoteTestRunner listener) {
 
+		RunnerBuilder builder= null;
+		if (RemoteTestRunner.PARALLEL_METHODS.equals(listener.getParallelMode()))
+			builder= new ParallelMethodsBuilder(listener.getWorkerCount());
+
 		ITestReference[] refs= new ITestReference[testClasses.length];
 		for (int i= 0; i < testClasses.length; i++) {
 			Class<?> clazz= testClasses[i];
-			ITestReference ref= createTest(clazz, testName, failureNames, listener);
+			ITestReference ref= createTest(clazz, testName, failureNames, listener, builder);
 			refs[i]= ref;
 		}
+		if (RemoteTestRunner.PARALLEL_CLASSES.equals(listener.getParallelMode()))
+			return parallelizeClasses(refs, listener.getWorkerCount());
+		return refs;
+	}
+
+	private ITestReference[] parallelizeClasses(ITestReference[] refs, int workerCount) {
+		if (refs.length > 1)
+			return new ITestReference[] { new ParallelTestReference(refs, workerCount) };
+		if (refs.length == 1 && refs[0] instanceof JUnit4TestReference)
+			((JUnit4TestReference) refs[0]).setParallelClasses(workerCount);
 		return refs;
 	}
 
-	private ITestReference createTest(Class<?> clazz, String testName, String[] failureNames, RemoteTestRunner listener) {
+	private ITestReference createTest(Class<?> clazz, String testName, String[] failureNames, RemoteTestRunner listener, RunnerBuilder builder) {
 		if (clazz == null)
 			return null;
-		if (testName == null)
+		if (testName == null) {
+			if (builder != null)
+				return new JUnit4TestClassReference(clazz, failureNames, builder);
 			return new JUnit4TestClassReference(clazz, failureNames);
-		else if (isJUnit3SetUpTest(clazz, testName)) {
+		}
+		if (isJUnit3SetUpTest(clazz, testName)) {
 			JUnit3TestLoader jUnit3TestLoader= new JUnit3TestLoader();
 			Test test= jUnit3TestLoader.getTest(clazz, testName, listener);
 			return new JUnit3TestReference(test);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2010 IBM Corporation and others.
+ * Copyright (c) 2006, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -18,6 +18,7 @@ import org.junit.runner.Runner;
 import org.junit.runner.notification.RunListener;
 import org.junit.runner.notification.RunNotifier;
 import org.junit.runner.notification.StoppedByUserException;
+import org.junit.runners.Suite;
 
 import org.eclipse.jdt.internal.junit.runner.IStopListener;
 import org.eclipse.jdt.internal.junit.runner.ITestReference;
@@ -26,6 +27,12 @@ import org.eclipse.jdt.internal.junit.runner.TestExecution;
 public abstract class JUnit4TestReference implements ITestReference {
 	protected Runner fRunner;
 
+	/**
+	 * The number of worker threads that run the classes of a suite runner, or 0 to run them
+	 * sequentially
+	 */
+	private int fSuiteWorkerCount;
+
 	public JUnit4TestReference(Request request, String[] failureNames) {
 		if (failureNames != null) {
 			request= request.sortWith(new FailuresFirstSorter(failureNames));
@@ -33,6 +40,16 @@ public abstract class JUnit4TestReference implements ITestReference {
 		fRunner= request.getRunner();
 	}
 
+	/**
+	 * Runs the test classes of this reference's suite concurrently. Has no effect if the runner
+	 * is not a {@link Suite}.
+	 *
+	 * @param workerCount the number of worker threads
+	 */
+	public void setParallelClasses(int workerCount) {
+		fSuiteWorkerCount= workerCount;
+	}
+
 	public void run(TestExecution execution) {
 		final RunNotifier notifier= new RunNotifier();
 		notifier.addListener(new JUnit4TestListener(execution.getListener()));
@@ -42,6 +59,9 @@ public abstract class JUnit4TestReference implements ITestReference {
 			}
 		});
 
+		if (fSuiteWorkerCount > 0 && fRunner instanceof Suite)
+			((Suite) fRunner).setScheduler(new ParallelScheduler(fSuiteWorkerCount));
+
 		Result result= new Result();
 		RunListener listener= result.createListener();
 		notifier.addListener(listener);
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit4.runner;
+
+import org.junit.internal.builders.AllDefaultPossibilitiesBuilder;
+import org.junit.runner.Runner;
+import org.junit.runners.BlockJUnit4ClassRunner;
+
+/**
+ * Builds the default runners and runs the test methods of each test class concurrently. Used
+ * for the <code>methods</code> parallel execution mode. Suites build the runners of their
+ * classes with this builder, so only the test class runners get a {@link ParallelScheduler}
+ * and the classes of a suite are still run one after the other.
+ */
+public class ParallelMethodsBuilder extends AllDefaultPossibilitiesBuilder {
+
+	private final int fWorkerCount;
+
+	public ParallelMethodsBuilder(int workerCount) {
+		super(true);
+		fWorkerCount= workerCount;
+	}
+
+	@Override
+	public Runner runnerForClass(Class<?> testClass) throws Throwable {
+		Runner runner= super.runnerForClass(testClass);
+		if (runner instanceof BlockJUnit4ClassRunner)
+			((BlockJUnit4ClassRunner) runner).setScheduler(new ParallelScheduler(fWorkerCount));
+		return runner;
+	}
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit4.runner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.runners.model.RunnerScheduler;
+
+/**
+ * Runs the children of a JUnit 4 runner on a fixed number of worker threads. Set on the test
+ * class runners in the <code>methods</code> parallel execution mode, see
+ * {@link ParallelMethodsBuilder}, and on a suite runner in the <code>classes</code> mode.
+ */
+public class ParallelScheduler implements RunnerScheduler {
+
+	private static final AtomicInteger fgThreadCount= new AtomicInteger();
+
+	private final ExecutorService fExecutor;
+	private final List<Future<?>> fFutures= new ArrayList<Future<?>>();
+
+	public ParallelScheduler(int workerCount) {
+		fExecutor= createExecutor(workerCount);
+	}
+
+	public void schedule(Runnable childStatement) {
+		fFutures.add(fExecutor.submit(childStatement));
+	}
+
+	public void finished() {
+		try {
+			awaitAll(fFutures);
+		} finally {
+			fExecutor.shutdown();
+		}
+	}
+
+	/**
+	 * Creates an executor with the given number of daemon worker threads.
+	 *
+	 * @param workerCount the number of threads
+	 * @return the executor
+	 */
+	static ExecutorService createExecutor(int workerCount) {
+		return Executors.newFixedThreadPool(Math.max(1, workerCount), new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread= new Thread(r, "JUnit Worker " + fgThreadCount.incrementAndGet()); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Waits until all tasks have completed. If a task failed, the first failure is rethrown
+	 * after all tasks have completed.
+	 *
+	 * @param futures the tasks
+	 */
+	static void awaitAll(List<Future<?>> futures) {
+		Throwable failure= null;
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				if (failure == null)
+					failure= e.getCause();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+		if (failure instanceof RuntimeException)
+			throw (RuntimeException) failure;
+		if (failure instanceof Error)
+			throw (Error) failure;
+		if (failure != null)
+			throw new RuntimeException(failure);
+	}
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.internal.junit4.runner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.junit.runner.Description;
+
+import org.eclipse.jdt.internal.junit.runner.ITestIdentifier;
+import org.eclipse.jdt.internal.junit.runner.ITestReference;
+import org.eclipse.jdt.internal.junit.runner.IVisitsTestTrees;
+import org.eclipse.jdt.internal.junit.runner.TestExecution;
+
+/**
+ * Runs a set of test references concurrently on a fixed number of worker threads. Used for
+ * the <code>classes</code> parallel execution mode. The test tree is sent in the order of the
+ * references, so that the test runner view shows the same tree as for a sequential run.
+ */
+public class ParallelTestReference implements ITestReference {
+
+	private final ITestReference[] fReferences;
+	private final int fWorkerCount;
+
+	public ParallelTestReference(ITestReference[] references, int workerCount) {
+		fReferences= references;
+		fWorkerCount= workerCount;
+	}
+
+	public int countTestCases() {
+		int count= 0;
+		for (ITestReference reference : fReferences) {
+			if (reference != null)
+				count+= reference.countTestCases();
+		}
+		return count;
+	}
+
+	public void sendTree(IVisitsTestTrees notified) {
+		for (ITestReference reference : fReferences) {
+			if (reference != null)
+				reference.sendTree(notified);
+		}
+	}
+
+	public void run(final TestExecution execution) {
+		ExecutorService executor= ParallelScheduler.createExecutor(fWorkerCount);
+		try {
+			List<Future<?>> futures= new ArrayList<Future<?>>(fReferences.length);
+			for (final ITestReference reference : fReferences) {
+				if (reference == null)
+					continue;
+				futures.add(executor.submit(new Runnable() {
+					public void run() {
+						if (!execution.shouldStop())
+							reference.run(execution);
+					}
+				}));
+			}
+			ParallelScheduler.awaitAll(futures);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	public ITestIdentifier getIdentifier() {
+		return new JUnit4Identifier(Description.createSuiteDescription(getClass().getName()));
+	}
+}
@@ -64,6 +64,7 @@ import org.eclipse.jdt.internal.ui.javaeditor.JavaEditor;
 import org.eclipse.jdt.internal.ui.text.java.FillArgumentNamesCompletionProposalCollector;
 import org.eclipse.jdt.internal.ui.text.java.JavaCompletionProposalComputer;
 import org.eclipse.jdt.internal.ui.text.java.JavaNoTypeCompletionProposalComputer;
+import org.eclipse.jdt.internal.ui.text.java.ParameterGuessingProposal;
 
 
 public class CodeCompletionTest extends AbstractCompletionTest {
@@ -960,6 +961,71 @@ public class CodeCompletionTest extends AbstractCompletionTest {
 		assertEquals(i, proposals.length);
 	}
 
+	public void testParameterGuessingWithAndWithoutScopeIndex() throws Exception {
+		IPreferenceStore store= JavaPlugin.getDefault().getPreferenceStore();
+		store.setValue(PreferenceConstants.CODEASSIST_GUESS_METHOD_ARGUMENTS, true);
+
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+
+		IPackageFragment pack1= sourceFolder.createPackageFragment("test1", false, null);
+		String contents= "package test1;\n" +
+				 "\n" +
+				 "public class Completion {\n" +
+				 "    String fName;\n" +
+				 "    void put(String key, int value) {}\n" +
+				 "    void put(int value, String key) {}\n" +
+				 "    void putAll(String key, long value) {}\n" +
+				 "    \n" +
+				 "    void foomethod() {\n" +
+				 "        int intVal=5;\n" +
+				 "        long longVal=3;\n" +
+				 "        this.put//here\n" +
+				 "    }\n" +
+				 "}\n";
+		ICompilationUnit cu= pack1.createCompilationUnit("Completion.java", contents, false, null);
+
+		int offset= contents.indexOf("//here");
+
+		// all proposals share the scope index of the collector
+		CompletionProposalCollector indexed= new FillArgumentNamesCompletionProposalCollector(createContext(offset, cu));
+		indexed.setIgnored(CompletionProposal.METHOD_REF, false);
+		indexed.setReplacementLength(0);
+		codeComplete(cu, offset, indexed);
+
+		// each proposal uses a scope index of its own
+		final JavaContentAssistInvocationContext context= createContext(offset, cu);
+		CompletionProposalCollector unindexed= new CompletionProposalCollector(cu, true) {
+			protected IJavaCompletionProposal createJavaCompletionProposal(CompletionProposal proposal) {
+				if (proposal.getKind() == CompletionProposal.METHOD_REF) {
+					IJavaCompletionProposal guessingProposal= ParameterGuessingProposal.createProposal(proposal, context, true);
+					if (guessingProposal != null)
+						return guessingProposal;
+				}
+				return super.createJavaCompletionProposal(proposal);
+			}
+		};
+		unindexed.setInvocationContext(context);
+		unindexed.setRequireExtendedContext(true);
+		unindexed.setIgnored(CompletionProposal.METHOD_REF, false);
+		unindexed.setReplacementLength(0);
+		codeComplete(cu, offset, unindexed);
+
+		CompletionProposalComparator comparator= new CompletionProposalComparator();
+		comparator.setOrderAlphabetically(true);
+		IJavaCompletionProposal[] indexedProposals= indexed.getJavaCompletionProposals();
+		IJavaCompletionProposal[] unindexedProposals= unindexed.getJavaCompletionProposals();
+		Arrays.sort(indexedProposals, comparator);
+		Arrays.sort(unindexedProposals, comparator);
+
+		String[] expected= new String[] { "put(fName, intVal)", "put(intVal, fName)", "putAll(fName, longVal)" };
+		assertEquals(expected.length, indexedProposals.length);
+		assertEquals(expected.length, unindexedProposals.length);
+		for (int i= 0; i < expected.length; i++) {
+			assertAppliedProposal(contents, indexedProposals[i], expected[i]);
+			assertAppliedProposal(contents, unindexedProposals[i], expected[i]);
+		}
+	}
+
 	public void testNormalAllMethodCompletionWithParametersNames() throws Exception {
 		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
 
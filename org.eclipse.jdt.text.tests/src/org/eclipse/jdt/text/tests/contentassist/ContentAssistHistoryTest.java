@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2011 IBM Corporation and others.
+ * Copyright (c) 2005, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -42,12 +42,14 @@ public class ContentAssistHistoryTest extends TestCase {
 	private static final String LIST= "java.util.List";
 	private static final String COLLECTION= "java.util.Collection";
 	private static final String STRING_BUFFER= "java.lang.StringBuffer";
+	private static final String STRING_BUILDER= "java.lang.StringBuilder";
 	private static final String CHAR_SEQUENCE= "java.lang.CharSequence";
 	private static final String STRING= "java.lang.String";
 
 	private static IType fgStringT;
 	private static IType fgCharSequenceT;
 	private static IType fgStringBufferT;
+	private static IType fgStringBuilderT;
 	private static IType fgCollectionT;
 	private static IType fgListT;
 	private static IType fgArrayListT;
@@ -74,6 +76,7 @@ public class ContentAssistHistoryTest extends TestCase {
 				fgStringT= project.findType(STRING);
 				fgCharSequenceT= project.findType(CHAR_SEQUENCE);
 				fgStringBufferT= project.findType(STRING_BUFFER);
+				fgStringBuilderT= project.findType(STRING_BUILDER);
 				fgCollectionT= project.findType(COLLECTION);
 				fgListT= project.findType(LIST);
 				fgArrayListT= project.findType(ARRAY_LIST);
@@ -239,6 +242,69 @@ public class ContentAssistHistoryTest extends TestCase {
 		assertEqualMap(map(LIST, list(ARRAY_LIST), COLLECTION, list(ARRAY_LIST), ITERABLE, list(ARRAY_LIST), CHAR_SEQUENCE, list(STRING)), loaded.getEntireHistory());
 	}
 
+	public void testFrequencyRanking() {
+		ContentAssistHistory history= new ContentAssistHistory();
+
+		history.remember(fgCharSequenceT, fgStringT);
+		history.remember(fgCharSequenceT, fgStringT);
+		history.remember(fgCharSequenceT, fgStringBufferT);
+
+		RHSHistory rhsHistory= history.getHistory(CHAR_SEQUENCE);
+		assertEquals("order must be by recency", list(STRING, STRING_BUFFER), rhsHistory.getTypes());
+		assertEquals("the most frequently selected type must rank highest", 1.0f, rhsHistory.getRank(STRING), 0.0f);
+		float rank= rhsHistory.getRank(STRING_BUFFER);
+		assertTrue(rank > 0.0f && rank < 1.0f);
+		assertEquals(0.0f, rhsHistory.getRank(ARRAY_LIST), 0.0f);
+		assertSame("unchanged history must be shared", rhsHistory, history.getHistory(CHAR_SEQUENCE));
+
+		history.remember(fgCharSequenceT, fgStringBufferT);
+		rhsHistory= history.getHistory(CHAR_SEQUENCE);
+		assertEquals("frequent recent selections must rank highest", 1.0f, rhsHistory.getRank(STRING_BUFFER), 0.0f);
+		assertTrue(rhsHistory.getRank(STRING) < 1.0f);
+	}
+
+	public void testEvictLowestRanked() {
+		ContentAssistHistory history= new ContentAssistHistory(10, 2);
+
+		history.remember(fgCharSequenceT, fgStringT);
+		history.remember(fgCharSequenceT, fgStringT);
+		history.remember(fgCharSequenceT, fgStringBufferT);
+		history.remember(fgCharSequenceT, fgStringBuilderT);
+
+		assertEquals("the lowest ranked type must be evicted", list(STRING, STRING_BUILDER), history.getHistory(CHAR_SEQUENCE).getTypes());
+	}
+
+	public void testLoadStoreRanks() throws Exception {
+		ContentAssistHistory history= new ContentAssistHistory();
+
+		history.remember(fgCharSequenceT, fgStringT);
+		history.remember(fgCharSequenceT, fgStringT);
+		history.remember(fgCharSequenceT, fgStringBufferT);
+
+		Preferences prefs= new Preferences();
+		String key= "myKey";
+		ContentAssistHistory.store(history, prefs, key);
+		ContentAssistHistory loaded= ContentAssistHistory.load(prefs, key);
+
+		RHSHistory expected= history.getHistory(CHAR_SEQUENCE);
+		RHSHistory actual= loaded.getHistory(CHAR_SEQUENCE);
+		assertEquals(expected.getTypes(), actual.getTypes());
+		assertEquals(expected.getRank(STRING), actual.getRank(STRING), 0.0001f);
+		assertEquals(expected.getRank(STRING_BUFFER), actual.getRank(STRING_BUFFER), 0.0001f);
+	}
+
+	public void testLoadWithoutRanks() throws Exception {
+		Preferences prefs= new Preferences();
+		String key= "myKey";
+		prefs.setValue(key, "<?xml version=\"1.0\" encoding=\"UTF-8\"?><history maxLHS=\"100\" maxRHS=\"10\"><lhs name=\"" + CHAR_SEQUENCE + "\"><rhs name=\"" + STRING + "\"/><rhs name=\"" + STRING_BUFFER + "\"/></lhs></history>");
+		ContentAssistHistory loaded= ContentAssistHistory.load(prefs, key);
+
+		RHSHistory history= loaded.getHistory(CHAR_SEQUENCE);
+		assertEquals(list(STRING, STRING_BUFFER), history.getTypes());
+		assertEquals("the most recently selected type must rank highest", 1.0f, history.getRank(STRING_BUFFER), 0.0f);
+		assertTrue(history.getRank(STRING) > 0.0f && history.getRank(STRING) < 1.0f);
+	}
+
 	private static void assertEqualMap(Map expected, Map actual) {
 		assertEqualMap("", expected, actual);
 	}
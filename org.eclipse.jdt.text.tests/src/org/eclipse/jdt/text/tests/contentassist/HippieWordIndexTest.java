@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.contentassist;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+
+import org.eclipse.jdt.internal.ui.text.java.HippieWordIndex;
+
+/**
+ * Tests that the {@link HippieWordIndex} stays up to date with document changes.
+ *
+ * @since 3.9
+ */
+public class HippieWordIndexTest extends TestCase {
+
+	public static Test suite() {
+		return new TestSuite(HippieWordIndexTest.class);
+	}
+
+	public HippieWordIndexTest(String name) {
+		super(name);
+	}
+
+	public void testCompletions() {
+		HippieWordIndex index= new HippieWordIndex();
+		IDocument document= new Document("foo fooBar\nfoobar foo_baz other\nfoo");
+
+		assertEquals(list("fooBar", "foo_baz", "foobar"), index.getCompletions(document, "foo"));
+		assertEquals(list("foobar"), index.getCompletions(document, "foob"));
+		assertEquals(Collections.EMPTY_LIST, index.getCompletions(document, "fooBar"));
+		assertEquals(Collections.EMPTY_LIST, index.getCompletions(document, "x"));
+	}
+
+	public void testIncrementalUpdate() throws Exception {
+		HippieWordIndex index= new HippieWordIndex();
+		IDocument document= new Document("alpha beta\ngamma alphabet\n");
+		assertEquals(list("alphabet"), index.getCompletions(document, "alpha"));
+
+		document.replace(document.get().indexOf("alphabet"), "alphabet".length(), "alphanumeric");
+		assertEquals(list("alphanumeric"), index.getCompletions(document, "alpha"));
+
+		document.replace(0, 0, "alphas\nalphabet ");
+		assertEquals(list("alphabet", "alphanumeric", "alphas"), index.getCompletions(document, "alpha"));
+
+		// split a word
+		int offset= document.get().indexOf("alphanumeric") + "alpha".length();
+		document.replace(offset, 0, " ");
+		assertEquals(list("alphabet", "alphas"), index.getCompletions(document, "alpha"));
+
+		// join lines
+		offset= document.get().indexOf('\n');
+		document.replace(offset, 1, "");
+		assertEquals(list("alphasalphabet"), index.getCompletions(document, "alpha"));
+
+		document.set("alphabetical");
+		assertEquals(list("alphabetical"), index.getCompletions(document, "alpha"));
+		assertTrue(index.isIndexed(document));
+	}
+
+	public void testMemoryCap() {
+		HippieWordIndex index= new HippieWordIndex(20);
+		IDocument first= new Document("alphabet alphanumeric");
+		IDocument second= new Document("betamax");
+		IDocument tooLarge= new Document("alphabetically alphanumerically");
+
+		assertEquals(list("alphabet", "alphanumeric"), index.getCompletions(first, "alpha"));
+		assertTrue(index.isIndexed(first));
+
+		assertEquals(list("betamax"), index.getCompletions(second, "beta"));
+		assertTrue(index.isIndexed(second));
+		assertFalse("least recently queried document must be evicted", index.isIndexed(first));
+		assertTrue(index.getIndexedCharacters() <= 20);
+
+		assertEquals(list("alphabetically", "alphanumerically"), index.getCompletions(tooLarge, "alpha"));
+		assertFalse(index.isIndexed(tooLarge));
+	}
+
+	private static List list(String s1) {
+		return Arrays.asList(new String[] { s1 });
+	}
+
+	private static List list(String s1, String s2) {
+		return Arrays.asList(new String[] { s1, s2 });
+	}
+
+	private static List list(String s1, String s2, String s3) {
+		return Arrays.asList(new String[] { s1, s2, s3 });
+	}
+}
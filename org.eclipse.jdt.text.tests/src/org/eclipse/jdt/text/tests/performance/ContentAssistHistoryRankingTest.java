@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.performance;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.PerformanceMeter;
+
+import org.eclipse.core.runtime.Preferences;
+
+import org.eclipse.jdt.internal.ui.text.java.ContentAssistHistory;
+import org.eclipse.jdt.internal.ui.text.java.ContentAssistHistory.RHSHistory;
+
+
+/**
+ * Measures ranking 10000 type proposals by the content assist history, the way the relevance of
+ * type proposals is computed and sorted on.
+ *
+ * @since 3.9
+ */
+public class ContentAssistHistoryRankingTest extends TextPerformanceTestCase {
+
+	private static final Class THIS= ContentAssistHistoryRankingTest.class;
+
+	private static final String KEY= "history";
+
+	private static final int PROPOSALS= 10000;
+
+	private static final int LHS_COUNT= 100;
+
+	private static final int RHS_COUNT= 10;
+
+	private static final int WARM_UP_RUNS= 10;
+
+	private static final int MEASURED_RUNS= 50;
+
+	private ContentAssistHistory fHistory;
+
+	private String[] fProposals;
+
+	public static Test suite() {
+		return new PerformanceTestSetup(new TestSuite(THIS));
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		StringBuffer buffer= new StringBuffer();
+		buffer.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?><history maxLHS=\"" + LHS_COUNT + "\" maxRHS=\"" + RHS_COUNT + "\">");
+		for (int i= 0; i < LHS_COUNT; i++) {
+			buffer.append("<lhs name=\"p.LHS" + i + "\">");
+			for (int j= 0; j < RHS_COUNT; j++)
+				buffer.append("<rhs name=\"p.Type" + (i * RHS_COUNT + j) + "\"/>");
+			buffer.append("</lhs>");
+		}
+		buffer.append("</history>");
+
+		Preferences preferences= new Preferences();
+		preferences.setValue(KEY, buffer.toString());
+		fHistory= ContentAssistHistory.load(preferences, KEY);
+		assertNotNull(fHistory);
+
+		fProposals= new String[PROPOSALS];
+		for (int i= 0; i < PROPOSALS; i++)
+			fProposals[i]= "p.Type" + i;
+
+		setWarmUpRuns(WARM_UP_RUNS);
+		setMeasuredRuns(MEASURED_RUNS);
+	}
+
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		fHistory= null;
+		fProposals= null;
+	}
+
+	/**
+	 * Measures ranking and sorting the proposals for one expected type per run.
+	 *
+	 * @throws Exception if the test fails
+	 */
+	public void testRankProposals() throws Exception {
+		measure(getNullPerformanceMeter(), getWarmUpRuns());
+		measure(createPerformanceMeter(), getMeasuredRuns());
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	private void measure(PerformanceMeter meter, int runs) {
+		for (int i= 0; i < runs; i++) {
+			String[] proposals= (String[]) fProposals.clone();
+			String lhs= "p.LHS" + (i % LHS_COUNT);
+
+			meter.start();
+			final RHSHistory history= fHistory.getHistory(lhs);
+			final float[] ranks= new float[PROPOSALS];
+			for (int j= 0; j < PROPOSALS; j++)
+				ranks[j]= history.getRank(proposals[j]);
+			Integer[] order= new Integer[PROPOSALS];
+			for (int j= 0; j < PROPOSALS; j++)
+				order[j]= new Integer(j);
+			Arrays.sort(order, new Comparator() {
+				public int compare(Object o1, Object o2) {
+					return Float.compare(ranks[((Integer) o2).intValue()], ranks[((Integer) o1).intValue()]);
+				}
+			});
+			meter.stop();
+
+			assertTrue(ranks[order[0].intValue()] > 0.0f);
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.text.tests.performance;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.PerformanceMeter;
+
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.jface.text.TextSelection;
+import org.eclipse.jface.text.source.SourceViewer;
+
+import org.eclipse.ui.texteditor.AbstractTextEditor;
+
+/**
+ * Measures the time to update the folding structure of a file with 5000 methods
+ * after typing in a method body.
+ *
+ * @since 3.9
+ */
+public class FoldingUpdateTest extends TextPerformanceTestCase {
+
+	private static final Class THIS= FoldingUpdateTest.class;
+
+	private static final String FILE= "/" + PerformanceTestSetup.PROJECT + "/Eclipse SWT Custom Widgets/common/org/eclipse/swt/custom/FoldingUpdate.java";
+
+	private static final int METHODS= 5000;
+
+	private static final String ANCHOR= "method" + METHODS / 2 + "(int value) {\n";
+
+	private static final int WARM_UP_RUNS= 3;
+
+	private static final int MEASURED_RUNS= 10;
+
+	private AbstractTextEditor fEditor;
+
+	public static Test suite() {
+		return new PerformanceTestSetup(new TestSuite(THIS));
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		ResourceTestHelper.write(FILE, createSource());
+		EditorTestHelper.runEventQueue();
+		fEditor= (AbstractTextEditor) EditorTestHelper.openInEditor(ResourceTestHelper.findFile(FILE), EditorTestHelper.COMPILATION_UNIT_EDITOR_ID, true);
+		EditorTestHelper.joinBackgroundActivities(fEditor);
+		setWarmUpRuns(WARM_UP_RUNS);
+		setMeasuredRuns(MEASURED_RUNS);
+	}
+
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		EditorTestHelper.revertEditor(fEditor, true);
+		EditorTestHelper.closeAllEditors();
+		fEditor= null;
+		ResourceTestHelper.delete(FILE);
+	}
+
+	private static String createSource() {
+		StringBuffer buf= new StringBuffer();
+		buf.append("package org.eclipse.swt.custom;\n");
+		buf.append("\n");
+		buf.append("public class FoldingUpdate {\n");
+		for (int i= 0; i < METHODS; i++) {
+			buf.append("\t/**\n");
+			buf.append("\t * Method " + i + ".\n");
+			buf.append("\t */\n");
+			buf.append("\tpublic int method" + i + "(int value) {\n");
+			buf.append("\t\treturn value + " + i + ";\n");
+			buf.append("\t}\n");
+			buf.append("\n");
+		}
+		buf.append("}\n");
+		return buf.toString();
+	}
+
+	/**
+	 * Measures the time from typing into a method body until the reconciler, which also
+	 * updates the folding structure, is done.
+	 *
+	 * @throws Exception if the test fails
+	 */
+	public void testTypeInMethodBody() throws Exception {
+		String content= EditorTestHelper.getDocument(fEditor).get();
+		int offset= content.indexOf(ANCHOR);
+		assertTrue(offset != -1);
+		offset+= ANCHOR.length();
+
+		measure(offset, getNullPerformanceMeter(), getWarmUpRuns());
+		measure(offset, createPerformanceMeter(), getMeasuredRuns());
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	private void measure(int offset, PerformanceMeter meter, int runs) throws Exception {
+		Display display= EditorTestHelper.getActiveDisplay();
+		SourceViewer sourceViewer= EditorTestHelper.getSourceViewer(fEditor);
+		for (int i= 0; i < runs; i++) {
+			fEditor.getSelectionProvider().setSelection(new TextSelection(offset, 0));
+			EditorTestHelper.runEventQueue(display, 1000);
+
+			meter.start();
+			getKeyboardProbe().pressChar(';', display);
+			EditorTestHelper.forceReconcile(sourceViewer);
+			assertTrue(EditorTestHelper.joinReconciler(sourceViewer, 0, 30000, 10));
+			meter.stop();
+
+			EditorTestHelper.revertEditor(fEditor, true);
+			EditorTestHelper.joinBackgroundActivities(fEditor);
+		}
+	}
+}
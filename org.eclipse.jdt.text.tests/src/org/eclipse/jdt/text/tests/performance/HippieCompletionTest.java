@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.performance;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.PerformanceMeter;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+
+import org.eclipse.jdt.internal.ui.text.java.HippieWordIndex;
+
+
+/**
+ * Measures looking up hippie word completions in many large open documents while one of them
+ * is being edited.
+ *
+ * @since 3.9
+ */
+public class HippieCompletionTest extends TextPerformanceTestCase {
+
+	private static final Class THIS= HippieCompletionTest.class;
+
+	private static final int DOCUMENTS= 30;
+
+	private static final int LINES= 2000;
+
+	private static final String[] PREFIXES= { "fo", "bar", "ba", "q", "fooB", "x" };
+
+	private static final int WARM_UP_RUNS= 5;
+
+	private static final int MEASURED_RUNS= 20;
+
+	private IDocument[] fDocuments;
+
+	private HippieWordIndex fIndex;
+
+	public static Test suite() {
+		return new PerformanceTestSetup(new TestSuite(THIS));
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		fDocuments= new IDocument[DOCUMENTS];
+		for (int i= 0; i < DOCUMENTS; i++) {
+			StringBuffer buffer= new StringBuffer();
+			for (int j= 0; j < LINES; j++)
+				buffer.append("\t\tfooBar" + j + ".quux(bar" + (i * LINES + j) + ", baz); // some comment\n");
+			fDocuments[i]= new Document(buffer.toString());
+		}
+		fIndex= new HippieWordIndex();
+		setWarmUpRuns(WARM_UP_RUNS);
+		setMeasuredRuns(MEASURED_RUNS);
+	}
+
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		fIndex.clear();
+		fIndex= null;
+		fDocuments= null;
+	}
+
+	/**
+	 * Measures typing into the first document followed by a completion request
+	 * in all documents.
+	 *
+	 * @throws Exception if the test fails
+	 */
+	public void testTypeAndComplete() throws Exception {
+		measure(getNullPerformanceMeter(), getWarmUpRuns());
+		measure(createPerformanceMeter(), getMeasuredRuns());
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	private void measure(PerformanceMeter meter, int runs) throws Exception {
+		IDocument edited= fDocuments[0];
+		for (int i= 0; i < runs; i++) {
+			meter.start();
+			for (int j= 0; j < PREFIXES.length; j++) {
+				edited.replace(edited.getLength() / 2, 0, PREFIXES[j] + "Typed" + i + " ");
+				for (int k= 0; k < DOCUMENTS; k++)
+					fIndex.getCompletions(fDocuments[k], PREFIXES[j]);
+			}
+			meter.stop();
+		}
+	}
+}
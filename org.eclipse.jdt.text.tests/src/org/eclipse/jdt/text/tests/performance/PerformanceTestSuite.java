@@ -49,6 +49,12 @@ public class PerformanceTestSuite extends TestSuite {
 		addTest(SynchronizedLineDifferInitializationTest.suite());
 		addTest(DocumentLineDifferModificationTest.suite());
 		addTest(SpellCheckingTest.suite());
+		addTest(SemanticHighlightingTypingTest.suite());
+		addTest(FoldingUpdateTest.suite());
+		addTest(SpellDictionaryLoadTest.suite());
+		addTest(SpellCheckingTypingTest.suite());
+		addTest(ContentAssistHistoryRankingTest.suite());
+		addTest(HippieCompletionTest.suite());
 
 
 		/* !!! IMPORTANT NOTE: The following test must be the last one !!! */
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.text.tests.performance;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.PerformanceMeter;
+
+import org.eclipse.swt.custom.StyleRange;
+import org.eclipse.swt.custom.StyledText;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.ITextViewerExtension5;
+import org.eclipse.jface.text.TextSelection;
+import org.eclipse.jface.text.source.SourceViewer;
+
+import org.eclipse.ui.texteditor.AbstractTextEditor;
+
+/**
+ * Measures the time from typing a field reference into a method body of a
+ * large file until the field reference is highlighted by semantic highlighting.
+ *
+ * @since 3.9
+ */
+public class SemanticHighlightingTypingTest extends TextPerformanceTestCase {
+
+	private static final Class THIS= SemanticHighlightingTypingTest.class;
+
+	private static final String FILE= PerformanceTestSetup.STYLED_TEXT;
+
+	private static final String FIELD= "caretOffset";
+
+	private static final String METHOD= "public void copy() {";
+
+	private static final String ANCHOR= "checkWidget();";
+
+	private static final char[] STATEMENT= (" " + FIELD + "++;").toCharArray();
+
+	private static final int WARM_UP_RUNS= 3;
+
+	private static final int MEASURED_RUNS= 20;
+
+	private static final long TIMEOUT= 30000;
+
+	private AbstractTextEditor fEditor;
+
+	public static Test suite() {
+		return new PerformanceTestSetup(new TestSuite(THIS));
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		EditorTestHelper.runEventQueue();
+		fEditor= (AbstractTextEditor) EditorTestHelper.openInEditor(ResourceTestHelper.findFile(FILE), "org.eclipse.jdt.ui.CompilationUnitEditor", true);
+		EditorTestHelper.joinBackgroundActivities(fEditor);
+		setWarmUpRuns(WARM_UP_RUNS);
+		setMeasuredRuns(MEASURED_RUNS);
+	}
+
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		EditorTestHelper.revertEditor(fEditor, true);
+		EditorTestHelper.closeAllEditors();
+		fEditor= null;
+	}
+
+	/**
+	 * Measures the time until a field reference typed into a method body is
+	 * highlighted.
+	 *
+	 * @throws Exception if the test fails
+	 */
+	public void testHighlightTypedFieldReference() throws Exception {
+		String content= EditorTestHelper.getDocument(fEditor).get();
+		int declaration= content.indexOf(FIELD);
+		int method= content.indexOf(METHOD);
+		assertTrue(declaration != -1 && method != -1);
+		int offset= content.indexOf(ANCHOR, method) + ANCHOR.length();
+
+		Color expected= getForeground(declaration);
+		assertNotNull("Field is not highlighted", expected);
+
+		measure(offset, expected, getNullPerformanceMeter(), getWarmUpRuns());
+		measure(offset, expected, createPerformanceMeter(), getMeasuredRuns());
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	private void measure(int offset, final Color expected, PerformanceMeter meter, int runs) throws Exception {
+		Display display= EditorTestHelper.getActiveDisplay();
+		KeyboardProbe keyboardProbe= getKeyboardProbe();
+		final int reference= offset + 1;
+		for (int i= 0; i < runs; i++) {
+			fEditor.getSelectionProvider().setSelection(new TextSelection(offset, 0));
+			EditorTestHelper.runEventQueue(display, 1000);
+
+			for (int j= 0; j < STATEMENT.length; j++) {
+				keyboardProbe.pressChar(STATEMENT[j], display);
+				EditorTestHelper.runEventQueue();
+			}
+
+			meter.start();
+			boolean highlighted= new DisplayHelper() {
+				protected boolean condition() {
+					return expected.equals(getForeground(reference));
+				}
+			}.waitForCondition(display, TIMEOUT);
+			meter.stop();
+			assertTrue("Typed field reference was not highlighted", highlighted);
+
+			EditorTestHelper.revertEditor(fEditor, true);
+			EditorTestHelper.joinBackgroundActivities(fEditor);
+		}
+	}
+
+	private Color getForeground(int modelOffset) {
+		SourceViewer viewer= EditorTestHelper.getSourceViewer(fEditor);
+		IDocument document= viewer.getDocument();
+		if (document == null || modelOffset >= document.getLength())
+			return null;
+		int widgetOffset= ((ITextViewerExtension5) viewer).modelOffset2WidgetOffset(modelOffset);
+		if (widgetOffset == -1)
+			return null;
+		StyledText textWidget= viewer.getTextWidget();
+		StyleRange range= textWidget.getStyleRangeAtOffset(widgetOffset);
+		return range != null ? range.foreground : null;
+	}
+}
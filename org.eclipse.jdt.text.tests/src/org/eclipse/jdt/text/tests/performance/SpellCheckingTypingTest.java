@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.text.tests.performance;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.PerformanceMeter;
+
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.jface.preference.IPreferenceStore;
+
+import org.eclipse.jface.text.TextSelection;
+import org.eclipse.jface.text.source.SourceViewer;
+
+import org.eclipse.ui.texteditor.AbstractTextEditor;
+import org.eclipse.ui.texteditor.spelling.SpellingService;
+
+import org.eclipse.ui.editors.text.EditorsUI;
+
+/**
+ * Measures the time to reconcile a large file with spell checking enabled after
+ * typing in a method body.
+ *
+ * @since 3.9
+ */
+public class SpellCheckingTypingTest extends TextPerformanceTestCase {
+
+	private static final Class THIS= SpellCheckingTypingTest.class;
+
+	private static final String FILE= PerformanceTestSetup.STYLED_TEXT;
+
+	private static final String METHOD= "public void copy() {";
+
+	private static final String ANCHOR= "checkWidget();";
+
+	private static final int WARM_UP_RUNS= 3;
+
+	private static final int MEASURED_RUNS= 20;
+
+	private AbstractTextEditor fEditor;
+
+	public static Test suite() {
+		return new PerformanceTestSetup(new TestSuite(THIS));
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		EditorsUI.getPreferenceStore().putValue(SpellingService.PREFERENCE_SPELLING_ENABLED, IPreferenceStore.TRUE);
+		EditorTestHelper.runEventQueue();
+		fEditor= (AbstractTextEditor) EditorTestHelper.openInEditor(ResourceTestHelper.findFile(FILE), EditorTestHelper.COMPILATION_UNIT_EDITOR_ID, true);
+		EditorTestHelper.joinBackgroundActivities(fEditor);
+		setWarmUpRuns(WARM_UP_RUNS);
+		setMeasuredRuns(MEASURED_RUNS);
+	}
+
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		EditorTestHelper.revertEditor(fEditor, true);
+		EditorTestHelper.closeAllEditors();
+		fEditor= null;
+		EditorsUI.getPreferenceStore().setToDefault(SpellingService.PREFERENCE_SPELLING_ENABLED);
+	}
+
+	/**
+	 * Measures the time from typing into a method body until the reconciler,
+	 * which also spell checks the changed partitions, is done.
+	 *
+	 * @throws Exception if the test fails
+	 */
+	public void testTypeInMethodBody() throws Exception {
+		String content= EditorTestHelper.getDocument(fEditor).get();
+		int method= content.indexOf(METHOD);
+		assertTrue(method != -1);
+		int offset= content.indexOf(ANCHOR, method) + ANCHOR.length();
+
+		measure(offset, getNullPerformanceMeter(), getWarmUpRuns());
+		measure(offset, createPerformanceMeter(), getMeasuredRuns());
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	private void measure(int offset, PerformanceMeter meter, int runs) throws Exception {
+		Display display= EditorTestHelper.getActiveDisplay();
+		SourceViewer sourceViewer= EditorTestHelper.getSourceViewer(fEditor);
+		for (int i= 0; i < runs; i++) {
+			fEditor.getSelectionProvider().setSelection(new TextSelection(offset, 0));
+			EditorTestHelper.runEventQueue(display, 1000);
+
+			meter.start();
+			getKeyboardProbe().pressChar(';', display);
+			EditorTestHelper.forceReconcile(sourceViewer);
+			assertTrue(EditorTestHelper.joinReconciler(sourceViewer, 0, 30000, 10));
+			meter.stop();
+
+			EditorTestHelper.revertEditor(fEditor, true);
+			EditorTestHelper.joinBackgroundActivities(fEditor);
+		}
+	}
+}
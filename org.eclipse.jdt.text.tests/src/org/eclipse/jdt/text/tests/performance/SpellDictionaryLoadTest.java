@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.performance;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.Locale;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.test.performance.PerformanceMeter;
+
+import org.eclipse.jdt.internal.ui.text.spelling.SpellCheckEngine;
+import org.eclipse.jdt.internal.ui.text.spelling.engine.AbstractSpellDictionary;
+import org.eclipse.jdt.internal.ui.text.spelling.engine.LocaleSensitiveSpellDictionary;
+
+
+/**
+ * Measures the time and the heap used to load the platform dictionary and to
+ * check the first word, once with the dictionary hashed into the heap and once
+ * with the compiled dictionary.
+ *
+ * @since 3.9
+ */
+public class SpellDictionaryLoadTest extends TextPerformanceTestCase {
+
+	private static final Class THIS= SpellDictionaryLoadTest.class;
+
+	private static final Locale LOCALE= Locale.US;
+
+	private static final String WORD= "dictionary";
+
+	private static final int WARM_UP_RUNS= 3;
+
+	private static final int MEASURED_RUNS= 10;
+
+	private URL fLocation;
+
+	public static Test suite() {
+		return new PerformanceTestSetup(new TestSuite(THIS));
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		Enumeration locations= SpellCheckEngine.getDictionaryLocations();
+		assertNotNull(locations);
+		assertTrue(locations.hasMoreElements());
+		fLocation= (URL) locations.nextElement();
+		setWarmUpRuns(WARM_UP_RUNS);
+		setMeasuredRuns(MEASURED_RUNS);
+	}
+
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		fLocation= null;
+	}
+
+	/**
+	 * Measures loading the word list into the heap.
+	 *
+	 * @throws Exception if the test fails
+	 */
+	public void testLoadHashedDictionary() throws Exception {
+		measureHashed(getNullPerformanceMeter(), getWarmUpRuns());
+		measureHashed(createPerformanceMeter(), getMeasuredRuns());
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	/**
+	 * Measures reading the compiled word list. The word list is compiled
+	 * during the warm-up runs if necessary.
+	 *
+	 * @throws Exception if the test fails
+	 */
+	public void testLoadCompiledDictionary() throws Exception {
+		measureCompiled(getNullPerformanceMeter(), getWarmUpRuns());
+		measureCompiled(createPerformanceMeter(), getMeasuredRuns());
+		commitAllMeasurements();
+		assertAllPerformance();
+	}
+
+	private void measureHashed(PerformanceMeter meter, int runs) throws Exception {
+		final URL url= new URL(fLocation, LOCALE.toString() + ".dictionary");
+		for (int i= 0; i < runs; i++) {
+			AbstractSpellDictionary dictionary= new AbstractSpellDictionary() {
+				protected URL getURL() throws MalformedURLException {
+					return url;
+				}
+			};
+			meter.start();
+			assertTrue(dictionary.isCorrect(WORD));
+			meter.stop();
+			dictionary.unload();
+		}
+	}
+
+	private void measureCompiled(PerformanceMeter meter, int runs) throws Exception {
+		for (int i= 0; i < runs; i++) {
+			AbstractSpellDictionary dictionary= new LocaleSensitiveSpellDictionary(LOCALE, fLocation);
+			meter.start();
+			assertTrue(dictionary.isCorrect(WORD));
+			meter.stop();
+			dictionary.unload();
+		}
+	}
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.spelling;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.internal.ui.text.spelling.SpellCheckEngine;
+import org.eclipse.jdt.internal.ui.text.spelling.engine.AbstractSpellDictionary;
+import org.eclipse.jdt.internal.ui.text.spelling.engine.CompiledSpellDictionary;
+import org.eclipse.jdt.internal.ui.text.spelling.engine.RankedWordProposal;
+
+/**
+ * Tests that a {@link CompiledSpellDictionary} behaves like the hash-based
+ * {@link AbstractSpellDictionary} for the same word list.
+ *
+ * @since 3.9
+ */
+public class CompiledSpellDictionaryTest extends TestCase {
+
+	private static class HashedDictionary extends AbstractSpellDictionary {
+
+		private final URL fURL;
+
+		public HashedDictionary(URL url) {
+			fURL= url;
+		}
+
+		protected URL getURL() throws MalformedURLException {
+			return fURL;
+		}
+	}
+
+	private static class CompiledDictionary extends CompiledSpellDictionary {
+
+		private final URL fURL;
+		private final File fFile;
+
+		public CompiledDictionary(URL url, File file) {
+			fURL= url;
+			fFile= file;
+		}
+
+		protected URL getURL() throws MalformedURLException {
+			return fURL;
+		}
+
+		protected File getCompiledFile(URL url) {
+			return fFile;
+		}
+	}
+
+	private static final String[] WORDS= { "dictionary", "spelling", "the", "unbelievable", "quickly" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+
+	private static final String[] MISSPELLED= { "dictinary", "speling", "teh", "unbeleivable", "quikly", "xyzzy" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+
+	public static Test suite() {
+		return new TestSuite(CompiledSpellDictionaryTest.class);
+	}
+
+	private URL fURL;
+	private File fFile;
+
+	public CompiledSpellDictionaryTest(String name) {
+		super(name);
+	}
+
+	protected void setUp() throws Exception {
+		Enumeration locations= SpellCheckEngine.getDictionaryLocations();
+		assertNotNull(locations);
+		assertTrue(locations.hasMoreElements());
+		fURL= new URL((URL) locations.nextElement(), "en_US.dictionary"); //$NON-NLS-1$
+		fFile= File.createTempFile("en_US", ".compiled"); //$NON-NLS-1$ //$NON-NLS-2$
+		assertTrue(fFile.delete());
+	}
+
+	protected void tearDown() throws Exception {
+		fFile.delete();
+	}
+
+	public void testCompileAndReopen() throws Exception {
+		HashedDictionary hashed= new HashedDictionary(fURL);
+
+		CompiledDictionary compiled= new CompiledDictionary(fURL, fFile);
+		assertSameResults(hashed, compiled);
+		assertTrue(fFile.isFile());
+		long length= fFile.length();
+		long modified= fFile.lastModified();
+
+		compiled.unload();
+		assertSameResults(hashed, compiled);
+
+		CompiledDictionary reopened= new CompiledDictionary(fURL, fFile);
+		assertSameResults(hashed, reopened);
+		assertEquals(length, fFile.length());
+		assertEquals(modified, fFile.lastModified());
+	}
+
+	public void testDeleteWhileLoaded() throws Exception {
+		HashedDictionary hashed= new HashedDictionary(fURL);
+		CompiledDictionary compiled= new CompiledDictionary(fURL, fFile);
+		assertSameResults(hashed, compiled);
+
+		// the loaded word list does not keep the file open
+		assertTrue(fFile.delete());
+		assertSameResults(hashed, compiled);
+	}
+
+	public void testCorruptCompiledFile() throws Exception {
+		write(fFile, "corrupt"); //$NON-NLS-1$
+
+		CompiledDictionary compiled= new CompiledDictionary(fURL, fFile);
+		assertSameResults(new HashedDictionary(fURL), compiled);
+		assertTrue(fFile.length() > "corrupt".length()); //$NON-NLS-1$
+	}
+
+	public void testFallbackWithoutCompiledFile() throws Exception {
+		CompiledDictionary compiled= new CompiledDictionary(fURL, null);
+		assertSameResults(new HashedDictionary(fURL), compiled);
+		assertFalse(fFile.exists());
+	}
+
+	private static void assertSameResults(AbstractSpellDictionary expected, AbstractSpellDictionary actual) {
+		for (int i= 0; i < WORDS.length; i++) {
+			assertTrue(WORDS[i], expected.isCorrect(WORDS[i]));
+			assertTrue(WORDS[i], actual.isCorrect(WORDS[i]));
+		}
+		assertTrue(actual.isLoaded());
+
+		for (int i= 0; i < MISSPELLED.length; i++) {
+			assertEquals(MISSPELLED[i], expected.isCorrect(MISSPELLED[i]), actual.isCorrect(MISSPELLED[i]));
+			assertEquals(MISSPELLED[i], toStrings(expected.getProposals(MISSPELLED[i], false)), toStrings(actual.getProposals(MISSPELLED[i], false)));
+		}
+	}
+
+	private static Set toStrings(Set proposals) {
+		Set result= new HashSet();
+		for (Iterator iter= proposals.iterator(); iter.hasNext();) {
+			RankedWordProposal proposal= (RankedWordProposal) iter.next();
+			result.add(proposal.getText() + ':' + proposal.getRank());
+		}
+		return result;
+	}
+
+	private static void write(File file, String content) throws IOException {
+		FileWriter writer= new FileWriter(file);
+		try {
+			writer.write(content);
+		} finally {
+			writer.close();
+		}
+	}
+}
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.spelling;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.internal.ui.text.spelling.SpellingProblemTracker;
+import org.eclipse.jdt.internal.ui.text.spelling.SpellingProblemTracker.CachedProblem;
+
+/**
+ * Tests how {@link SpellingProblemTracker} shifts the remembered problems and the dirty region
+ * with the document changes.
+ *
+ * @since 3.9
+ */
+public class SpellingProblemTrackerTest extends TestCase {
+
+	public static Test suite() {
+		return new TestSuite(SpellingProblemTrackerTest.class);
+	}
+
+	private SpellingProblemTracker fTracker;
+
+	protected void setUp() throws Exception {
+		fTracker= new SpellingProblemTracker();
+		// problems at [10, 15) and [20, 25)
+		List<CachedProblem> problems= new ArrayList<CachedProblem>();
+		problems.add(new CachedProblem(10, 5, "first", false, false)); //$NON-NLS-1$
+		problems.add(new CachedProblem(20, 5, "second", false, false)); //$NON-NLS-1$
+		fTracker.setProblems(problems);
+	}
+
+	public void testInsertBefore() {
+		fTracker.documentChanged(5, 0, 3);
+		assertProblems(new int[] { 13, 23 });
+	}
+
+	public void testInsertAtStart() {
+		fTracker.documentChanged(10, 0, 3);
+		assertProblems(new int[] { 13, 23 });
+	}
+
+	public void testInsertInside() {
+		fTracker.documentChanged(12, 0, 3);
+		assertProblems(new int[] { 23 });
+	}
+
+	public void testInsertAtEnd() {
+		fTracker.documentChanged(15, 0, 3);
+		assertProblems(new int[] { 10, 23 });
+	}
+
+	public void testInsertAfter() {
+		fTracker.documentChanged(30, 0, 3);
+		assertProblems(new int[] { 10, 20 });
+	}
+
+	public void testDeleteBefore() {
+		fTracker.documentChanged(2, 5, 0);
+		assertProblems(new int[] { 5, 15 });
+	}
+
+	public void testDeleteUpToStart() {
+		fTracker.documentChanged(5, 5, 0);
+		assertProblems(new int[] { 5, 15 });
+	}
+
+	public void testDeleteInside() {
+		fTracker.documentChanged(11, 2, 0);
+		assertProblems(new int[] { 18 });
+	}
+
+	public void testDeleteAcrossStart() {
+		fTracker.documentChanged(8, 4, 0);
+		assertProblems(new int[] { 16 });
+	}
+
+	public void testDeleteAcrossProblems() {
+		fTracker.documentChanged(12, 10, 0);
+		assertProblems(new int[] {});
+	}
+
+	public void testDeleteBetween() {
+		fTracker.documentChanged(15, 5, 0);
+		assertProblems(new int[] { 10, 15 });
+	}
+
+	public void testReplaceBefore() {
+		fTracker.documentChanged(0, 5, 2);
+		assertProblems(new int[] { 7, 17 });
+	}
+
+	public void testUnknownProblems() {
+		fTracker.setProblems(null);
+		fTracker.documentChanged(0, 5, 2);
+		assertNull(fTracker.getProblems());
+		assertDirtyRegion(0, 2);
+	}
+
+	public void testDirtyRegionOfInsert() {
+		assertDirtyRegion(-1, -1);
+		fTracker.documentChanged(12, 0, 3);
+		assertDirtyRegion(12, 15);
+	}
+
+	public void testDirtyRegionOfDelete() {
+		fTracker.documentChanged(12, 3, 0);
+		assertDirtyRegion(12, 12);
+	}
+
+	public void testDirtyRegionShiftedByInsertBefore() {
+		fTracker.addDirtyRegion(10, 15);
+		fTracker.documentChanged(5, 0, 3);
+		assertDirtyRegion(5, 18);
+	}
+
+	public void testDirtyRegionShiftedByDeleteBefore() {
+		fTracker.addDirtyRegion(10, 15);
+		fTracker.documentChanged(2, 5, 0);
+		assertDirtyRegion(2, 10);
+	}
+
+	public void testDirtyRegionGrownByInsertInside() {
+		fTracker.addDirtyRegion(10, 15);
+		fTracker.documentChanged(12, 0, 3);
+		assertDirtyRegion(10, 18);
+	}
+
+	public void testDirtyRegionShrunkByDeleteInside() {
+		fTracker.addDirtyRegion(10, 15);
+		fTracker.documentChanged(11, 2, 0);
+		assertDirtyRegion(10, 13);
+	}
+
+	public void testDirtyRegionDeleteAcrossStart() {
+		fTracker.addDirtyRegion(10, 15);
+		fTracker.documentChanged(8, 4, 0);
+		assertDirtyRegion(8, 11);
+	}
+
+	public void testDirtyRegionDeleteAcrossEnd() {
+		fTracker.addDirtyRegion(10, 15);
+		fTracker.documentChanged(13, 5, 1);
+		assertDirtyRegion(10, 14);
+	}
+
+	public void testDirtyRegionDeleteAround() {
+		fTracker.addDirtyRegion(10, 15);
+		fTracker.documentChanged(5, 20, 2);
+		assertDirtyRegion(5, 7);
+	}
+
+	public void testDirtyRegionUnchangedByChangeAfter() {
+		fTracker.addDirtyRegion(10, 15);
+		fTracker.documentChanged(20, 5, 0);
+		assertDirtyRegion(10, 20);
+	}
+
+	public void testDirtyRegionsMerged() {
+		fTracker.addDirtyRegion(10, 15);
+		fTracker.addDirtyRegion(30, 35);
+		assertDirtyRegion(10, 35);
+		fTracker.addDirtyRegion(5, 8);
+		assertDirtyRegion(5, 35);
+		fTracker.clearDirtyRegion();
+		assertDirtyRegion(-1, -1);
+	}
+
+	public void testProblemsOutside() {
+		List<CachedProblem> problems= fTracker.getProblems();
+		assertOffsets(new int[] { 10, 20 }, SpellingProblemTracker.getProblemsOutside(problems, 15, 20));
+		assertOffsets(new int[] { 20 }, SpellingProblemTracker.getProblemsOutside(problems, 14, 20));
+		assertOffsets(new int[] { 10 }, SpellingProblemTracker.getProblemsOutside(problems, 15, 21));
+		assertOffsets(new int[] {}, SpellingProblemTracker.getProblemsOutside(problems, 0, 30));
+		assertOffsets(new int[] { 10 }, SpellingProblemTracker.getProblemsOutside(problems, 22, 23));
+		assertEquals(2, problems.size());
+	}
+
+	public void testMergeAfterChange() {
+		// the problems outside of the checked region are merged with the problems found in it
+		fTracker.documentChanged(12, 0, 3);
+		int checkOffset= fTracker.getDirtyOffset();
+		int checkEnd= fTracker.getDirtyEnd();
+		List<CachedProblem> merged= SpellingProblemTracker.getProblemsOutside(fTracker.getProblems(), checkOffset, checkEnd);
+		merged.add(new CachedProblem(12, 4, "new", false, false)); //$NON-NLS-1$
+		fTracker.setProblems(merged);
+		fTracker.clearDirtyRegion();
+
+		assertProblems(new int[] { 23, 12 });
+		fTracker.documentChanged(0, 2, 0);
+		assertProblems(new int[] { 21, 10 });
+	}
+
+	private void assertProblems(int[] offsets) {
+		assertOffsets(offsets, fTracker.getProblems());
+	}
+
+	private static void assertOffsets(int[] offsets, List<CachedProblem> problems) {
+		assertEquals(offsets.length, problems.size());
+		for (int i= 0; i < offsets.length; i++) {
+			assertEquals(offsets[i], problems.get(i).getOffset());
+		}
+	}
+
+	private void assertDirtyRegion(int offset, int end) {
+		assertEquals(offset, fTracker.getDirtyOffset());
+		assertEquals(end, fTracker.getDirtyEnd());
+	}
+}
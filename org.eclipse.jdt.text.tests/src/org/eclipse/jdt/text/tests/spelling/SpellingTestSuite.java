@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -26,6 +26,8 @@ public class SpellingTestSuite {
 		TestSuite suite = new TestSuite("Test Suite org.eclipse.jdt.text.tests.spelling"); //$NON-NLS-1$
 		//$JUnit-BEGIN$
 		suite.addTest(SpellCheckEngineTestCase.suite());
+		suite.addTest(CompiledSpellDictionaryTest.suite());
+		suite.addTest(SpellingProblemTrackerTest.suite());
 		//$JUnit-END$
 		return suite;
 	}
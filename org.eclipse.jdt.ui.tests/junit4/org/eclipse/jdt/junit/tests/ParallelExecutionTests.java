@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.junit.tests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+
+import org.eclipse.jdt.internal.junit.runner.IClassifiesThrowables;
+import org.eclipse.jdt.internal.junit.runner.IListensToTestExecutions;
+import org.eclipse.jdt.internal.junit.runner.ITestIdentifier;
+import org.eclipse.jdt.internal.junit.runner.TestExecution;
+import org.eclipse.jdt.internal.junit.runner.TestReferenceFailure;
+import org.eclipse.jdt.internal.junit4.runner.JUnit4TestClassReference;
+import org.eclipse.jdt.internal.junit4.runner.JUnit4TestReference;
+import org.eclipse.jdt.internal.junit4.runner.ParallelMethodsBuilder;
+
+/**
+ * Tests the parallel execution modes of org.eclipse.jdt.junit4.runtime.
+ *
+ * @since 3.9
+ */
+@SuppressWarnings("nls")
+public class ParallelExecutionTests {
+
+	static class Data {
+		static final Map<String, Thread> fgThreads= Collections.synchronizedMap(new HashMap<String, Thread>());
+
+		public static class T1 {
+			public T1() { }
+			@BeforeClass
+			public static void beforeClass() { fgThreads.put("T1", Thread.currentThread()); }
+			@Test
+			public void m1() { fgThreads.put("T1.m1", Thread.currentThread()); }
+			@Test
+			public void m2() { fgThreads.put("T1.m2", Thread.currentThread()); }
+		}
+		public static class T2 {
+			public T2() { }
+			@BeforeClass
+			public static void beforeClass() { fgThreads.put("T2", Thread.currentThread()); }
+			@Test
+			public void m1() { fgThreads.put("T2.m1", Thread.currentThread()); }
+			@Test
+			public void m2() { fgThreads.put("T2.m2", Thread.currentThread()); }
+		}
+		@RunWith(Suite.class)
+		@Suite.SuiteClasses({
+		  T1.class,
+		  T2.class
+		})
+		public static class S {
+			public S() { }
+		}
+	}
+
+	private static class Listener implements IListensToTestExecutions {
+		final List<String> fStarted= new ArrayList<String>();
+		final List<String> fEnded= new ArrayList<String>();
+		final List<String> fFailed= new ArrayList<String>();
+
+		public void notifyTestFailed(TestReferenceFailure failure) {
+			fFailed.add(failure.getTest().getName());
+		}
+		public void notifyTestStarted(ITestIdentifier test) {
+			fStarted.add(test.getName());
+		}
+		public void notifyTestEnded(ITestIdentifier test) {
+			fEnded.add(test.getName());
+		}
+	}
+
+	private static class Classifier implements IClassifiesThrowables {
+		public boolean isComparisonFailure(Throwable throwable) {
+			return false;
+		}
+		public String getTrace(Throwable t) {
+			return t.toString();
+		}
+	}
+
+	@Before
+	public void setUp() {
+		Data.fgThreads.clear();
+	}
+
+	@Test
+	public void parallelMethods() throws Exception {
+		Listener listener= run(new JUnit4TestClassReference(Data.S.class, null, new ParallelMethodsBuilder(2)));
+		assertAllReported(listener, 4);
+
+		// the suite runs its classes one after the other in the calling thread
+		Assert.assertSame(Thread.currentThread(), Data.fgThreads.get("T1"));
+		Assert.assertSame(Thread.currentThread(), Data.fgThreads.get("T2"));
+
+		// the class runners run their methods on the workers
+		assertWorker("T1.m1");
+		assertWorker("T1.m2");
+		assertWorker("T2.m1");
+		assertWorker("T2.m2");
+	}
+
+	@Test
+	public void parallelClasses() throws Exception {
+		JUnit4TestClassReference reference= new JUnit4TestClassReference(Data.S.class, null);
+		reference.setParallelClasses(2);
+		Listener listener= run(reference);
+		assertAllReported(listener, 4);
+
+		// the suite runs its classes on the workers
+		assertWorker("T1");
+		assertWorker("T2");
+
+		// the class runners run their methods one after the other in the thread of the class
+		Assert.assertSame(Data.fgThreads.get("T1"), Data.fgThreads.get("T1.m1"));
+		Assert.assertSame(Data.fgThreads.get("T1"), Data.fgThreads.get("T1.m2"));
+		Assert.assertSame(Data.fgThreads.get("T2"), Data.fgThreads.get("T2.m1"));
+		Assert.assertSame(Data.fgThreads.get("T2"), Data.fgThreads.get("T2.m2"));
+	}
+
+	@Test
+	public void parallelClassesWithoutSuite() throws Exception {
+		JUnit4TestClassReference reference= new JUnit4TestClassReference(Data.T1.class, null);
+		reference.setParallelClasses(2);
+		Listener listener= run(reference);
+		assertAllReported(listener, 2);
+
+		Assert.assertSame(Thread.currentThread(), Data.fgThreads.get("T1"));
+		Assert.assertSame(Thread.currentThread(), Data.fgThreads.get("T1.m1"));
+		Assert.assertSame(Thread.currentThread(), Data.fgThreads.get("T1.m2"));
+	}
+
+	private static Listener run(JUnit4TestReference reference) {
+		Listener listener= new Listener();
+		reference.run(new TestExecution(listener, new Classifier()));
+		return listener;
+	}
+
+	private static void assertAllReported(Listener listener, int count) {
+		Assert.assertEquals(Collections.emptyList(), listener.fFailed);
+		Assert.assertEquals(count, listener.fStarted.size());
+		Assert.assertEquals(count, listener.fEnded.size());
+
+		List<String> started= new ArrayList<String>(listener.fStarted);
+		List<String> ended= new ArrayList<String>(listener.fEnded);
+		Collections.sort(started);
+		Collections.sort(ended);
+		Assert.assertEquals(started, ended);
+	}
+
+	private static void assertWorker(String key) {
+		Thread thread= Data.fgThreads.get(key);
+		Assert.assertNotNull(key, thread);
+		Assert.assertNotSame(key, Thread.currentThread(), thread);
+		Assert.assertTrue(key, thread.getName().startsWith("JUnit Worker"));
+	}
+}
@@ -0,0 +1,24 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.performance.junit;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class JUnitPerformanceTests extends TestCase {
+	public static Test suite() {
+		TestSuite suite= new TestSuite("JUnit Performance Tests"); //$NON-NLS-1$
+		suite.addTest(RemoteTestRunnerProtocolPerfTest.suite());
+		suite.addTest(TestRunSessionStorePerfTest.suite());
+		return suite;
+	}
+}
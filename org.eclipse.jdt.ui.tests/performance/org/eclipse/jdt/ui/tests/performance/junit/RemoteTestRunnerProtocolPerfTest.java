@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.performance.junit;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+import org.eclipse.jdt.testplugin.util.DisplayHelper;
+
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.debug.core.DebugPlugin;
+import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
+import org.eclipse.debug.core.ILaunchManager;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+
+import org.eclipse.jdt.junit.JUnitCore;
+import org.eclipse.jdt.junit.TestRunListener;
+import org.eclipse.jdt.junit.launcher.JUnitLaunchShortcut;
+import org.eclipse.jdt.junit.model.ITestCaseElement;
+import org.eclipse.jdt.junit.model.ITestElement.Result;
+import org.eclipse.jdt.junit.model.ITestRunSession;
+
+import org.eclipse.jdt.internal.junit.JUnitCorePlugin;
+import org.eclipse.jdt.internal.junit.JUnitPreferencesConstants;
+
+import org.eclipse.jdt.ui.tests.performance.JdtPerformanceTestCase;
+
+/**
+ * Compares the line based text protocol and the framed binary protocol used between the
+ * <code>RemoteTestRunner</code> and the <code>RemoteTestRunnerClient</code>, by launching a test
+ * class with many test methods and measuring the time until the test run session has finished.
+ */
+public class RemoteTestRunnerProtocolPerfTest extends JdtPerformanceTestCase {
+
+	private static final int TEST_COUNT= 5000;
+	private static final int FAILURE_RATE= 100;
+	private static final int REPEAT= 5;
+	private static final int TIMEOUT= 2 * 60 * 1000;
+
+	public static Test suite() {
+		return new TestSuite(RemoteTestRunnerProtocolPerfTest.class);
+	}
+
+	private static class SessionListener extends TestRunListener {
+		private volatile boolean fFinished;
+		private volatile int fTestCount;
+		private volatile int fFailureCount;
+
+		public void testCaseFinished(ITestCaseElement testCaseElement) {
+			fTestCount++;
+			if (testCaseElement.getTestResult(false) == Result.FAILURE)
+				fFailureCount++;
+		}
+
+		public void sessionFinished(ITestRunSession session) {
+			fFinished= true;
+		}
+	}
+
+	private static class TestJUnitLaunchShortcut extends JUnitLaunchShortcut {
+		public static ILaunchConfiguration createConfiguration(IJavaElement element) throws CoreException {
+			ILaunchConfigurationWorkingCopy copy= new TestJUnitLaunchShortcut().createLaunchConfiguration(element);
+			return copy.doSave();
+		}
+	}
+
+	private IJavaProject fProject;
+	private IType fTestType;
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		fProject= JavaProjectHelper.createJavaProject("RemoteTestRunnerProtocolPerfTest", "bin");
+		// have to set up an 1.3 project to avoid requiring a 5.0 VM
+		JavaProjectHelper.addRTJar13(fProject);
+		JavaProjectHelper.addVariableEntry(fProject, new Path("JUNIT_HOME/junit.jar"), null, null);
+
+		StringBuffer source= new StringBuffer();
+		source.append("package pack;\n");
+		source.append("import junit.framework.TestCase;\n");
+		source.append("public class ManyTests extends TestCase {\n");
+		for (int i= 0; i < TEST_COUNT; i++) {
+			source.append("    public void test").append(i).append("() {");
+			if (i % FAILURE_RATE == 0)
+				source.append(" fail(\"failure ").append(i).append("\");");
+			source.append(" }\n");
+		}
+		source.append("}\n");
+
+		IPackageFragmentRoot root= JavaProjectHelper.addSourceContainer(fProject, "src");
+		IPackageFragment pack= root.createPackageFragment("pack", true, null);
+		ICompilationUnit cu= pack.createCompilationUnit("ManyTests.java", source.toString(), true, null);
+		fTestType= cu.findPrimaryType();
+
+		ResourcesPlugin.getWorkspace().build(IncrementalProjectBuilder.FULL_BUILD, null);
+		joinBackgroudActivities();
+	}
+
+	protected void tearDown() throws Exception {
+		InstanceScope.INSTANCE.getNode(JUnitCorePlugin.CORE_PLUGIN_ID).remove(JUnitPreferencesConstants.BINARY_PROTOCOL);
+		JavaProjectHelper.delete(fProject);
+		super.tearDown();
+	}
+
+	public void testTextProtocol() throws Exception {
+		measure(false);
+	}
+
+	public void testBinaryProtocol() throws Exception {
+		measure(true);
+	}
+
+	private void measure(boolean binary) throws Exception {
+		InstanceScope.INSTANCE.getNode(JUnitCorePlugin.CORE_PLUGIN_ID).putBoolean(JUnitPreferencesConstants.BINARY_PROTOCOL, binary);
+
+		ILaunchManager lm= DebugPlugin.getDefault().getLaunchManager();
+		ILaunchConfiguration configuration= TestJUnitLaunchShortcut.createConfiguration(fTestType);
+		try {
+			for (int i= 0; i < REPEAT; i++) {
+				final SessionListener listener= new SessionListener();
+				JUnitCore.addTestRunListener(listener);
+				try {
+					startMeasuring();
+					configuration.launch(ILaunchManager.RUN_MODE, null);
+					new DisplayHelper() {
+						protected boolean condition() {
+							return listener.fFinished;
+						}
+					}.waitForCondition(Display.getCurrent(), TIMEOUT, 10);
+					stopMeasuring();
+				} finally {
+					JUnitCore.removeTestRunListener(listener);
+					lm.removeLaunches(lm.getLaunches());
+				}
+				assertTrue("Test run has not finished", listener.fFinished);
+				assertEquals(TEST_COUNT, listener.fTestCount);
+				assertEquals(TEST_COUNT / FAILURE_RATE, listener.fFailureCount);
+			}
+		} finally {
+			configuration.delete();
+		}
+		commitMeasurements();
+	}
+}
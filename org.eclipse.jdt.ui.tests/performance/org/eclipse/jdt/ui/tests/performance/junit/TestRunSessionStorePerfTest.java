@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.performance.junit;
+
+import java.io.File;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.internal.junit.model.JUnitModel;
+import org.eclipse.jdt.internal.junit.model.TestElement;
+import org.eclipse.jdt.internal.junit.model.TestElement.Status;
+import org.eclipse.jdt.internal.junit.model.TestRunSession;
+import org.eclipse.jdt.internal.junit.model.TestSuiteElement;
+
+import org.eclipse.jdt.ui.tests.performance.JdtPerformanceTestCase;
+
+/**
+ * Compares save and load times and the file sizes of the XML format and the compact format
+ * used for the test run history, for a session with 50'000 tests.
+ */
+public class TestRunSessionStorePerfTest extends JdtPerformanceTestCase {
+
+	private static final int SUITE_COUNT= 500;
+	private static final int TESTS_PER_SUITE= 100;
+	private static final int FAILURE_RATE= 20;
+	private static final int TRACE_LINES= 30;
+	private static final int REPEAT= 5;
+
+	private TestRunSession fSession;
+	private File fFile;
+
+	public static Test suite() {
+		return new TestSuite(TestRunSessionStorePerfTest.class);
+	}
+
+	protected void setUp() throws Exception {
+		super.setUp();
+		fSession= createSession();
+		fFile= File.createTempFile("testRunSession", ".tmp");
+	}
+
+	protected void tearDown() throws Exception {
+		fFile.delete();
+		fSession= null;
+		super.tearDown();
+	}
+
+	private static TestRunSession createSession() {
+		StringBuffer trace= new StringBuffer("junit.framework.AssertionFailedError: expected:<1> but was:<2>\n");
+		for (int i= 0; i < TRACE_LINES; i++) {
+			trace.append("\tat org.eclipse.jdt.example.ExampleTest.method" + i + "(ExampleTest.java:" + i + ")\n");
+		}
+
+		TestRunSession session= new TestRunSession("Store Performance", null);
+		TestSuiteElement root= session.getTestRoot();
+		int id= 0;
+		for (int i= 0; i < SUITE_COUNT; i++) {
+			String className= "org.eclipse.jdt.example.ExampleTest" + i;
+			TestSuiteElement suite= (TestSuiteElement) session.createTestElement(root, Integer.toString(id++), className, true, 0);
+			for (int j= 0; j < TESTS_PER_SUITE; j++) {
+				TestElement test= session.createTestElement(suite, Integer.toString(id++), "testMethod" + j + "(" + className + ")", false, 0);
+				test.setElapsedTimeInSeconds(0.01);
+				if (j % FAILURE_RATE == 0)
+					session.registerTestFailureStatus(test, Status.FAILURE, trace.toString(), "1", "2");
+				session.registerTestEnded(test, true);
+			}
+		}
+		return session;
+	}
+
+	public void testSaveXML() throws Exception {
+		for (int i= 0; i < REPEAT; i++) {
+			startMeasuring();
+			JUnitModel.exportTestRunSession(fSession, fFile);
+			stopMeasuring();
+		}
+		commitMeasurements();
+	}
+
+	public void testLoadXML() throws Exception {
+		JUnitModel.exportTestRunSession(fSession, fFile);
+		for (int i= 0; i < REPEAT; i++) {
+			TestRunSession session= new TestRunSession("Store Performance", null);
+			startMeasuring();
+			JUnitModel.importIntoTestRunSession(fFile, session);
+			stopMeasuring();
+			assertEquals(fSession.getFailureCount(), session.getFailureCount());
+		}
+		commitMeasurements();
+	}
+
+	public void testSaveCompact() throws Exception {
+		for (int i= 0; i < REPEAT; i++) {
+			startMeasuring();
+			JUnitModel.storeTestRunSession(fSession, fFile);
+			stopMeasuring();
+		}
+		commitMeasurements();
+	}
+
+	public void testLoadCompact() throws Exception {
+		JUnitModel.storeTestRunSession(fSession, fFile);
+		for (int i= 0; i < REPEAT; i++) {
+			TestRunSession session= new TestRunSession("Store Performance", null);
+			startMeasuring();
+			JUnitModel.loadIntoTestRunSession(fFile, session);
+			stopMeasuring();
+			assertEquals(fSession.getFailureCount(), session.getFailureCount());
+			assertEquals(fSession.getTotalCount(), session.getTotalCount());
+		}
+		commitMeasurements();
+	}
+
+	public void testFileSize() throws Exception {
+		JUnitModel.exportTestRunSession(fSession, fFile);
+		long xmlSize= fFile.length();
+		JUnitModel.storeTestRunSession(fSession, fFile);
+		long compactSize= fFile.length();
+		assertTrue("compact: " + compactSize + ", XML: " + xmlSize, compactSize < xmlSize);
+	}
+}
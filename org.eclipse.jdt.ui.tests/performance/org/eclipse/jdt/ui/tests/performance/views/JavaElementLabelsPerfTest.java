@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.performance.views;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+import org.eclipse.jdt.testplugin.JavaTestPlugin;
+import org.eclipse.test.OrderedTestSuite;
+import org.eclipse.test.performance.Dimension;
+
+import org.eclipse.jface.viewers.StyledString;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IParent;
+import org.eclipse.jdt.core.JavaModelException;
+
+import org.eclipse.jdt.ui.JavaElementLabels;
+import org.eclipse.jdt.ui.tests.performance.JdtPerformanceTestCase;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * Measures rendering the styled labels of all packages, compilation units, types and members
+ * of the JUnit sources, the way the Package Explorer renders them.
+ *
+ * @since 3.9
+ */
+public class JavaElementLabelsPerfTest extends JdtPerformanceTestCase {
+
+	private static class MyTestSetup extends TestSetup {
+		public static final String SRC_CONTAINER= "src";
+
+		public static IJavaProject fJProject1;
+		public static IPackageFragmentRoot fJunitSrcRoot;
+
+		public MyTestSetup(Test test) {
+			super(test);
+		}
+
+		protected void setUp() throws Exception {
+			fJProject1= JavaProjectHelper.createJavaProject("TestProject1", "bin");
+			assertTrue("rt not found", JavaProjectHelper.addRTJar13(fJProject1) != null);
+			File junitSrcArchive= JavaTestPlugin.getDefault().getFileInPlugin(JavaProjectHelper.JUNIT_SRC_381);
+			fJunitSrcRoot= JavaProjectHelper.addSourceContainerWithImport(fJProject1, SRC_CONTAINER, junitSrcArchive, JavaProjectHelper.JUNIT_SRC_ENCODING);
+		}
+
+		protected void tearDown() throws Exception {
+			if (fJProject1 != null && fJProject1.exists())
+				JavaProjectHelper.delete(fJProject1);
+		}
+	}
+
+	private static final long FLAGS= JavaElementLabels.ALL_DEFAULT | JavaElementLabels.M_APP_RETURNTYPE | JavaElementLabels.F_APP_TYPE_SIGNATURE | JavaElementLabels.COLORIZE;
+
+	private static final int RUNS= 20;
+
+	public static Test suite() {
+		OrderedTestSuite testSuite= new OrderedTestSuite(
+				JavaElementLabelsPerfTest.class,
+				new String[] {
+					"testUncachedLabels",
+					"testCachedLabels",
+				});
+		return new MyTestSetup(testSuite);
+	}
+
+	public static Test setUpTest(Test someTest) {
+		return new MyTestSetup(someTest);
+	}
+
+	public JavaElementLabelsPerfTest(String name) {
+		super(name);
+	}
+
+	public void testUncachedLabels() throws Exception {
+		IJavaElement[] elements= getElements();
+		joinBackgroudActivities();
+
+		for (int i= 0; i < RUNS; i++) {
+			JavaPlugin.getDefault().getJavaElementLabelCache().clear();
+			startMeasuring();
+			renderLabels(elements);
+			stopMeasuring();
+		}
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	public void testCachedLabels() throws Exception {
+		tagAsSummary("Render cached Java element labels", Dimension.ELAPSED_PROCESS);
+
+		IJavaElement[] elements= getElements();
+		joinBackgroudActivities();
+
+		renderLabels(elements);
+		for (int i= 0; i < RUNS; i++) {
+			startMeasuring();
+			renderLabels(elements);
+			stopMeasuring();
+		}
+		commitMeasurements();
+		assertPerformance();
+	}
+
+	private static void renderLabels(IJavaElement[] elements) {
+		for (int i= 0; i < elements.length; i++) {
+			StyledString label= JavaElementLabels.getStyledTextLabel(elements[i], FLAGS);
+			assertTrue(label.length() > 0);
+		}
+	}
+
+	private static IJavaElement[] getElements() throws JavaModelException {
+		List elements= new ArrayList();
+		IJavaElement[] packages= MyTestSetup.fJunitSrcRoot.getChildren();
+		for (int i= 0; i < packages.length; i++) {
+			elements.add(packages[i]);
+			ICompilationUnit[] cus= ((IPackageFragment) packages[i]).getCompilationUnits();
+			for (int k= 0; k < cus.length; k++)
+				addElements(cus[k], elements);
+		}
+		return (IJavaElement[]) elements.toArray(new IJavaElement[elements.size()]);
+	}
+
+	private static void addElements(IJavaElement element, List elements) throws JavaModelException {
+		elements.add(element);
+		if (element instanceof IParent) {
+			IJavaElement[] children= ((IParent) element).getChildren();
+			for (int i= 0; i < children.length; i++)
+				addElements(children[i], elements);
+		}
+	}
+}
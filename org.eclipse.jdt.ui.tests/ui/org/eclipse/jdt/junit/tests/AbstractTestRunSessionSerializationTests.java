@@ -105,6 +105,11 @@ public class AbstractTestRunSessionSerializationTests extends TestCase {
 			// due to lingering TestRunnerViewPart$TestSessionListeners
 			serializationResult.fTestRunSession.swapOut();
 			assertEqualSessions(serializationResult.fTestRunSession, imported);
+
+			TestRunSession lazilyImported= JUnitModel.importTestRunSession(resultFile.getLocation().toFile(), true);
+			assertEqualSessions(serializationResult.fTestRunSession, lazilyImported);
+			lazilyImported.swapOut();
+			assertEqualSessions(serializationResult.fTestRunSession, lazilyImported);
 		} finally {
 			if (resultFile.exists())
 				try {
@@ -156,7 +161,7 @@ public class AbstractTestRunSessionSerializationTests extends TestCase {
 		}
 	}
 
-	private void assertEqualSessions(TestRunSession expected, TestRunSession actual) {
+	protected void assertEqualSessions(TestRunSession expected, TestRunSession actual) {
 		assertEquals(expected.getTestRunName(), actual.getTestRunName());
 		assertEquals(expected.getStartedCount(), actual.getStartedCount());
 		assertEquals(expected.getTotalCount(), actual.getTotalCount());
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2010 IBM Corporation and others.
+ * Copyright (c) 2005, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -26,6 +26,7 @@ public class JUnitJUnitTests {
 
 		suite.addTestSuite(TestEnableAssertions.class);
 		suite.addTestSuite(TestPriorization.class);
+		suite.addTestSuite(TestEventPathTest.class);
 		suite.addTestSuite(TestTestSearchEngine.class);
 
 		addDeprecatedTests(suite);
@@ -34,6 +35,7 @@ public class JUnitJUnitTests {
 
 		suite.addTest(TestRunSessionSerializationTests3.suite());
 		suite.addTest(TestRunSessionSerializationTests4.suite());
+		suite.addTestSuite(TestRunSessionStoreTest.class);
 
 		suite.addTestSuite(JUnit3TestFinderTest.class);
 		suite.addTestSuite(JUnit4TestFinderTest.class);
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.junit.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jdt.internal.junit.runner.FailedComparison;
+import org.eclipse.jdt.internal.junit.runner.IListensToTestExecutions;
+import org.eclipse.jdt.internal.junit.runner.ITestIdentifier;
+import org.eclipse.jdt.internal.junit.runner.MessageIds;
+import org.eclipse.jdt.internal.junit.runner.MessageSender;
+import org.eclipse.jdt.internal.junit.runner.RemoteTestRunner;
+import org.eclipse.jdt.internal.junit.runner.TestIdMap;
+import org.eclipse.jdt.internal.junit.runner.TestReferenceFailure;
+
+/**
+ * Tests the messages that the runner sends for the test tree and the test execution events,
+ * and the ids that {@link TestIdMap} assigns to the tests.
+ */
+public class TestEventPathTest extends TestCase {
+
+	private static class Identifier implements ITestIdentifier {
+		private final String fName;
+
+		public Identifier(String name) {
+			fName= name;
+		}
+
+		public String getName() {
+			return fName;
+		}
+
+		public boolean equals(Object obj) {
+			return obj instanceof Identifier && ((Identifier) obj).fName.equals(fName);
+		}
+
+		public int hashCode() {
+			return fName.hashCode();
+		}
+	}
+
+	private static class RecordingSender implements MessageSender {
+		List/*<String>*/ fMessages= new ArrayList();
+
+		public void sendMessage(String msg) {
+			fMessages.add(msg);
+		}
+
+		public void flush() {
+		}
+	}
+
+	private RemoteTestRunner fRunner;
+	private RecordingSender fSender;
+
+	protected void setUp() throws Exception {
+		fSender= new RecordingSender();
+		fRunner= new RemoteTestRunner();
+		fRunner.setMessageSender(fSender);
+	}
+
+	public void testEvents() throws Exception {
+		fRunner.visitTreeEntry(new Identifier("pack.ATestCase"), true, 2);
+		fRunner.visitTreeEntry(new Identifier("testSucceed(pack.ATestCase)"), false, 1);
+		fRunner.visitTreeEntry(new Identifier("testFailure(pack.ATestCase)"), false, 1);
+
+		// loaders create new identifiers for every event
+		IListensToTestExecutions listener= fRunner.firstRunExecutionListener();
+		listener.notifyTestStarted(new Identifier("testSucceed(pack.ATestCase)"));
+		listener.notifyTestEnded(new Identifier("testSucceed(pack.ATestCase)"));
+		listener.notifyTestStarted(new Identifier("testFailure(pack.ATestCase)"));
+		listener.notifyTestFailed(new TestReferenceFailure(new Identifier("testFailure(pack.ATestCase)"), MessageIds.TEST_FAILED, "trace", new FailedComparison("1", "2")));
+		listener.notifyTestEnded(new Identifier("testFailure(pack.ATestCase)"));
+
+		String[] expected= {
+				MessageIds.TEST_TREE + "1,pack.ATestCase,true,2",
+				MessageIds.TEST_TREE + "2,testSucceed(pack.ATestCase),false,1",
+				MessageIds.TEST_TREE + "3,testFailure(pack.ATestCase),false,1",
+				MessageIds.TEST_START + "2,testSucceed(pack.ATestCase)",
+				MessageIds.TEST_END + "2,testSucceed(pack.ATestCase)",
+				MessageIds.TEST_START + "3,testFailure(pack.ATestCase)",
+				MessageIds.TEST_FAILED + "3,testFailure(pack.ATestCase)",
+				MessageIds.EXPECTED_START,
+				"1",
+				MessageIds.EXPECTED_END,
+				MessageIds.ACTUAL_START,
+				"2",
+				MessageIds.ACTUAL_END,
+				MessageIds.TRACE_START,
+				"trace",
+				MessageIds.TRACE_END,
+				MessageIds.TEST_END + "3,testFailure(pack.ATestCase)",
+		};
+		assertEqualMessages(expected);
+	}
+
+	public void testTreeEntryEscapesCommas() throws Exception {
+		fRunner.visitTreeEntry(new Identifier("test[a,b\\c](pack.ParameterizedTest)"), false, 1);
+
+		assertEqualMessages(new String[] { MessageIds.TEST_TREE + "1,test[a\\,b\\\\c](pack.ParameterizedTest),false,1" });
+	}
+
+	public void testManyIds() throws Exception {
+		// more identifiers than the initial capacity of the table
+		int count= 10000;
+		TestIdMap ids= new TestIdMap();
+		for (int i= 0; i < count; i++) {
+			assertEquals(i + 1, ids.getId(new Identifier("test[" + i + "](pack.ParameterizedTest)")));
+		}
+		for (int i= 0; i < count; i++) {
+			assertEquals(i + 1, ids.getId(new Identifier("test[" + i + "](pack.ParameterizedTest)")));
+		}
+		assertEquals(Integer.toString(count + 1), ids.getTestId(new Identifier("testNew(pack.ParameterizedTest)")));
+	}
+
+	private void assertEqualMessages(String[] expected) {
+		StringBuffer expectedBuffer= new StringBuffer();
+		for (int i= 0; i < expected.length; i++) {
+			expectedBuffer.append(expected[i]).append('\n');
+		}
+		StringBuffer actualBuffer= new StringBuffer();
+		for (int i= 0; i < fSender.fMessages.size(); i++) {
+			actualBuffer.append(fSender.fMessages.get(i)).append('\n');
+		}
+		assertEquals(expectedBuffer.toString(), actualBuffer.toString());
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2008 IBM Corporation and others.
+ * Copyright (c) 2007, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,7 +20,12 @@ import org.eclipse.jdt.testplugin.JavaTestPlugin;
 
 import org.eclipse.core.runtime.Path;
 
+import org.eclipse.jdt.junit.model.ITestElement;
+
 import org.eclipse.jdt.internal.junit.model.JUnitModel;
+import org.eclipse.jdt.internal.junit.model.TestElement;
+import org.eclipse.jdt.internal.junit.model.TestRunSession;
+import org.eclipse.jdt.internal.junit.model.TestSuiteElement;
 
 public class TestRunSessionSerializationTests3 extends AbstractTestRunSessionSerializationTests {
 
@@ -69,4 +74,46 @@ public class TestRunSessionSerializationTests3 extends AbstractTestRunSessionSer
 		JUnitModel.importTestRunSession(testsFile); // no contents check for now...
 	}
 
+	public void testImportAntSuiteLazily() throws Exception {
+		Path testsPath= new Path(JUnitWorkspaceTestSetup.getProjectPath() + "ant/result/TESTS-TestSuites.xml");
+		File testsFile= JavaTestPlugin.getDefault().getFileInPlugin(testsPath);
+		TestRunSession imported= JUnitModel.importTestRunSession(testsFile, false);
+		TestRunSession lazilyImported= JUnitModel.importTestRunSession(testsFile, true);
+		assertTrue(lazilyImported.isLazilyImported());
+		assertEqualSessions(imported, lazilyImported);
+	}
+
+	public void testLazyImportKeepsIds() throws Exception {
+		Path testsPath= new Path(JUnitWorkspaceTestSetup.getProjectPath() + "ant/result/TESTS-TestSuites.xml");
+		File testsFile= JavaTestPlugin.getDefault().getFileInPlugin(testsPath);
+		TestRunSession imported= JUnitModel.importTestRunSession(testsFile, false);
+		TestRunSession lazilyImported= JUnitModel.importTestRunSession(testsFile, true);
+		assertTrue(lazilyImported.isLazilyImported());
+
+		ITestElement[] suites= imported.getTestRoot().getChildren();
+		// test cases that have not been loaded yet
+		for (int i= 0; i < suites.length; i++) {
+			assertIdsFound((TestElement) suites[i], lazilyImported);
+		}
+
+		// test cases that have been unloaded
+		lazilyImported.swapOut();
+		for (int i= 0; i < suites.length; i++) {
+			assertIdsFound((TestElement) suites[i], lazilyImported);
+		}
+	}
+
+	private void assertIdsFound(TestElement expected, TestRunSession session) {
+		TestElement actual= session.getTestElement(expected.getId());
+		assertNotNull(expected.getId(), actual);
+		assertEquals(expected.getTestName(), actual.getTestName());
+		assertEquals(expected.getStatus(), actual.getStatus());
+		if (expected instanceof TestSuiteElement) {
+			ITestElement[] children= ((TestSuiteElement) expected).getChildren();
+			for (int i= 0; i < children.length; i++) {
+				assertIdsFound((TestElement) children[i], session);
+			}
+		}
+	}
+
 }
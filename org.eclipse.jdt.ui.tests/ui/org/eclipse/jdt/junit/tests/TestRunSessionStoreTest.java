@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.junit.tests;
+
+import java.io.File;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jdt.junit.model.ITestElement;
+
+import org.eclipse.jdt.internal.junit.model.JUnitModel;
+import org.eclipse.jdt.internal.junit.model.TestCaseElement;
+import org.eclipse.jdt.internal.junit.model.TestElement;
+import org.eclipse.jdt.internal.junit.model.TestElement.Status;
+import org.eclipse.jdt.internal.junit.model.TestRunSession;
+import org.eclipse.jdt.internal.junit.model.TestSuiteElement;
+
+/**
+ * Tests the compact format of the test run history, see
+ * {@link JUnitModel#storeTestRunSession(TestRunSession, File)}.
+ */
+public class TestRunSessionStoreTest extends TestCase {
+
+	private static final String TRACE= "junit.framework.AssertionFailedError: expected:<1> but was:<2>\n"
+			+ "\tat junit.framework.Assert.fail(Assert.java:47)\n"
+			+ "\tat pack.ATestCase.testFailure(ATestCase.java:12)\n";
+	private static final String ERROR_TRACE= "java.lang.IllegalStateException: \u00e4\u00f6\u00fc\n"
+			+ "\tat pack.BTestCase.setUp(BTestCase.java:7)\n";
+
+	private File fFile;
+
+	protected void setUp() throws Exception {
+		fFile= File.createTempFile("testRunSession", ".tmp");
+	}
+
+	protected void tearDown() throws Exception {
+		fFile.delete();
+	}
+
+	private static TestRunSession createSession() {
+		TestRunSession session= new TestRunSession("StoreTest", null);
+		TestSuiteElement root= session.getTestRoot();
+		int id= 0;
+
+		TestSuiteElement all= (TestSuiteElement) session.createTestElement(root, Integer.toString(id++), "pack.AllTests", true, 0);
+
+		TestSuiteElement a= (TestSuiteElement) session.createTestElement(all, Integer.toString(id++), "pack.ATestCase", true, 0);
+		TestElement succeed= session.createTestElement(a, Integer.toString(id++), "testSucceed(pack.ATestCase)", false, 0);
+		succeed.setElapsedTimeInSeconds(0.125);
+		session.registerTestEnded(succeed, true);
+		TestElement failure= session.createTestElement(a, Integer.toString(id++), "testFailure(pack.ATestCase)", false, 0);
+		failure.setElapsedTimeInSeconds(0.5);
+		session.registerTestFailureStatus(failure, Status.FAILURE, TRACE, "1", "2");
+		session.registerTestEnded(failure, true);
+		TestElement ignored= session.createTestElement(a, Integer.toString(id++), "testIgnored(pack.ATestCase)", false, 0);
+		((TestCaseElement) ignored).setIgnored(true);
+		session.registerTestEnded(ignored, true);
+		a.setElapsedTimeInSeconds(0.75);
+
+		TestSuiteElement b= (TestSuiteElement) session.createTestElement(all, Integer.toString(id++), "pack.BTestCase", true, 0);
+		TestElement error= session.createTestElement(b, Integer.toString(id++), "testError(pack.BTestCase)", false, 0);
+		error.setElapsedTimeInSeconds(0.25);
+		session.registerTestFailureStatus(error, Status.ERROR, ERROR_TRACE, null, null);
+		session.registerTestEnded(error, true);
+		// same method name in another class
+		TestElement sameName= session.createTestElement(b, Integer.toString(id++), "testSucceed(pack.BTestCase)", false, 0);
+		sameName.setElapsedTimeInSeconds(0.125);
+		session.registerTestEnded(sameName, true);
+		TestElement notRun= session.createTestElement(b, Integer.toString(id++), "testNotRun(pack.BTestCase)", false, 0);
+		session.registerTestEnded(notRun, false);
+		b.setElapsedTimeInSeconds(0.375);
+
+		// failure of a suite, e.g. in @AfterClass
+		TestSuiteElement c= (TestSuiteElement) session.createTestElement(all, Integer.toString(id++), "pack.CTestCase", true, 0);
+		TestElement inC= session.createTestElement(c, Integer.toString(id++), "testSucceed(pack.CTestCase)", false, 0);
+		session.registerTestEnded(inC, true);
+		session.registerTestFailureStatus(c, Status.ERROR, ERROR_TRACE, null, null);
+
+		all.setElapsedTimeInSeconds(1.5);
+		return session;
+	}
+
+	private TestRunSession storeAndLoad(TestRunSession session) throws Exception {
+		JUnitModel.storeTestRunSession(session, fFile);
+		TestRunSession loaded= new TestRunSession("StoreTest", null);
+		JUnitModel.loadIntoTestRunSession(fFile, loaded);
+		return loaded;
+	}
+
+	public void testRoundTrip() throws Exception {
+		TestRunSession session= createSession();
+		TestRunSession loaded= storeAndLoad(session);
+
+		assertEquals(session.getTotalCount(), loaded.getTotalCount());
+		assertEquals(session.getStartedCount(), loaded.getStartedCount());
+		assertEquals(session.getFailureCount(), loaded.getFailureCount());
+		assertEquals(session.getErrorCount(), loaded.getErrorCount());
+		assertEquals(session.getIgnoredCount(), loaded.getIgnoredCount());
+		assertEqualChildren(session.getTestRoot(), loaded.getTestRoot());
+	}
+
+	public void testEmptySession() throws Exception {
+		TestRunSession session= new TestRunSession("StoreTest", null);
+		TestRunSession loaded= storeAndLoad(session);
+
+		assertEquals(0, loaded.getTotalCount());
+		assertEquals(0, loaded.getTestRoot().getChildren().length);
+	}
+
+	public void testTracesAfterReplace() throws Exception {
+		// traces are read on demand from the file, which must be complete after a replacement
+		storeAndLoad(createSession());
+		TestRunSession session= createSession();
+		TestRunSession loaded= storeAndLoad(session);
+
+		assertEqualChildren(session.getTestRoot(), loaded.getTestRoot());
+	}
+
+	public void testInvalidFile() throws Exception {
+		JUnitModel.exportTestRunSession(createSession(), fFile);
+		try {
+			JUnitModel.loadIntoTestRunSession(fFile, new TestRunSession("StoreTest", null));
+			fail("XML file loaded as compact format");
+		} catch (Exception e) {
+			// expected
+		}
+	}
+
+	private static void assertEqualChildren(TestSuiteElement expected, TestSuiteElement actual) {
+		ITestElement[] expChildren= expected.getChildren();
+		ITestElement[] actChildren= actual.getChildren();
+		assertEquals(expected.getTestName(), expChildren.length, actChildren.length);
+		for (int i= 0; i < expChildren.length; i++) {
+			assertEqualElements((TestElement) expChildren[i], (TestElement) actChildren[i]);
+		}
+	}
+
+	private static void assertEqualElements(TestElement expected, TestElement actual) {
+		String name= expected.getTestName();
+		assertEquals(name, actual.getTestName());
+		assertEquals(name, expected.getClass(), actual.getClass());
+		assertEquals(name, expected.getStatus(), actual.getStatus());
+		assertEquals(name, expected.getTrace(), actual.getTrace());
+		assertEquals(name, expected.getExpected(), actual.getExpected());
+		assertEquals(name, expected.getActual(), actual.getActual());
+		// Double#equals(Object) also compares the unknown times (NaN)
+		assertEquals(name, new Double(expected.getElapsedTimeInSeconds()), new Double(actual.getElapsedTimeInSeconds()));
+
+		if (expected instanceof TestSuiteElement) {
+			assertEquals(name, ((TestSuiteElement) expected).getSuiteStatus(), ((TestSuiteElement) actual).getSuiteStatus());
+			assertEqualChildren((TestSuiteElement) expected, (TestSuiteElement) actual);
+		} else {
+			assertEquals(name, ((TestCaseElement) expected).isIgnored(), ((TestCaseElement) actual).isIgnored());
+		}
+	}
+}
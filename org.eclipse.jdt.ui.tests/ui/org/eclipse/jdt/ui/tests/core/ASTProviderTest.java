@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2011 IBM Corporation and others.
+ * Copyright (c) 2007, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -32,12 +32,16 @@ import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
 import org.eclipse.jdt.core.refactoring.CompilationUnitChange;
 
 import org.eclipse.jdt.ui.JavaUI;
 import org.eclipse.jdt.ui.SharedASTProvider;
 
+import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
+
 
 /**
  * Tests the AST provider.
@@ -138,6 +142,42 @@ public class ASTProviderTest extends CoreTests {
 		cu.getBuffer().save(null, true);
 	}
 
+	public void testCacheOfInactiveElement() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E2 {\n");
+		buf.append("}\n");
+		ICompilationUnit cu= pack1.createCompilationUnit("E2.java", buf.toString(), false, null);
+
+		ASTProvider provider= ASTProvider.getASTProvider();
+		int maxEntries= provider.getCacheMaxEntries();
+		int maxWeight= provider.getCacheMaxWeight();
+		provider.resetCacheStatistics();
+		try {
+			CompilationUnit ast1= SharedASTProvider.getAST(cu, SharedASTProvider.WAIT_YES, null);
+			assertNotNull(ast1);
+			assertEquals(1, provider.getCacheMisses());
+
+			assertSame(ast1, SharedASTProvider.getAST(cu, SharedASTProvider.WAIT_NO, null));
+			assertEquals(1, provider.getCacheHits());
+
+			// modifications of the element invalidate the cached AST
+			IType type= cu.getType("E2");
+			type.createField("int fCount;", null, false, null);
+			CompilationUnit ast2= SharedASTProvider.getAST(cu, SharedASTProvider.WAIT_YES, null);
+			assertNotSame(ast1, ast2);
+			assertEquals(1, ((TypeDeclaration) ast2.types().get(0)).getFields().length);
+			assertEquals(2, provider.getCacheMisses());
+
+			provider.setCacheCapacity(0, maxWeight);
+			assertNull(SharedASTProvider.getAST(cu, SharedASTProvider.WAIT_NO, null));
+			assertEquals(3, provider.getCacheMisses());
+		} finally {
+			provider.setCacheCapacity(maxEntries, maxWeight);
+		}
+	}
+
 	private static String getNormalizeNumber(int number) {
 		if (number < 10) {
 			return "000" + number;
@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.search.SearchEngine;
+
+import org.eclipse.jdt.internal.corext.callhierarchy.CallGraphIndex;
+import org.eclipse.jdt.internal.corext.callhierarchy.CallHierarchy;
+import org.eclipse.jdt.internal.corext.callhierarchy.MethodWrapper;
+
+import org.eclipse.jdt.ui.tests.callhierarchy.CallHierarchyTestHelper;
+
+
+/**
+ * Tests that the {@link CallGraphIndex} answers repeated call hierarchy queries and is
+ * invalidated by changes that affect them.
+ *
+ * @since 3.9
+ */
+public class CallGraphIndexTest extends TestCase {
+
+	private static final Class THIS= CallGraphIndexTest.class;
+
+	private CallHierarchyTestHelper fHelper;
+	private CallGraphIndex fIndex;
+
+	public CallGraphIndexTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(THIS);
+	}
+
+	protected void setUp() throws Exception {
+		fHelper= new CallHierarchyTestHelper();
+		fHelper.setUp();
+		CallHierarchy.getDefault().setCallGraphIndexEnabled(true);
+		fIndex= CallHierarchy.getDefault().getCallGraphIndex();
+		fIndex.resetStatistics();
+	}
+
+	protected void tearDown() throws Exception {
+		CallHierarchy.getDefault().setCallGraphIndexEnabled(false);
+		fHelper.tearDown();
+		fHelper= null;
+	}
+
+	private static MethodWrapper[] getCallers(IMethod method) {
+		MethodWrapper root= CallHierarchy.getDefault().getCallerRoots(new IMember[] { method })[0];
+		return root.getCalls(new NullProgressMonitor());
+	}
+
+	private static MethodWrapper[] getCallees(IMethod method) {
+		MethodWrapper root= CallHierarchy.getDefault().getCalleeRoots(new IMember[] { method })[0];
+		return root.getCalls(new NullProgressMonitor());
+	}
+
+	public void testIndexedCallers() throws Exception {
+		fHelper.createSimpleClasses();
+
+		Collection expectedMethods= new ArrayList();
+		expectedMethods.add(fHelper.getMethod2());
+		expectedMethods.add(fHelper.getMethod3());
+
+		fHelper.assertCalls(expectedMethods, getCallers(fHelper.getMethod1()));
+		assertEquals(0, fIndex.getHits());
+
+		fHelper.assertCalls(expectedMethods, getCallers(fHelper.getMethod1()));
+		assertEquals(1, fIndex.getHits());
+	}
+
+	public void testIndexedCallees() throws Exception {
+		fHelper.createSimpleClasses();
+
+		Collection expectedMethods= new ArrayList();
+		expectedMethods.add(fHelper.getMethod1());
+		expectedMethods.add(fHelper.getMethod2());
+
+		fHelper.assertCalls(expectedMethods, getCallees(fHelper.getMethod3()));
+		fHelper.assertCalls(expectedMethods, getCallees(fHelper.getMethod3()));
+		assertEquals(1, fIndex.getHits());
+	}
+
+	public void testNewCallerInvalidatesCallers() throws Exception {
+		fHelper.createSimpleClasses();
+
+		fHelper.assertCalls(new ArrayList(), getCallers(fHelper.getMethod4()));
+
+		IMethod method5= fHelper.getType2().createMethod("public void method5() { method4(); }\n", null, false, null);
+
+		Collection expectedMethods= new ArrayList();
+		expectedMethods.add(method5);
+		fHelper.assertCalls(expectedMethods, getCallers(fHelper.getMethod4()));
+		assertEquals(0, fIndex.getHits());
+	}
+
+	public void testNewCallerInOtherUnitInvalidatesCallers() throws Exception {
+		fHelper.createSimpleClasses();
+
+		fHelper.assertCalls(new ArrayList(), getCallers(fHelper.getMethod4()));
+
+		ICompilationUnit cu= fHelper.getPackage2().createCompilationUnit("C.java", "package pack2;\npublic class C {\n public void method5(B b) { b.method4(); }\n}\n", false, null);
+
+		Collection expectedMethods= new ArrayList();
+		expectedMethods.add(cu.getType("C").getMethod("method5", new String[] { "QB;" }));
+		fHelper.assertCalls(expectedMethods, getCallers(fHelper.getMethod4()));
+		assertEquals(0, fIndex.getHits());
+	}
+
+	public void testUnrelatedChangeKeepsCallers() throws Exception {
+		fHelper.createSimpleClasses();
+
+		fHelper.assertCalls(new ArrayList(), getCallers(fHelper.getMethod4()));
+
+		fHelper.getPackage2().createCompilationUnit("C.java", "package pack2;\npublic class C {\n public void method5() { }\n}\n", false, null);
+
+		fHelper.assertCalls(new ArrayList(), getCallers(fHelper.getMethod4()));
+		assertEquals(1, fIndex.getHits());
+	}
+
+	public void testChangedCalleeInvalidatesCallees() throws Exception {
+		fHelper.createSimpleClasses();
+
+		getCallees(fHelper.getMethod4());
+		fHelper.getMethod4().delete(false, null);
+		IMethod method4= fHelper.getType2().createMethod("public void method4() { method1(); }\n", null, false, null);
+
+		Collection expectedMethods= new ArrayList();
+		expectedMethods.add(fHelper.getMethod1());
+		fHelper.assertCalls(expectedMethods, getCallees(method4));
+		assertEquals(0, fIndex.getHits());
+	}
+
+	public void testOverloadInOtherUnitInvalidatesCallees() throws Exception {
+		fHelper.createSimpleClasses();
+		ICompilationUnit cu= fHelper.getPackage2().createCompilationUnit("C.java", "package pack2;\npublic class C {\n}\n", false, null);
+
+		Collection expectedMethods= new ArrayList();
+		expectedMethods.add(fHelper.getMethod1());
+		expectedMethods.add(fHelper.getMethod2());
+		fHelper.assertCalls(expectedMethods, getCallees(fHelper.getMethod3()));
+
+		cu.becomeWorkingCopy(null);
+		try {
+			cu.getBuffer().setContents("package pack2;\npublic class C {\n public void method5() { }\n}\n");
+			cu.reconcile(ICompilationUnit.NO_AST, false, null, null);
+			fHelper.assertCalls(expectedMethods, getCallees(fHelper.getMethod3()));
+			assertEquals(1, fIndex.getHits());
+
+			cu.getBuffer().setContents("package pack2;\npublic class C {\n public void method5() { }\n public void method1(int i) { }\n}\n");
+			cu.reconcile(ICompilationUnit.NO_AST, false, null, null);
+			fHelper.assertCalls(expectedMethods, getCallees(fHelper.getMethod3()));
+			assertEquals(1, fIndex.getHits());
+		} finally {
+			cu.discardWorkingCopy();
+		}
+	}
+
+	public void testCallersKeyedByScope() throws Exception {
+		fHelper.createSimpleClasses();
+
+		Collection allCallers= new ArrayList();
+		allCallers.add(fHelper.getMethod2());
+		allCallers.add(fHelper.getMethod3());
+		fHelper.assertCalls(allCallers, getCallers(fHelper.getMethod1()));
+
+		CallHierarchy.getDefault().setSearchScope(SearchEngine.createJavaSearchScope(new IJavaElement[] { fHelper.getPackage1() }));
+		try {
+			Collection scopedCallers= new ArrayList();
+			scopedCallers.add(fHelper.getMethod2());
+			fHelper.assertCalls(scopedCallers, getCallers(fHelper.getMethod1()));
+			assertEquals(0, fIndex.getHits());
+
+			fHelper.assertCalls(scopedCallers, getCallers(fHelper.getMethod1()));
+			assertEquals(1, fIndex.getHits());
+		} finally {
+			CallHierarchy.getDefault().setSearchScope(null);
+		}
+
+		fHelper.assertCalls(allCallers, getCallers(fHelper.getMethod1()));
+		assertEquals(2, fIndex.getHits());
+	}
+
+	public void testCallersOfEqualScopeKeys() throws Exception {
+		fHelper.createSimpleClasses();
+
+		Collection scopedCallers= new ArrayList();
+		scopedCallers.add(fHelper.getMethod2());
+		try {
+			// the call hierarchy view creates a new scope for every query
+			CallHierarchy.getDefault().setSearchScope(SearchEngine.createJavaSearchScope(new IJavaElement[] { fHelper.getPackage1() }), "package1");
+			fHelper.assertCalls(scopedCallers, getCallers(fHelper.getMethod1()));
+			assertEquals(0, fIndex.getHits());
+
+			CallHierarchy.getDefault().setSearchScope(SearchEngine.createJavaSearchScope(new IJavaElement[] { fHelper.getPackage1() }), "package1");
+			fHelper.assertCalls(scopedCallers, getCallers(fHelper.getMethod1()));
+			assertEquals(1, fIndex.getHits());
+
+			// without a key, a new scope is a new entry
+			CallHierarchy.getDefault().setSearchScope(SearchEngine.createJavaSearchScope(new IJavaElement[] { fHelper.getPackage1() }));
+			fHelper.assertCalls(scopedCallers, getCallers(fHelper.getMethod1()));
+			assertEquals(1, fIndex.getHits());
+		} finally {
+			CallHierarchy.getDefault().setSearchScope(null);
+		}
+	}
+
+	public void testDisableDisposesIndex() throws Exception {
+		fHelper.createSimpleClasses();
+
+		getCallers(fHelper.getMethod1());
+		assertEquals(1, fIndex.getSize());
+
+		CallHierarchy.getDefault().setCallGraphIndexEnabled(false);
+		assertNull(CallHierarchy.getDefault().getCallGraphIndex());
+		assertEquals(0, fIndex.getSize());
+
+		CallHierarchy.getDefault().setCallGraphIndexEnabled(true);
+		assertNotSame(fIndex, CallHierarchy.getDefault().getCallGraphIndex());
+	}
+
+	public void testExportCallGraph() throws Exception {
+		fHelper.createSimpleClasses();
+
+		StringWriter writer= new StringWriter();
+		CallHierarchy.getDefault().exportCallGraph(new IMember[] { fHelper.getMethod1() }, true, 1, writer, null);
+		String directCalls= writer.toString();
+		assertTrue(directCalls.indexOf(fHelper.getMethod2().getHandleIdentifier() + '\t' + fHelper.getMethod1().getHandleIdentifier() + '\n') != -1);
+		assertTrue(directCalls.indexOf(fHelper.getMethod3().getHandleIdentifier() + '\t' + fHelper.getMethod1().getHandleIdentifier() + '\n') != -1);
+		assertEquals(-1, directCalls.indexOf(fHelper.getMethod4().getHandleIdentifier()));
+
+		writer= new StringWriter();
+		CallHierarchy.getDefault().exportCallGraph(new IMember[] { fHelper.getMethod1() }, true, 3, writer, null);
+		String allCalls= writer.toString();
+		assertTrue(allCalls.indexOf(fHelper.getMethod4().getHandleIdentifier() + '\t' + fHelper.getMethod3().getHandleIdentifier() + '\n') != -1);
+		assertEquals(4, allCalls.split("\n").length);
+	}
+}
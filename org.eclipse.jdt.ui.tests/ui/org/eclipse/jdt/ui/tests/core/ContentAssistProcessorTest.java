@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.contentassist.CompletionProposal;
+import org.eclipse.jface.text.contentassist.ContentAssistant;
+import org.eclipse.jface.text.contentassist.ICompletionProposal;
+import org.eclipse.jface.text.contentassist.IContextInformation;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+
+import org.eclipse.jdt.ui.JavaUI;
+import org.eclipse.jdt.ui.text.java.ContentAssistInvocationContext;
+import org.eclipse.jdt.ui.text.java.IJavaCompletionProposalComputer;
+import org.eclipse.jdt.ui.text.java.JavaContentAssistInvocationContext;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.javaeditor.JavaEditor;
+import org.eclipse.jdt.internal.ui.text.java.JavaCompletionProcessor;
+
+
+/**
+ * Tests the computers that do not require the UI thread. The computers of this test are
+ * contributed by the test plug-in in the category <code>testBackgroundProposalCategory</code>,
+ * in the order {@link SlowComputer}, {@link UIThreadComputer}, {@link BackgroundComputer}.
+ *
+ * @since 3.9
+ */
+public class ContentAssistProcessorTest extends TestCase {
+
+	private static final Class THIS= ContentAssistProcessorTest.class;
+
+	private static final String PREFIX= "ContentAssistProcessorTest.";
+	private static final String BUDGET_PREF_KEY= "content_assist_background_computer_budget";
+	private static final long TIMEOUT= 10000;
+
+	private abstract static class TestComputer implements IJavaCompletionProposalComputer {
+
+		public void sessionStarted() {
+		}
+
+		public List<IContextInformation> computeContextInformation(ContentAssistInvocationContext context, IProgressMonitor monitor) {
+			return Collections.emptyList();
+		}
+
+		public String getErrorMessage() {
+			return null;
+		}
+
+		public void sessionEnded() {
+		}
+
+		protected List<ICompletionProposal> createProposals(ContentAssistInvocationContext context, String name) {
+			List<ICompletionProposal> result= new ArrayList<ICompletionProposal>();
+			result.add(new CompletionProposal(name, context.getInvocationOffset(), 0, name.length(), null, PREFIX + name, null, null));
+			return result;
+		}
+	}
+
+	public static final class SlowComputer extends TestComputer {
+
+		static volatile boolean fgBlocked;
+		static volatile boolean fgCanceled;
+		static volatile int fgCalls;
+		static volatile int fgFinished;
+		static volatile ContentAssistInvocationContext fgContext;
+
+		public List<ICompletionProposal> computeCompletionProposals(ContentAssistInvocationContext context, IProgressMonitor monitor) {
+			fgCalls++;
+			fgContext= context;
+			try {
+				while (fgBlocked)
+					Thread.sleep(10);
+				fgCanceled= monitor.isCanceled();
+				return createProposals(context, "SlowComputer");
+			} catch (InterruptedException e) {
+				return Collections.emptyList();
+			} finally {
+				fgFinished++;
+			}
+		}
+	}
+
+	public static final class UIThreadComputer extends TestComputer {
+
+		static volatile boolean fgInUIThread;
+
+		public List<ICompletionProposal> computeCompletionProposals(ContentAssistInvocationContext context, IProgressMonitor monitor) {
+			fgInUIThread= Display.getCurrent() != null;
+			return createProposals(context, "UIThreadComputer");
+		}
+	}
+
+	public static final class BackgroundComputer extends TestComputer {
+
+		static volatile boolean fgInUIThread;
+		static volatile ContentAssistInvocationContext fgContext;
+
+		public List<ICompletionProposal> computeCompletionProposals(ContentAssistInvocationContext context, IProgressMonitor monitor) {
+			fgInUIThread= Display.getCurrent() != null;
+			fgContext= context;
+			return createProposals(context, "BackgroundComputer");
+		}
+	}
+
+	private IJavaProject fJProject1;
+	private ICompilationUnit fCU;
+	private JavaEditor fEditor;
+	private int fOffset;
+
+	public ContentAssistProcessorTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(THIS);
+	}
+
+	protected void setUp() throws Exception {
+		SlowComputer.fgBlocked= false;
+		SlowComputer.fgCanceled= false;
+		SlowComputer.fgCalls= 0;
+		SlowComputer.fgFinished= 0;
+		SlowComputer.fgContext= null;
+		UIThreadComputer.fgInUIThread= false;
+		BackgroundComputer.fgInUIThread= true;
+		BackgroundComputer.fgContext= null;
+
+		fJProject1= JavaProjectHelper.createJavaProject("TestBackgroundComputers", "bin");
+		JavaProjectHelper.addRTJar(fJProject1);
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		IPackageFragment pack= sourceFolder.createPackageFragment("test1", false, null);
+		String contents= "package test1;\npublic class E {\n    void foo() {\n        \n    }\n}\n";
+		fCU= pack.createCompilationUnit("E.java", contents, false, null);
+		fOffset= contents.indexOf("        \n") + 8;
+		fEditor= (JavaEditor) JavaUI.openInEditor(fCU);
+	}
+
+	protected void tearDown() throws Exception {
+		SlowComputer.fgBlocked= false;
+		waitForSlowComputer(SlowComputer.fgCalls);
+		JavaPlugin.getDefault().getPreferenceStore().setToDefault(BUDGET_PREF_KEY);
+		JavaPlugin.getActivePage().closeAllEditors(false);
+		JavaProjectHelper.delete(fJProject1);
+	}
+
+	private List computeTestProposals() {
+		JavaCompletionProcessor processor= new JavaCompletionProcessor(fEditor, new ContentAssistant(), IDocument.DEFAULT_CONTENT_TYPE) {
+			protected List<ICompletionProposal> sortProposals(List<ICompletionProposal> proposals, IProgressMonitor monitor, ContentAssistInvocationContext context) {
+				// keep the order of the computers
+				return proposals;
+			}
+		};
+		ICompletionProposal[] proposals= processor.computeCompletionProposals(fEditor.getViewer(), fOffset);
+
+		List result= new ArrayList();
+		for (int i= 0; i < proposals.length; i++) {
+			String displayString= proposals[i].getDisplayString();
+			if (displayString.startsWith(PREFIX))
+				result.add(displayString.substring(PREFIX.length()));
+		}
+		return result;
+	}
+
+	private static void waitForSlowComputer(int finished) throws InterruptedException {
+		long end= System.currentTimeMillis() + TIMEOUT;
+		while (SlowComputer.fgFinished < finished && System.currentTimeMillis() < end)
+			Thread.sleep(10);
+		assertEquals(finished, SlowComputer.fgFinished);
+	}
+
+	public void testOrderOfComputers() throws Exception {
+		List expected= new ArrayList();
+		expected.add("SlowComputer");
+		expected.add("UIThreadComputer");
+		expected.add("BackgroundComputer");
+
+		assertEquals(expected, computeTestProposals());
+		assertTrue(UIThreadComputer.fgInUIThread);
+		assertFalse(BackgroundComputer.fgInUIThread);
+	}
+
+	public void testBackgroundContext() throws Exception {
+		computeTestProposals();
+
+		ContentAssistInvocationContext context= BackgroundComputer.fgContext;
+		assertTrue(context instanceof JavaContentAssistInvocationContext);
+		assertNull(context.getViewer());
+		assertEquals(fOffset, context.getInvocationOffset());
+		assertEquals(fCU, ((JavaContentAssistInvocationContext) context).getCompilationUnit());
+		assertEquals(fEditor.getViewer().getDocument().get(), context.getDocument().get());
+		assertNotSame(fEditor.getViewer().getDocument(), context.getDocument());
+
+		// each background computer gets its own context
+		assertNotSame(context, SlowComputer.fgContext);
+	}
+
+	public void testLateComputerIsCanceled() throws Exception {
+		JavaPlugin.getDefault().getPreferenceStore().setValue(BUDGET_PREF_KEY, 100);
+		SlowComputer.fgBlocked= true;
+
+		List expected= new ArrayList();
+		expected.add("UIThreadComputer");
+		expected.add("BackgroundComputer");
+		assertEquals(expected, computeTestProposals());
+
+		SlowComputer.fgBlocked= false;
+		waitForSlowComputer(1);
+		assertTrue(SlowComputer.fgCanceled);
+	}
+
+	public void testRunningComputerIsSkipped() throws Exception {
+		JavaPlugin.getDefault().getPreferenceStore().setValue(BUDGET_PREF_KEY, 100);
+		SlowComputer.fgBlocked= true;
+
+		assertFalse(computeTestProposals().contains("SlowComputer"));
+		assertFalse(computeTestProposals().contains("SlowComputer"));
+
+		SlowComputer.fgBlocked= false;
+		waitForSlowComputer(1);
+		assertEquals(1, SlowComputer.fgCalls);
+
+		// the computer is called again once its previous computation has finished
+		long end= System.currentTimeMillis() + TIMEOUT;
+		boolean found= false;
+		while (!found && System.currentTimeMillis() < end)
+			found= computeTestProposals().contains("SlowComputer");
+		assertTrue(found);
+	}
+}
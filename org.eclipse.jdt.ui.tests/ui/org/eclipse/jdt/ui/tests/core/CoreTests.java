@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -61,6 +61,12 @@ public class CoreTests extends TestCase {
 		suite.addTest(IndentManipulationTest.suite());
 		suite.addTest(SelectionHistoryTest.suite());
 		suite.addTest(ASTProviderTest.suite());
+		suite.addTest(JavadocHTMLCacheTest.suite());
+		suite.addTest(JavaElementLabelCacheTest.suite());
+		suite.addTest(ProblemSeverityIndexTest.suite());
+		suite.addTest(TypeHierarchyLifeCycleTest.suite());
+		suite.addTest(CallGraphIndexTest.suite());
+		suite.addTest(ContentAssistProcessorTest.suite());
 
 		return new ProjectTestSetup(suite);
 	}
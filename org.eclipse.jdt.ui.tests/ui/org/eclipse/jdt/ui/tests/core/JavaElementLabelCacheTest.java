@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.swt.custom.StyleRange;
+
+import org.eclipse.jface.viewers.StyledString;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+
+import org.eclipse.jdt.ui.JavaElementLabels;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.viewsupport.JavaElementLabelCache;
+import org.eclipse.jdt.internal.ui.viewsupport.JavaElementLabelComposer;
+
+
+/**
+ * Tests the cache of the labels rendered by {@link JavaElementLabels}.
+ *
+ * @since 3.9
+ */
+public class JavaElementLabelCacheTest extends CoreTests {
+
+	private static final Class THIS= JavaElementLabelCacheTest.class;
+
+	private static final long FLAGS= JavaElementLabels.ALL_DEFAULT | JavaElementLabels.M_APP_RETURNTYPE | JavaElementLabels.ALL_POST_QUALIFIED | JavaElementLabels.COLORIZE;
+
+	private IJavaProject fJProject1;
+	private IPackageFragmentRoot fSourceFolder;
+	private JavaElementLabelCache fCache;
+
+	public JavaElementLabelCacheTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	protected void setUp() throws Exception {
+		fJProject1= ProjectTestSetup.getProject();
+		fSourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		fCache= JavaPlugin.getDefault().getJavaElementLabelCache();
+		fCache.clear();
+		fCache.resetStatistics();
+	}
+
+	protected void tearDown() throws Exception {
+		fCache.setCapacity(JavaElementLabelCache.DEFAULT_MAX_ENTRIES);
+		fCache.clear();
+		JavaProjectHelper.clear(fJProject1, ProjectTestSetup.getDefaultClasspath());
+	}
+
+	private ICompilationUnit createE1() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("import java.util.List;\n");
+		buf.append("public class E1 {\n");
+		buf.append("    public String foo(List list, int i) {\n");
+		buf.append("        return null;\n");
+		buf.append("    }\n");
+		buf.append("    public void bar() {\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		return pack1.createCompilationUnit("E1.java", buf.toString(), false, null);
+	}
+
+	public void testCachedLabel() throws Exception {
+		ICompilationUnit cu= createE1();
+		IMethod foo= cu.getType("E1").getMethod("foo", new String[] { "QList;", "I" });
+
+		String label= JavaElementLabels.getElementLabel(foo, FLAGS);
+		assertEqualString(label, "foo(List, int) : String - test1.E1");
+		assertEquals(1, fCache.getMisses());
+
+		assertEqualString(JavaElementLabels.getElementLabel(foo, FLAGS), label);
+		StringBuffer buf= new StringBuffer("> ");
+		JavaElementLabels.getElementLabel(foo, FLAGS, buf);
+		assertEqualString(buf.toString(), "> " + label);
+		assertEquals(2, fCache.getHits());
+
+		// other flags are cached separately
+		assertEqualString(JavaElementLabels.getElementLabel(foo, JavaElementLabels.M_PARAMETER_TYPES), "foo(List, int)");
+		assertEquals(2, fCache.getMisses());
+		assertEquals(2, fCache.getSize());
+	}
+
+	public void testCachedStyles() throws Exception {
+		ICompilationUnit cu= createE1();
+		IMethod foo= cu.getType("E1").getMethod("foo", new String[] { "QList;", "I" });
+
+		StyledString expected= new StyledString("> ");
+		new JavaElementLabelComposer(expected).appendElementLabel(foo, FLAGS);
+
+		for (int i= 0; i < 2; i++) {
+			StyledString styled= new StyledString("> ");
+			JavaElementLabels.getElementLabel(foo, FLAGS, styled);
+			assertEqualString(styled.getString(), expected.getString());
+
+			StyleRange[] expectedRanges= expected.getStyleRanges();
+			StyleRange[] ranges= styled.getStyleRanges();
+			assertEquals(expectedRanges.length, ranges.length);
+			for (int k= 0; k < ranges.length; k++) {
+				assertEquals(expectedRanges[k].start, ranges[k].start);
+				assertEquals(expectedRanges[k].length, ranges[k].length);
+			}
+		}
+		assertEquals(1, fCache.getHits());
+	}
+
+	public void testModificationInvalidates() throws Exception {
+		ICompilationUnit cu= createE1();
+		IType type= cu.getType("E1");
+		IMethod bar= type.getMethod("bar", new String[0]);
+		String typeLabel= JavaElementLabels.getElementLabel(type, FLAGS);
+		assertEqualString(JavaElementLabels.getElementLabel(bar, FLAGS), "bar() : void - test1.E1");
+
+		bar.delete(false, null);
+		type.createMethod("public int bar() {\n return 0;\n}\n", null, false, null);
+		assertEqualString(JavaElementLabels.getElementLabel(bar, FLAGS), "bar() : int - test1.E1");
+		assertEqualString(JavaElementLabels.getElementLabel(type, FLAGS), typeLabel);
+		assertEquals(0, fCache.getHits());
+	}
+
+	public void testCapacity() throws Exception {
+		ICompilationUnit cu= createE1();
+		IType type= cu.getType("E1");
+		IMethod bar= type.getMethod("bar", new String[0]);
+
+		fCache.setCapacity(1);
+		JavaElementLabels.getElementLabel(type, FLAGS);
+		JavaElementLabels.getElementLabel(bar, FLAGS);
+		assertEquals(1, fCache.getSize());
+		assertEquals(1, fCache.getEvictions());
+
+		JavaElementLabels.getElementLabel(bar, FLAGS);
+		assertEquals(1, fCache.getHits());
+	}
+}
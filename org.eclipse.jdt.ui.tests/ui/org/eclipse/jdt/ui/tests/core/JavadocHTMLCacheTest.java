@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.text.javadoc.JavadocContentAccess2;
+import org.eclipse.jdt.internal.ui.text.javadoc.JavadocHTMLCache;
+
+
+/**
+ * Tests the cache of the Javadoc rendered by {@link JavadocContentAccess2}.
+ *
+ * @since 3.9
+ */
+public class JavadocHTMLCacheTest extends CoreTests {
+
+	private static final Class THIS= JavadocHTMLCacheTest.class;
+
+	private IJavaProject fJProject1;
+	private IPackageFragmentRoot fSourceFolder;
+	private JavadocHTMLCache fCache;
+
+	public JavadocHTMLCacheTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	protected void setUp() throws Exception {
+		fJProject1= ProjectTestSetup.getProject();
+		fSourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		fCache= JavaPlugin.getDefault().getJavadocHTMLCache();
+		fCache.clear();
+		fCache.resetStatistics();
+	}
+
+	protected void tearDown() throws Exception {
+		fCache.setCapacity(JavadocHTMLCache.DEFAULT_MAX_ENTRIES, JavadocHTMLCache.DEFAULT_MAX_WEIGHT);
+		fCache.clear();
+		JavaProjectHelper.clear(fJProject1, ProjectTestSetup.getDefaultClasspath());
+	}
+
+	private ICompilationUnit createE1() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		StringBuffer buf= new StringBuffer();
+		buf.append("package test1;\n");
+		buf.append("public class E1 {\n");
+		buf.append("    /**\n");
+		buf.append("     * Says hello.\n");
+		buf.append("     */\n");
+		buf.append("    public void hello() {\n");
+		buf.append("    }\n");
+		buf.append("    public void bye() {\n");
+		buf.append("    }\n");
+		buf.append("}\n");
+		return pack1.createCompilationUnit("E1.java", buf.toString(), false, null);
+	}
+
+	public void testCachedContent() throws Exception {
+		ICompilationUnit cu= createE1();
+		IMethod hello= cu.getType("E1").getMethod("hello", new String[0]);
+		IMethod bye= cu.getType("E1").getMethod("bye", new String[0]);
+
+		assertFalse(JavadocContentAccess2.isHTMLContentCached(hello, true));
+		String html= JavadocContentAccess2.getHTMLContent(hello, true);
+		assertTrue(html, html.indexOf("Says hello.") != -1);
+		assertEquals(1, fCache.getMisses());
+
+		assertTrue(JavadocContentAccess2.isHTMLContentCached(hello, true));
+		assertSame(html, JavadocContentAccess2.getHTMLContent(hello, true));
+		assertEquals(1, fCache.getHits());
+
+		// members without Javadoc are cached as well
+		assertNull(JavadocContentAccess2.getHTMLContent(bye, true));
+		assertNull(JavadocContentAccess2.getHTMLContent(bye, true));
+		assertEquals(2, fCache.getHits());
+		assertEquals(2, fCache.getMisses());
+	}
+
+	public void testModificationInvalidates() throws Exception {
+		ICompilationUnit cu= createE1();
+		IType type= cu.getType("E1");
+		IMethod hello= type.getMethod("hello", new String[0]);
+
+		String html= JavadocContentAccess2.getHTMLContent(hello, true);
+		assertTrue(JavadocContentAccess2.isHTMLContentCached(hello, true));
+
+		type.createField("int fCount;", null, false, null);
+		assertFalse(JavadocContentAccess2.isHTMLContentCached(hello, true));
+		assertEquals(html, JavadocContentAccess2.getHTMLContent(hello, true));
+		assertEquals(0, fCache.getHits());
+		assertEquals(2, fCache.getMisses());
+	}
+
+	public void testCapacity() throws Exception {
+		ICompilationUnit cu= createE1();
+		IMethod hello= cu.getType("E1").getMethod("hello", new String[0]);
+		IMethod bye= cu.getType("E1").getMethod("bye", new String[0]);
+
+		fCache.setCapacity(1, JavadocHTMLCache.DEFAULT_MAX_WEIGHT);
+		JavadocContentAccess2.getHTMLContent(hello, true);
+		JavadocContentAccess2.getHTMLContent(bye, true);
+		assertEquals(1, fCache.getSize());
+		assertEquals(1, fCache.getEvictions());
+		assertFalse(JavadocContentAccess2.isHTMLContentCached(hello, true));
+		assertTrue(JavadocContentAccess2.isHTMLContentCached(bye, true));
+	}
+}
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.viewsupport.ProblemSeverityIndex;
+
+
+/**
+ * Tests that the {@link ProblemSeverityIndex} stays consistent with the problem markers.
+ *
+ * @since 3.9
+ */
+public class ProblemSeverityIndexTest extends CoreTests {
+
+	private static final Class THIS= ProblemSeverityIndexTest.class;
+
+	private IJavaProject fJProject1;
+	private IPackageFragmentRoot fSourceFolder;
+	private ProblemSeverityIndex fIndex;
+
+	public ProblemSeverityIndexTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	protected void setUp() throws Exception {
+		fJProject1= ProjectTestSetup.getProject();
+		fSourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		fIndex= JavaPlugin.getDefault().getProblemMarkerManager().getProblemSeverityIndex();
+		fIndex.clear();
+	}
+
+	protected void tearDown() throws Exception {
+		fIndex.clear();
+		JavaProjectHelper.clear(fJProject1, ProjectTestSetup.getDefaultClasspath());
+	}
+
+	private IFile createFile(String packageName, String typeName) throws Exception {
+		IPackageFragment pack= fSourceFolder.createPackageFragment(packageName, false, null);
+		ICompilationUnit cu= pack.createCompilationUnit(typeName + ".java", "package " + packageName + ";\npublic class " + typeName + " {\n}\n", false, null);
+		return (IFile) cu.getResource();
+	}
+
+	private static IMarker createProblem(IResource resource, int severity) throws Exception {
+		IMarker marker= resource.createMarker(IMarker.PROBLEM);
+		marker.setAttribute(IMarker.SEVERITY, severity);
+		return marker;
+	}
+
+	private void assertSeverity(IResource resource) throws Exception {
+		assertEquals(resource.getFullPath().toString(), resource.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_ZERO), fIndex.getMaxProblemSeverity(resource, IResource.DEPTH_ZERO));
+		assertEquals(resource.getFullPath().toString(), resource.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE), fIndex.getMaxProblemSeverity(resource, IResource.DEPTH_INFINITE));
+	}
+
+	public void testInitialIndex() throws Exception {
+		IFile e1= createFile("test1", "E1");
+		IFile e2= createFile("test1.sub", "E2");
+		createProblem(e1, IMarker.SEVERITY_WARNING);
+		createProblem(e2, IMarker.SEVERITY_INFO);
+		createProblem(e2, IMarker.SEVERITY_ERROR);
+
+		assertSeverity(e1);
+		assertSeverity(e2);
+		assertSeverity(e1.getParent());
+		assertSeverity(e2.getParent());
+		assertSeverity(fSourceFolder.getResource());
+		assertSeverity(fJProject1.getProject());
+		assertEquals(IMarker.SEVERITY_WARNING, fIndex.getMaxProblemSeverity(e1.getParent(), IResource.DEPTH_ONE));
+	}
+
+	public void testIncrementalUpdate() throws Exception {
+		IFile e1= createFile("test1", "E1");
+		IFile e2= createFile("test1.sub", "E2");
+		IFolder pack= (IFolder) e1.getParent();
+
+		// index the project before the changes
+		assertEquals(-1, fIndex.getMaxProblemSeverity(pack, IResource.DEPTH_INFINITE));
+
+		IMarker error= createProblem(e2, IMarker.SEVERITY_ERROR);
+		createProblem(e1, IMarker.SEVERITY_WARNING);
+		assertSeverity(e1);
+		assertSeverity(e2);
+		assertSeverity(pack);
+		assertSeverity(fJProject1.getProject());
+
+		error.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_INFO);
+		assertSeverity(e2);
+		assertSeverity(pack);
+		assertSeverity(fJProject1.getProject());
+
+		e1.delete(true, null);
+		assertEquals(-1, fIndex.getMaxProblemSeverity(e1, IResource.DEPTH_ZERO));
+		assertSeverity(pack);
+		assertSeverity(fJProject1.getProject());
+
+		e2.deleteMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ZERO);
+		assertSeverity(fJProject1.getProject());
+	}
+}
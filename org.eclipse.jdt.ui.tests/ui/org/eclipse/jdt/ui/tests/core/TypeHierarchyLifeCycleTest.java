@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
+
+import org.eclipse.jdt.internal.ui.typehierarchy.ITypeHierarchyLifeCycleListener;
+import org.eclipse.jdt.internal.ui.typehierarchy.TypeHierarchyLifeCycle;
+import org.eclipse.jdt.internal.ui.util.BusyIndicatorRunnableContext;
+
+
+/**
+ * Tests that {@link TypeHierarchyLifeCycle} only rebuilds the hierarchy for changes that affect it.
+ *
+ * @since 3.9
+ */
+public class TypeHierarchyLifeCycleTest extends CoreTests {
+
+	private static final Class THIS= TypeHierarchyLifeCycleTest.class;
+
+	private IJavaProject fJProject1;
+	private IPackageFragment fPackage;
+	private TypeHierarchyLifeCycle fLifeCycle;
+	private List fChanges;
+
+	public TypeHierarchyLifeCycleTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	protected void setUp() throws Exception {
+		fJProject1= ProjectTestSetup.getProject();
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		fPackage= sourceFolder.createPackageFragment("test1", false, null);
+		fChanges= new ArrayList();
+		fLifeCycle= new TypeHierarchyLifeCycle(false);
+		fLifeCycle.addChangedListener(new ITypeHierarchyLifeCycleListener() {
+			public void typeHierarchyChanged(TypeHierarchyLifeCycle typeHierarchyProvider, IType[] changedTypes) {
+				fChanges.add(changedTypes == null ? "hierarchy" : "types");
+			}
+		});
+	}
+
+	protected void tearDown() throws Exception {
+		fLifeCycle.freeHierarchy();
+		JavaProjectHelper.clear(fJProject1, ProjectTestSetup.getDefaultClasspath());
+	}
+
+	private ICompilationUnit createCU(String name, String declaration) throws Exception {
+		return fPackage.createCompilationUnit(name + ".java", "package test1;\n" + declaration + " {\n}\n", false, null);
+	}
+
+	private ITypeHierarchy createHierarchy(IType focus) throws Exception {
+		fLifeCycle.ensureRefreshedTypeHierarchy(focus, new BusyIndicatorRunnableContext());
+		fChanges.clear();
+		return fLifeCycle.getHierarchy();
+	}
+
+	private void waitForHierarchyCheck() throws Exception {
+		Job.getJobManager().join(fLifeCycle, null);
+	}
+
+	public void testMemberChangeKeepsHierarchy() throws Exception {
+		IType a= createCU("A", "public class A").getType("A");
+		IType b= createCU("B", "public class B extends A").getType("B");
+		ITypeHierarchy hierarchy= createHierarchy(a);
+
+		b.createMethod("public void foo() {\n}\n", null, false, null);
+		waitForHierarchyCheck();
+		assertFalse(fChanges.contains("hierarchy"));
+
+		fLifeCycle.ensureRefreshedTypeHierarchy(a, new BusyIndicatorRunnableContext());
+		assertSame(hierarchy, fLifeCycle.getHierarchy());
+	}
+
+	public void testUnrelatedTypeKeepsHierarchy() throws Exception {
+		IType a= createCU("A", "public class A").getType("A");
+		createCU("B", "public class B extends A");
+		ITypeHierarchy hierarchy= createHierarchy(a);
+
+		createCU("C", "public class C");
+		waitForHierarchyCheck();
+		assertFalse(fChanges.contains("hierarchy"));
+		assertSame(hierarchy, fLifeCycle.getHierarchy());
+	}
+
+	public void testNewSubtypeRebuildsHierarchy() throws Exception {
+		IType a= createCU("A", "public class A").getType("A");
+		createCU("B", "public class B extends A");
+		createHierarchy(a);
+
+		IType c= createCU("C", "public class C extends B").getType("C");
+		waitForHierarchyCheck();
+		assertTrue(fChanges.contains("hierarchy"));
+
+		fLifeCycle.ensureRefreshedTypeHierarchy(a, new BusyIndicatorRunnableContext());
+		assertTrue(fLifeCycle.getHierarchy().contains(c));
+	}
+
+	public void testRemovedSubtypeRebuildsHierarchy() throws Exception {
+		IType a= createCU("A", "public class A").getType("A");
+		ICompilationUnit b= createCU("B", "public class B extends A");
+		createHierarchy(a);
+
+		b.delete(false, null);
+		assertTrue(fChanges.contains("hierarchy"));
+
+		fLifeCycle.ensureRefreshedTypeHierarchy(a, new BusyIndicatorRunnableContext());
+		assertFalse(fLifeCycle.getHierarchy().contains(b.getType("B")));
+	}
+}
@@ -29,6 +29,7 @@ import org.eclipse.jdt.core.ITypeHierarchy;
 import org.eclipse.jdt.core.ITypeHierarchyChangedListener;
 
 import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
+import org.eclipse.jdt.internal.corext.util.SuperTypeHierarchyCache;
 
 import org.eclipse.jdt.ui.JavaUI;
 import org.eclipse.jdt.ui.SharedASTProvider;
@@ -286,6 +287,38 @@ public class TypeHierarchyTest extends TestCase {
 
 	}
 
+	public void testSuperTypeHierarchyCache() throws Exception {
+		IPackageFragmentRoot root1= JavaProjectHelper.addSourceContainer(fJavaProject1, "src");
+		IPackageFragment pack1= root1.createPackageFragment("pack1", true, null);
+
+		IType typeA= pack1.getCompilationUnit("A.java").createType("public class A {\n}\n", null, true, null);
+		IType typeB= pack1.getCompilationUnit("B.java").createType("public class B extends A {\n}\n", null, true, null);
+		IType typeC= pack1.getCompilationUnit("C.java").createType("public class C {\n}\n", null, true, null);
+
+		int maxEntries= SuperTypeHierarchyCache.getMaxEntries();
+		int maxWeight= SuperTypeHierarchyCache.getMaxWeight();
+		SuperTypeHierarchyCache.resetStatistics();
+		try {
+			ITypeHierarchy hierarchyB= SuperTypeHierarchyCache.getTypeHierarchy(typeB);
+			assertEquals(1, SuperTypeHierarchyCache.getCacheMisses());
+
+			// the hierarchy of B contains A
+			assertSame(hierarchyB, SuperTypeHierarchyCache.getTypeHierarchy(typeA));
+			assertEquals(1, SuperTypeHierarchyCache.getCacheHits());
+			assertNotNull(SuperTypeHierarchyCache.getMethodOverrideTester(typeB));
+			assertEquals(2, SuperTypeHierarchyCache.getCacheHits());
+
+			SuperTypeHierarchyCache.setCapacity(1, maxWeight);
+			SuperTypeHierarchyCache.getTypeHierarchy(typeC);
+			assertEquals(2, SuperTypeHierarchyCache.getCacheMisses());
+			assertEquals(1, SuperTypeHierarchyCache.getCacheEvictions());
+			assertFalse(SuperTypeHierarchyCache.hasInCache(typeB));
+			assertTrue(SuperTypeHierarchyCache.hasInCache(typeC));
+		} finally {
+			SuperTypeHierarchyCache.setCapacity(maxEntries, maxWeight);
+		}
+	}
+
 
 
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -43,6 +43,7 @@ import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
 
+import org.eclipse.jdt.internal.ui.packageview.PackageExplorerContentProvider;
 import org.eclipse.jdt.internal.ui.util.CoreUtility;
 import org.eclipse.jdt.internal.ui.wizards.buildpaths.CPListElement;
 
@@ -266,6 +267,33 @@ public class ContentProviderTests1 extends TestCase {
 		assertEquals("No refreshes", 0, fMyPart.getRefreshedObject().size()); //$NON-NLS-1$
 	}
 
+	public void testCoalesceUpdatesFromBackgroundThread() throws Exception {
+		PackageExplorerContentProvider provider= (PackageExplorerContentProvider) fProvider;
+		provider.resetUpdateStatistics();
+
+		final IElementChangedListener listener= (IElementChangedListener) fProvider;
+		final IJavaElementDelta removeCUs= TestDelta.createCUDelta(new ICompilationUnit[] { fCU2, fCU3 }, fPack6, IJavaElementDelta.REMOVED);
+		final IJavaElementDelta removeCU= TestDelta.createCUDelta(new ICompilationUnit[] { fCU2 }, fPack6, IJavaElementDelta.REMOVED);
+		Thread thread= new Thread() {
+			public void run() {
+				listener.elementChanged(new ElementChangedEvent(removeCUs, ElementChangedEvent.POST_CHANGE));
+				listener.elementChanged(new ElementChangedEvent(removeCU, ElementChangedEvent.POST_CHANGE));
+				listener.elementChanged(new ElementChangedEvent(removeCUs, ElementChangedEvent.POST_CHANGE));
+			}
+		};
+		thread.start();
+		thread.join();
+
+		provider.runPendingUpdates();
+
+		// the removal is covered by the refresh, the second refresh is merged into the first
+		assertEquals("Queued updates", 3, provider.getQueuedUpdateCount()); //$NON-NLS-1$
+		assertEquals("Merged updates", 2, provider.getMergedUpdateCount()); //$NON-NLS-1$
+		assertEquals("Applied updates", 1, provider.getAppliedUpdateCount()); //$NON-NLS-1$
+		assertEquals("One refresh", 1, fMyPart.getRefreshedObject().size()); //$NON-NLS-1$
+		assertFalse("No remove", fMyPart.hasRemoveHappened()); //$NON-NLS-1$
+	}
+
 	public void testBug65240() throws Exception {
 		IClasspathEntry[] rawClasspath= fJProject2.getRawClasspath();
 		IClasspathEntry src1= rawClasspath[0];
@@ -42,6 +42,7 @@ import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.formatter.DefaultCodeFormatterConstants;
 
 import org.eclipse.jdt.internal.corext.fix.CleanUpConstants;
+import org.eclipse.jdt.internal.corext.fix.CleanUpRefactoring;
 import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTParser;
 
 import org.eclipse.jdt.ui.PreferenceConstants;
@@ -1707,6 +1708,59 @@ public class CleanUpTest extends CleanUpTestCase {
 		assertRefactoringResultAsExpected(new ICompilationUnit[] {cu1, cu2}, new String[] {expected1, expected2});
 	}
 
+	public void testParallelCleanUp01() throws Exception {
+		IPackageFragmentRoot sourceFolder2= JavaProjectHelper.addSourceContainer(fJProject1, "src2");
+		IPackageFragmentRoot[] roots= new IPackageFragmentRoot[] {fSourceFolder, sourceFolder2};
+
+		ICompilationUnit[] cus= new ICompilationUnit[8];
+		String[] originals= new String[cus.length];
+		for (int i= 0; i < cus.length; i++) {
+			IPackageFragment pack= roots[i % 2].createPackageFragment("test" + i % 3, false, null);
+			StringBuffer buf= new StringBuffer();
+			buf.append("package test" + i % 3 + ";\n");
+			buf.append("import java.util.List;\n");
+			buf.append("import java.util.ArrayList;\n");
+			buf.append("public class E" + i + " {\n");
+			buf.append("    public void foo() {\n");
+			buf.append("        i = new ArrayList().size();\n");
+			buf.append("    }\n");
+			buf.append("    int i;\n");
+			buf.append("    public void bar() {\n");
+			buf.append("    }\n");
+			buf.append("}\n");
+			originals[i]= buf.toString();
+			cus[i]= pack.createCompilationUnit("E" + i + ".java", originals[i], false, null);
+		}
+
+		enable(CleanUpConstants.MEMBER_ACCESSES_NON_STATIC_FIELD_USE_THIS);
+		enable(CleanUpConstants.MEMBER_ACCESSES_NON_STATIC_FIELD_USE_THIS_ALWAYS);
+		enable(CleanUpConstants.ORGANIZE_IMPORTS);
+		enable(CleanUpConstants.SORT_MEMBERS);
+		enable(CleanUpConstants.SORT_MEMBERS_ALL);
+
+		CleanUpRefactoring serial= new CleanUpRefactoring();
+		serial.setUseOptionsFromProfile(true);
+		serial.setWorkerCount(1);
+		performRefactoring(serial, cus, JavaPlugin.getDefault().getCleanUpRegistry().createCleanUps());
+
+		String[] expected= new String[cus.length];
+		for (int i= 0; i < cus.length; i++) {
+			expected[i]= cus[i].getBuffer().getContents();
+			assertFalse(originals[i].equals(expected[i]));
+			cus[i]= ((IPackageFragment)cus[i].getParent()).createCompilationUnit(cus[i].getElementName(), originals[i], true, null);
+		}
+
+		CleanUpRefactoring parallel= new CleanUpRefactoring();
+		parallel.setUseOptionsFromProfile(true);
+		parallel.setWorkerCount(4);
+		assertEquals(4, parallel.getWorkerCount());
+		performRefactoring(parallel, cus, JavaPlugin.getDefault().getCleanUpRegistry().createCleanUps());
+
+		for (int i= 0; i < cus.length; i++) {
+			assertEquals(cus[i].getElementName(), expected[i], cus[i].getBuffer().getContents());
+		}
+	}
+
 	public void testCodeStyle02() throws Exception {
 		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
 		StringBuffer buf= new StringBuffer();
@@ -0,0 +1,570 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.callhierarchy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+
+import org.eclipse.jdt.internal.corext.util.JavaModelUtil;
+
+
+/**
+ * A bounded index of the callers and callees found by {@link CallerMethodWrapper} and
+ * {@link CalleeMethodWrapper}.
+ * <p>
+ * Caller entries are kept per search scope, since the callers are searched in the scope of the
+ * query. The scope is identified by the key of {@link CallHierarchy#getSearchScopeKey()}, since
+ * most search scopes are only equal to themselves and a new scope is created for every query of
+ * the call hierarchy view. Callees are collected regardless of the search scope, so that a callee entry serves
+ * every search scope: the callees are filtered by the scope of the query. The entries depend on
+ * the ignore filters and on the implementors option of {@link CallHierarchy}, which clears the
+ * index when these change.
+ * </p>
+ * <p>
+ * The index is kept up to date from the Java element deltas, including the deltas of reconciled
+ * working copies. When a compilation unit changes, the entries that found calls in it and the
+ * callee entries of its members are dropped. The other caller entries remember the changed
+ * compilation unit, since it may now reference their member. When such an entry is looked up, it
+ * is dropped if the name of the member occurs in the source of the compilation unit. This keeps
+ * reading sources out of the delta notification. Class path, archive and project changes clear
+ * the index.
+ * </p>
+ * <p>
+ * The calls of a callee entry may bind to other members when a declaration of the same name is
+ * added or removed anywhere, e.g. an overload. Callee entries are dropped when the fine-grained
+ * delta of a compilation unit reports such a declaration, or a change of super types. Without a
+ * fine-grained delta, the callee entries remember the compilation unit and check its source for
+ * the names of their callees when they are looked up.
+ * </p>
+ *
+ * @since 3.9
+ */
+public final class CallGraphIndex {
+
+	/**
+	 * The key of an entry.
+	 */
+	private static final class Key {
+
+		private final String fMember;
+
+		/** The key of the search scope of the callers, or <code>null</code> for callees */
+		private final Object fScope;
+
+		public Key(IMember member, int kind, Object scopeKey) {
+			fMember= kind + ":" + member.getHandleIdentifier(); //$NON-NLS-1$
+			fScope= scopeKey;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key other= (Key) obj;
+			return fMember.equals(other.fMember) && (fScope == null ? other.fScope == null : fScope.equals(other.fScope));
+		}
+
+		@Override
+		public int hashCode() {
+			return fMember.hashCode();
+		}
+	}
+
+	/**
+	 * The calls of a member.
+	 */
+	private static final class Entry {
+
+		private final Map<String, MethodCall> fCalls;
+
+		/** The compilation units and class files that the calls depend on */
+		private final Set<IJavaElement> fDependencies;
+
+		/**
+		 * The name that a new reference to the member contains for callers, the names of the
+		 * callees for callees
+		 */
+		private final Set<String> fNames;
+
+		private final boolean fIsCallers;
+
+		/**
+		 * The changed compilation units that may contain one of the names and have not been
+		 * checked yet
+		 */
+		private final Set<ICompilationUnit> fUncheckedUnits= new HashSet<ICompilationUnit>();
+
+		public Entry(Map<String, MethodCall> calls, Set<IJavaElement> dependencies, Set<String> names, boolean isCallers) {
+			fCalls= calls;
+			fDependencies= dependencies;
+			fNames= names;
+			fIsCallers= isCallers;
+		}
+	}
+
+	/**
+	 * The changes of a Java element delta.
+	 */
+	private static final class Change {
+
+		/** The added, removed and changed compilation units */
+		private final Set<IJavaElement> fUnits= new HashSet<IJavaElement>();
+
+		/** The added and changed compilation units */
+		private final Set<ICompilationUnit> fReferencingUnits= new HashSet<ICompilationUnit>();
+
+		/** The added and changed compilation units whose changed declarations are not known */
+		private final Set<ICompilationUnit> fDeclaringUnits= new HashSet<ICompilationUnit>();
+
+		/** The names of the known added, removed and changed declarations */
+		private final Set<String> fDeclarationNames= new HashSet<String>();
+
+		private boolean fIsHierarchyChanged= false;
+	}
+
+	/**
+	 * The default for the maximal number of indexed members.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES= 2000;
+
+	/**
+	 * The kind of the callee entries. Caller entries use the field search mode,
+	 * see {@link MethodWrapper#getFieldSearchMode()}.
+	 */
+	private static final int CALLEES= 0;
+
+	private final LinkedHashMap<Key, Entry> fEntries= new LinkedHashMap<Key, Entry>(256, 0.75f, true);
+	private int fMaxEntries= DEFAULT_MAX_ENTRIES;
+	private int fModelStamp= 0;
+
+	private int fHits= 0;
+	private int fMisses= 0;
+	private int fEvictions= 0;
+
+	private final IElementChangedListener fElementListener= new IElementChangedListener() {
+		public void elementChanged(ElementChangedEvent event) {
+			modelChanged(event.getDelta());
+		}
+	};
+
+	/**
+	 * Creates a new index that listens to changes of the Java model.
+	 */
+	public CallGraphIndex() {
+		JavaCore.addElementChangedListener(fElementListener);
+	}
+
+	/**
+	 * Stops listening to changes and removes all entries.
+	 */
+	public void dispose() {
+		JavaCore.removeElementChangedListener(fElementListener);
+		clear();
+	}
+
+	/**
+	 * Returns the indexed callers of the given member that were found in the given scope.
+	 *
+	 * @param member the called member
+	 * @param searchMode the field search mode
+	 * @param scopeKey the key of the search scope, see {@link CallHierarchy#getSearchScopeKey()}
+	 * @return a map from handle identifier to {@link MethodCall}, or <code>null</code> if the
+	 *         callers are not indexed for the scope
+	 */
+	public Map<String, MethodCall> getCallers(IMember member, int searchMode, Object scopeKey) {
+		Map<String, MethodCall> callers= getCalls(new Key(member, searchMode, scopeKey));
+		return callers != null ? new HashMap<String, MethodCall>(callers) : null;
+	}
+
+	/**
+	 * Returns the indexed callees of the given member within the given scope.
+	 *
+	 * @param member the calling member
+	 * @param scope the search scope
+	 * @return a map from handle identifier to {@link MethodCall}, or <code>null</code> if the
+	 *         callees are not indexed
+	 */
+	public Map<String, MethodCall> getCallees(IMember member, IJavaSearchScope scope) {
+		Map<String, MethodCall> callees= getCalls(new Key(member, CALLEES, null));
+		return callees != null ? filterCallees(callees, scope) : null;
+	}
+
+	/**
+	 * Adds the callers of the given member, found in the given scope.
+	 *
+	 * @param member the called member
+	 * @param searchMode the field search mode
+	 * @param scopeKey the key of the search scope, see {@link CallHierarchy#getSearchScopeKey()}
+	 * @param callers a map from handle identifier to {@link MethodCall}
+	 * @param modelStamp the model stamp from before the callers were searched, see
+	 *            {@link #getModelStamp()}
+	 */
+	public void putCallers(IMember member, int searchMode, Object scopeKey, Map<String, MethodCall> callers, int modelStamp) {
+		Set<IJavaElement> dependencies= new HashSet<IJavaElement>();
+		addDependencies(callers, dependencies);
+		put(new Key(member, searchMode, scopeKey), new Entry(callers, dependencies, Collections.singleton(getReferenceName(member)), true), modelStamp);
+	}
+
+	/**
+	 * Adds the callees of the given member, collected regardless of the search scope.
+	 *
+	 * @param member the calling member
+	 * @param callees a map from handle identifier to {@link MethodCall}
+	 * @param modelStamp the model stamp from before the callees were collected, see
+	 *            {@link #getModelStamp()}
+	 */
+	public void putCallees(IMember member, Map<String, MethodCall> callees, int modelStamp) {
+		Set<IJavaElement> dependencies= new HashSet<IJavaElement>();
+		dependencies.add(getOpenable(member));
+		addDependencies(callees, dependencies);
+		Set<String> names= new HashSet<String>();
+		for (Iterator<MethodCall> iter= callees.values().iterator(); iter.hasNext();) {
+			names.add(getReferenceName(iter.next().getMember()));
+		}
+		put(new Key(member, CALLEES, null), new Entry(callees, dependencies, names, false), modelStamp);
+	}
+
+	/**
+	 * Returns the stamp of the Java model as seen by the index. The stamp changes whenever entries
+	 * are invalidated; calls computed before a change are not added.
+	 *
+	 * @return the model stamp
+	 */
+	public synchronized int getModelStamp() {
+		return fModelStamp;
+	}
+
+	private Map<String, MethodCall> getCalls(Key key) {
+		Entry entry;
+		List<ICompilationUnit> uncheckedUnits;
+		int modelStamp;
+		synchronized (this) {
+			entry= fEntries.get(key);
+			if (entry == null) {
+				fMisses++;
+				return null;
+			}
+			uncheckedUnits= new ArrayList<ICompilationUnit>(entry.fUncheckedUnits);
+			modelStamp= fModelStamp;
+		}
+
+		boolean isReferenced= isReferenced(entry.fNames, uncheckedUnits);
+		synchronized (this) {
+			if (isReferenced) {
+				if (fEntries.get(key) == entry)
+					fEntries.remove(key);
+				fMisses++;
+				return null;
+			}
+			// units added by a concurrent change have not been checked
+			if (modelStamp == fModelStamp)
+				entry.fUncheckedUnits.clear();
+			fHits++;
+			return entry.fCalls;
+		}
+	}
+
+	/**
+	 * Returns the callees of the given map that are within the given scope.
+	 *
+	 * @param callees a map from handle identifier to {@link MethodCall}
+	 * @param scope the search scope
+	 * @return a new map with the callees within the scope
+	 */
+	static Map<String, MethodCall> filterCallees(Map<String, MethodCall> callees, IJavaSearchScope scope) {
+		Map<String, MethodCall> result= new HashMap<String, MethodCall>(callees.size());
+		for (Iterator<Map.Entry<String, MethodCall>> iter= callees.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry<String, MethodCall> call= iter.next();
+			IMember member= call.getValue().getMember();
+			// the callee analyzer only checks called methods against the scope
+			if (member.getElementType() != IJavaElement.METHOD || scope.encloses(member))
+				result.put(call.getKey(), call.getValue());
+		}
+		return result;
+	}
+
+	private synchronized void put(Key key, Entry entry, int modelStamp) {
+		if (modelStamp != fModelStamp || fMaxEntries == 0)
+			return;
+		fEntries.put(key, entry);
+		evict();
+	}
+
+	/**
+	 * Removes all entries from the index.
+	 */
+	public synchronized void clear() {
+		fModelStamp++;
+		fEntries.clear();
+	}
+
+	/**
+	 * Invalidates the entries that may be affected by the given delta.
+	 *
+	 * @param delta the Java element delta
+	 */
+	public void modelChanged(IJavaElementDelta delta) {
+		synchronized (this) {
+			if (fEntries.isEmpty())
+				return;
+		}
+
+		Change change= new Change();
+		try {
+			if (!collectChanges(delta, change)) {
+				clear();
+				return;
+			}
+		} catch (JavaModelException e) {
+			clear();
+			return;
+		}
+		if (change.fUnits.isEmpty())
+			return;
+
+		synchronized (this) {
+			fModelStamp++;
+			Iterator<Entry> iter= fEntries.values().iterator();
+			while (iter.hasNext()) {
+				Entry entry= iter.next();
+				if (containsAny(entry.fDependencies, change.fUnits))
+					iter.remove();
+				else if (entry.fIsCallers)
+					entry.fUncheckedUnits.addAll(change.fReferencingUnits);
+				else if (change.fIsHierarchyChanged || containsAny(entry.fNames, change.fDeclarationNames))
+					iter.remove();
+				else
+					entry.fUncheckedUnits.addAll(change.fDeclaringUnits);
+			}
+		}
+	}
+
+	/**
+	 * Sets the bound of the index and evicts entries if necessary.
+	 *
+	 * @param maxEntries the maximal number of indexed members
+	 */
+	public synchronized void setCapacity(int maxEntries) {
+		if (maxEntries < 0)
+			throw new IllegalArgumentException();
+		fMaxEntries= maxEntries;
+		evict();
+	}
+
+	public synchronized int getSize() {
+		return fEntries.size();
+	}
+
+	public synchronized int getHits() {
+		return fHits;
+	}
+
+	public synchronized int getMisses() {
+		return fMisses;
+	}
+
+	public synchronized int getEvictions() {
+		return fEvictions;
+	}
+
+	public synchronized void resetStatistics() {
+		fHits= 0;
+		fMisses= 0;
+		fEvictions= 0;
+	}
+
+	/**
+	 * Evicts the least recently used entries until the index is within its bound.
+	 */
+	private void evict() {
+		Iterator<Entry> iter= fEntries.values().iterator();
+		while (fEntries.size() > fMaxEntries && iter.hasNext()) {
+			iter.next();
+			iter.remove();
+			fEvictions++;
+		}
+	}
+
+	private static void addDependencies(Map<String, MethodCall> calls, Set<IJavaElement> dependencies) {
+		for (Iterator<MethodCall> iter= calls.values().iterator(); iter.hasNext();) {
+			dependencies.add(getOpenable(iter.next().getMember()));
+		}
+	}
+
+	private static IJavaElement getOpenable(IMember member) {
+		return (IJavaElement) member.getOpenable();
+	}
+
+	/**
+	 * Returns the name that a reference to the given member contains in the source. The callers
+	 * of types and instance initializers are the constructor invocations.
+	 *
+	 * @param member the member
+	 * @return the name
+	 */
+	private static String getReferenceName(IMember member) {
+		switch (member.getElementType()) {
+			case IJavaElement.METHOD:
+			case IJavaElement.FIELD:
+			case IJavaElement.TYPE:
+				return member.getElementName();
+			default:
+				return member.getDeclaringType().getElementName();
+		}
+	}
+
+	private static <T> boolean containsAny(Set<T> elements, Set<T> changed) {
+		for (Iterator<T> iter= changed.iterator(); iter.hasNext();) {
+			if (elements.contains(iter.next()))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Tells whether the source of one of the given compilation units contains one of the given
+	 * names.
+	 *
+	 * @param names the names
+	 * @param units the compilation units
+	 * @return <code>true</code> if a compilation unit may reference or declare one of the names
+	 */
+	private static boolean isReferenced(Set<String> names, List<ICompilationUnit> units) {
+		if (names.isEmpty())
+			return false;
+		for (int i= 0; i < units.size(); i++) {
+			ICompilationUnit cu= units.get(i);
+			try {
+				if (cu.exists()) {
+					String source= cu.getSource();
+					if (source != null && containsAnyName(source, names))
+						return true;
+				}
+			} catch (JavaModelException e) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean containsAnyName(String source, Set<String> names) {
+		for (Iterator<String> iter= names.iterator(); iter.hasNext();) {
+			if (source.indexOf(iter.next()) != -1)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Collects the changed compilation units and declarations of the given delta.
+	 *
+	 * @param delta the Java element delta
+	 * @param change the changes to add to
+	 * @return <code>false</code> if all entries have to be invalidated
+	 * @throws JavaModelException if a package fragment cannot be accessed
+	 */
+	private static boolean collectChanges(IJavaElementDelta delta, Change change) throws JavaModelException {
+		IJavaElement element= delta.getElement();
+		int kind= delta.getKind();
+		switch (element.getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+			case IJavaElement.JAVA_PROJECT:
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+				// projects, source folders, class path and archive changes
+				if (kind != IJavaElementDelta.CHANGED || (delta.getFlags() & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_CONTENT)) != 0)
+					return false;
+				break;
+			case IJavaElement.PACKAGE_FRAGMENT:
+				if (kind == IJavaElementDelta.ADDED)
+					return !((IPackageFragment) element).containsJavaResources();
+				if (kind == IJavaElementDelta.REMOVED || (delta.getFlags() & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_CONTENT)) != 0)
+					return false;
+				break;
+			case IJavaElement.COMPILATION_UNIT:
+				ICompilationUnit cu= (ICompilationUnit) element;
+				if (!JavaModelUtil.isPrimary(cu))
+					return true; // not seen by the search engine
+				if (kind == IJavaElementDelta.CHANGED && (delta.getFlags() & (IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_CHILDREN)) == 0)
+					return true; // e.g. working copy opened
+				change.fUnits.add(cu);
+				if (kind == IJavaElementDelta.REMOVED)
+					return true;
+				change.fReferencingUnits.add(cu);
+				if (kind == IJavaElementDelta.CHANGED && (delta.getFlags() & IJavaElementDelta.F_FINE_GRAINED) != 0)
+					collectDeclarations(delta, cu, change);
+				else
+					change.fDeclaringUnits.add(cu);
+				return true;
+			case IJavaElement.CLASS_FILE:
+				return false;
+			default:
+				return true;
+		}
+
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (!collectChanges(children[i], change))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Collects the changed declarations of the given fine-grained delta. The members of added
+	 * types are not reported, so their compilation unit is checked at lookup.
+	 *
+	 * @param delta the fine-grained delta of a compilation unit or of one of its members
+	 * @param cu the compilation unit
+	 * @param change the changes to add to
+	 */
+	private static void collectDeclarations(IJavaElementDelta delta, ICompilationUnit cu, Change change) {
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			IJavaElementDelta child= children[i];
+			IJavaElement element= child.getElement();
+			switch (element.getElementType()) {
+				case IJavaElement.TYPE:
+				case IJavaElement.METHOD:
+				case IJavaElement.FIELD:
+					int flags= child.getFlags();
+					if (child.getKind() != IJavaElementDelta.CHANGED || (flags & IJavaElementDelta.F_MODIFIERS) != 0)
+						change.fDeclarationNames.add(element.getElementName());
+					if (child.getKind() == IJavaElementDelta.ADDED && element.getElementType() == IJavaElement.TYPE)
+						change.fDeclaringUnits.add(cu);
+					if ((flags & IJavaElementDelta.F_SUPER_TYPES) != 0)
+						change.fIsHierarchyChanged= true;
+					collectDeclarations(child, cu, change);
+					break;
+				default:
+					// imports and package declarations only affect the calls of the compilation unit
+					break;
+			}
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,14 +13,22 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.callhierarchy;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.StringTokenizer;
 
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubProgressMonitor;
 
 import org.eclipse.jface.preference.IPreferenceStore;
 
@@ -45,10 +53,12 @@ public class CallHierarchy {
     private static final String PREF_USE_IMPLEMENTORS= "PREF_USE_IMPLEMENTORS"; //$NON-NLS-1$
     private static final String PREF_USE_FILTERS = "PREF_USE_FILTERS"; //$NON-NLS-1$
     private static final String PREF_FILTERS_LIST = "PREF_FILTERS_LIST"; //$NON-NLS-1$
+    private static final String PREF_USE_CALL_GRAPH_INDEX= "PREF_USE_CALL_GRAPH_INDEX"; //$NON-NLS-1$
 
     private static final String DEFAULT_IGNORE_FILTERS = "java.*,javax.*"; //$NON-NLS-1$
     private static CallHierarchy fgInstance;
     private IJavaSearchScope fSearchScope;
+    private Object fSearchScopeKey;
     private StringMatcher[] fFilters;
 
     public static CallHierarchy getDefault() {
@@ -69,6 +79,57 @@ public class CallHierarchy {
         IPreferenceStore settings = JavaPlugin.getDefault().getPreferenceStore();
 
         settings.setValue(PREF_USE_IMPLEMENTORS, enabled);
+        clearCallGraphIndex();
+    }
+
+    /**
+     * Tells whether callers and callees are looked up in the {@link CallGraphIndex}.
+     *
+     * @return <code>true</code> if the call graph index is used
+     * @since 3.9
+     */
+    public boolean isCallGraphIndexEnabled() {
+        IPreferenceStore settings = JavaPlugin.getDefault().getPreferenceStore();
+
+        return settings.getBoolean(PREF_USE_CALL_GRAPH_INDEX);
+    }
+
+    /**
+     * Sets whether callers and callees are looked up in the {@link CallGraphIndex}. Enabling
+     * starts with an empty index, disabling disposes the index.
+     *
+     * @param enabled <code>true</code> to use the call graph index
+     * @since 3.9
+     */
+    public void setCallGraphIndexEnabled(boolean enabled) {
+        IPreferenceStore settings = JavaPlugin.getDefault().getPreferenceStore();
+
+        settings.setValue(PREF_USE_CALL_GRAPH_INDEX, enabled);
+        if (enabled)
+            JavaPlugin.getDefault().getCallGraphIndex().clear();
+        else
+            JavaPlugin.getDefault().disposeCallGraphIndex();
+    }
+
+    /**
+     * Returns the call graph index if it is enabled.
+     *
+     * @return the call graph index or <code>null</code> if callers and callees are searched
+     *         every time
+     * @see #isCallGraphIndexEnabled()
+     * @since 3.9
+     */
+    public CallGraphIndex getCallGraphIndex() {
+        if (!isCallGraphIndexEnabled())
+            return null;
+
+        return JavaPlugin.getDefault().getCallGraphIndex();
+    }
+
+    private void clearCallGraphIndex() {
+        CallGraphIndex index= getCallGraphIndex();
+        if (index != null)
+            index.clear();
     }
 
     public Collection<IJavaElement> getImplementingMethods(IMethod method) {
@@ -148,6 +209,58 @@ public class CallHierarchy {
 		roots.add(root);
 	}
 
+    /**
+     * Writes the transitive callers or callees of the given members to the given writer. This
+     * does not require the Call Hierarchy view and can be used by scripts.
+     * <p>
+     * Each call is written once, as a line with the handle identifiers of the calling and of the
+     * called member, separated by a tab. Each member is expanded once. The current search scope,
+     * filters and call graph index are used.
+     * </p>
+     *
+     * @param members the members to start with
+     * @param callers <code>true</code> to follow the callers, <code>false</code> to follow the
+     *            callees
+     * @param maxDepth the maximal length of the call paths from a start member, 1 to export
+     *            only the direct calls
+     * @param writer the writer to write the calls to
+     * @param monitor the progress monitor, or <code>null</code>
+     * @throws IOException if writing fails
+     * @throws OperationCanceledException if the monitor has been canceled
+     * @since 3.9
+     */
+    public void exportCallGraph(IMember[] members, boolean callers, int maxDepth, Writer writer, IProgressMonitor monitor) throws IOException {
+        if (monitor == null)
+            monitor= new NullProgressMonitor();
+        monitor.beginTask(CallHierarchyMessages.CallHierarchy_exportCallGraph_taskname, IProgressMonitor.UNKNOWN);
+        try {
+            Set<String> expanded= new HashSet<String>();
+            LinkedList<MethodWrapper> queue= new LinkedList<MethodWrapper>(Arrays.asList(getRoots(members, callers)));
+            while (!queue.isEmpty()) {
+                if (monitor.isCanceled())
+                    throw new OperationCanceledException();
+
+                MethodWrapper wrapper= queue.removeFirst();
+                if (wrapper.getLevel() > maxDepth || !wrapper.canHaveChildren() || !expanded.add(wrapper.getMethodCall().getKey()))
+                    continue;
+
+                MethodWrapper[] calls= wrapper.getCalls(new SubProgressMonitor(monitor, 0));
+                for (int i= 0; i < calls.length; i++) {
+                    IMember from= callers ? calls[i].getMember() : wrapper.getMember();
+                    IMember to= callers ? wrapper.getMember() : calls[i].getMember();
+                    writer.write(from.getHandleIdentifier());
+                    writer.write('\t');
+                    writer.write(to.getHandleIdentifier());
+                    writer.write('\n');
+                    queue.add(calls[i]);
+                }
+            }
+            writer.flush();
+        } finally {
+            monitor.done();
+        }
+    }
+
     public static CallLocation getCallLocation(Object element) {
         CallLocation callLocation = null;
 
@@ -174,7 +287,32 @@ public class CallHierarchy {
     }
 
     public void setSearchScope(IJavaSearchScope searchScope) {
-        this.fSearchScope = searchScope;
+        setSearchScope(searchScope, null);
+    }
+
+    /**
+     * Sets the search scope and a key that identifies the scope across instances.
+     *
+     * @param searchScope the search scope, or <code>null</code> for the workspace scope
+     * @param searchScopeKey a key that is equal for scopes that enclose the same elements, or
+     *            <code>null</code> if the scope is only identified by itself
+     * @since 3.9
+     */
+    public void setSearchScope(IJavaSearchScope searchScope, Object searchScopeKey) {
+        fSearchScope= searchScope;
+        fSearchScopeKey= searchScopeKey;
+    }
+
+    /**
+     * Returns the key that identifies the search scope in the {@link CallGraphIndex}.
+     *
+     * @return the key set with the search scope, or the search scope itself if it has no key
+     * @since 3.9
+     */
+    public Object getSearchScopeKey() {
+        if (fSearchScopeKey != null)
+            return fSearchScopeKey;
+        return getSearchScope();
     }
 
 	/**
@@ -206,6 +344,7 @@ public class CallHierarchy {
     public void setFilterEnabled(boolean filterEnabled) {
         IPreferenceStore settings = JavaPlugin.getDefault().getPreferenceStore();
         settings.setValue(PREF_USE_FILTERS, filterEnabled);
+        clearCallGraphIndex();
     }
 
     /**
@@ -223,6 +362,7 @@ public class CallHierarchy {
 
         IPreferenceStore settings = JavaPlugin.getDefault().getPreferenceStore();
         settings.setValue(PREF_FILTERS_LIST, filters);
+        clearCallGraphIndex();
     }
 
     /**
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2005 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,6 +22,7 @@ public final class CallHierarchyMessages extends NLS {
 
 	public static String CallerMethodWrapper_taskname;
 	public static String CalleeMethodWrapper_taskname;
+	public static String CallHierarchy_exportCallGraph_taskname;
 
 	static {
 		NLS.initializeMessages(BUNDLE_NAME, CallHierarchyMessages.class);
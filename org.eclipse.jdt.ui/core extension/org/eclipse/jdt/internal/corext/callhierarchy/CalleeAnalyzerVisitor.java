@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -51,14 +51,28 @@ class CalleeAnalyzerVisitor extends HierarchicalASTVisitor {
     private final IMember fMember;
     private final CompilationUnit fCompilationUnit;
     private final IProgressMonitor fProgressMonitor;
+    private final IJavaSearchScope fSearchScope;
     private int fMethodEndPosition;
     private int fMethodStartPosition;
 
     CalleeAnalyzerVisitor(IMember member, CompilationUnit compilationUnit, IProgressMonitor progressMonitor) {
+        this(member, compilationUnit, progressMonitor, CallHierarchy.getDefault().getSearchScope());
+    }
+
+    /**
+     * @param member the member to find the callees of
+     * @param compilationUnit the AST of the member
+     * @param progressMonitor the progress monitor
+     * @param searchScope the scope of the called methods, or <code>null</code> to report called
+     *            methods outside of the search scope as well
+     * @since 3.9
+     */
+    CalleeAnalyzerVisitor(IMember member, CompilationUnit compilationUnit, IProgressMonitor progressMonitor, IJavaSearchScope searchScope) {
         fSearchResults = new CallSearchResultCollector();
         this.fMember = member;
         this.fCompilationUnit= compilationUnit;
         this.fProgressMonitor = progressMonitor;
+        this.fSearchScope= searchScope;
 
         try {
             ISourceRange sourceRange = member.getSourceRange();
@@ -292,17 +306,13 @@ class CalleeAnalyzerVisitor extends HierarchicalASTVisitor {
 	}
 
     private boolean isIgnoredBySearchScope(IMethod enclosingElement) {
-        if (enclosingElement != null) {
-            return !getSearchScope().encloses(enclosingElement);
+        if (enclosingElement != null && fSearchScope != null) {
+            return !fSearchScope.encloses(enclosingElement);
         } else {
             return false;
         }
     }
 
-    private IJavaSearchScope getSearchScope() {
-        return CallHierarchy.getDefault().getSearchScope();
-    }
-
     private boolean isNodeWithinMethod(ASTNode node) {
         int nodeStartPosition = node.getStartPosition();
         int nodeEndPosition = nodeStartPosition + node.getLength();
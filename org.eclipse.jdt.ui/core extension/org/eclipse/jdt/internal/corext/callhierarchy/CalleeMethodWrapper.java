@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -91,12 +91,29 @@ class CalleeMethodWrapper extends MethodWrapper {
 	protected Map<String, MethodCall> findChildren(IProgressMonitor progressMonitor) {
     	IMember member= getMember();
 		if (member.exists()) {
+			CallGraphIndex index= CallHierarchy.getDefault().getCallGraphIndex();
+			int modelStamp= 0;
+			if (index != null) {
+				Map<String, MethodCall> callees= index.getCallees(member, CallHierarchy.getDefault().getSearchScope());
+				if (callees != null)
+					return callees;
+				modelStamp= index.getModelStamp();
+			}
+
 			CompilationUnit cu= CallHierarchy.getCompilationUnitNode(member, true);
 		    if (progressMonitor != null) {
 		        progressMonitor.worked(5);
 		    }
 
 			if (cu != null) {
+				if (index != null) {
+					// index the callees regardless of the search scope
+					CalleeAnalyzerVisitor visitor= new CalleeAnalyzerVisitor(member, cu, progressMonitor, null);
+					cu.accept(visitor);
+					index.putCallees(member, visitor.getCallees(), modelStamp);
+					return CallGraphIndex.filterCallees(visitor.getCallees(), CallHierarchy.getDefault().getSearchScope());
+				}
+
 				CalleeAnalyzerVisitor visitor = new CalleeAnalyzerVisitor(member, cu, progressMonitor);
 
 				cu.accept(visitor);
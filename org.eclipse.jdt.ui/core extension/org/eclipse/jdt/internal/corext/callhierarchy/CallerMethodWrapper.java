@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -147,13 +147,27 @@ public class CallerMethodWrapper extends MethodWrapper {
 				return new HashMap<String, MethodCall>(0);
 			}
 
+			IJavaSearchScope defaultSearchScope= getSearchScope();
+			Object scopeKey= CallHierarchy.getDefault().getSearchScopeKey();
+			CallGraphIndex index= CallHierarchy.getDefault().getCallGraphIndex();
+			int modelStamp= 0;
+			if (index != null) {
+				Map<String, MethodCall> callers= index.getCallers(member, getFieldSearchMode(), scopeKey);
+				if (callers != null)
+					return callers;
+				modelStamp= index.getModelStamp();
+			}
+
 			SearchEngine searchEngine= new SearchEngine();
 			MethodReferencesSearchRequestor searchRequestor= new MethodReferencesSearchRequestor();
-			IJavaSearchScope defaultSearchScope= getSearchScope();
 			boolean isWorkspaceScope= SearchEngine.createWorkspaceScope().equals(defaultSearchScope);
 			IJavaSearchScope searchScope= isWorkspaceScope ? getAccurateSearchScope(defaultSearchScope, member) : defaultSearchScope;
 			searchEngine.search(pattern, new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() }, searchScope, searchRequestor,
 					monitor);
+			if (index != null) {
+				index.putCallers(member, getFieldSearchMode(), scopeKey, searchRequestor.getCallers(), modelStamp);
+				return new HashMap<String, MethodCall>(searchRequestor.getCallers());
+			}
 			return searchRequestor.getCallers();
 
 		} catch (CoreException e) {
@@ -10,17 +10,26 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.dom;
 
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
 
+import org.eclipse.core.filesystem.EFS;
+
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.SubProgressMonitor;
 
+import org.eclipse.core.resources.IResource;
+
+import org.eclipse.jdt.core.IBuffer;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.dom.ASTParser;
@@ -33,11 +42,144 @@ import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
  * Creates AST from a set of compilation units. Uses the
  * batch parser. Splits the set of compilation units in subsets
  * such that it is unlikely that a out of memory exception will occur.
+ * <p>
+ * The size of a subset is chosen adaptively: a subset is filled until the accumulated
+ * source length of its compilation units reaches a budget derived from the free heap.
+ * After each subset the heap consumption per source character is re-estimated, and the
+ * budget is reduced while the garbage collector is under pressure.
+ * </p>
  *
  * @since 3.4
  */
 public class ASTBatchParser {
 
+	/**
+	 * Statistics about one batch of compilation units passed to the parser.
+	 *
+	 * @since 3.9
+	 */
+	public static final class BatchStatistics {
+
+		private final int fUnits;
+		private final long fSourceLength;
+		private final long fParseTime;
+		private final long fHeapDelta;
+		private final long fGCTime;
+
+		BatchStatistics(int units, long sourceLength, long parseTime, long heapDelta, long gcTime) {
+			fUnits= units;
+			fSourceLength= sourceLength;
+			fParseTime= parseTime;
+			fHeapDelta= heapDelta;
+			fGCTime= gcTime;
+		}
+
+		/**
+		 * @return the number of compilation units in the batch
+		 */
+		public int getUnitCount() {
+			return fUnits;
+		}
+
+		/**
+		 * @return the estimated accumulated source length of the units in the batch, in characters
+		 */
+		public long getSourceLength() {
+			return fSourceLength;
+		}
+
+		/**
+		 * @return the time spent creating the ASTs and notifying the requestor, in ms
+		 */
+		public long getParseTime() {
+			return fParseTime;
+		}
+
+		/**
+		 * @return the change of the used heap while processing the batch, in bytes. Can be
+		 *         negative if a garbage collection happened
+		 */
+		public long getHeapDelta() {
+			return fHeapDelta;
+		}
+
+		/**
+		 * @return the time spent in garbage collection while processing the batch, in ms, or
+		 *         <code>-1</code> if not available
+		 */
+		public long getGCTime() {
+			return fGCTime;
+		}
+
+		/*
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return "units: " + fUnits + ", chars: " + fSourceLength + ", time: " + fParseTime + "ms, heap delta: " + fHeapDelta + ", gc: " + fGCTime + "ms"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+		}
+	}
+
+	/**
+	 * Computes the size of the next batch from the observed memory consumption.
+	 */
+	private static final class BatchSizer {
+
+		/**
+		 * Initial estimate of the heap bytes consumed per source character by an AST with
+		 * resolved bindings.
+		 */
+		private static final double INITIAL_BYTES_PER_CHAR= 64;
+		private static final double MIN_BYTES_PER_CHAR= 8;
+		private static final double MAX_BYTES_PER_CHAR= 1024;
+
+		/**
+		 * Fraction of the free heap that a single batch may use.
+		 */
+		private static final double HEADROOM_FRACTION= 0.5;
+
+		/**
+		 * Back off if more than this fraction of the parse time was spent in garbage collection.
+		 */
+		private static final double GC_PRESSURE_THRESHOLD= 0.25;
+		private static final int MAX_BACK_OFF= 16;
+
+		private double fBytesPerChar= INITIAL_BYTES_PER_CHAR;
+		private int fBackOff= 1;
+
+		public long getSourceLengthBudget() {
+			Runtime runtime= Runtime.getRuntime();
+			long used= runtime.totalMemory() - runtime.freeMemory();
+			long headroom= Math.max(0, runtime.maxMemory() - used);
+			return (long) (headroom * HEADROOM_FRACTION / fBytesPerChar / fBackOff);
+		}
+
+		public void update(BatchStatistics statistics) {
+			if (statistics.getHeapDelta() > 0 && statistics.getSourceLength() > 0) {
+				double observed= (double) statistics.getHeapDelta() / statistics.getSourceLength();
+				fBytesPerChar= Math.min(MAX_BYTES_PER_CHAR, Math.max(MIN_BYTES_PER_CHAR, (fBytesPerChar + observed) / 2));
+			}
+
+			long gcTime= statistics.getGCTime();
+			if (gcTime >= 0 && statistics.getParseTime() > 0 && gcTime > statistics.getParseTime() * GC_PRESSURE_THRESHOLD) {
+				fBackOff= Math.min(MAX_BACK_OFF, fBackOff * 2);
+			} else if (fBackOff > 1) {
+				fBackOff= fBackOff / 2;
+			}
+		}
+	}
+
+	private static final boolean DEBUG= "true".equalsIgnoreCase(Platform.getDebugOption("org.eclipse.jdt.ui/debug/ASTBatchParser"));  //$NON-NLS-1$//$NON-NLS-2$
+
+	/**
+	 * Source length assumed for compilation units whose length cannot be determined cheaply.
+	 */
+	private static final int DEFAULT_SOURCE_LENGTH= 8 * 1024;
+
+	/**
+	 * The maximal number of compilation units passed to the parser at once, regardless of
+	 * their source length.
+	 */
 	private static final int MAX_AT_ONCE;
 	static {
 		long maxMemory= Runtime.getRuntime().maxMemory();
@@ -91,25 +233,29 @@ public class ASTBatchParser {
 
 		monitor.beginTask("", compilationUnits.length); //$NON-NLS-1$
 		try {
+			BatchSizer sizer= new BatchSizer();
 
 			ICompilationUnit[][] splited= splitByProject(compilationUnits);
 			for (int i= 0; i < splited.length; i++) {
 				ICompilationUnit[] units= splited[i];
 
-				if (units.length <= MAX_AT_ONCE) {
-					createParser(units[0].getJavaProject()).createASTs(units, bindingKeys, requestor, new SubProgressMonitor(monitor, units.length));
-				} else {
-					List<ICompilationUnit> list= Arrays.asList(units);
-					int end= 0;
-					int cursor= 0;
-					while (cursor < units.length) {
-						end= Math.min(end + MAX_AT_ONCE, units.length);
-						List<ICompilationUnit> toParse= list.subList(cursor, end);
-
-						createParser(units[0].getJavaProject()).createASTs(toParse.toArray(new ICompilationUnit[toParse.size()]), bindingKeys, requestor,
-								new SubProgressMonitor(monitor, toParse.size()));
-						cursor= end;
-					}
+				int cursor= 0;
+				long nextLength= getSourceLength(units[0]);
+				while (cursor < units.length) {
+					long budget= sizer.getSourceLengthBudget();
+					List<ICompilationUnit> toParse= new ArrayList<ICompilationUnit>();
+					long sourceLength= 0;
+					do {
+						sourceLength+= nextLength;
+						toParse.add(units[cursor]);
+						cursor++;
+						if (cursor < units.length)
+							nextLength= getSourceLength(units[cursor]);
+					} while (cursor < units.length && toParse.size() < MAX_AT_ONCE && sourceLength + nextLength <= budget);
+
+					BatchStatistics statistics= parseBatch(toParse.toArray(new ICompilationUnit[toParse.size()]), sourceLength, bindingKeys, requestor, new SubProgressMonitor(monitor, toParse.size()));
+					sizer.update(statistics);
+					batchParsed(statistics);
 				}
 			}
 		} finally {
@@ -117,6 +263,37 @@ public class ASTBatchParser {
 		}
 	}
 
+	private BatchStatistics parseBatch(ICompilationUnit[] units, long sourceLength, String[] bindingKeys, ASTRequestor requestor, IProgressMonitor monitor) {
+		Runtime runtime= Runtime.getRuntime();
+		long usedBefore= runtime.totalMemory() - runtime.freeMemory();
+		long gcBefore= getGCTime();
+		long start= System.currentTimeMillis();
+
+		createParser(units[0].getJavaProject()).createASTs(units, bindingKeys, requestor, monitor);
+
+		long parseTime= System.currentTimeMillis() - start;
+		long gcAfter= getGCTime();
+		long usedAfter= runtime.totalMemory() - runtime.freeMemory();
+		long gcTime= gcBefore >= 0 && gcAfter >= 0 ? gcAfter - gcBefore : -1;
+		return new BatchStatistics(units.length, sourceLength, parseTime, usedAfter - usedBefore, gcTime);
+	}
+
+	/**
+	 * Called after each batch of compilation units has been parsed and passed to the requestor.
+	 * <p>
+	 * Subclasses may extend to collect the statistics. The default implementation traces
+	 * the statistics if the <code>org.eclipse.jdt.ui/debug/ASTBatchParser</code> debug
+	 * option is enabled.
+	 * </p>
+	 *
+	 * @param statistics the statistics of the batch
+	 * @since 3.9
+	 */
+	protected void batchParsed(BatchStatistics statistics) {
+		if (DEBUG)
+			System.out.println("ASTBatchParser: " + statistics.toString()); //$NON-NLS-1$
+	}
+
 	/**
 	 * Creates a new parser which can be used to create ASTs
 	 * for compilation units in <code>project</code>
@@ -135,6 +312,47 @@ public class ASTBatchParser {
 		return result;
 	}
 
+	/**
+	 * Returns the source length of the given compilation unit without opening it. The
+	 * length of the underlying file is used for units which are not working copies.
+	 *
+	 * @param unit the compilation unit
+	 * @return the (estimated) source length
+	 */
+	private static long getSourceLength(ICompilationUnit unit) {
+		try {
+			if (unit.isWorkingCopy()) {
+				IBuffer buffer= unit.getBuffer();
+				if (buffer != null)
+					return buffer.getLength();
+			}
+
+			IResource resource= unit.getResource();
+			if (resource != null) {
+				URI location= resource.getLocationURI();
+				if (location != null) {
+					long length= EFS.getStore(location).fetchInfo().getLength();
+					if (length > 0)
+						return length;
+				}
+			}
+		} catch (CoreException e) {
+			// use default
+		}
+		return DEFAULT_SOURCE_LENGTH;
+	}
+
+	private static long getGCTime() {
+		long result= 0;
+		for (Iterator<GarbageCollectorMXBean> iter= ManagementFactory.getGarbageCollectorMXBeans().iterator(); iter.hasNext();) {
+			long time= iter.next().getCollectionTime();
+			if (time < 0)
+				return -1;
+			result+= time;
+		}
+		return result;
+	}
+
 	private static ICompilationUnit[][] splitByProject(ICompilationUnit[] units) {
 		if (hasOnlyOneProject(units))
 			return new ICompilationUnit[][] { units };
@@ -1020,6 +1020,19 @@ public class CleanUpConstants {
 	 */
 	public static final String SHOW_CLEAN_UP_WIZARD= "cleanup.showwizard"; //$NON-NLS-1$
 
+	/**
+	 * The number of workers used to compute the changes of a Clean Up. Values larger than
+	 * <code>1</code> compute the changes of different source folders concurrently.<br>
+	 * <br>
+	 * Possible values: Integer value larger than <code>0</code><br>
+	 * Default value: <code><b>1</b></code><br>
+	 * <br>
+	 * 
+	 * @see CleanUpRefactoring#setWorkerCount(int)
+	 * @since 3.9
+	 */
+	public static final String CLEANUP_WORKER_COUNT= "cleanup.worker_count"; //$NON-NLS-1$
+
 	/**
 	 * A key to a serialized string in the <code>InstanceScope</code> containing all the profiles.<br>
 	 * Following code snippet can load the profiles:
@@ -1270,6 +1283,7 @@ public class CleanUpConstants {
 		}
 
 		store.setDefault(SHOW_CLEAN_UP_WIZARD, true);
+		store.setDefault(CLEANUP_WORKER_COUNT, 1);
 		store.setDefault(CLEANUP_PROFILE, DEFAULT_PROFILE);
 		store.setDefault(CLEANUP_ON_SAVE_PROFILE, DEFAULT_SAVE_PARTICIPANT_PROFILE);
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,9 +14,16 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.eclipse.swt.widgets.Display;
 
@@ -24,6 +31,7 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.ProgressMonitorWrapper;
 import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 
@@ -56,6 +64,7 @@ import org.eclipse.ltk.core.refactoring.TextEditBasedChangeGroup;
 import org.eclipse.ltk.core.refactoring.TextFileChange;
 
 import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.JavaModelException;
@@ -81,6 +90,7 @@ import org.eclipse.jdt.ui.cleanup.ICleanUpFix;
 import org.eclipse.jdt.ui.text.java.IProblemLocation;
 
 import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.fix.AbstractCleanUp;
 import org.eclipse.jdt.internal.ui.fix.IMultiFix.MultiFixContext;
 import org.eclipse.jdt.internal.ui.fix.MapCleanUpOptions;
 import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
@@ -244,6 +254,70 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		}
 	}
 
+	/**
+	 * Serializes access to a progress monitor shared by the workers of a parallel clean up.
+	 */
+	private static final class SynchronizedProgressMonitor extends ProgressMonitorWrapper {
+
+		private SynchronizedProgressMonitor(IProgressMonitor monitor) {
+			super(monitor);
+		}
+
+		@Override
+		public synchronized void beginTask(String name, int totalWork) {
+			super.beginTask(name, totalWork);
+		}
+
+		@Override
+		public synchronized void done() {
+			super.done();
+		}
+
+		@Override
+		public synchronized void internalWorked(double work) {
+			super.internalWorked(work);
+		}
+
+		@Override
+		public synchronized boolean isCanceled() {
+			return super.isCanceled();
+		}
+
+		@Override
+		public synchronized void setCanceled(boolean b) {
+			super.setCanceled(b);
+		}
+
+		@Override
+		public synchronized void setTaskName(String name) {
+			super.setTaskName(name);
+		}
+
+		@Override
+		public synchronized void subTask(String name) {
+			super.subTask(name);
+		}
+
+		@Override
+		public synchronized void worked(int work) {
+			super.worked(work);
+		}
+	}
+
+	/**
+	 * The changes and the condition checking status of a partition of a parallel clean up.
+	 */
+	private static final class PartitionResult {
+
+		private final Change[] fChanges;
+		private final RefactoringStatus fStatus;
+
+		public PartitionResult(Change[] changes, RefactoringStatus status) {
+			fChanges= changes;
+			fStatus= status;
+		}
+	}
+
 	private static class CleanUpASTRequestor extends ASTRequestor {
 
 		private final List<ParseListElement> fUndoneElements;
@@ -328,6 +402,7 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 
 	private class CleanUpFixpointIterator {
 
+		private final CleanUpTarget[] fTargets;
 		private List<ParseListElement> fParseList;
 		private final Hashtable<ICompilationUnit, List<CleanUpChange>> fSolutions;
 		private final Hashtable<ICompilationUnit, ICompilationUnit> fWorkingCopies; // map from primary to working copy
@@ -336,6 +411,7 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		private int fIndex;
 
 		public CleanUpFixpointIterator(CleanUpTarget[] targets, ICleanUp[] cleanUps) {
+			fTargets= targets;
 			fSolutions= new Hashtable<ICompilationUnit, List<CleanUpChange>>(targets.length);
 			fWorkingCopies= new Hashtable<ICompilationUnit, ICompilationUnit>();
 
@@ -446,15 +522,22 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 			return false;
 		}
 
+		/**
+		 * Returns the changes for all modified compilation units, in the order in which the
+		 * targets were passed to this iterator.
+		 * 
+		 * @return the changes, never <code>null</code>
+		 */
 		public Change[] getResult() {
 
 			Change[] result= new Change[fSolutions.size()];
 			int i=0;
-			for (Iterator<Entry<ICompilationUnit, List<CleanUpChange>>> iterator= fSolutions.entrySet().iterator(); iterator.hasNext();) {
-				Entry<ICompilationUnit, List<CleanUpChange>>  entry= iterator.next();
-
-				List<CleanUpChange> changes= entry.getValue();
-				ICompilationUnit unit= entry.getKey();
+			HashSet<ICompilationUnit> processed= new HashSet<ICompilationUnit>();
+			for (int t= 0; t < fTargets.length; t++) {
+				ICompilationUnit unit= fTargets[t].getCompilationUnit();
+				List<CleanUpChange> changes= fSolutions.get(unit);
+				if (changes == null || !processed.add(unit))
+					continue;
 
 				int saveMode;
 				if (fLeaveFilesDirty) {
@@ -515,6 +598,12 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 	 */
 	private static final int SLOW_CLEAN_UP_THRESHOLD= 2000;
 
+	/**
+	 * The maximal number of workers used by a parallel clean up, regardless of the
+	 * configured worker count.
+	 */
+	private static final int MAX_WORKER_COUNT= 64;
+
 	private final List<ICleanUp> fCleanUps;
 	private final Hashtable<IJavaProject, List<CleanUpTarget>> fProjects;
 	private Change fChange;
@@ -522,6 +611,7 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 	private final String fName;
 
 	private boolean fUseOptionsFromProfile;
+	private int fWorkerCount;
 
 	public CleanUpRefactoring() {
 		this(FixMessages.CleanUpRefactoring_Refactoring_name);
@@ -532,12 +622,51 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		fCleanUps= new ArrayList<ICleanUp>();
 		fProjects= new Hashtable<IJavaProject, List<CleanUpTarget>>();
 		fUseOptionsFromProfile= false;
+		fWorkerCount= getDefaultWorkerCount();
 	}
 
 	public void setUseOptionsFromProfile(boolean enabled) {
 		fUseOptionsFromProfile= enabled;
 	}
 
+	/**
+	 * Sets the number of workers used to compute the clean up changes of a project. A
+	 * value of <code>1</code> computes all changes on the calling thread. Values larger
+	 * than <code>1</code> compute the changes of the source folders of a project
+	 * concurrently. Each worker uses its own instances of the clean ups, created from the
+	 * {@link CleanUpRegistry}. If a clean up is not registered or does not extend
+	 * {@link AbstractCleanUp}, the changes are computed by a single worker. The resulting
+	 * change is the same as the one computed by a single worker.
+	 * 
+	 * @param workerCount the number of workers, values smaller than <code>1</code> are treated as <code>1</code>
+	 * @see CleanUpConstants#CLEANUP_WORKER_COUNT
+	 */
+	public void setWorkerCount(int workerCount) {
+		fWorkerCount= Math.min(Math.max(1, workerCount), MAX_WORKER_COUNT);
+	}
+
+	/**
+	 * @return the number of workers used to compute the clean up changes of a project
+	 * @see #setWorkerCount(int)
+	 */
+	public int getWorkerCount() {
+		return fWorkerCount;
+	}
+
+	/**
+	 * Returns the number of workers configured in {@link CleanUpConstants#CLEANUP_WORKER_COUNT}.
+	 * 
+	 * @return the configured worker count, at least <code>1</code>
+	 */
+	public static int getDefaultWorkerCount() {
+		JavaPlugin plugin= JavaPlugin.getDefault();
+		if (plugin == null)
+			return 1;
+
+		int count= plugin.getPreferenceStore().getInt(CleanUpConstants.CLEANUP_WORKER_COUNT);
+		return Math.min(Math.max(1, count), MAX_WORKER_COUNT);
+	}
+
 	public void addCompilationUnit(ICompilationUnit unit) {
 		addCleanUpTarget(new CleanUpTarget(unit));
 	}
@@ -667,13 +796,7 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 						return result;
 				}
 
-				result.merge(checkPreConditions(project, targets, new SubProgressMonitor(pm, 3 * cleanUps.length)));
-				if (result.hasFatalError())
-					return result;
-
-				Change[] changes= cleanUpProject(project, targets, cleanUps, pm);
-
-				result.merge(checkPostConditions(new SubProgressMonitor(pm, cleanUps.length)));
+				Change[] changes= cleanUpProject(project, targets, cleanUps, result, pm);
 				if (result.hasFatalError())
 					return result;
 
@@ -707,24 +830,244 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		}
 	}
 
-	private Change[] cleanUpProject(IJavaProject project, CleanUpTarget[] targets, ICleanUp[] cleanUps, IProgressMonitor monitor) throws CoreException {
-		CleanUpFixpointIterator iter= new CleanUpFixpointIterator(targets, cleanUps);
+	/**
+	 * Checks the conditions and computes the changes for the targets of a project. If the
+	 * targets are cleaned up in parallel, the conditions are only checked by the workers, see
+	 * {@link #cleanUpPartition(IJavaProject, CleanUpTarget[], ICleanUp[], IProgressMonitor)}.
+	 * 
+	 * @param project the project
+	 * @param targets the targets of the project
+	 * @param cleanUps the clean ups to execute
+	 * @param status the status to which the condition checking status is added
+	 * @param monitor the progress monitor, <code>4 * cleanUps.length + 2 * targets.length * cleanUps.length</code>
+	 *            ticks are used
+	 * @return the changes
+	 * @throws CoreException if a clean up failed
+	 */
+	private Change[] cleanUpProject(IJavaProject project, CleanUpTarget[] targets, ICleanUp[] cleanUps, RefactoringStatus status, IProgressMonitor monitor) throws CoreException {
+		List<CleanUpTarget[]> partitions= null;
+		if (fWorkerCount > 1)
+			partitions= partitionTargets(targets, fWorkerCount);
+
+		List<ICleanUp[]> workerCleanUps= null;
+		if (partitions != null && partitions.size() >= 2)
+			workerCleanUps= copyCleanUps(cleanUps, partitions.size());
+
+		if (workerCleanUps == null) {
+			status.merge(checkPreConditions(project, targets, cleanUps, new SubProgressMonitor(monitor, 3 * cleanUps.length)));
+			if (status.hasFatalError())
+				return new Change[0];
+		} else {
+			monitor.worked(3 * cleanUps.length);
+		}
 
+		Change[] changes;
 		SubProgressMonitor subMonitor= new SubProgressMonitor(monitor, 2 * targets.length * cleanUps.length);
 		subMonitor.beginTask("", targets.length); //$NON-NLS-1$
 		subMonitor.subTask(Messages.format(FixMessages.CleanUpRefactoring_Parser_Startup_message, BasicElementLabels.getResourceName(project.getProject())));
+		try {
+			if (workerCleanUps == null)
+				changes= cleanUpTargets(targets, cleanUps, subMonitor);
+			else
+				changes= cleanUpTargetsParallel(project, targets, partitions, workerCleanUps, status, subMonitor);
+		} finally {
+			subMonitor.done();
+		}
+
+		if (workerCleanUps == null)
+			status.merge(checkPostConditions(cleanUps, new SubProgressMonitor(monitor, cleanUps.length)));
+		else
+			monitor.worked(cleanUps.length);
+		return changes;
+	}
+
+	private Change[] cleanUpTargets(CleanUpTarget[] targets, ICleanUp[] cleanUps, IProgressMonitor monitor) throws CoreException {
+		CleanUpFixpointIterator iter= new CleanUpFixpointIterator(targets, cleanUps);
 		try {
 			while (iter.hasNext()) {
-				iter.next(subMonitor);
+				iter.next(monitor);
 			}
 
 			return iter.getResult();
 		} finally {
 			iter.dispose();
-			subMonitor.done();
 		}
 	}
 
+	/**
+	 * Computes the changes for the given partitions concurrently. The result is ordered
+	 * like the result of {@link #cleanUpTargets(CleanUpTarget[], ICleanUp[], IProgressMonitor)}
+	 * for <code>targets</code>.
+	 * 
+	 * @param project the project of the targets
+	 * @param targets all targets of the project, in the order they have been added
+	 * @param partitions the targets split into independent partitions
+	 * @param workerCleanUps the clean ups to execute, one set of instances per partition
+	 * @param status the status to which the condition checking status of the partitions is added
+	 * @param monitor the progress monitor, <code>targets.length</code> ticks have been allocated
+	 * @return the changes
+	 * @throws CoreException if a clean up failed
+	 */
+	private Change[] cleanUpTargetsParallel(final IJavaProject project, CleanUpTarget[] targets, List<CleanUpTarget[]> partitions, List<ICleanUp[]> workerCleanUps, RefactoringStatus status, IProgressMonitor monitor) throws CoreException {
+		final IProgressMonitor sharedMonitor= new SynchronizedProgressMonitor(monitor);
+
+		ExecutorService executor= Executors.newFixedThreadPool(Math.min(fWorkerCount, partitions.size()), new ThreadFactory() {
+			private int fCount= 0;
+			public synchronized Thread newThread(Runnable runnable) {
+				Thread thread= new Thread(runnable, "Clean Up Worker " + ++fCount); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+			List<Future<PartitionResult>> futures= new ArrayList<Future<PartitionResult>>(partitions.size());
+			for (int i= 0; i < partitions.size(); i++) {
+				final CleanUpTarget[] partition= partitions.get(i);
+				final ICleanUp[] cleanUps= workerCleanUps.get(i);
+				futures.add(executor.submit(new Callable<PartitionResult>() {
+					public PartitionResult call() throws Exception {
+						if (sharedMonitor.isCanceled())
+							throw new OperationCanceledException();
+						return cleanUpPartition(project, partition, cleanUps, sharedMonitor);
+					}
+				}));
+			}
+
+			Map<ICompilationUnit, Change> changes= new Hashtable<ICompilationUnit, Change>(targets.length);
+			for (Iterator<Future<PartitionResult>> iter= futures.iterator(); iter.hasNext();) {
+				PartitionResult partitionResult= getResult(iter.next());
+				status.merge(partitionResult.fStatus);
+				Change[] partitionChanges= partitionResult.fChanges;
+				for (int i= 0; i < partitionChanges.length; i++) {
+					changes.put(getCompilationUnit(partitionChanges[i]), partitionChanges[i]);
+				}
+			}
+
+			List<Change> result= new ArrayList<Change>(changes.size());
+			for (int i= 0; i < targets.length; i++) {
+				Change change= changes.remove(targets[i].getCompilationUnit());
+				if (change != null)
+					result.add(change);
+			}
+			return result.toArray(new Change[result.size()]);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Cleans up a partition with the clean up instances of its worker. The conditions are
+	 * checked on these instances since clean ups may keep state between
+	 * {@link ICleanUp#checkPreConditions(IJavaProject, ICompilationUnit[], IProgressMonitor)}
+	 * and {@link ICleanUp#checkPostConditions(IProgressMonitor)}.
+	 * 
+	 * @param project the project of the partition
+	 * @param partition the targets to clean up
+	 * @param cleanUps the clean ups of the worker
+	 * @param monitor the shared progress monitor
+	 * @return the changes and the condition checking status
+	 * @throws CoreException if a clean up failed
+	 */
+	private PartitionResult cleanUpPartition(IJavaProject project, CleanUpTarget[] partition, ICleanUp[] cleanUps, IProgressMonitor monitor) throws CoreException {
+		RefactoringStatus status= checkPreConditions(project, partition, cleanUps, new NullProgressMonitor());
+		if (status.hasFatalError())
+			return new PartitionResult(new Change[0], status);
+
+		Change[] changes= cleanUpTargets(partition, cleanUps, monitor);
+		status.merge(checkPostConditions(cleanUps, new NullProgressMonitor()));
+		return new PartitionResult(changes, status);
+	}
+
+	/**
+	 * Creates a set of clean ups for each worker. Clean ups are not required to be thread
+	 * safe, hence workers must not share clean up instances.
+	 * 
+	 * @param cleanUps the configured clean ups
+	 * @param count the number of workers
+	 * @return the clean ups for each worker, configured like <code>cleanUps</code>, or
+	 *         <code>null</code> if the clean ups cannot be copied
+	 */
+	private static List<ICleanUp[]> copyCleanUps(ICleanUp[] cleanUps, int count) {
+		for (int i= 0; i < cleanUps.length; i++) {
+			if (!(cleanUps[i] instanceof AbstractCleanUp) || ((AbstractCleanUp)cleanUps[i]).getOptions() == null)
+				return null;
+		}
+
+		CleanUpRegistry registry= JavaPlugin.getDefault().getCleanUpRegistry();
+		List<ICleanUp[]> result= new ArrayList<ICleanUp[]>(count);
+		for (int i= 0; i < count; i++) {
+			ICleanUp[] copies= registry.copyCleanUps(cleanUps);
+			if (copies == null)
+				return null;
+			for (int j= 0; j < copies.length; j++) {
+				copies[j].setOptions(((AbstractCleanUp)cleanUps[j]).getOptions());
+			}
+			result.add(copies);
+		}
+		return result;
+	}
+
+	private static PartitionResult getResult(Future<PartitionResult> future) throws CoreException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			throw new OperationCanceledException();
+		} catch (ExecutionException e) {
+			Throwable cause= e.getCause();
+			if (cause instanceof CoreException)
+				throw (CoreException)cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException)cause;
+			if (cause instanceof Error)
+				throw (Error)cause;
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	private static ICompilationUnit getCompilationUnit(Change change) {
+		if (change instanceof MultiStateCompilationUnitChange)
+			return ((MultiStateCompilationUnitChange)change).getCompilationUnit();
+		return ((CompilationUnitChange)change).getCompilationUnit();
+	}
+
+	/**
+	 * Splits the targets of a project into partitions which can be cleaned up independently.
+	 * Targets are grouped by source folder, source folders with more than
+	 * <code>targets.length / workerCount</code> targets are split further. The order of the
+	 * targets is preserved within each partition.
+	 * 
+	 * @param targets the targets of a project
+	 * @param workerCount the number of available workers
+	 * @return the partitions or <code>null</code> if the targets cannot be partitioned
+	 */
+	private static List<CleanUpTarget[]> partitionTargets(CleanUpTarget[] targets, int workerCount) {
+		Map<IJavaElement, List<CleanUpTarget>> sourceFolders= new LinkedHashMap<IJavaElement, List<CleanUpTarget>>();
+		HashSet<ICompilationUnit> units= new HashSet<ICompilationUnit>();
+		for (int i= 0; i < targets.length; i++) {
+			ICompilationUnit unit= targets[i].getCompilationUnit();
+			if (!units.add(unit))
+				return null; // the same unit must not be cleaned up by two workers
+			IJavaElement root= unit.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+			List<CleanUpTarget> list= sourceFolders.get(root);
+			if (list == null) {
+				list= new ArrayList<CleanUpTarget>();
+				sourceFolders.put(root, list);
+			}
+			list.add(targets[i]);
+		}
+
+		int maxPartitionSize= Math.max(1, (targets.length + workerCount - 1) / workerCount);
+		List<CleanUpTarget[]> result= new ArrayList<CleanUpTarget[]>();
+		for (Iterator<List<CleanUpTarget>> iter= sourceFolders.values().iterator(); iter.hasNext();) {
+			List<CleanUpTarget> list= iter.next();
+			for (int start= 0; start < list.size(); start+= maxPartitionSize) {
+				List<CleanUpTarget> partition= list.subList(start, Math.min(list.size(), start + maxPartitionSize));
+				result.add(partition.toArray(new CleanUpTarget[partition.size()]));
+			}
+		}
+		return result;
+	}
+
 	private RefactoringStatus setOptionsFromProfile(IJavaProject javaProject, ICleanUp[] cleanUps) {
 		Map<String, String> options= CleanUpPreferenceUtil.loadOptions(new ProjectScope(javaProject.getProject()));
 		if (options == null)
@@ -737,7 +1080,7 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		return new RefactoringStatus();
 	}
 
-	private RefactoringStatus checkPreConditions(IJavaProject javaProject, CleanUpTarget[] targets, IProgressMonitor monitor) throws CoreException {
+	private RefactoringStatus checkPreConditions(IJavaProject javaProject, CleanUpTarget[] targets, ICleanUp[] cleanUps, IProgressMonitor monitor) throws CoreException {
 		RefactoringStatus result= new RefactoringStatus();
 
 		ICompilationUnit[] compilationUnits= new ICompilationUnit[targets.length];
@@ -745,7 +1088,6 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 			compilationUnits[i]= targets[i].getCompilationUnit();
 		}
 
-		ICleanUp[] cleanUps= getCleanUps();
 		monitor.beginTask("", compilationUnits.length * cleanUps.length); //$NON-NLS-1$
 		monitor.subTask(Messages.format(FixMessages.CleanUpRefactoring_Initialize_message, BasicElementLabels.getResourceName(javaProject.getProject())));
 		try {
@@ -761,10 +1103,9 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		return result;
 	}
 
-	private RefactoringStatus checkPostConditions(SubProgressMonitor monitor) throws CoreException {
+	private RefactoringStatus checkPostConditions(ICleanUp[] cleanUps, IProgressMonitor monitor) throws CoreException {
 		RefactoringStatus result= new RefactoringStatus();
 
-		ICleanUp[] cleanUps= getCleanUps();
 		monitor.beginTask("", cleanUps.length); //$NON-NLS-1$
 		monitor.subTask(FixMessages.CleanUpRefactoring_checkingPostConditions_message);
 		try {
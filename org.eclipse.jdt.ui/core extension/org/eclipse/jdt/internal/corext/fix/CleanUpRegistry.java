@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2011 IBM Corporation and others.
+ * Copyright (c) 2007, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -170,6 +170,14 @@ public class CleanUpRegistry {
 			return fId;
 		}
 
+		/**
+		 * @return the name of the class implementing this clean up
+		 * @since 3.9
+		 */
+		public String getClassName() {
+			return fElement.getAttribute(ATTRIBUTE_ID_CLASS);
+		}
+
 		/**
 		 * @return the id of the clean up which must run before this clean up or
 		 *         <strong>null</strong> if none specified
@@ -273,6 +281,30 @@ public class CleanUpRegistry {
 		return result.toArray(new ICleanUp[result.size()]);
 	}
 
+	/**
+	 * Creates new instances of the given registered clean ups. The options of the new clean ups
+	 * are not set.
+	 * 
+	 * @param cleanUps the clean ups to create again
+	 * @return the new clean ups in the order of <code>cleanUps</code>, or <code>null</code> if
+	 *         one of the clean ups is not registered or could not be created
+	 * @since 3.9
+	 */
+	public synchronized ICleanUp[] copyCleanUps(ICleanUp[] cleanUps) {
+		ensureCleanUpsRegistered();
+		ICleanUp[] result= new ICleanUp[cleanUps.length];
+		for (int i= 0; i < cleanUps.length; i++) {
+			String className= cleanUps[i].getClass().getName();
+			for (int j= 0; j < fCleanUpDescriptors.length && result[i] == null; j++) {
+				if (className.equals(fCleanUpDescriptors[j].getClassName()))
+					result[i]= fCleanUpDescriptors[j].createCleanUp();
+			}
+			if (result[i] == null || result[i].getClass() != cleanUps[i].getClass())
+				return null;
+		}
+		return result;
+	}
+
 	/**
 	 * @param kind the kind of clean up for which to retrieve the configuratin pages
 	 * 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,8 +11,8 @@
 package org.eclipse.jdt.internal.corext.util;
 
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 
@@ -23,17 +23,27 @@ import org.eclipse.jdt.core.JavaModelException;
 
 /**
  * A thread-safe cache for super type hierarchies.
+ * <p>
+ * The cache is bounded by the number of hierarchies and by their accumulated weight, where
+ * the weight of a hierarchy is the number of types it contains. Lookups do not acquire a
+ * lock. Hierarchies for the same type are created under one of a fixed set of striped
+ * locks, so that concurrent requests for the same type create the hierarchy only once.
+ * </p>
  */
 public class SuperTypeHierarchyCache {
 
 	private static class HierarchyCacheEntry implements ITypeHierarchyChangedListener {
 
-		private ITypeHierarchy fTypeHierarchy;
-		private long fLastAccess;
+		private final ITypeHierarchy fTypeHierarchy;
+		private final IType[] fTypes;
+		private final ConcurrentHashMap<IType, MethodOverrideTester> fMethodOverrideTesters;
+		private volatile long fLastAccess;
+		private volatile boolean fDisposed;
 
 		public HierarchyCacheEntry(ITypeHierarchy hierarchy) {
 			fTypeHierarchy= hierarchy;
-			fTypeHierarchy.addTypeHierarchyChangedListener(this);
+			fTypes= hierarchy.getAllTypes();
+			fMethodOverrideTesters= new ConcurrentHashMap<IType, MethodOverrideTester>(4);
 			markAsAccessed();
 		}
 
@@ -45,6 +55,35 @@ public class SuperTypeHierarchyCache {
 			return fTypeHierarchy;
 		}
 
+		/**
+		 * @return the types contained in the hierarchy
+		 */
+		public IType[] getTypes() {
+			return fTypes;
+		}
+
+		/**
+		 * @return the weight of this entry, which is the number of types in the hierarchy
+		 */
+		public int getWeight() {
+			return Math.max(1, fTypes.length);
+		}
+
+		public boolean isValid() {
+			return !fDisposed && fTypeHierarchy.exists();
+		}
+
+		public MethodOverrideTester getMethodOverrideTester(IType type) {
+			MethodOverrideTester tester= fMethodOverrideTesters.get(type);
+			if (tester == null) {
+				tester= new MethodOverrideTester(type, fTypeHierarchy);
+				MethodOverrideTester existing= fMethodOverrideTesters.putIfAbsent(type, tester);
+				if (existing != null)
+					tester= existing;
+			}
+			return tester;
+		}
+
 		public void markAsAccessed() {
 			fLastAccess= System.currentTimeMillis();
 		}
@@ -53,11 +92,23 @@ public class SuperTypeHierarchyCache {
 			return fLastAccess;
 		}
 
+		/**
+		 * Starts listening to changes of the hierarchy. The entry is published before, so it may
+		 * already have been disposed by a concurrent eviction. In that case, the listener is removed
+		 * again, since {@link #dispose()} has not seen it.
+		 */
+		public void addListener() {
+			fTypeHierarchy.addTypeHierarchyChangedListener(this);
+			if (fDisposed)
+				fTypeHierarchy.removeTypeHierarchyChangedListener(this);
+		}
+
 		public void dispose() {
-			if (fTypeHierarchy != null) {
+			if (!fDisposed) {
+				fDisposed= true;
 				fTypeHierarchy.removeTypeHierarchyChangedListener(this);
-				fTypeHierarchy= null;
 			}
+			fMethodOverrideTesters.clear();
 		}
 
 		/* (non-Javadoc)
@@ -71,13 +122,40 @@ public class SuperTypeHierarchyCache {
 	}
 
 
-	private static final int CACHE_SIZE= 8;
+	/**
+	 * The default for the maximal number of cached hierarchies.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES= 32;
+
+	/**
+	 * The default for the maximal accumulated number of types in all cached hierarchies.
+	 */
+	public static final int DEFAULT_MAX_WEIGHT= 20000;
 
-	private static ArrayList<HierarchyCacheEntry> fgHierarchyCache= new ArrayList<HierarchyCacheEntry>(CACHE_SIZE);
-	private static Map<IType, MethodOverrideTester> fgMethodOverrideTesterCache= new LRUMap<IType, MethodOverrideTester>(CACHE_SIZE);
+	private static final int LOCK_STRIPES= 16;
 
-	private static int fgCacheHits= 0;
-	private static int fgCacheMisses= 0;
+	private static final Object[] fgBuildLocks= new Object[LOCK_STRIPES];
+	static {
+		for (int i= 0; i < LOCK_STRIPES; i++) {
+			fgBuildLocks[i]= new Object();
+		}
+	}
+
+	/**
+	 * Guards {@link #fgHierarchyCache}, {@link #fgWeight} and the modifications of {@link #fgTypeIndex}.
+	 */
+	private static final Object fgWriteLock= new Object();
+
+	private static final ArrayList<HierarchyCacheEntry> fgHierarchyCache= new ArrayList<HierarchyCacheEntry>(DEFAULT_MAX_ENTRIES);
+	private static final ConcurrentHashMap<IType, HierarchyCacheEntry> fgTypeIndex= new ConcurrentHashMap<IType, HierarchyCacheEntry>(256, 0.75f, LOCK_STRIPES);
+	private static int fgWeight= 0;
+
+	private static volatile int fgMaxEntries= DEFAULT_MAX_ENTRIES;
+	private static volatile int fgMaxWeight= DEFAULT_MAX_WEIGHT;
+
+	private static final AtomicInteger fgCacheHits= new AtomicInteger();
+	private static final AtomicInteger fgCacheMisses= new AtomicInteger();
+	private static final AtomicInteger fgCacheEvictions= new AtomicInteger();
 
 	/**
 	 * Returns a super type hierarchy that contains the given type.
@@ -95,32 +173,7 @@ public class SuperTypeHierarchyCache {
 	}
 
 	public static MethodOverrideTester getMethodOverrideTester(IType type) throws JavaModelException {
-		MethodOverrideTester test= null;
-		synchronized (fgMethodOverrideTesterCache) {
-			test= fgMethodOverrideTesterCache.get(type);
-		}
-		if (test == null) {
-			ITypeHierarchy hierarchy= getTypeHierarchy(type); // don't nest the locks
-			synchronized (fgMethodOverrideTesterCache) {
-				test= fgMethodOverrideTesterCache.get(type); // test again after waiting a long time for 'getTypeHierarchy'
-				if (test == null) {
-					test= new MethodOverrideTester(type, hierarchy);
-					fgMethodOverrideTesterCache.put(type, test);
-				}
-			}
-		}
-		return test;
-	}
-
-	private static void removeMethodOverrideTester(ITypeHierarchy hierarchy) {
-		synchronized (fgMethodOverrideTesterCache) {
-			for (Iterator<MethodOverrideTester> iter= fgMethodOverrideTesterCache.values().iterator(); iter.hasNext();) {
-				MethodOverrideTester curr= iter.next();
-				if (curr.getTypeHierarchy().equals(hierarchy)) {
-					iter.remove();
-				}
-			}
-		}
+		return getHierarchyEntry(type, null).getMethodOverrideTester(type);
 	}
 
 	/**
@@ -136,45 +189,72 @@ public class SuperTypeHierarchyCache {
 	 * @throws JavaModelException if a problem occurs
 	 */
 	public static ITypeHierarchy getTypeHierarchy(IType type, IProgressMonitor progressMonitor) throws JavaModelException {
-		ITypeHierarchy hierarchy= findTypeHierarchyInCache(type);
-		if (hierarchy == null) {
-			fgCacheMisses++;
-			hierarchy= type.newSupertypeHierarchy(progressMonitor);
-			addTypeHierarchyToCache(hierarchy);
-		} else {
-			fgCacheHits++;
-		}
-		return hierarchy;
-	}
-
-	private static void addTypeHierarchyToCache(ITypeHierarchy hierarchy) {
-		synchronized (fgHierarchyCache) {
-			int nEntries= fgHierarchyCache.size();
-			if (nEntries >= CACHE_SIZE) {
-				// find obsolete entries or remove entry that was least recently accessed
-				HierarchyCacheEntry oldest= null;
-				ArrayList<HierarchyCacheEntry> obsoleteHierarchies= new ArrayList<HierarchyCacheEntry>(CACHE_SIZE);
-				for (int i= 0; i < nEntries; i++) {
-					HierarchyCacheEntry entry= fgHierarchyCache.get(i);
-					ITypeHierarchy curr= entry.getTypeHierarchy();
-					if (!curr.exists() || hierarchy.contains(curr.getType())) {
-						obsoleteHierarchies.add(entry);
-					} else {
-						if (oldest == null || entry.getLastAccess() < oldest.getLastAccess()) {
-							oldest= entry;
-						}
-					}
-				}
-				if (!obsoleteHierarchies.isEmpty()) {
-					for (int i= 0; i < obsoleteHierarchies.size(); i++) {
-						removeHierarchyEntryFromCache(obsoleteHierarchies.get(i));
-					}
-				} else if (oldest != null) {
-					removeHierarchyEntryFromCache(oldest);
+		return getHierarchyEntry(type, progressMonitor).getTypeHierarchy();
+	}
+
+	private static HierarchyCacheEntry getHierarchyEntry(IType type, IProgressMonitor progressMonitor) throws JavaModelException {
+		HierarchyCacheEntry entry= findHierarchyEntryInCache(type);
+		if (entry != null) {
+			fgCacheHits.incrementAndGet();
+			return entry;
+		}
+
+		synchronized (fgBuildLocks[(type.hashCode() & 0x7fffffff) % LOCK_STRIPES]) {
+			entry= findHierarchyEntryInCache(type); // test again after waiting for a concurrent build
+			if (entry != null) {
+				fgCacheHits.incrementAndGet();
+				return entry;
+			}
+			fgCacheMisses.incrementAndGet();
+			ITypeHierarchy hierarchy= type.newSupertypeHierarchy(progressMonitor);
+			return addTypeHierarchyToCache(hierarchy);
+		}
+	}
+
+	private static HierarchyCacheEntry addTypeHierarchyToCache(ITypeHierarchy hierarchy) {
+		HierarchyCacheEntry newEntry= new HierarchyCacheEntry(hierarchy);
+		synchronized (fgWriteLock) {
+			// remove obsolete entries, hierarchies that are contained in the new hierarchy are obsolete
+			for (int i= fgHierarchyCache.size() - 1; i >= 0; i--) {
+				HierarchyCacheEntry entry= fgHierarchyCache.get(i);
+				if (!entry.isValid() || hierarchy.contains(entry.getTypeHierarchy().getType())) {
+					removeEntry(entry);
 				}
 			}
-			HierarchyCacheEntry newEntry= new HierarchyCacheEntry(hierarchy);
+
 			fgHierarchyCache.add(newEntry);
+			fgWeight+= newEntry.getWeight();
+			IType[] types= newEntry.getTypes();
+			for (int i= 0; i < types.length; i++) {
+				fgTypeIndex.put(types[i], newEntry);
+			}
+			fgTypeIndex.put(hierarchy.getType(), newEntry);
+
+			evictEntries(newEntry);
+		}
+		newEntry.addListener();
+		return newEntry;
+	}
+
+	/**
+	 * Removes the least recently accessed entries until the cache fits into its bounds.
+	 * Must be called while holding {@link #fgWriteLock}.
+	 *
+	 * @param keep the entry that must not be evicted
+	 */
+	private static void evictEntries(HierarchyCacheEntry keep) {
+		while (fgHierarchyCache.size() > 1 && (fgHierarchyCache.size() > fgMaxEntries || fgWeight > fgMaxWeight)) {
+			HierarchyCacheEntry oldest= null;
+			for (int i= 0; i < fgHierarchyCache.size(); i++) {
+				HierarchyCacheEntry entry= fgHierarchyCache.get(i);
+				if (entry != keep && (oldest == null || entry.getLastAccess() < oldest.getLastAccess())) {
+					oldest= entry;
+				}
+			}
+			if (oldest == null)
+				return;
+			removeEntry(oldest);
+			fgCacheEvictions.incrementAndGet();
 		}
 	}
 
@@ -185,43 +265,81 @@ public class SuperTypeHierarchyCache {
 	 * @return <code>true</code> if a hierarchy for the given type is cached
 	 */
 	public static boolean hasInCache(IType type) {
-		return findTypeHierarchyInCache(type) != null;
-	}
-
-
-	private static ITypeHierarchy findTypeHierarchyInCache(IType type) {
-		synchronized (fgHierarchyCache) {
-			for (int i= fgHierarchyCache.size() - 1; i>= 0; i--) {
-				HierarchyCacheEntry curr= fgHierarchyCache.get(i);
-				ITypeHierarchy hierarchy= curr.getTypeHierarchy();
-				if (!hierarchy.exists()) {
-					removeHierarchyEntryFromCache(curr);
-				} else {
-					if (hierarchy.contains(type)) {
-						curr.markAsAccessed();
-						return hierarchy;
-					}
-				}
-			}
+		return findHierarchyEntryInCache(type) != null;
+	}
+
+
+	private static HierarchyCacheEntry findHierarchyEntryInCache(IType type) {
+		HierarchyCacheEntry entry= fgTypeIndex.get(type);
+		if (entry == null)
+			return null;
+
+		if (!entry.isValid()) {
+			removeHierarchyEntryFromCache(entry);
+			return null;
 		}
-		return null;
+		entry.markAsAccessed();
+		return entry;
 	}
 
 	private static void removeHierarchyEntryFromCache(HierarchyCacheEntry entry) {
-		synchronized (fgHierarchyCache) {
-			removeMethodOverrideTester(entry.getTypeHierarchy());
-			entry.dispose();
-			fgHierarchyCache.remove(entry);
+		synchronized (fgWriteLock) {
+			removeEntry(entry);
+		}
+	}
+
+	/**
+	 * Removes the given entry. Must be called while holding {@link #fgWriteLock}.
+	 *
+	 * @param entry the entry to remove
+	 */
+	private static void removeEntry(HierarchyCacheEntry entry) {
+		if (!fgHierarchyCache.remove(entry))
+			return;
+
+		fgWeight-= entry.getWeight();
+		IType[] types= entry.getTypes();
+		for (int i= 0; i < types.length; i++) {
+			fgTypeIndex.remove(types[i], entry);
+		}
+		fgTypeIndex.remove(entry.getTypeHierarchy().getType(), entry);
+		entry.dispose();
+	}
+
+	/**
+	 * Sets the bounds of the cache. Entries that exceed the new bounds are evicted.
+	 *
+	 * @param maxEntries the maximal number of cached hierarchies
+	 * @param maxWeight the maximal accumulated number of types in all cached hierarchies
+	 */
+	public static void setCapacity(int maxEntries, int maxWeight) {
+		synchronized (fgWriteLock) {
+			fgMaxEntries= Math.max(1, maxEntries);
+			fgMaxWeight= Math.max(1, maxWeight);
+			evictEntries(null);
 		}
 	}
 
+	/**
+	 * @return the maximal number of cached hierarchies
+	 */
+	public static int getMaxEntries() {
+		return fgMaxEntries;
+	}
+
+	/**
+	 * @return the maximal accumulated number of types in all cached hierarchies
+	 */
+	public static int getMaxWeight() {
+		return fgMaxWeight;
+	}
 
 	/**
 	 * Gets the number of times the hierarchy could be taken from the hierarchy.
 	 * @return Returns a int
 	 */
 	public static int getCacheHits() {
-		return fgCacheHits;
+		return fgCacheHits.get();
 	}
 
 	/**
@@ -229,6 +347,24 @@ public class SuperTypeHierarchyCache {
 	 * @return Returns a int
 	 */
 	public static int getCacheMisses() {
-		return fgCacheMisses;
+		return fgCacheMisses.get();
+	}
+
+	/**
+	 * Gets the number of hierarchies that have been removed to keep the cache in its bounds.
+	 * Hierarchies removed because they changed or became obsolete are not counted.
+	 * @return Returns a int
+	 */
+	public static int getCacheEvictions() {
+		return fgCacheEvictions.get();
+	}
+
+	/**
+	 * Resets the hit, miss and eviction counters. Used for testing.
+	 */
+	public static void resetStatistics() {
+		fgCacheHits.set(0);
+		fgCacheMisses.set(0);
+		fgCacheEvictions.set(0);
 	}
 }
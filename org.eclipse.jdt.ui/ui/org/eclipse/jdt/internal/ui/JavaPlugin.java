@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -74,6 +74,7 @@ import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.WorkingCopyOwner;
 import org.eclipse.jdt.core.manipulation.JavaManipulation;
 
+import org.eclipse.jdt.internal.corext.callhierarchy.CallGraphIndex;
 import org.eclipse.jdt.internal.corext.fix.CleanUpRegistry;
 import org.eclipse.jdt.internal.corext.javadoc.JavaDocLocations;
 import org.eclipse.jdt.internal.corext.template.java.AbstractJavaContextType;
@@ -103,9 +104,11 @@ import org.eclipse.jdt.internal.ui.text.PreferencesAdapter;
 import org.eclipse.jdt.internal.ui.text.folding.JavaFoldingStructureProviderRegistry;
 import org.eclipse.jdt.internal.ui.text.java.ContentAssistHistory;
 import org.eclipse.jdt.internal.ui.text.java.hover.JavaEditorTextHoverDescriptor;
+import org.eclipse.jdt.internal.ui.text.javadoc.JavadocHTMLCache;
 import org.eclipse.jdt.internal.ui.text.spelling.SpellCheckEngine;
 import org.eclipse.jdt.internal.ui.viewsupport.ImageDescriptorRegistry;
 import org.eclipse.jdt.internal.ui.viewsupport.ImagesOnFileSystemRegistry;
+import org.eclipse.jdt.internal.ui.viewsupport.JavaElementLabelCache;
 import org.eclipse.jdt.internal.ui.viewsupport.ProblemMarkerManager;
 import org.eclipse.jdt.internal.ui.wizards.buildpaths.ClasspathAttributeConfigurationDescriptors;
 
@@ -213,6 +216,24 @@ public class JavaPlugin extends AbstractUIPlugin {
 	 */
 	private ASTProvider fASTProvider;
 
+	/**
+	 * The cache of rendered Javadoc.
+	 * @since 3.9
+	 */
+	private JavadocHTMLCache fJavadocHTMLCache;
+
+	/**
+	 * The cache of Java element labels.
+	 * @since 3.9
+	 */
+	private JavaElementLabelCache fJavaElementLabelCache;
+
+	/**
+	 * The index of the callers and callees found by the call hierarchy.
+	 * @since 3.9
+	 */
+	private CallGraphIndex fCallGraphIndex;
+
 	/**
 	 * The combined preference store.
 	 * @since 3.0
@@ -376,6 +397,9 @@ public class JavaPlugin extends AbstractUIPlugin {
 		// can be removed if JavaElementPropertyTester is moved down to jdt.core (bug 127085)
 		JavaManipulation.class.toString();
 
+		// the label cache must see element changes before the viewers that render labels
+		getJavaElementLabelCache();
+
 		if (PlatformUI.isWorkbenchRunning()) {
 			// Initialize AST provider
 			getASTProvider();
@@ -551,6 +575,21 @@ public class JavaPlugin extends AbstractUIPlugin {
 				fASTProvider= null;
 			}
 
+			if (fJavadocHTMLCache != null) {
+				fJavadocHTMLCache.dispose();
+				fJavadocHTMLCache= null;
+			}
+
+			if (fJavaElementLabelCache != null) {
+				fJavaElementLabelCache.dispose();
+				fJavaElementLabelCache= null;
+			}
+
+			disposeCallGraphIndex();
+
+			if (fProblemMarkerManager != null)
+				fProblemMarkerManager.dispose();
+
 			if (fWorkingCopyManager != null) {
 				fWorkingCopyManager.shutdown();
 				fWorkingCopyManager= null;
@@ -712,6 +751,62 @@ public class JavaPlugin extends AbstractUIPlugin {
 		return fASTProvider;
 	}
 
+	/**
+	 * Returns the cache of the Javadoc rendered by
+	 * {@link org.eclipse.jdt.internal.ui.text.javadoc.JavadocContentAccess2}.
+	 *
+	 * @return the Javadoc cache
+	 * @since 3.9
+	 */
+	public synchronized JavadocHTMLCache getJavadocHTMLCache() {
+		if (fJavadocHTMLCache == null)
+			fJavadocHTMLCache= new JavadocHTMLCache();
+
+		return fJavadocHTMLCache;
+	}
+
+	/**
+	 * Returns the cache of the labels rendered by
+	 * {@link org.eclipse.jdt.ui.JavaElementLabels}. The cache is created when the plug-in is
+	 * started, so that its element changed listener is notified before the listeners of the
+	 * views.
+	 *
+	 * @return the label cache
+	 * @since 3.9
+	 */
+	public synchronized JavaElementLabelCache getJavaElementLabelCache() {
+		if (fJavaElementLabelCache == null)
+			fJavaElementLabelCache= new JavaElementLabelCache(getPreferenceStore());
+
+		return fJavaElementLabelCache;
+	}
+
+	/**
+	 * Returns the index of the callers and callees found by the call hierarchy.
+	 *
+	 * @return the call graph index
+	 * @since 3.9
+	 */
+	public synchronized CallGraphIndex getCallGraphIndex() {
+		if (fCallGraphIndex == null)
+			fCallGraphIndex= new CallGraphIndex();
+
+		return fCallGraphIndex;
+	}
+
+	/**
+	 * Disposes the index of the callers and callees found by the call hierarchy, if it has been
+	 * created. The index stops listening to Java element changes.
+	 *
+	 * @since 3.9
+	 */
+	public synchronized void disposeCallGraphIndex() {
+		if (fCallGraphIndex != null) {
+			fCallGraphIndex.dispose();
+			fCallGraphIndex= null;
+		}
+	}
+
 	public synchronized MembersOrderPreferenceCache getMemberOrderPreferenceCache() {
 		// initialized on startup
 		return fMembersOrderPreferenceCache;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -1139,7 +1139,7 @@ public class CallHierarchyViewPart extends ViewPart implements ICallHierarchyVie
 			showPage(PAGE_VIEWER);
 
 			int includeMask= getIncludeMask();
-			CallHierarchy.getDefault().setSearchScope(getSearchScope(includeMask));
+			CallHierarchy.getDefault().setSearchScope(getSearchScope(includeMask), fSearchScopeActions.getSearchScopeKey(includeMask));
 
 			// set input to null so that setComparator does not cause a refresh on the old contents:
 			fCallHierarchyViewer.setInput(null);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -35,6 +35,16 @@ abstract class SearchScopeAction extends Action {
 	 */
 	public abstract IJavaSearchScope getSearchScope(int includeMask);
 
+	/**
+	 * Returns a key that is equal for the search scopes that this action creates for the same
+	 * elements and include mask.
+	 *
+	 * @param includeMask the include mask
+	 * @return the key of the search scope with the appropriate include mask
+	 * @since 3.9
+	 */
+	public abstract Object getSearchScopeKey(int includeMask);
+
 	public abstract int getSearchScopeType();
 
 	/* (non-Javadoc)
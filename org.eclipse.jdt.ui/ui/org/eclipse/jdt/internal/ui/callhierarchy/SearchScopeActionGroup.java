@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -80,6 +80,21 @@ class SearchScopeActionGroup extends ActionGroup {
 		return null;
 	}
 
+	/**
+	 * Returns a key that identifies the current search scope across instances.
+	 *
+	 * @param includeMask the include mask
+	 * @return the key of the current search scope, or <code>null</code> if there is no scope
+	 * @since 3.9
+	 */
+	public Object getSearchScopeKey(int includeMask) {
+		if (fSelectedAction != null) {
+			return fSelectedAction.getSearchScopeKey(includeMask);
+		}
+
+		return null;
+	}
+
 	@Override
 	public void fillActionBars(IActionBars actionBars) {
 		super.fillActionBars(actionBars);
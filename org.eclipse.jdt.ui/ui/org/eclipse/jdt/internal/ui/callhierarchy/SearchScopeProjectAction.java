@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,6 +15,7 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.callhierarchy;
 
+import java.util.Arrays;
 import java.util.HashSet;
 
 import org.eclipse.ui.PlatformUI;
@@ -57,6 +58,21 @@ class SearchScopeProjectAction extends SearchScopeAction {
 				includeMask);
 	}
 
+	/* (non-Javadoc)
+	 * @see org.eclipse.jdt.internal.ui.callhierarchy.SearchScopeAction#getSearchScopeKey(int)
+	 */
+	@Override
+	public Object getSearchScopeKey(int includeMask) {
+		HashSet<IJavaProject> projects= new HashSet<IJavaProject>();
+		IMember[] members= fGroup.getView().getInputElements();
+		if (members != null) {
+			for (int i= 0; i < members.length; i++) {
+				projects.add(members[i].getJavaProject());
+			}
+		}
+		return Arrays.asList(new Object[] { new Integer(getSearchScopeType()), new Integer(includeMask), projects });
+	}
+
 	/* (non-Javadoc)
 	 * @see org.eclipse.jdt.internal.ui.callhierarchy.SearchScopeActionGroup.SearchScopeAction#getSearchScopeType()
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,14 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.callhierarchy;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IAdaptable;
+
 import org.eclipse.ui.IWorkingSet;
 import org.eclipse.ui.PlatformUI;
 
@@ -41,6 +49,19 @@ class SearchScopeWorkingSetAction extends SearchScopeAction {
 		return JavaSearchScopeFactory.getInstance().createJavaSearchScope(fWorkingSets, includeMask);
 	}
 
+	/* (non-Javadoc)
+	 * @see org.eclipse.jdt.internal.ui.callhierarchy.SearchScopeAction#getSearchScopeKey(int)
+	 */
+	@Override
+	public Object getSearchScopeKey(int includeMask) {
+		// the working sets may have been edited since the last query
+		List<Set<IAdaptable>> elements= new ArrayList<Set<IAdaptable>>(fWorkingSets.length);
+		for (int i= 0; i < fWorkingSets.length; i++) {
+			elements.add(new HashSet<IAdaptable>(Arrays.asList(fWorkingSets[i].getElements())));
+		}
+		return Arrays.asList(new Object[] { new Integer(getSearchScopeType()), new Integer(includeMask), elements });
+	}
+
 	/**
 	 * @return returns the working sets
 	 */
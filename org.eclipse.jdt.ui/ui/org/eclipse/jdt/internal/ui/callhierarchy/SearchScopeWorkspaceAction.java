@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,6 +13,8 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.callhierarchy;
 
+import java.util.Arrays;
+
 import org.eclipse.ui.PlatformUI;
 
 import org.eclipse.jdt.core.search.IJavaSearchScope;
@@ -37,6 +39,14 @@ class SearchScopeWorkspaceAction extends SearchScopeAction {
 		return fFactory.createWorkspaceScope(includeMask);
 	}
 
+	/* (non-Javadoc)
+	 * @see org.eclipse.jdt.internal.ui.callhierarchy.SearchScopeAction#getSearchScopeKey(int)
+	 */
+	@Override
+	public Object getSearchScopeKey(int includeMask) {
+		return Arrays.asList(new Object[] { new Integer(getSearchScopeType()), new Integer(includeMask) });
+	}
+
 	/* (non-Javadoc)
 	 * @see org.eclipse.jdt.internal.ui.callhierarchy.SearchScopeActionGroup.SearchScopeAction#getSearchScopeType()
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -47,6 +47,15 @@ public abstract class AbstractCleanUp implements ICleanUp {
 		fOptions= options;
 	}
 
+	/**
+	 * @return the options set with {@link #setOptions(CleanUpOptions)} or <code>null</code> if
+	 *         none have been set
+	 * @since 3.9
+	 */
+	public CleanUpOptions getOptions() {
+		return fOptions;
+	}
+
 
 	/*
 	 * @see org.eclipse.jdt.ui.cleanup.ICleanUp#getStepDescriptions()
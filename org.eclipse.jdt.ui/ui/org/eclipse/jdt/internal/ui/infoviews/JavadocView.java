@@ -1110,6 +1110,7 @@ public class JavadocView extends AbstractInfoView {
 				try {
 					String content= JavadocContentAccess2.getHTMLContent(member, true);
 					reader= content == null ? null : new StringReader(content);
+					JavadocContentAccess2.prefetchHTMLContent(member);
 
 					// Provide hint why there's no Javadoc
 					if (reader == null && member.isBinary()) {
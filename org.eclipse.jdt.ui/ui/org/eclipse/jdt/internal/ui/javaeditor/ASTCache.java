@@ -0,0 +1,303 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.javaeditor;
+
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.eclipse.core.resources.IResource;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+
+import org.eclipse.jdt.core.IBuffer;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+
+/**
+ * A bounded cache of recently reconciled ASTs, used by the {@link ASTProvider} to serve
+ * ASTs of Java editors that are not active.
+ * <p>
+ * Entries are keyed by their Java element and are only valid as long as the modification
+ * stamp of the element's content did not change. The cache is bounded by the number of
+ * entries and by their accumulated weight, where the weight of an AST is the length of the
+ * source it covers. The least recently used entries are evicted first. The ASTs are only
+ * softly referenced, so that they are dropped when the memory is low.
+ * </p>
+ * <p>
+ * The bindings of an AST depend on the other elements of the Java model, so all entries are
+ * dropped when the Java model changes other than by modifications of method bodies, see
+ * {@link #modelChanged(IJavaElementDelta)}.
+ * </p>
+ *
+ * @since 3.9
+ */
+final class ASTCache {
+
+	private static final class Entry {
+
+		private final SoftReference<CompilationUnit> fAST;
+		private final long fStamp;
+		private final int fWeight;
+
+		public Entry(CompilationUnit ast, long stamp) {
+			fAST= new SoftReference<CompilationUnit>(ast);
+			fStamp= stamp;
+			fWeight= Math.max(1, ast.getLength());
+		}
+	}
+
+	/**
+	 * The default for the maximal number of cached ASTs.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES= 8;
+
+	/**
+	 * The default for the maximal accumulated source length of all cached ASTs.
+	 */
+	public static final int DEFAULT_MAX_WEIGHT= 2 * 1024 * 1024;
+
+	private static final int CONTENT_FLAGS= IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_FINE_GRAINED | IJavaElementDelta.F_AST_AFFECTED | IJavaElementDelta.F_PRIMARY_RESOURCE;
+
+	private final LinkedHashMap<ITypeRoot, Entry> fEntries= new LinkedHashMap<ITypeRoot, Entry>(16, 0.75f, true);
+	private int fWeight= 0;
+	private int fMaxEntries= DEFAULT_MAX_ENTRIES;
+	private int fMaxWeight= DEFAULT_MAX_WEIGHT;
+	private int fModelStamp= 0;
+
+	private int fHits= 0;
+	private int fMisses= 0;
+	private int fEvictions= 0;
+
+	/**
+	 * Returns the cached AST for the given element.
+	 *
+	 * @param element the Java element
+	 * @param stamp the current modification stamp of the element, see
+	 *            {@link #getModificationStamp(ITypeRoot)}
+	 * @return the AST or <code>null</code> if no valid AST is cached
+	 */
+	public synchronized CompilationUnit get(ITypeRoot element, long stamp) {
+		Entry entry= fEntries.get(element);
+		if (entry != null) {
+			CompilationUnit ast= entry.fAST.get();
+			if (ast != null && stamp != IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP && entry.fStamp == stamp) {
+				fHits++;
+				return ast;
+			}
+			remove(element, entry);
+			if (ast == null)
+				fEvictions++;
+		}
+		fMisses++;
+		return null;
+	}
+
+	/**
+	 * Caches the AST of the given element.
+	 *
+	 * @param element the Java element
+	 * @param ast the AST of the element
+	 * @param stamp the modification stamp of the element before the AST was created
+	 * @param modelStamp the model stamp before the AST was created, see {@link #getModelStamp()}
+	 */
+	public synchronized void put(ITypeRoot element, CompilationUnit ast, long stamp, int modelStamp) {
+		Entry old= fEntries.get(element);
+		if (old != null)
+			remove(element, old);
+
+		if (stamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP || modelStamp != fModelStamp)
+			return;
+
+		Entry entry= new Entry(ast, stamp);
+		if (entry.fWeight > fMaxWeight)
+			return;
+
+		fEntries.put(element, entry);
+		fWeight+= entry.fWeight;
+		evict();
+	}
+
+	/**
+	 * Removes all ASTs from the cache.
+	 */
+	public synchronized void clear() {
+		fEntries.clear();
+		fWeight= 0;
+	}
+
+	/**
+	 * Returns the model stamp, which is incremented whenever the cache is invalidated by a change
+	 * of the Java model.
+	 *
+	 * @return the model stamp
+	 */
+	public synchronized int getModelStamp() {
+		return fModelStamp;
+	}
+
+	/**
+	 * Invalidates the cache if the given delta may affect the bindings of the cached ASTs.
+	 *
+	 * @param delta the Java element delta
+	 */
+	public void modelChanged(IJavaElementDelta delta) {
+		if (isContentChange(delta))
+			return;
+
+		synchronized (this) {
+			fModelStamp++;
+			fEvictions+= fEntries.size();
+			clear();
+		}
+	}
+
+	/**
+	 * Sets the bounds of the cache and evicts entries if necessary.
+	 *
+	 * @param maxEntries the maximal number of cached ASTs
+	 * @param maxWeight the maximal accumulated source length of all cached ASTs
+	 */
+	public synchronized void setCapacity(int maxEntries, int maxWeight) {
+		if (maxEntries < 0 || maxWeight < 0)
+			throw new IllegalArgumentException();
+		fMaxEntries= maxEntries;
+		fMaxWeight= maxWeight;
+		evict();
+	}
+
+	public synchronized int getMaxEntries() {
+		return fMaxEntries;
+	}
+
+	public synchronized int getMaxWeight() {
+		return fMaxWeight;
+	}
+
+	public synchronized int getHits() {
+		return fHits;
+	}
+
+	public synchronized int getMisses() {
+		return fMisses;
+	}
+
+	public synchronized int getEvictions() {
+		return fEvictions;
+	}
+
+	public synchronized void resetStatistics() {
+		fHits= 0;
+		fMisses= 0;
+		fEvictions= 0;
+	}
+
+	private void remove(ITypeRoot element, Entry entry) {
+		fEntries.remove(element);
+		fWeight-= entry.fWeight;
+	}
+
+	private void evict() {
+		Iterator<Entry> iter= fEntries.values().iterator();
+		while (iter.hasNext()) {
+			Entry entry= iter.next();
+			if (entry.fAST.get() != null && fEntries.size() <= fMaxEntries && fWeight <= fMaxWeight)
+				continue;
+			iter.remove();
+			fWeight-= entry.fWeight;
+			fEvictions++;
+		}
+	}
+
+	/**
+	 * Tells whether the given delta only describes modifications of the content of compilation
+	 * units that do not affect the bindings of other compilation units, such as modifications of
+	 * method bodies.
+	 *
+	 * @param delta the Java element delta
+	 * @return <code>true</code> if the delta only describes content modifications
+	 */
+	private static boolean isContentChange(IJavaElementDelta delta) {
+		if (delta.getKind() != IJavaElementDelta.CHANGED)
+			return false;
+
+		int flags= delta.getFlags();
+		switch (delta.getElement().getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+			case IJavaElement.JAVA_PROJECT:
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+			case IJavaElement.PACKAGE_FRAGMENT:
+			case IJavaElement.TYPE:
+				if ((flags & ~IJavaElementDelta.F_CHILDREN) != 0)
+					return false;
+				break;
+			case IJavaElement.COMPILATION_UNIT:
+				if ((flags & ~CONTENT_FLAGS) != 0)
+					return false;
+				// a coarse grained content change can be anything
+				if ((flags & IJavaElementDelta.F_CONTENT) != 0 && (flags & IJavaElementDelta.F_FINE_GRAINED) == 0)
+					return false;
+				break;
+			case IJavaElement.METHOD:
+			case IJavaElement.INITIALIZER:
+				if ((flags & ~IJavaElementDelta.F_CONTENT) != 0)
+					return false;
+				break;
+			default:
+				return false;
+		}
+
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (!isContentChange(children[i]))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the modification stamp of the content of the given element.
+	 * <p>
+	 * The stamp of a working copy is the modification stamp of its document, otherwise it is
+	 * the modification stamp of the underlying resource.
+	 * </p>
+	 *
+	 * @param element the Java element
+	 * @return the modification stamp or {@link IDocumentExtension4#UNKNOWN_MODIFICATION_STAMP}
+	 *         if it is not known
+	 */
+	public static long getModificationStamp(ITypeRoot element) {
+		try {
+			if (element instanceof ICompilationUnit && ((ICompilationUnit) element).isWorkingCopy()) {
+				IBuffer buffer= element.getBuffer();
+				if (buffer instanceof DocumentAdapter) {
+					IDocument document= ((DocumentAdapter) buffer).getDocument();
+					if (document instanceof IDocumentExtension4)
+						return ((IDocumentExtension4) document).getModificationStamp();
+				}
+				return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+			}
+			IResource resource= element.getResource();
+			if (resource != null)
+				return resource.getModificationStamp();
+			// class file in an archive, changes are reported as Java model deltas
+			return 0;
+		} catch (JavaModelException e) {
+			return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+		}
+	}
+}
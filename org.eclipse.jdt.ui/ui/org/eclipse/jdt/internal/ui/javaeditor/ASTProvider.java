@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -27,8 +27,11 @@ import org.eclipse.ui.IWorkbenchPartReference;
 import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.PlatformUI;
 
+import org.eclipse.jdt.core.ElementChangedEvent;
 import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
 import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTNode;
@@ -48,6 +51,11 @@ import org.eclipse.jdt.internal.ui.JavaPlugin;
 /**
  * Provides a shared AST for clients. The shared AST is
  * the AST of the active Java editor's input element.
+ * <p>
+ * In addition, the ASTs of recently reconciled elements are kept in a bounded cache,
+ * so that switching between editors or running features on an editor that is not
+ * active does not need to create the AST again as long as the element did not change.
+ * </p>
  *
  * @since 3.0
  */
@@ -218,6 +226,30 @@ public final class ASTProvider {
 	private volatile boolean fIsReconciling;
 	private IWorkbenchPart fActiveEditor;
 
+	/**
+	 * The ASTs of recently reconciled elements.
+	 * @since 3.9
+	 */
+	private final ASTCache fCache= new ASTCache();
+
+	/**
+	 * Invalidates {@link #fCache} when the Java model changes.
+	 * @since 3.9
+	 */
+	private IElementChangedListener fElementChangedListener;
+
+	/**
+	 * The modification stamp of the element being reconciled when reconciling started.
+	 * @since 3.9
+	 */
+	private long fReconcilingStamp;
+
+	/**
+	 * The model stamp of {@link #fCache} when reconciling started.
+	 * @since 3.9
+	 */
+	private int fReconcilingModelStamp;
+
 
 	/**
 	 * Returns the Java plug-in's AST provider.
@@ -248,6 +280,13 @@ public final class ASTProvider {
 		IWorkbenchWindow[] windows= PlatformUI.getWorkbench().getWorkbenchWindows();
 		for (int i= 0, length= windows.length; i < length; i++)
 			windows[i].getPartService().addPartListener(fActivationListener);
+
+		fElementChangedListener= new IElementChangedListener() {
+			public void elementChanged(ElementChangedEvent event) {
+				fCache.modelChanged(event.getDelta());
+			}
+		};
+		JavaCore.addElementChangedListener(fElementChangedListener, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
 	}
 
 	void activeJavaEditorChanged(IWorkbenchPart editor) {
@@ -256,10 +295,14 @@ public final class ASTProvider {
 		if (editor instanceof JavaEditor)
 			javaElement= ((JavaEditor)editor).getInputJavaElement();
 
+		CompilationUnit cachedAST= null;
+		if (javaElement != null)
+			cachedAST= fCache.get(javaElement, ASTCache.getModificationStamp(javaElement));
+
 		synchronized (this) {
 			fActiveEditor= editor;
 			fActiveJavaElement= javaElement;
-			cache(null, javaElement);
+			cache(cachedAST, javaElement);
 		}
 
 		if (DEBUG)
@@ -315,6 +358,8 @@ public final class ASTProvider {
 
 		synchronized (fReconcileLock) {
 			fReconcilingJavaElement= javaElement;
+			fReconcilingStamp= ASTCache.getModificationStamp(javaElement);
+			fReconcilingModelStamp= fCache.getModelStamp();
 			fIsReconciling= true;
 		}
 		cache(null, javaElement);
@@ -434,6 +479,16 @@ public final class ASTProvider {
 			}
 		}
 
+		if (!isActiveElement) {
+			CompilationUnit ast= fCache.get(input, ASTCache.getModificationStamp(input));
+			if (ast != null) {
+				if (DEBUG)
+					System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "returning recently reconciled AST: " + toString(ast) + " for: " + input.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$
+
+				return ast;
+			}
+		}
+
 		final boolean canReturnNull= waitFlag == SharedASTProvider.WAIT_NO || (waitFlag == SharedASTProvider.WAIT_ACTIVE_ONLY && !(isActiveElement && fAST == null));
 		boolean isReconciling= false;
 		final ITypeRoot activeElement;
@@ -475,6 +530,8 @@ public final class ASTProvider {
 			return null;
 
 
+		long stamp= ASTCache.getModificationStamp(input);
+		int modelStamp= fCache.getModelStamp();
 		CompilationUnit ast= null;
 		try {
 			ast= createAST(input, progressMonitor);
@@ -493,7 +550,8 @@ public final class ASTProvider {
 					return fAST;
 				} else
 					reconciled(ast, input, null);
-			}
+			} else if (ast != null)
+				fCache.put(input, ast, stamp, modelStamp);
 		}
 		return ast;
 	}
@@ -586,7 +644,11 @@ public final class ASTProvider {
 		PlatformUI.getWorkbench().removeWindowListener(fActivationListener);
 		fActivationListener= null;
 
+		JavaCore.removeElementChangedListener(fElementChangedListener);
+		fElementChangedListener= null;
+
 		disposeAST();
+		fCache.clear();
 
 		synchronized (fWaitLock) {
 			fWaitLock.notifyAll();
@@ -621,10 +683,74 @@ public final class ASTProvider {
 
 				return;
 			}
+			if (ast != null)
+				fCache.put(javaElement, ast, fReconcilingStamp, fReconcilingModelStamp);
 			cache(ast, javaElement);
 		}
 	}
 
+	/**
+	 * Sets the bounds of the cache of recently reconciled ASTs.
+	 *
+	 * @param maxEntries the maximal number of cached ASTs
+	 * @param maxWeight the maximal accumulated source length of all cached ASTs
+	 * @since 3.9
+	 */
+	public void setCacheCapacity(int maxEntries, int maxWeight) {
+		fCache.setCapacity(maxEntries, maxWeight);
+	}
+
+	/**
+	 * @return the maximal number of ASTs in the cache of recently reconciled ASTs
+	 * @since 3.9
+	 */
+	public int getCacheMaxEntries() {
+		return fCache.getMaxEntries();
+	}
+
+	/**
+	 * @return the maximal accumulated source length of the ASTs in the cache of recently
+	 *         reconciled ASTs
+	 * @since 3.9
+	 */
+	public int getCacheMaxWeight() {
+		return fCache.getMaxWeight();
+	}
+
+	/**
+	 * @return the number of requests served from the cache of recently reconciled ASTs
+	 * @since 3.9
+	 */
+	public int getCacheHits() {
+		return fCache.getHits();
+	}
+
+	/**
+	 * @return the number of requests that could not be served from the cache of recently
+	 *         reconciled ASTs
+	 * @since 3.9
+	 */
+	public int getCacheMisses() {
+		return fCache.getMisses();
+	}
+
+	/**
+	 * @return the number of ASTs that have been evicted from the cache of recently reconciled
+	 *         ASTs because of its bounds, low memory or changes of the Java model
+	 * @since 3.9
+	 */
+	public int getCacheEvictions() {
+		return fCache.getEvictions();
+	}
+
+	/**
+	 * Resets the hit, miss and eviction counters of the cache of recently reconciled ASTs.
+	 * @since 3.9
+	 */
+	public void resetCacheStatistics() {
+		fCache.resetStatistics();
+	}
+
 	private static String getThreadName() {
 		String name= Thread.currentThread().getName();
 		if (name != null)
@@ -241,6 +241,33 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 	/** <code>true</code> iff the current reconcile is canceled. */
 	private boolean fIsCanceled= false;
 
+	/**
+	 * <code>true</code> iff all positions have to be reconciled, regardless of the dirty region.
+	 * @since 3.9
+	 */
+	private boolean fIsDirtyAll= true;
+	/**
+	 * Start offset of the region changed since the positions have last been reconciled,
+	 * greater than {@link #fDirtyEnd} if nothing has changed.
+	 * @since 3.9
+	 */
+	private int fDirtyStart= Integer.MAX_VALUE;
+	/**
+	 * End offset (exclusive) of the region changed since the positions have last been reconciled.
+	 * @since 3.9
+	 */
+	private int fDirtyEnd= Integer.MIN_VALUE;
+	/**
+	 * Modification stamp of the dirty region, incremented with each recorded change.
+	 * @since 3.9
+	 */
+	private int fDirtyStamp= 0;
+	/**
+	 * Dirty region lock.
+	 * @since 3.9
+	 */
+	private final Object fDirtyLock= new Object();
+
 	/**
 	 * Creates and returns a new highlighted position with the given offset, length and highlighting.
 	 * <p>
@@ -271,6 +298,125 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 		}
 	}
 
+	/**
+	 * Adds the current positions with an offset in the given range to the given list.
+	 * <p>
+	 * NOTE: Called from background thread.
+	 * </p>
+	 *
+	 * @param list The list
+	 * @param offset The range offset
+	 * @param length The range length
+	 * @since 3.9
+	 */
+	public void addPositions(List<Position> list, int offset, int length) {
+		synchronized (fPositionLock) {
+			int i= computeIndexAtOffset(fPositions, offset);
+			int n= computeIndexAtOffset(fPositions, offset + length);
+			list.addAll(fPositions.subList(i, n));
+		}
+	}
+
+	/**
+	 * Returns the modification stamp of the dirty region. The stamp must be retrieved before the
+	 * dirty region itself.
+	 * <p>
+	 * NOTE: Called from background thread.
+	 * </p>
+	 *
+	 * @return the modification stamp
+	 * @since 3.9
+	 */
+	public int getDirtyStamp() {
+		synchronized (fDirtyLock) {
+			return fDirtyStamp;
+		}
+	}
+
+	/**
+	 * Returns the region of the document changed since the positions have last been reconciled.
+	 * <p>
+	 * NOTE: Called from background thread.
+	 * </p>
+	 *
+	 * @return the changed region, or <code>null</code> if all positions have to be reconciled
+	 * @since 3.9
+	 */
+	public IRegion getDirtyRegion() {
+		synchronized (fDirtyLock) {
+			if (fIsDirtyAll || fDirtyStart > fDirtyEnd)
+				return null;
+			return new Region(fDirtyStart, fDirtyEnd - fDirtyStart);
+		}
+	}
+
+	/**
+	 * Requests that all positions are reconciled the next time, regardless of the dirty region.
+	 *
+	 * @since 3.9
+	 */
+	public void invalidateDirtyRegion() {
+		synchronized (fDirtyLock) {
+			fIsDirtyAll= true;
+			fDirtyStamp++;
+		}
+	}
+
+	/**
+	 * Marks the positions as reconciled, unless the document has changed since the given
+	 * modification stamp has been retrieved.
+	 * <p>
+	 * NOTE: Also called from background thread.
+	 * </p>
+	 *
+	 * @param stamp the modification stamp of the reconciled dirty region
+	 * @since 3.9
+	 */
+	public void resetDirtyRegion(int stamp) {
+		synchronized (fDirtyLock) {
+			if (stamp == fDirtyStamp) {
+				fIsDirtyAll= false;
+				fDirtyStart= Integer.MAX_VALUE;
+				fDirtyEnd= Integer.MIN_VALUE;
+			}
+		}
+	}
+
+	/**
+	 * Adds the document change to the dirty region. The dirty region is kept in the
+	 * coordinates of the current document.
+	 *
+	 * @param event the document event
+	 * @since 3.9
+	 */
+	private void updateDirtyRegion(DocumentEvent event) {
+		int offset= event.getOffset();
+		int end= offset + event.getLength();
+		String text= event.getText();
+		int newEnd= offset + (text == null ? 0 : text.length());
+		int delta= newEnd - end;
+		synchronized (fDirtyLock) {
+			fDirtyStamp++;
+			if (fIsDirtyAll)
+				return;
+			if (fDirtyStart > fDirtyEnd) {
+				fDirtyStart= offset;
+				fDirtyEnd= newEnd;
+				return;
+			}
+			if (fDirtyStart >= end)
+				fDirtyStart+= delta;
+			else if (fDirtyStart > offset)
+				fDirtyStart= offset;
+			if (fDirtyEnd >= end)
+				fDirtyEnd+= delta;
+			else if (fDirtyEnd > offset)
+				fDirtyEnd= newEnd;
+			fDirtyStart= Math.min(fDirtyStart, offset);
+			fDirtyEnd= Math.max(fDirtyEnd, newEnd);
+		}
+	}
+
 	/**
 	 * Create a text presentation in the background.
 	 * <p>
@@ -327,9 +473,11 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 	 * @param textPresentation the text presentation
 	 * @param addedPositions the added positions
 	 * @param removedPositions the removed positions
+	 * @param dirtyStamp the modification stamp of the reconciled dirty region, see
+	 *            {@link #resetDirtyRegion(int)}
 	 * @return the runnable or <code>null</code>, if reconciliation should be canceled
 	 */
-	public Runnable createUpdateRunnable(final TextPresentation textPresentation, List<Position> addedPositions, List<Position> removedPositions) {
+	public Runnable createUpdateRunnable(final TextPresentation textPresentation, List<Position> addedPositions, List<Position> removedPositions, final int dirtyStamp) {
 		if (fSourceViewer == null || textPresentation == null)
 			return null;
 
@@ -344,7 +492,10 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 
 		Runnable runnable= new Runnable() {
 			public void run() {
+				if (fSourceViewer == null || isCanceled())
+					return;
 				updatePresentation(textPresentation, added, removed);
+				resetDirtyRegion(dirtyStamp);
 			}
 		};
 		return runnable;
@@ -576,6 +727,7 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 	 * @see org.eclipse.jface.text.ITextInputListener#inputDocumentChanged(org.eclipse.jface.text.IDocument, org.eclipse.jface.text.IDocument)
 	 */
 	public void inputDocumentChanged(IDocument oldInput, IDocument newInput) {
+		invalidateDirtyRegion();
 		manageDocument(newInput);
 	}
 
@@ -590,6 +742,7 @@ public class SemanticHighlightingPresenter implements ITextPresentationListener,
 	 * @see org.eclipse.jface.text.IDocumentListener#documentChanged(org.eclipse.jface.text.DocumentEvent)
 	 */
 	public void documentChanged(DocumentEvent event) {
+		updateDirtyRegion(event);
 	}
 
 	/**
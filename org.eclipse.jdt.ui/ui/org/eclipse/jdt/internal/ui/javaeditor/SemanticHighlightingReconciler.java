@@ -23,6 +23,7 @@ import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.ITextInputListener;
 import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.TextPresentation;
@@ -32,12 +33,16 @@ import org.eclipse.ui.IWorkbenchPartSite;
 
 import org.eclipse.jdt.core.ITypeRoot;
 import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.Block;
 import org.eclipse.jdt.core.dom.BooleanLiteral;
 import org.eclipse.jdt.core.dom.CharacterLiteral;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.ConstructorInvocation;
 import org.eclipse.jdt.core.dom.Expression;
 import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.Initializer;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.NodeFinder;
 import org.eclipse.jdt.core.dom.NumberLiteral;
 import org.eclipse.jdt.core.dom.SimpleName;
 import org.eclipse.jdt.core.dom.SuperConstructorInvocation;
@@ -272,6 +277,13 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	 */
 	private Highlighting fJobDeprecatedMemberHighlighting;
 
+	/**
+	 * <code>true</code> iff the background job only reconciles the positions of some subtrees.
+	 * Only valid during {@link #reconciled(CompilationUnit, boolean, IProgressMonitor)}.
+	 * @since 3.9
+	 */
+	private boolean fJobIsIncremental;
+
 	/*
 	 * @see org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener#aboutToBeReconciled()
 	 */
@@ -303,11 +315,14 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 			if (ast == null || fJobPresenter.isCanceled())
 				return;
 
-			ASTNode[] subtrees= getAffectedSubtrees(ast);
+			int dirtyStamp= fJobPresenter.getDirtyStamp();
+			IRegion dirtyRegion= forced ? null : fJobPresenter.getDirtyRegion();
+			ASTNode[] subtrees= getAffectedSubtrees(ast, dirtyRegion);
 			if (subtrees.length == 0)
 				return;
 
-			startReconcilingPositions();
+			fJobIsIncremental= subtrees[0] != ast;
+			startReconcilingPositions(subtrees);
 
 			if (!fJobPresenter.isCanceled()) {
 				fJobDeprecatedMemberHighlighting= null;
@@ -325,8 +340,12 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 			if (!fJobPresenter.isCanceled())
 				textPresentation= fJobPresenter.createPresentation(fAddedPositions, fRemovedPositions);
 
-			if (!fJobPresenter.isCanceled())
-				updatePresentation(textPresentation, fAddedPositions, fRemovedPositions);
+			if (!fJobPresenter.isCanceled()) {
+				if (textPresentation != null)
+					updatePresentation(textPresentation, fAddedPositions, fRemovedPositions, dirtyStamp);
+				else if (fAddedPositions.isEmpty() && fRemovedPositions.isEmpty())
+					fJobPresenter.resetDirtyRegion(dirtyStamp);
+			}
 
 			stopReconcilingPositions();
 		} finally {
@@ -334,6 +353,7 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 			fJobSemanticHighlightings= null;
 			fJobHighlightings= null;
 			fJobDeprecatedMemberHighlighting= null;
+			fJobIsIncremental= false;
 			synchronized (fReconcileLock) {
 				fIsReconciling= false;
 			}
@@ -341,32 +361,62 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	}
 
 	/**
+	 * Returns the subtrees that may be affected by the document changes in the given region.
+	 * <p>
+	 * Changes inside the body of a method or an initializer cannot affect the highlighting
+	 * outside of that body, so the body is the only affected subtree in that case. For all other
+	 * changes, the whole AST is returned.
+	 * </p>
+	 *
 	 * @param node Root node
+	 * @param dirtyRegion the region changed since the last reconcile, or <code>null</code> if
+	 *            the whole AST has to be reconciled
 	 * @return Array of subtrees that may be affected by past document changes
 	 */
-	private ASTNode[] getAffectedSubtrees(ASTNode node) {
-		// TODO: only return nodes which are affected by document changes - would require an 'anchor' concept for taking distant effects into account
+	private ASTNode[] getAffectedSubtrees(ASTNode node, IRegion dirtyRegion) {
+		if (dirtyRegion == null)
+			return new ASTNode[] { node };
+
+		int start= dirtyRegion.getOffset();
+		int end= start + dirtyRegion.getLength();
+		ASTNode covering= NodeFinder.perform(node, start, dirtyRegion.getLength());
+		while (covering != null) {
+			if (covering instanceof Block) {
+				ASTNode parent= covering.getParent();
+				if (parent instanceof MethodDeclaration || parent instanceof Initializer) {
+					// the change must not touch the braces of the body
+					int bodyStart= covering.getStartPosition();
+					int bodyEnd= bodyStart + covering.getLength();
+					if (bodyStart < start && end < bodyEnd)
+						return new ASTNode[] { covering };
+				}
+			}
+			covering= covering.getParent();
+		}
 		return new ASTNode[] { node };
 	}
 
 	/**
 	 * Start reconciling positions.
+	 *
+	 * @param subtrees the AST subtrees
 	 */
-	private void startReconcilingPositions() {
-		fJobPresenter.addAllPositions(fRemovedPositions);
+	private void startReconcilingPositions(ASTNode[] subtrees) {
+		if (fJobIsIncremental) {
+			for (int i= 0, n= subtrees.length; i < n; i++)
+				fJobPresenter.addPositions(fRemovedPositions, subtrees[i].getStartPosition(), subtrees[i].getLength());
+		} else
+			fJobPresenter.addAllPositions(fRemovedPositions);
 		fNOfRemovedPositions= fRemovedPositions.size();
 	}
 
 	/**
-	 * Reconcile positions based on the AST subtrees
+	 * Reconcile positions based on the AST subtrees. Only the positions covered by the subtrees
+	 * are candidates for removal, see {@link #startReconcilingPositions(ASTNode[])}.
 	 *
 	 * @param subtrees the AST subtrees
 	 */
 	private void reconcilePositions(ASTNode[] subtrees) {
-		// FIXME: remove positions not covered by subtrees
-
-
-
 		for (int i= 0, n= subtrees.length; i < n; i++)
 			subtrees[i].accept(fCollector);
 		List<Position> oldPositions= fRemovedPositions;
@@ -385,9 +435,10 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	 * @param textPresentation the text presentation
 	 * @param addedPositions the added positions
 	 * @param removedPositions the removed positions
+	 * @param dirtyStamp the modification stamp of the reconciled dirty region
 	 */
-	private void updatePresentation(TextPresentation textPresentation, List<Position> addedPositions, List<Position> removedPositions) {
-		Runnable runnable= fJobPresenter.createUpdateRunnable(textPresentation, addedPositions, removedPositions);
+	private void updatePresentation(TextPresentation textPresentation, List<Position> addedPositions, List<Position> removedPositions, int dirtyStamp) {
+		Runnable runnable= fJobPresenter.createUpdateRunnable(textPresentation, addedPositions, removedPositions, dirtyStamp);
 		if (runnable == null)
 			return;
 
@@ -534,6 +585,9 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	 * @since 3.2
 	 */
 	public void refresh() {
+		SemanticHighlightingPresenter presenter= fPresenter;
+		if (presenter != null)
+			presenter.invalidateDirtyRegion();
 		scheduleJob();
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,8 +12,11 @@ package org.eclipse.jdt.internal.ui.packageview;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Display;
@@ -83,7 +86,125 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 	private boolean fShowLibrariesNode;
 	private boolean fFoldPackages;
 
-	private Collection<Runnable> fPendingUpdates;
+	/**
+	 * The delay in milliseconds by which the pending updates are applied, so that the updates
+	 * of deltas arriving within this window are coalesced.
+	 * @since 3.9
+	 */
+	private static final long UPDATE_DELAY= 50;
+
+	/**
+	 * The maximal time in milliseconds that pending updates are applied in the UI thread at
+	 * once, before the remaining updates are rescheduled.
+	 * @since 3.9
+	 */
+	private static final long UPDATE_TIME_SLICE= 100;
+
+	/**
+	 * Update of the viewer for an element that can be covered by the refresh of a parent.
+	 * @since 3.9
+	 */
+	private abstract static class ElementUpdate implements Runnable {
+		/**
+		 * The sequence number of the update in the pending updates.
+		 */
+		int fSequence;
+	}
+
+	/**
+	 * Refresh of an element.
+	 * @since 3.9
+	 */
+	private final class RefreshUpdate extends ElementUpdate {
+		private final Object fElement;
+		private boolean fUpdateLabels;
+		/**
+		 * The last sequence number of the pending updates when the refresh was applied, or
+		 * <code>-1</code> if the refresh is pending.
+		 */
+		private int fAppliedSequence= -1;
+
+		public RefreshUpdate(Object element, boolean updateLabels) {
+			fElement= element;
+			fUpdateLabels= updateLabels;
+		}
+
+		public void run() {
+			if (fElement == null || fViewer.testFindItems(fElement).length > 0) {
+				fViewer.refresh(fElement, fUpdateLabels);
+			}
+		}
+	}
+
+	/**
+	 * Addition of an element.
+	 * @since 3.9
+	 */
+	private final class AddUpdate extends ElementUpdate {
+		private final Object fParent;
+		private final Object fElement;
+
+		public AddUpdate(Object parent, Object element) {
+			fParent= parent;
+			fElement= element;
+		}
+
+		public void run() {
+			Widget[] items= fViewer.testFindItems(fElement);
+			for (int i= 0; i < items.length; i++) {
+				Widget item= items[i];
+				if (item instanceof TreeItem && !item.isDisposed()) {
+					TreeItem parentItem= ((TreeItem) item).getParentItem();
+					if (parentItem != null && !parentItem.isDisposed() && fParent.equals(parentItem.getData())) {
+						return; // no add, element already added (most likely by a refresh)
+					}
+				}
+			}
+			fViewer.add(fParent, fElement);
+		}
+	}
+
+	/**
+	 * Removal of an element.
+	 * @since 3.9
+	 */
+	private final class RemoveUpdate extends ElementUpdate {
+		private final Object fElement;
+
+		public RemoveUpdate(Object element) {
+			fElement= element;
+		}
+
+		public void run() {
+			if (fViewer.testFindItems(fElement).length > 0) {
+				fViewer.remove(fElement);
+			}
+		}
+	}
+
+	/**
+	 * The updates that are not applied yet, in the order of their deltas.
+	 */
+	private final LinkedList<Runnable> fPendingUpdates;
+
+	/**
+	 * The refreshes of the pending updates by their element, including the refreshes that have
+	 * already been applied while there are pending updates. Pending updates of elements below
+	 * the element of a refresh are dropped if the refresh is applied after the update was
+	 * queued, since the refresh covers them.
+	 * @since 3.9
+	 */
+	private final Map<Object, RefreshUpdate> fRefreshes;
+
+	/**
+	 * The sequence number of the last queued update.
+	 * @since 3.9
+	 */
+	private int fSequence;
+
+	private int fQueuedUpdates;
+	private int fMergedUpdates;
+	private int fAppliedUpdates;
 
 	private UIJob fUpdateJob;
 
@@ -96,7 +217,8 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 		fShowLibrariesNode= false;
 		fIsFlatLayout= false;
 		fFoldPackages= arePackagesFoldedInHierarchicalLayout();
-		fPendingUpdates= null;
+		fPendingUpdates= new LinkedList<Runnable>();
+		fRefreshes= new HashMap<Object, RefreshUpdate>();
 		JavaPlugin.getDefault().getPreferenceStore().addPropertyChangeListener(this);
 
 		fUpdateJob= null;
@@ -136,57 +258,164 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 		if (ctrl != null && !ctrl.isDisposed()) {
 			final boolean hasPendingUpdates;
 			synchronized (this) {
-				hasPendingUpdates= fPendingUpdates != null && !fPendingUpdates.isEmpty();
+				hasPendingUpdates= !fPendingUpdates.isEmpty();
 			}
 			//Are we in the UIThread? If so spin it until we are done
 			if (!hasPendingUpdates && ctrl.getDisplay().getThread() == Thread.currentThread() && !fViewer.isBusy()) {
 				runUpdates(runnables);
 			} else {
-				synchronized (this) {
-					if (fPendingUpdates == null) {
-						fPendingUpdates= runnables;
-					} else {
-						fPendingUpdates.addAll(runnables);
-					}
+				if (queueUpdates(runnables))
+					postAsyncUpdate(ctrl.getDisplay());
+			}
+		}
+	}
+
+	/**
+	 * Adds the given updates to the pending updates. Refreshes of elements that already have a
+	 * pending refresh are merged into the pending refresh.
+	 *
+	 * @param runnables the updates
+	 * @return <code>true</code> if there were no pending updates before
+	 * @since 3.9
+	 */
+	private synchronized boolean queueUpdates(Collection<Runnable> runnables) {
+		boolean wasEmpty= fPendingUpdates.isEmpty();
+		for (Iterator<Runnable> iter= runnables.iterator(); iter.hasNext();) {
+			Runnable update= iter.next();
+			fQueuedUpdates++;
+			if (update instanceof RefreshUpdate) {
+				RefreshUpdate refresh= (RefreshUpdate) update;
+				RefreshUpdate pending= fRefreshes.get(refresh.fElement);
+				if (pending != null && pending.fAppliedSequence == -1) {
+					pending.fUpdateLabels|= refresh.fUpdateLabels;
+					fMergedUpdates++;
+					continue;
 				}
-				postAsyncUpdate(ctrl.getDisplay());
+				fRefreshes.put(refresh.fElement, refresh);
 			}
+			if (update instanceof ElementUpdate)
+				((ElementUpdate) update).fSequence= ++fSequence;
+			fPendingUpdates.add(update);
 		}
+		return wasEmpty && !fPendingUpdates.isEmpty();
 	}
+
 	private void postAsyncUpdate(final Display display) {
-		if (fUpdateJob == null) {
-			fUpdateJob= new UIJob(display, PackagesMessages.PackageExplorerContentProvider_update_job_description) {
-				@Override
-				public IStatus runInUIThread(IProgressMonitor monitor) {
-					TreeViewer viewer= fViewer;
-					if (viewer != null && viewer.isBusy()) {
-						schedule(100); // reschedule when viewer is busy: bug 184991
-					} else {
-						runPendingUpdates();
+		synchronized (this) {
+			if (fUpdateJob == null) {
+				fUpdateJob= new UIJob(display, PackagesMessages.PackageExplorerContentProvider_update_job_description) {
+					@Override
+					public IStatus runInUIThread(IProgressMonitor monitor) {
+						TreeViewer viewer= fViewer;
+						if (viewer != null && viewer.isBusy()) {
+							schedule(100); // reschedule when viewer is busy: bug 184991
+						} else if (!runPendingUpdates(UPDATE_TIME_SLICE)) {
+							schedule(); // give the UI a chance to process events before applying the remaining updates
+						}
+						return Status.OK_STATUS;
 					}
-					return Status.OK_STATUS;
-				}
-			};
-			fUpdateJob.setSystem(true);
+				};
+				fUpdateJob.setSystem(true);
+			}
 		}
-		fUpdateJob.schedule();
+		fUpdateJob.schedule(UPDATE_DELAY);
 	}
 
 	/**
 	 * Run all of the runnables that are the widget updates. Must be called in the display thread.
 	 */
 	public void runPendingUpdates() {
-		Collection<Runnable> pendingUpdates;
-		synchronized (this) {
-			pendingUpdates= fPendingUpdates;
-			fPendingUpdates= null;
+		runPendingUpdates(Long.MAX_VALUE);
+	}
+
+	/**
+	 * Runs the pending updates for at most the given time. Updates that are covered by a
+	 * refresh of one of the parents of their element are dropped. Must be called in the display
+	 * thread.
+	 *
+	 * @param timeSlice the maximal time in milliseconds to run updates
+	 * @return <code>true</code> if all pending updates have been run
+	 * @since 3.9
+	 */
+	private boolean runPendingUpdates(long timeSlice) {
+		long start= System.currentTimeMillis();
+		while (true) {
+			Runnable update;
+			synchronized (this) {
+				update= fPendingUpdates.poll();
+				if (update == null) {
+					fRefreshes.clear();
+					return true;
+				}
+			}
+
+			Control control= fViewer != null ? fViewer.getControl() : null;
+			if (control == null || control.isDisposed())
+				continue;
+
+			boolean isCovered= isCoveredByRefresh(update);
+			synchronized (this) {
+				if (isCovered) {
+					fMergedUpdates++;
+				} else {
+					fAppliedUpdates++;
+					if (update instanceof RefreshUpdate)
+						((RefreshUpdate) update).fAppliedSequence= fSequence;
+				}
+			}
+			if (!isCovered)
+				update.run();
+
+			if (System.currentTimeMillis() - start >= timeSlice) {
+				synchronized (this) {
+					return fPendingUpdates.isEmpty();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Tells whether the given update is covered by a refresh of a parent of its element that is
+	 * shown in the viewer. A refresh covers the update if it is pending or if it has been applied
+	 * after the update was queued.
+	 *
+	 * @param update the update
+	 * @return <code>true</code> if the update can be dropped
+	 * @since 3.9
+	 */
+	private boolean isCoveredByRefresh(Runnable update) {
+		Object parent;
+		boolean needsLabels= false;
+		if (update instanceof RefreshUpdate) {
+			RefreshUpdate refresh= (RefreshUpdate) update;
+			if (refresh.fElement == null)
+				return false;
+			parent= getParent(refresh.fElement);
+			needsLabels= refresh.fUpdateLabels;
+		} else if (update instanceof AddUpdate) {
+			parent= ((AddUpdate) update).fParent;
+		} else if (update instanceof RemoveUpdate) {
+			parent= getParent(((RemoveUpdate) update).fElement);
+		} else {
+			return false;
 		}
-		if (pendingUpdates != null && fViewer != null) {
-			Control control = fViewer.getControl();
-			if (control != null && !control.isDisposed()) {
-				runUpdates(pendingUpdates);
+
+		int sequence= ((ElementUpdate) update).fSequence;
+		while (parent != null) {
+			boolean isCovering;
+			synchronized (this) {
+				if (fRefreshes.isEmpty())
+					return false;
+				RefreshUpdate refresh= fRefreshes.get(parent);
+				isCovering= refresh != null
+						&& (refresh.fAppliedSequence == -1 || refresh.fAppliedSequence >= sequence)
+						&& (refresh.fUpdateLabels || !needsLabels);
 			}
+			if (isCovering)
+				return fViewer.testFindItems(parent).length > 0;
+			parent= getParent(parent);
 		}
+		return false;
 	}
 
 	private void runUpdates(Collection<Runnable> runnables) {
@@ -194,6 +423,53 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 		while (runnableIterator.hasNext()){
 			runnableIterator.next().run();
 		}
+		synchronized (this) {
+			fQueuedUpdates+= runnables.size();
+			fAppliedUpdates+= runnables.size();
+		}
+	}
+
+	/**
+	 * Returns the number of updates that have been computed from deltas, including the updates
+	 * that have been applied right away.
+	 *
+	 * @return the number of updates
+	 * @since 3.9
+	 */
+	public synchronized int getQueuedUpdateCount() {
+		return fQueuedUpdates;
+	}
+
+	/**
+	 * Returns the number of updates that have been dropped since they were covered by other
+	 * updates.
+	 *
+	 * @return the number of merged updates
+	 * @since 3.9
+	 */
+	public synchronized int getMergedUpdateCount() {
+		return fMergedUpdates;
+	}
+
+	/**
+	 * Returns the number of updates that have been applied to the viewer.
+	 *
+	 * @return the number of applied updates
+	 * @since 3.9
+	 */
+	public synchronized int getAppliedUpdateCount() {
+		return fAppliedUpdates;
+	}
+
+	/**
+	 * Resets the update counts.
+	 *
+	 * @since 3.9
+	 */
+	public synchronized void resetUpdateStatistics() {
+		fQueuedUpdates= 0;
+		fMergedUpdates= 0;
+		fAppliedUpdates= 0;
 	}
 
 
@@ -219,6 +495,10 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 	public void dispose() {
 		super.dispose();
 		JavaCore.removeElementChangedListener(this);
+		synchronized (this) {
+			fPendingUpdates.clear();
+			fRefreshes.clear();
+		}
 		JavaPlugin.getDefault().getPreferenceStore().removePropertyChangeListener(this);
 	}
 
@@ -940,45 +1220,17 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 	}
 
 	protected void postRefresh(final List<Object> toRefresh, final boolean updateLabels, Collection<Runnable> runnables) {
-		runnables.add(new Runnable() {
-			public void run() {
-				Object[] elements= toRefresh.toArray();
-				for (int i= 0; i < elements.length; i++) {
-					Object element= elements[i];
-					if (element == null || fViewer.testFindItems(element).length > 0) {
-						fViewer.refresh(element, updateLabels);
-					}
-				}
-			}
-		});
+		for (Iterator<Object> iter= toRefresh.iterator(); iter.hasNext();) {
+			runnables.add(new RefreshUpdate(iter.next(), updateLabels));
+		}
 	}
 
 	protected void postAdd(final Object parent, final Object element, Collection<Runnable> runnables) {
-		runnables.add(new Runnable() {
-			public void run() {
-				Widget[] items= fViewer.testFindItems(element);
-				for (int i= 0; i < items.length; i++) {
-					Widget item= items[i];
-					if (item instanceof TreeItem && !item.isDisposed()) {
-						TreeItem parentItem= ((TreeItem) item).getParentItem();
-						if (parentItem != null && !parentItem.isDisposed() && parent.equals(parentItem.getData())) {
-							return; // no add, element already added (most likely by a refresh)
-						}
-					}
-				}
-				fViewer.add(parent, element);
-			}
-		});
+		runnables.add(new AddUpdate(parent, element));
 	}
 
 	protected void postRemove(final Object element, Collection<Runnable> runnables) {
-		runnables.add(new Runnable() {
-			public void run() {
-				if (fViewer.testFindItems(element).length > 0) {
-					fViewer.remove(element);
-				}
-			}
-		});
+		runnables.add(new RemoveUpdate(element));
 	}
 
 	protected void postProjectStateChanged(final Object root, Collection<Runnable> runnables) {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -35,6 +35,7 @@ public class JavaCompositeReconcilingStrategy  extends CompositeReconcilingStrat
 
 	private ITextEditor fEditor;
 	private JavaReconcilingStrategy fJavaStrategy;
+	private JavaSpellingReconcileStrategy fSpellingStrategy;
 
 	/**
 	 * Creates a new Java reconciling strategy.
@@ -46,9 +47,10 @@ public class JavaCompositeReconcilingStrategy  extends CompositeReconcilingStrat
 	public JavaCompositeReconcilingStrategy(ISourceViewer viewer, ITextEditor editor, String documentPartitioning) {
 		fEditor= editor;
 		fJavaStrategy= new JavaReconcilingStrategy(editor);
+		fSpellingStrategy= new JavaSpellingReconcileStrategy(viewer, editor);
 		setReconcilingStrategies(new IReconcilingStrategy[] {
 			fJavaStrategy,
-			new JavaSpellingReconcileStrategy(viewer, editor)
+			fSpellingStrategy
 		});
 	}
 
@@ -163,4 +165,13 @@ public class JavaCompositeReconcilingStrategy  extends CompositeReconcilingStrat
 	private void reconciled() {
 		fJavaStrategy.reconciled();
 	}
+
+	/**
+	 * Called when the reconciler is uninstalled.
+	 *
+	 * @since 3.9
+	 */
+	public void uninstall() {
+		fSpellingStrategy.uninstall();
+	}
 }
@@ -14,8 +14,11 @@ package org.eclipse.jdt.internal.ui.text.java;
 
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.osgi.framework.Bundle;
 
@@ -49,6 +52,7 @@ import org.eclipse.jdt.ui.text.java.ContentAssistInvocationContext;
 import org.eclipse.jdt.ui.text.java.IJavaCompletionProposalComputer;
 
 import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.text.java.CompletionProposalComputerDescriptor.BackgroundComputation;
 
 
 /**
@@ -331,13 +335,83 @@ public final class CompletionProposalCategory {
 	 *         {@link org.eclipse.jface.text.contentassist.ICompletionProposal})
 	 */
 	public List<ICompletionProposal> computeCompletionProposals(ContentAssistInvocationContext context, String partition, SubProgressMonitor monitor) {
+		Map<CompletionProposalComputerDescriptor, BackgroundComputation> computations= Collections.emptyMap();
+		Map<CompletionProposalComputerDescriptor, List<ICompletionProposal>> proposals= computeUIThreadCompletionProposals(context, partition, monitor, computations);
+		return collectCompletionProposals(partition, proposals, computations, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the descriptors of the computers of this category that do not require the UI thread.
+	 *
+	 * @param partition the partition type where to invocation occurred
+	 * @return the descriptors of the computers that can be called in a background thread
+	 * @since 3.9
+	 */
+	List<CompletionProposalComputerDescriptor> getBackgroundComputerDescriptors(String partition) {
+		List<CompletionProposalComputerDescriptor> result= new ArrayList<CompletionProposalComputerDescriptor>();
+		List<CompletionProposalComputerDescriptor> descriptors= new ArrayList<CompletionProposalComputerDescriptor>(fRegistry.getProposalComputerDescriptors(partition));
+		for (Iterator<CompletionProposalComputerDescriptor> it= descriptors.iterator(); it.hasNext();) {
+			CompletionProposalComputerDescriptor desc= it.next();
+			if (desc.getCategory() == this && !desc.isUIThreadRequired())
+				result.add(desc);
+		}
+		return result;
+	}
+
+	/**
+	 * Safely computes completion proposals of the computers of this category that have no
+	 * computation in the given map. This is the part of the computation that runs in the UI
+	 * thread.
+	 *
+	 * @param context the invocation context passed on to the extension
+	 * @param partition the partition type where to invocation occurred
+	 * @param monitor the progress monitor passed on to the extension
+	 * @param computations the background computations of the computers that must not be called
+	 * @return the computed completion proposals, mapped by the descriptor of their computer
+	 * @since 3.9
+	 */
+	Map<CompletionProposalComputerDescriptor, List<ICompletionProposal>> computeUIThreadCompletionProposals(ContentAssistInvocationContext context, String partition, SubProgressMonitor monitor, Map<CompletionProposalComputerDescriptor, BackgroundComputation> computations) {
+		Map<CompletionProposalComputerDescriptor, List<ICompletionProposal>> result= new HashMap<CompletionProposalComputerDescriptor, List<ICompletionProposal>>();
+		List<CompletionProposalComputerDescriptor> descriptors= new ArrayList<CompletionProposalComputerDescriptor>(fRegistry.getProposalComputerDescriptors(partition));
+		for (Iterator<CompletionProposalComputerDescriptor> it= descriptors.iterator(); it.hasNext();) {
+			CompletionProposalComputerDescriptor desc= it.next();
+			if (desc.getCategory() == this && !computations.containsKey(desc))
+				result.put(desc, desc.computeCompletionProposals(context, monitor));
+		}
+		return result;
+	}
+
+	/**
+	 * Collects the completion proposals of all computers of this category. The results of the
+	 * background computations are awaited until the deadline. The proposals are returned in the
+	 * order of the computers, regardless of the thread on which they were computed.
+	 *
+	 * @param partition the partition type where to invocation occurred
+	 * @param proposals the proposals computed by
+	 *            {@link #computeUIThreadCompletionProposals(ContentAssistInvocationContext, String, SubProgressMonitor, Map)}
+	 * @param computations the background computations, a descriptor is mapped to
+	 *            <code>null</code> if its computer was skipped
+	 * @param deadline the time until which to wait for background computations in milliseconds,
+	 *            see {@link System#currentTimeMillis()}
+	 * @return the list of computed completion proposals (element type:
+	 *         {@link org.eclipse.jface.text.contentassist.ICompletionProposal})
+	 * @since 3.9
+	 */
+	List<ICompletionProposal> collectCompletionProposals(String partition, Map<CompletionProposalComputerDescriptor, List<ICompletionProposal>> proposals, Map<CompletionProposalComputerDescriptor, BackgroundComputation> computations, long deadline) {
 		fLastError= null;
 		List<ICompletionProposal> result= new ArrayList<ICompletionProposal>();
 		List<CompletionProposalComputerDescriptor> descriptors= new ArrayList<CompletionProposalComputerDescriptor>(fRegistry.getProposalComputerDescriptors(partition));
 		for (Iterator<CompletionProposalComputerDescriptor> it= descriptors.iterator(); it.hasNext();) {
 			CompletionProposalComputerDescriptor desc= it.next();
-			if (desc.getCategory() == this)
-				result.addAll(desc.computeCompletionProposals(context, monitor));
+			if (desc.getCategory() == this) {
+				if (proposals.containsKey(desc)) {
+					result.addAll(proposals.get(desc));
+				} else {
+					BackgroundComputation computation= computations.get(desc);
+					if (computation != null)
+						result.addAll(computation.getResult(deadline));
+				}
+			}
 			if (fLastError == null && desc.getErrorMessage() != null)
 				fLastError= desc.getErrorMessage();
 		}
@@ -16,6 +16,13 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.osgi.framework.Bundle;
 
@@ -27,6 +34,7 @@ import org.eclipse.core.runtime.IExtension;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.InvalidRegistryObjectException;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.PerformanceStats;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
@@ -52,6 +60,51 @@ import org.eclipse.jdt.internal.ui.JavaPlugin;
  * @since 3.2
  */
 final class CompletionProposalComputerDescriptor {
+
+	/**
+	 * A computation of completion proposals that runs on a background thread.
+	 *
+	 * @since 3.9
+	 */
+	static final class BackgroundComputation extends FutureTask<List<ICompletionProposal>> {
+
+		private final CompletionProposalComputerDescriptor fDescriptor;
+		private final IProgressMonitor fMonitor;
+
+		private BackgroundComputation(CompletionProposalComputerDescriptor descriptor, Callable<List<ICompletionProposal>> callable, IProgressMonitor monitor) {
+			super(callable);
+			fDescriptor= descriptor;
+			fMonitor= monitor;
+		}
+
+		/**
+		 * Returns the computed proposals, waiting at most until the given deadline. If the
+		 * computation does not finish in time, its progress monitor is canceled and an empty
+		 * list is returned. The computation is not interrupted, so that the computer can finish
+		 * cleanly.
+		 *
+		 * @param deadline the deadline in milliseconds, see {@link System#currentTimeMillis()}
+		 * @return the computed proposals, or an empty list if the computation did not finish
+		 *         in time
+		 */
+		public List<ICompletionProposal> getResult(long deadline) {
+			try {
+				long remaining= Math.max(0, deadline - System.currentTimeMillis());
+				return get(remaining, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException x) {
+				fMonitor.setCanceled(true);
+				fDescriptor.computationLate();
+			} catch (InterruptedException x) {
+				fMonitor.setCanceled(true);
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException x) {
+				// computeCompletionProposals already handles exceptions of the computer
+				JavaPlugin.log(x.getCause());
+			}
+			return Collections.emptyList();
+		}
+	}
+
 	/** The default category id. */
 	private static final String DEFAULT_CATEGORY_ID= "org.eclipse.jdt.ui.defaultProposalCategory"; //$NON-NLS-1$
 	/** The extension schema name of the category id attribute. */
@@ -64,6 +117,11 @@ final class CompletionProposalComputerDescriptor {
 	private static final String ACTIVATE= "activate"; //$NON-NLS-1$
 	/** The extension schema name of the needsSortingAfterFiltering attribute. */
 	private static final String NEEDS_SORTING_AFTER_FILTERING= "needsSortingAfterFiltering"; //$NON-NLS-1$
+	/**
+	 * The extension schema name of the requiresUIThread attribute.
+	 * @since 3.9
+	 */
+	private static final String REQUIRES_UI_THREAD= "requiresUIThread"; //$NON-NLS-1$
 	/** The extension schema name of the partition child elements. */
 	private static final String PARTITION= "partition"; //$NON-NLS-1$
 	/** Set of Java partition types. */
@@ -127,8 +185,6 @@ final class CompletionProposalComputerDescriptor {
 	 * longer due to plug-in activation and initialization.
 	 */
 	private boolean fIsReportingDelay= false;
-	/** The start of the last operation. */
-	private long fStart;
 	/**
 	 * Tells whether we tried to load the computer.
 	 * @since 3.4
@@ -144,6 +200,57 @@ final class CompletionProposalComputerDescriptor {
 	 */
 	private boolean fNeedsSortingAfterFiltering;
 
+	/**
+	 * Tells whether the computer must be called in the UI thread.
+	 *
+	 * @since 3.9
+	 */
+	private final boolean fRequiresUIThread;
+
+	/**
+	 * Tells whether a background computation is running.
+	 *
+	 * @since 3.9
+	 */
+	private boolean fIsComputingInBackground;
+
+	/**
+	 * The number of proposal computations.
+	 *
+	 * @since 3.9
+	 */
+	private int fComputationCount;
+
+	/**
+	 * The accumulated time of all proposal computations in nanoseconds.
+	 *
+	 * @since 3.9
+	 */
+	private long fTotalComputationTime;
+
+	/**
+	 * The time of the longest proposal computation in nanoseconds.
+	 *
+	 * @since 3.9
+	 */
+	private long fMaxComputationTime;
+
+	/**
+	 * The number of background computations that did not finish within the time budget of their
+	 * invocation.
+	 *
+	 * @since 3.9
+	 */
+	private int fLateCount;
+
+	/**
+	 * The number of background computations that were skipped because the previous computation
+	 * was still running.
+	 *
+	 * @since 3.9
+	 */
+	private int fSkippedCount;
+
 
 	/**
 	 * Creates a new descriptor.
@@ -189,6 +296,9 @@ final class CompletionProposalComputerDescriptor {
 		String needsSortingAfterFilteringAttribute= element.getAttribute(NEEDS_SORTING_AFTER_FILTERING);
 		fNeedsSortingAfterFiltering= Boolean.valueOf(needsSortingAfterFilteringAttribute).booleanValue();
 
+		String requiresUIThreadAttribute= element.getAttribute(REQUIRES_UI_THREAD);
+		fRequiresUIThread= requiresUIThreadAttribute == null || Boolean.valueOf(requiresUIThreadAttribute).booleanValue();
+
 		fClass= element.getAttribute(CLASS);
 		checkNotNull(fClass, CLASS);
 
@@ -329,9 +439,11 @@ final class CompletionProposalComputerDescriptor {
 				return Collections.emptyList();
 
 			try {
+				long start= System.nanoTime();
 				PerformanceStats stats= startMeter(context, computer);
 				List<ICompletionProposal> proposals= computer.computeCompletionProposals(context, monitor);
-				stopMeter(stats, COMPUTE_COMPLETION_PROPOSALS);
+				stopMeter(stats, COMPUTE_COMPLETION_PROPOSALS, start);
+				computationDone(System.nanoTime() - start);
 
 				if (proposals != null) {
 					fLastError= computer.getErrorMessage();
@@ -356,6 +468,49 @@ final class CompletionProposalComputerDescriptor {
 		return Collections.emptyList();
 	}
 
+	/**
+	 * Starts to compute completion proposals through the described extension on a background
+	 * thread. Only one background computation runs at a time, so that the computer is never
+	 * called concurrently.
+	 *
+	 * @param context the invocation context passed on to the extension
+	 * @param executor the executor that runs the computation
+	 * @return the computation, or <code>null</code> if the previous background computation of
+	 *         the extension is still running
+	 * @since 3.9
+	 */
+	public BackgroundComputation computeCompletionProposalsInBackground(final ContentAssistInvocationContext context, Executor executor) {
+		synchronized (this) {
+			if (fIsComputingInBackground) {
+				fSkippedCount++;
+				return null;
+			}
+			fIsComputingInBackground= true;
+		}
+
+		final IProgressMonitor monitor= new NullProgressMonitor();
+		BackgroundComputation computation= new BackgroundComputation(this, new Callable<List<ICompletionProposal>>() {
+			public List<ICompletionProposal> call() {
+				try {
+					return computeCompletionProposals(context, monitor);
+				} finally {
+					synchronized (CompletionProposalComputerDescriptor.this) {
+						fIsComputingInBackground= false;
+					}
+				}
+			}
+		}, monitor);
+		try {
+			executor.execute(computation);
+		} catch (RejectedExecutionException x) {
+			synchronized (this) {
+				fIsComputingInBackground= false;
+			}
+			return null;
+		}
+		return computation;
+	}
+
 	/**
 	 * Safely computes context information objects through the described extension. If the extension
 	 * is disabled, throws an exception or otherwise does not adhere to the contract described in
@@ -376,9 +531,10 @@ final class CompletionProposalComputerDescriptor {
 			if (computer == null) // not active yet
 				return Collections.emptyList();
 
+			long start= System.nanoTime();
 			PerformanceStats stats= startMeter(context, computer);
 			List<IContextInformation> proposals= computer.computeContextInformation(context, monitor);
-			stopMeter(stats, COMPUTE_CONTEXT_INFORMATION);
+			stopMeter(stats, COMPUTE_CONTEXT_INFORMATION, start);
 
 			if (proposals != null) {
 				fLastError= computer.getErrorMessage();
@@ -419,9 +575,10 @@ final class CompletionProposalComputerDescriptor {
 			if (computer == null) // not active yet
 				return;
 
+			long start= System.nanoTime();
 			PerformanceStats stats= startMeter(SESSION_STARTED, computer);
 			computer.sessionStarted();
-			stopMeter(stats, SESSION_ENDED);
+			stopMeter(stats, SESSION_ENDED, start);
 
 			return;
 		} catch (InvalidRegistryObjectException x) {
@@ -452,9 +609,10 @@ final class CompletionProposalComputerDescriptor {
 			if (computer == null) // not active yet
 				return;
 
+			long start= System.nanoTime();
 			PerformanceStats stats= startMeter(SESSION_ENDED, computer);
 			computer.sessionEnded();
-			stopMeter(stats, SESSION_ENDED);
+			stopMeter(stats, SESSION_ENDED, start);
 
 			return;
 		} catch (InvalidRegistryObjectException x) {
@@ -477,14 +635,10 @@ final class CompletionProposalComputerDescriptor {
 			stats= null;
 		}
 
-		if (fIsReportingDelay) {
-			fStart= System.currentTimeMillis();
-		}
-
 		return stats;
 	}
 
-	private void stopMeter(final PerformanceStats stats, String operation) {
+	private void stopMeter(final PerformanceStats stats, String operation, long start) {
 		if (MEASURE_PERFORMANCE) {
 			stats.endRun();
 			if (stats.isFailure()) {
@@ -495,8 +649,8 @@ final class CompletionProposalComputerDescriptor {
 		}
 
 		if (fIsReportingDelay) {
-			long current= System.currentTimeMillis();
-			if (current - fStart > MAX_DELAY) {
+			long current= System.nanoTime();
+			if (TimeUnit.NANOSECONDS.toMillis(current - start) > MAX_DELAY) {
 				IStatus status= createPerformanceStatus(operation);
 				fRegistry.informUser(this, status);
 			}
@@ -579,6 +733,81 @@ final class CompletionProposalComputerDescriptor {
         }
     }
 
+	/**
+	 * Tells whether the described extension must be called in the UI thread. Extensions that do
+	 * not require the UI thread compute their proposals in the background, concurrently with
+	 * the other extensions.
+	 *
+	 * @return <code>true</code> if the extension must be called in the UI thread
+	 * @since 3.9
+	 */
+	public boolean isUIThreadRequired() {
+		return fRequiresUIThread;
+	}
+
+	private synchronized void computationDone(long time) {
+		fComputationCount++;
+		fTotalComputationTime+= time;
+		fMaxComputationTime= Math.max(fMaxComputationTime, time);
+	}
+
+	private synchronized void computationLate() {
+		fLateCount++;
+	}
+
+	/**
+	 * Returns the number of completed proposal computations of the described extension.
+	 *
+	 * @return the number of computations
+	 * @since 3.9
+	 */
+	public synchronized int getComputationCount() {
+		return fComputationCount;
+	}
+
+	/**
+	 * Returns the accumulated time of all completed proposal computations of the described
+	 * extension.
+	 *
+	 * @return the accumulated time in milliseconds
+	 * @since 3.9
+	 */
+	public synchronized long getTotalComputationTime() {
+		return TimeUnit.NANOSECONDS.toMillis(fTotalComputationTime);
+	}
+
+	/**
+	 * Returns the time of the longest completed proposal computation of the described extension.
+	 *
+	 * @return the time in milliseconds
+	 * @since 3.9
+	 */
+	public synchronized long getMaxComputationTime() {
+		return TimeUnit.NANOSECONDS.toMillis(fMaxComputationTime);
+	}
+
+	/**
+	 * Returns the number of background computations that did not finish within the time budget
+	 * of their invocation. Their proposals were not shown.
+	 *
+	 * @return the number of late computations
+	 * @since 3.9
+	 */
+	public synchronized int getLateCount() {
+		return fLateCount;
+	}
+
+	/**
+	 * Returns the number of background computations that were skipped because the previous
+	 * computation was still running.
+	 *
+	 * @return the number of skipped computations
+	 * @since 3.9
+	 */
+	public synchronized int getSkippedCount() {
+		return fSkippedCount;
+	}
+
 	/**
 	 * Returns the <code>needsSortingAfterFiltering</code> flag of the described extension.
 	 * 
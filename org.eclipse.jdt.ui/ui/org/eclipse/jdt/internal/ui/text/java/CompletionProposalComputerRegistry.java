@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -21,6 +21,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.SelectionAdapter;
@@ -28,6 +31,7 @@ import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Link;
 
 import org.eclipse.core.runtime.CoreException;
@@ -66,6 +70,18 @@ public final class CompletionProposalComputerRegistry {
 
 	private static final String EXTENSION_POINT= "javaCompletionProposalComputer"; //$NON-NLS-1$
 	private static final String NUM_COMPUTERS_PREF_KEY= "content_assist_number_of_computers"; //$NON-NLS-1$
+	/**
+	 * Preference key for the time in milliseconds that content assist waits for computers which
+	 * run in the background.
+	 * @since 3.9
+	 */
+	private static final String BACKGROUND_BUDGET_PREF_KEY= "content_assist_background_computer_budget"; //$NON-NLS-1$
+	/**
+	 * The default time in milliseconds that content assist waits for computers which run in the
+	 * background.
+	 * @since 3.9
+	 */
+	private static final int DEFAULT_BACKGROUND_BUDGET= 500;
 
 
 	/** The singleton instance. */
@@ -121,6 +137,13 @@ public final class CompletionProposalComputerRegistry {
 	private boolean fIsFirstTimeCheckForUninstalledComputers= false;
 	private boolean fHasUninstalledComputers= false;
 
+	/**
+	 * The executor for computers that do not require the UI thread, or <code>null</code> if not
+	 * yet created.
+	 * @since 3.9
+	 */
+	private ExecutorService fExecutor;
+
 
 	/**
 	 * Creates a new instance.
@@ -424,12 +447,59 @@ public final class CompletionProposalComputerRegistry {
 	}
 
 	/**
-	 * Log the status and inform the user about a misbehaving extension.
+	 * Returns the executor that runs the computers which do not require the UI thread.
+	 *
+	 * @return the executor
+	 * @since 3.9
+	 */
+	synchronized ExecutorService getExecutor() {
+		if (fExecutor == null) {
+			fExecutor= Executors.newCachedThreadPool(new ThreadFactory() {
+				private int fCount= 0;
+				public synchronized Thread newThread(Runnable runnable) {
+					Thread thread= new Thread(runnable, "Content Assist Computer " + ++fCount); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return fExecutor;
+	}
+
+	/**
+	 * Returns the time that content assist waits for the computers which run in the background.
+	 * Proposals of computers that take longer are not shown.
+	 *
+	 * @return the time budget in milliseconds
+	 * @since 3.9
+	 */
+	public int getBackgroundComputerBudget() {
+		int budget= JavaPlugin.getDefault().getPreferenceStore().getInt(BACKGROUND_BUDGET_PREF_KEY);
+		return budget > 0 ? budget : DEFAULT_BACKGROUND_BUDGET;
+	}
+
+	/**
+	 * Log the status and inform the user about a misbehaving extension. If called outside the UI
+	 * thread, the user is informed asynchronously.
 	 *
 	 * @param descriptor the descriptor of the misbehaving extension
 	 * @param status a status object that will be logged
 	 */
-	void informUser(CompletionProposalComputerDescriptor descriptor, IStatus status) {
+	void informUser(final CompletionProposalComputerDescriptor descriptor, final IStatus status) {
+		if (Display.getCurrent() == null) {
+			Display display= Display.getDefault();
+			if (display == null || display.isDisposed()) {
+				JavaPlugin.log(status);
+				return;
+			}
+			display.asyncExec(new Runnable() {
+				public void run() {
+					informUser(descriptor, status);
+				}
+			});
+			return;
+		}
+
 		JavaPlugin.log(status);
         String title= JavaTextMessages.CompletionProposalComputerRegistry_error_dialog_title;
         CompletionProposalCategory category= descriptor.getCategory();
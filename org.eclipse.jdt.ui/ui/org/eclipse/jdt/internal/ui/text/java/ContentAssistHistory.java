@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2011 IBM Corporation and others.
+ * Copyright (c) 2005, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,7 +19,6 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -61,7 +60,9 @@ import org.eclipse.jdt.internal.ui.JavaUIException;
 import org.eclipse.jdt.internal.ui.JavaUIStatus;
 
 /**
- * An LRU cache for code assist.
+ * A history of the types selected in code assist for an expected type. The types are ranked by
+ * a frequency that decays with every selection for the same expected type, so that both
+ * frequently and recently selected types rank high.
  *
  * @since 3.2
  */
@@ -77,6 +78,7 @@ public final class ContentAssistHistory {
 		private static final String NODE_LHS= "lhs"; //$NON-NLS-1$
 		private static final String NODE_RHS= "rhs"; //$NON-NLS-1$
 		private static final String ATTRIBUTE_NAME= "name"; //$NON-NLS-1$
+		private static final String ATTRIBUTE_SCORE= "score"; //$NON-NLS-1$
 		private static final String ATTRIBUTE_MAX_LHS= "maxLHS"; //$NON-NLS-1$
 		private static final String ATTRIBUTE_MAX_RHS= "maxRHS"; //$NON-NLS-1$
 
@@ -97,11 +99,12 @@ public final class ContentAssistHistory {
 					lhsElement.setAttribute(ATTRIBUTE_NAME, lhs);
 					rootElement.appendChild(lhsElement);
 
-					MRUSet<String> rightHandSides= history.fLHSCache.get(lhs);
-					for (Iterator<String> rhsIterator= rightHandSides.iterator(); rhsIterator.hasNext();) {
-						String rhs= rhsIterator.next();
+					RHSCache rightHandSides= history.fLHSCache.get(lhs);
+					for (Iterator<Entry<String, Float>> rhsIterator= rightHandSides.fScores.entrySet().iterator(); rhsIterator.hasNext();) {
+						Entry<String, Float> rhs= rhsIterator.next();
 						Element rhsElement= document.createElement(NODE_RHS);
-						rhsElement.setAttribute(ATTRIBUTE_NAME, rhs);
+						rhsElement.setAttribute(ATTRIBUTE_NAME, rhs.getKey());
+						rhsElement.setAttribute(ATTRIBUTE_SCORE, rhs.getValue().toString());
 						lhsElement.appendChild(rhsElement);
 					}
 				}
@@ -151,7 +154,7 @@ public final class ContentAssistHistory {
 					if (lhsElement.getNodeName().equalsIgnoreCase(NODE_LHS)) {
 						String lhs= lhsElement.getAttribute(ATTRIBUTE_NAME);
 						if (lhs != null) {
-							Set<String> cache= history.getCache(lhs);
+							RHSCache cache= history.getCache(lhs);
 							NodeList children= lhsElement.getChildNodes();
 							int nRHS= children.getLength();
 							for (int j= 0; j < nRHS; j++) {
@@ -161,7 +164,11 @@ public final class ContentAssistHistory {
 									if (rhsElement.getNodeName().equalsIgnoreCase(NODE_RHS)) {
 										String rhs= rhsElement.getAttribute(ATTRIBUTE_NAME);
 										if (rhs != null) {
-											cache.add(rhs);
+											float score= parseScore(rhsElement.getAttribute(ATTRIBUTE_SCORE));
+											if (score > 0)
+												cache.put(rhs, score);
+											else
+												cache.add(rhs); // history stored without scores
 										}
 									}
 								}
@@ -185,6 +192,17 @@ public final class ContentAssistHistory {
 			}
 		}
 
+		private float parseScore(String attribute) {
+			try {
+				float score= Float.parseFloat(attribute);
+				if (score > 0 && !Float.isInfinite(score))
+					return score;
+				return 0;
+			} catch (NumberFormatException e) {
+				return 0;
+			}
+		}
+
 		private JavaUIException createException(Exception e, String message) {
 			return new JavaUIException(JavaUIStatus.createError(IStatus.ERROR, message, e));
 		}
@@ -231,59 +249,110 @@ public final class ContentAssistHistory {
 	}
 
 	/**
-	 * Most recently used variant with capped size that orders the elements by addition.
-	 * This is implemented by always removing an element before it gets added back.
+	 * The selected right hand sides of a left hand side with their scores, ordered by recency.
+	 * Every selection decays the scores of all remembered right hand sides and adds one to the
+	 * score of the selected one. When the cache is full, the right hand side with the lowest
+	 * score is evicted.
 	 *
-	 * @since 3.2
+	 * @since 3.9
 	 */
-	private static final class MRUSet<E> extends LinkedHashSet<E> {
-		private static final long serialVersionUID= 1L;
+	private static final class RHSCache {
+		private final LinkedHashMap<String, Float> fScores= new LinkedHashMap<String, Float>();
 		private final int fMaxSize;
+		/** The ranking of the cached right hand sides, or <code>null</code> if not yet computed. */
+		private RHSHistory fHistory;
 
 		/**
-		 * Creates a new <code>MRUSet</code> with the given size.
+		 * Creates a new <code>RHSCache</code> with the given size.
 		 *
 		 * @param maxSize the maximum size of the cache, must be &gt; 0
 		 */
-		public MRUSet(int maxSize) {
+		public RHSCache(int maxSize) {
 			Assert.isLegal(maxSize > 0);
 			fMaxSize= maxSize;
 		}
 
-		/*
-		 * @see java.util.HashSet#add(java.lang.Object)
+		/**
+		 * Remembers the selection of a right hand side.
+		 *
+		 * @param rhs the selected right hand side
 		 */
-		@Override
-		public boolean add(E o) {
-			if (remove(o)) {
-				super.add(o);
-				return false;
+		public void add(String rhs) {
+			for (Iterator<Entry<String, Float>> it= fScores.entrySet().iterator(); it.hasNext();) {
+				Entry<String, Float> entry= it.next();
+				entry.setValue(new Float(entry.getValue().floatValue() * DECAY));
 			}
+			Float score= fScores.get(rhs);
+			put(rhs, score == null ? 1 : score.floatValue() + 1);
+		}
 
-			if (size() >= fMaxSize)
-				remove(this.iterator().next());
+		/**
+		 * Sets the score of a right hand side and makes it the most recent one.
+		 *
+		 * @param rhs the right hand side
+		 * @param score the score, must be &gt; 0
+		 */
+		public void put(String rhs, float score) {
+			if (fScores.remove(rhs) == null && fScores.size() >= fMaxSize)
+				fScores.remove(getLowestScored());
+			fScores.put(rhs, new Float(score));
+			fHistory= null;
+		}
 
-			super.add(o);
-			return true;
+		private String getLowestScored() {
+			String lowest= null;
+			float lowestScore= Float.MAX_VALUE;
+			for (Iterator<Entry<String, Float>> it= fScores.entrySet().iterator(); it.hasNext();) {
+				Entry<String, Float> entry= it.next();
+				float score= entry.getValue().floatValue();
+				if (score < lowestScore) {
+					lowest= entry.getKey();
+					lowestScore= score;
+				}
+			}
+			return lowest;
+		}
+
+		/**
+		 * Returns the ranking of the cached right hand sides. The ranking is computed once per
+		 * change of the cache.
+		 *
+		 * @return the ranking
+		 */
+		public RHSHistory getHistory() {
+			if (fHistory == null) {
+				float maxScore= 0;
+				for (Iterator<Float> it= fScores.values().iterator(); it.hasNext();)
+					maxScore= Math.max(maxScore, it.next().floatValue());
+
+				LinkedHashMap<String, Float> ranks= new LinkedHashMap<String, Float>((int) (fScores.size() / 0.75) + 1);
+				for (Iterator<Entry<String, Float>> it= fScores.entrySet().iterator(); it.hasNext();) {
+					Entry<String, Float> entry= it.next();
+					ranks.put(entry.getKey(), new Float(entry.getValue().floatValue() / maxScore));
+				}
+				fHistory= new RHSHistory(ranks);
+			}
+			return fHistory;
 		}
 	}
 
 	/**
-	 * A ranking of the most recently selected types.
+	 * A ranking of the selected types. The ranking is immutable.
 	 *
 	 * @since 3.2
 	 */
 	public static final class RHSHistory {
-		private final LinkedHashMap<String, Integer> fHistory;
+		private final LinkedHashMap<String, Float> fHistory;
 		private List<String> fList;
 
-		RHSHistory(LinkedHashMap<String, Integer> history) {
+		RHSHistory(LinkedHashMap<String, Float> history) {
 			fHistory= history;
 		}
 
 		/**
-		 * Returns the rank of a type in the history in [0.0,&nbsp;1.0]. The rank of the most
-		 * recently selected type is 1.0, the rank of any type that is not remembered is zero.
+		 * Returns the rank of a type in the history in [0.0,&nbsp;1.0]. The rank of the type with
+		 * the highest decayed selection frequency is 1.0, the rank of any type that is not
+		 * remembered is zero.
 		 *
 		 * @param type the fully qualified type name to get the rank for
 		 * @return the rank of <code>type</code>
@@ -291,8 +360,8 @@ public final class ContentAssistHistory {
 		public float getRank(String type) {
 			if (fHistory == null)
 				return 0.0F;
-			Integer integer= fHistory.get(type);
-			return integer == null ? 0.0F : integer.floatValue() / fHistory.size();
+			Float rank= fHistory.get(type);
+			return rank == null ? 0.0F : rank.floatValue();
 		}
 
 		/**
@@ -323,6 +392,13 @@ public final class ContentAssistHistory {
 	private static final RHSHistory EMPTY_HISTORY= new RHSHistory(null);
 	private static final int DEFAULT_TRACKED_LHS= 100;
 	private static final int DEFAULT_TRACKED_RHS= 10;
+	/**
+	 * The factor by which the scores of the remembered right hand sides of a left hand side decay
+	 * with every selection for that left hand side.
+	 *
+	 * @since 3.9
+	 */
+	private static final float DECAY= 0.8f;
 
 	private static final Set<String> UNCACHEABLE;
 	static {
@@ -334,7 +410,7 @@ public final class ContentAssistHistory {
 		UNCACHEABLE= Collections.unmodifiableSet(uncacheable);
 	}
 
-	private final LinkedHashMap<String, MRUSet<String>> fLHSCache;
+	private final LinkedHashMap<String, RHSCache> fLHSCache;
 	private final int fMaxLHS;
 	private final int fMaxRHS;
 
@@ -349,7 +425,7 @@ public final class ContentAssistHistory {
 		Assert.isLegal(maxRHS > 0);
 		fMaxLHS= maxLHS;
 		fMaxRHS= maxRHS;
-		fLHSCache= new MRUMap<String, MRUSet<String>>(fMaxLHS);
+		fLHSCache= new MRUMap<String, RHSCache>(fMaxLHS);
 	}
 
 	/**
@@ -389,25 +465,18 @@ public final class ContentAssistHistory {
 	}
 
 	/**
-	 * Returns the {@link RHSHistory history} of the types that have been selected most recently as
-	 * right hand sides for the given type.
+	 * Returns the {@link RHSHistory history} of the types that have been selected as right hand
+	 * sides for the given type. The history is computed once per change and shared, so that
+	 * ranking a proposal is a single lookup.
 	 *
 	 * @param lhs the fully qualified type name of an expected type for which right hand sides are
 	 *        requested, or <code>null</code>
 	 * @return the right hand side history for the given type
 	 */
-	public RHSHistory getHistory(String lhs) {
-		MRUSet<String> rhsCache= fLHSCache.get(lhs);
-		if (rhsCache != null) {
-			int count= rhsCache.size();
-			LinkedHashMap<String, Integer> history= new LinkedHashMap<String, Integer>((int) (count / 0.75));
-			int rank= 1;
-			for (Iterator<String> it= rhsCache.iterator(); it.hasNext(); rank++) {
-				String type= it.next();
-				history.put(type, new Integer(rank));
-			}
-			return new RHSHistory(history);
-		}
+	public synchronized RHSHistory getHistory(String lhs) {
+		RHSCache rhsCache= fLHSCache.get(lhs);
+		if (rhsCache != null)
+			return rhsCache.getHistory();
 		return EMPTY_HISTORY;
 	}
 
@@ -417,20 +486,22 @@ public final class ContentAssistHistory {
 	 *
 	 * @return the set of remembered right hand sides ordered by least recent selection
 	 */
-	public Map<String, RHSHistory> getEntireHistory() {
+	public synchronized Map<String, RHSHistory> getEntireHistory() {
 		HashMap<String, RHSHistory> map= new HashMap<String, RHSHistory>((int) (fLHSCache.size() / 0.75));
-		for ( Iterator<Entry<String, MRUSet<String>>> it= fLHSCache.entrySet().iterator(); it.hasNext();) {
-			Entry<String, MRUSet<String>> entry= it.next();
-			String lhs= entry.getKey();
-			map.put(lhs, getHistory(lhs));
+		for ( Iterator<Entry<String, RHSCache>> it= fLHSCache.entrySet().iterator(); it.hasNext();) {
+			Entry<String, RHSCache> entry= it.next();
+			map.put(entry.getKey(), entry.getValue().getHistory());
 		}
 		return Collections.unmodifiableMap(map);
 	}
 
 	private void rememberInternal(IType lhs, String rhsQualifiedName) throws JavaModelException {
 		String lhsQualifiedName= lhs.getFullyQualifiedName();
-		if (isCacheableLHS(lhs, lhsQualifiedName))
-			getCache(lhsQualifiedName).add(rhsQualifiedName);
+		if (isCacheableLHS(lhs, lhsQualifiedName)) {
+			synchronized (this) {
+				getCache(lhsQualifiedName).add(rhsQualifiedName);
+			}
+		}
 	}
 
 	private boolean isCacheableLHS(IType type, String qualifiedName) throws JavaModelException {
@@ -441,10 +512,10 @@ public final class ContentAssistHistory {
 		return !type.isInterface() && !Flags.isAbstract(type.getFlags());
 	}
 
-	private Set<String> getCache(String lhs) {
-		MRUSet<String> rhsCache= fLHSCache.get(lhs);
+	private RHSCache getCache(String lhs) {
+		RHSCache rhsCache= fLHSCache.get(lhs);
 		if (rhsCache == null) {
-			rhsCache= new MRUSet<String>(fMaxRHS);
+			rhsCache= new RHSCache(fMaxRHS);
 			fLHSCache.put(lhs, rhsCache);
 		}
 
@@ -466,7 +537,9 @@ public final class ContentAssistHistory {
 	 */
 	public static void store(ContentAssistHistory history, Preferences preferences, String key) throws CoreException {
 		StringWriter writer= new StringWriter();
-		new ReaderWriter().store(history, new StreamResult(writer));
+		synchronized (history) {
+			new ReaderWriter().store(history, new StreamResult(writer));
+		}
 		preferences.setValue(key, writer.toString());
 	}
 
@@ -15,9 +15,11 @@ package org.eclipse.jdt.internal.ui.text.java;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.swt.SWT;
@@ -47,6 +49,7 @@ import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.resource.JFaceResources;
 
+import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.contentassist.ContentAssistEvent;
 import org.eclipse.jface.text.contentassist.ContentAssistant;
@@ -73,6 +76,7 @@ import org.eclipse.jdt.ui.text.java.ContentAssistInvocationContext;
 import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.JavaUIMessages;
 import org.eclipse.jdt.internal.ui.dialogs.OptionalMessageDialog;
+import org.eclipse.jdt.internal.ui.text.java.CompletionProposalComputerDescriptor.BackgroundComputation;
 
 
 /**
@@ -83,6 +87,8 @@ import org.eclipse.jdt.internal.ui.dialogs.OptionalMessageDialog;
  * Subclasses may extend:
  * <ul>
  * <li><code>createContext</code> to provide the context object passed to the computers</li>
+ * <li><code>createBackgroundContext</code> to provide the context object passed to the computers
+ * that do not require the UI thread</li>
  * <li><code>createProgressMonitor</code> to change the way progress is reported</li>
  * <li><code>filterAndSort</code> to add sorting and filtering</li>
  * <li><code>getContextInformationValidator</code> to add context validation (needed if any
@@ -300,11 +306,27 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 			System.err.println("Code Assist (setup):\t" + (setup - start) ); //$NON-NLS-1$
 			System.err.println("Code Assist (collect):\t" + (collect - setup) ); //$NON-NLS-1$
 			System.err.println("Code Assist (sort):\t" + (filter - collect) ); //$NON-NLS-1$
+			printComputerMetrics();
 		}
 
 		return result;
 	}
 
+	/**
+	 * Prints the accumulated metrics of the computers for the partition of this processor.
+	 *
+	 * @since 3.9
+	 */
+	private void printComputerMetrics() {
+		List<CompletionProposalComputerDescriptor> descriptors= fComputerRegistry.getProposalComputerDescriptors(fPartition);
+		for (Iterator<CompletionProposalComputerDescriptor> it= descriptors.iterator(); it.hasNext();) {
+			CompletionProposalComputerDescriptor desc= it.next();
+			System.err.println("Code Assist (" + desc.getId() + "):\t" + desc.getComputationCount() + " computations, " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					+ desc.getTotalComputationTime() + " ms total, " + desc.getMaxComputationTime() + " ms max, " //$NON-NLS-1$ //$NON-NLS-2$
+					+ desc.getLateCount() + " late, " + desc.getSkippedCount() + " skipped"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
 	private void clearState() {
 		fErrorMessage=null;
 		fNumberOfComputedResults= 0;
@@ -323,9 +345,21 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 		boolean needsSortingAfterFiltering= false;
 		List<ICompletionProposal> proposals= new ArrayList<ICompletionProposal>();
 		List<CompletionProposalCategory> providers= getCategories();
-		for (Iterator<CompletionProposalCategory> it= providers.iterator(); it.hasNext();) {
-			CompletionProposalCategory cat= it.next();
-			List<ICompletionProposal> computed= cat.computeCompletionProposals(context, fPartition, new SubProgressMonitor(monitor, 1));
+
+		// start the computers that do not need the UI thread first, so that they run concurrently with the others
+		List<Map<CompletionProposalComputerDescriptor, BackgroundComputation>> computations= new ArrayList<Map<CompletionProposalComputerDescriptor, BackgroundComputation>>(providers.size());
+		for (Iterator<CompletionProposalCategory> it= providers.iterator(); it.hasNext();)
+			computations.add(startBackgroundComputations(it.next(), context));
+
+		List<Map<CompletionProposalComputerDescriptor, List<ICompletionProposal>>> uiThreadProposals= new ArrayList<Map<CompletionProposalComputerDescriptor, List<ICompletionProposal>>>(providers.size());
+		for (int i= 0; i < providers.size(); i++)
+			uiThreadProposals.add(providers.get(i).computeUIThreadCompletionProposals(context, fPartition, new SubProgressMonitor(monitor, 1), computations.get(i)));
+
+		// the time budget of the background computers starts when the UI thread is free to wait for them
+		long deadline= System.currentTimeMillis() + fComputerRegistry.getBackgroundComputerBudget();
+		for (int i= 0; i < providers.size(); i++) {
+			CompletionProposalCategory cat= providers.get(i);
+			List<ICompletionProposal> computed= cat.collectCompletionProposals(fPartition, uiThreadProposals.get(i), computations.get(i), deadline);
 			proposals.addAll(computed);
 			needsSortingAfterFiltering= needsSortingAfterFiltering || (cat.isSortingAfterFilteringNeeded() && !computed.isEmpty());
 			if (fErrorMessage == null)
@@ -337,6 +371,29 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 		return proposals;
 	}
 
+	/**
+	 * Starts the computers of the given category that do not require the UI thread. Each computer
+	 * gets its own context created by {@link #createBackgroundContext(ContentAssistInvocationContext)}.
+	 * Computers for which no background context can be created are called in the UI thread.
+	 *
+	 * @param category the category whose computers to start
+	 * @param context the code assist invocation context
+	 * @return the started computations, mapped by the descriptor of their computer
+	 * @since 3.9
+	 */
+	private Map<CompletionProposalComputerDescriptor, BackgroundComputation> startBackgroundComputations(CompletionProposalCategory category, ContentAssistInvocationContext context) {
+		Map<CompletionProposalComputerDescriptor, BackgroundComputation> computations= new HashMap<CompletionProposalComputerDescriptor, BackgroundComputation>();
+		List<CompletionProposalComputerDescriptor> descriptors= category.getBackgroundComputerDescriptors(fPartition);
+		for (Iterator<CompletionProposalComputerDescriptor> it= descriptors.iterator(); it.hasNext();) {
+			ContentAssistInvocationContext backgroundContext= createBackgroundContext(context);
+			if (backgroundContext == null)
+				break;
+			CompletionProposalComputerDescriptor desc= it.next();
+			computations.put(desc, desc.computeCompletionProposalsInBackground(backgroundContext, fComputerRegistry.getExecutor()));
+		}
+		return computations;
+	}
+
 	/**
 	 * Filters and sorts the proposals. The passed list may be modified
 	 * and returned, or a new list may be created and returned.
@@ -472,6 +529,25 @@ public class ContentAssistProcessor implements IContentAssistProcessor {
 		return new ContentAssistInvocationContext(viewer, offset);
 	}
 
+	/**
+	 * Creates the context object for a computer that runs in a background thread. The context must
+	 * not access the viewer or other UI state, and it must not change when the document is
+	 * modified. Each background computer gets its own context, so that the context does not need
+	 * to be thread-safe. This method is called in the UI thread.
+	 * <p>
+	 * Clients may extend to return a snapshot of the context created by
+	 * {@link #createContext(ITextViewer, int)}, or return <code>null</code> if no such snapshot
+	 * can be created. In the latter case, all computers are called in the UI thread.
+	 * </p>
+	 *
+	 * @param context the context created by {@link #createContext(ITextViewer, int)}
+	 * @return a snapshot of the context for a background computer, or <code>null</code>
+	 * @since 3.9
+	 */
+	protected ContentAssistInvocationContext createBackgroundContext(ContentAssistInvocationContext context) {
+		return new ContentAssistInvocationContext(new Document(context.getDocument().get()), context.getInvocationOffset());
+	}
+
 	private List<CompletionProposalCategory> getCategories() {
 		if (fCategoryIteration == null)
 			return fCategories;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -39,6 +39,13 @@ public final class FillArgumentNamesCompletionProposalCollector extends Completi
 
 	private final boolean fIsGuessArguments;
 
+	/**
+	 * The scope index shared by the parameter guessing proposals of this invocation, or
+	 * <code>null</code> if none has been created yet.
+	 * @since 3.9
+	 */
+	private ParameterGuesser.ScopeIndex fScopeIndex;
+
 	public FillArgumentNamesCompletionProposalCollector(JavaContentAssistInvocationContext context) {
 		super(context.getCompilationUnit(), true);
 		setInvocationContext(context);
@@ -73,11 +80,10 @@ public final class FillArgumentNamesCompletionProposalCollector extends Completi
 		if ((completion.length() == 0) || ((completion.length() == 1) && completion.charAt(0) == ')') || Signature.getParameterCount(methodProposal.getSignature()) == 0 || getContext().isInJavadoc())
 			return super.createJavaCompletionProposal(methodProposal);
 
-		LazyJavaCompletionProposal proposal= null;
-		proposal= ParameterGuessingProposal.createProposal(methodProposal, getInvocationContext(), fIsGuessArguments);
-		if (proposal == null) {
-			proposal= new FilledArgumentNamesMethodProposal(methodProposal, getInvocationContext());
-		}
+		ParameterGuessingProposal proposal= ParameterGuessingProposal.createProposal(methodProposal, getInvocationContext(), fScopeIndex, fIsGuessArguments);
+		if (proposal == null)
+			return new FilledArgumentNamesMethodProposal(methodProposal, getInvocationContext());
+		fScopeIndex= proposal.getScopeIndex();
 		return proposal;
 	}
 
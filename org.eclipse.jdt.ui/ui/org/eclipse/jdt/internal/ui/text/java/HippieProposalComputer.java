@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2011 IBM Corporation and others.
+ * Copyright (c) 2005, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,26 +10,48 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.text.java;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
 import org.eclipse.jface.text.contentassist.IContextInformation;
 
+import org.eclipse.ui.IEditorPart;
+import org.eclipse.ui.IEditorReference;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PlatformUI;
+
 import org.eclipse.ui.texteditor.HippieProposalProcessor;
+import org.eclipse.ui.texteditor.IDocumentProvider;
+import org.eclipse.ui.texteditor.ITextEditor;
 
 import org.eclipse.jdt.ui.text.java.ContentAssistInvocationContext;
 import org.eclipse.jdt.ui.text.java.IJavaCompletionProposalComputer;
 
 
 /**
- * A computer wrapper for the hippie processor.
+ * A computer for hippie word completions. The words of the current and the other open documents
+ * are looked up in a {@link HippieWordIndex} instead of being scanned for every invocation.
  *
  * @since 3.2
  */
 public final class HippieProposalComputer implements IJavaCompletionProposalComputer {
+	/**
+	 * The index of the words of the open documents, shared by all computers.
+	 * @since 3.9
+	 */
+	private static final HippieWordIndex fgIndex= new HippieWordIndex();
+
 	/** The wrapped processor. */
 	private final HippieProposalProcessor fProcessor= new HippieProposalProcessor();
 
@@ -43,7 +65,73 @@ public final class HippieProposalComputer implements IJavaCompletionProposalComp
 	 * @see org.eclipse.jface.text.contentassist.ICompletionProposalComputer#computeCompletionProposals(org.eclipse.jface.text.contentassist.TextContentAssistInvocationContext, org.eclipse.core.runtime.IProgressMonitor)
 	 */
 	public List<ICompletionProposal> computeCompletionProposals(ContentAssistInvocationContext context, IProgressMonitor monitor) {
-		return Arrays.asList(fProcessor.computeCompletionProposals(context.getViewer(), context.getInvocationOffset()));
+		IDocument document= context.getDocument();
+		int offset= context.getInvocationOffset();
+		String prefix;
+		try {
+			prefix= getPrefix(document, offset);
+		} catch (BadLocationException x) {
+			return Collections.emptyList();
+		}
+		if (prefix.length() == 0)
+			return Collections.emptyList();
+
+		Set<String> words= new LinkedHashSet<String>(fgIndex.getCompletions(document, prefix));
+		for (Iterator<IDocument> it= getOtherOpenDocuments(document).iterator(); it.hasNext();)
+			words.addAll(fgIndex.getCompletions(it.next(), prefix));
+
+		List<ICompletionProposal> proposals= new ArrayList<ICompletionProposal>(words.size());
+		int replacementOffset= offset - prefix.length();
+		for (Iterator<String> it= words.iterator(); it.hasNext();) {
+			String word= it.next();
+			proposals.add(new JavaCompletionProposal(word, replacementOffset, prefix.length(), null, word, 0));
+		}
+		return proposals;
+	}
+
+	/**
+	 * Returns the word part in front of the given offset.
+	 *
+	 * @param document the document
+	 * @param offset the offset
+	 * @return the prefix, possibly empty
+	 * @throws BadLocationException if the offset is not valid in the document
+	 * @since 3.9
+	 */
+	private static String getPrefix(IDocument document, int offset) throws BadLocationException {
+		int start= offset;
+		while (start > 0 && HippieWordIndex.isWordPart(document.getChar(start - 1)))
+			start--;
+		return document.get(start, offset - start);
+	}
+
+	/**
+	 * Returns the documents of the open text editors other than the given document.
+	 *
+	 * @param document the document of the invocation
+	 * @return the other open documents
+	 * @since 3.9
+	 */
+	private static List<IDocument> getOtherOpenDocuments(IDocument document) {
+		List<IDocument> documents= new ArrayList<IDocument>();
+		IWorkbenchWindow window= PlatformUI.getWorkbench().getActiveWorkbenchWindow();
+		if (window == null)
+			return documents;
+		IWorkbenchPage page= window.getActivePage();
+		if (page == null)
+			return documents;
+
+		IEditorReference[] editors= page.getEditorReferences();
+		for (int i= 0; i < editors.length; i++) {
+			IEditorPart editor= editors[i].getEditor(false);
+			if (editor instanceof ITextEditor) {
+				IDocumentProvider provider= ((ITextEditor) editor).getDocumentProvider();
+				IDocument other= provider == null ? null : provider.getDocument(editor.getEditorInput());
+				if (other != null && other != document && !documents.contains(other))
+					documents.add(other);
+			}
+		}
+		return documents;
 	}
 
 	/*
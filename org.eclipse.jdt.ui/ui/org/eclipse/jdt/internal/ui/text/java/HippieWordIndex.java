@@ -0,0 +1,295 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.java;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+import org.eclipse.core.runtime.Assert;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.IRegion;
+
+
+/**
+ * An index of the words of documents for hippie word completion. The words of a document are
+ * indexed when the document is first queried and are then kept up to date from the document
+ * events, so that looking up the completions of a prefix does not scan the document.
+ * <p>
+ * The index holds at most a given number of characters of distinct words. When the cap is
+ * exceeded, the least recently queried documents are dropped from the index. Documents whose
+ * words alone exceed the cap are scanned on every query.
+ * </p>
+ *
+ * @since 3.9
+ */
+public final class HippieWordIndex {
+
+	/**
+	 * The words of one document with their number of occurrences. Listens to the document to
+	 * keep the words up to date.
+	 */
+	private final class DocumentWords implements IDocumentListener {
+
+		private final TreeMap<String, int[]> fWords= new TreeMap<String, int[]>();
+		private int fCharacters;
+		private long fLastAccess;
+		private boolean fIsValid= true;
+
+		public void add(String text) {
+			int length= text.length();
+			int start= -1;
+			for (int i= 0; i <= length; i++) {
+				boolean isWordPart= i < length && isWordPart(text.charAt(i));
+				if (isWordPart && start == -1) {
+					start= i;
+				} else if (!isWordPart && start != -1) {
+					String word= text.substring(start, i);
+					int[] count= fWords.get(word);
+					if (count == null) {
+						fWords.put(word, new int[] { 1 });
+						fCharacters+= word.length();
+					} else {
+						count[0]++;
+					}
+					start= -1;
+				}
+			}
+		}
+
+		public void remove(String text) {
+			int length= text.length();
+			int start= -1;
+			for (int i= 0; i <= length; i++) {
+				boolean isWordPart= i < length && isWordPart(text.charAt(i));
+				if (isWordPart && start == -1) {
+					start= i;
+				} else if (!isWordPart && start != -1) {
+					String word= text.substring(start, i);
+					int[] count= fWords.get(word);
+					if (count != null && --count[0] == 0) {
+						fWords.remove(word);
+						fCharacters-= word.length();
+					}
+					start= -1;
+				}
+			}
+		}
+
+		public void getCompletions(String prefix, List<String> completions) {
+			SortedMap<String, int[]> words= fWords.subMap(prefix, prefix + Character.MAX_VALUE);
+			for (Iterator<String> it= words.keySet().iterator(); it.hasNext();) {
+				String word= it.next();
+				if (word.length() > prefix.length())
+					completions.add(word);
+			}
+		}
+
+		/*
+		 * @see org.eclipse.jface.text.IDocumentListener#documentAboutToBeChanged(org.eclipse.jface.text.DocumentEvent)
+		 */
+		public void documentAboutToBeChanged(DocumentEvent event) {
+			synchronized (HippieWordIndex.this) {
+				if (!fIsValid)
+					return;
+				try {
+					remove(getLines(event.getDocument(), event.getOffset(), event.getLength()));
+				} catch (BadLocationException e) {
+					fIsValid= false;
+				}
+			}
+		}
+
+		/*
+		 * @see org.eclipse.jface.text.IDocumentListener#documentChanged(org.eclipse.jface.text.DocumentEvent)
+		 */
+		public void documentChanged(DocumentEvent event) {
+			synchronized (HippieWordIndex.this) {
+				if (!fIsValid)
+					return;
+				try {
+					String text= event.getText();
+					add(getLines(event.getDocument(), event.getOffset(), text == null ? 0 : text.length()));
+				} catch (BadLocationException e) {
+					fIsValid= false;
+				}
+			}
+		}
+
+		/**
+		 * Returns the text of the lines that intersect the given range. Words never span lines,
+		 * so removing the words of these lines before a change and adding them after the change
+		 * keeps the words of the document up to date.
+		 *
+		 * @param document the document
+		 * @param offset the offset of the range
+		 * @param length the length of the range
+		 * @return the text of the lines that intersect the range, including their delimiters
+		 *         except for the delimiter of the last line
+		 * @throws BadLocationException if the range is not inside the document
+		 */
+		private String getLines(IDocument document, int offset, int length) throws BadLocationException {
+			int start= document.getLineInformationOfOffset(offset).getOffset();
+			IRegion last= document.getLineInformationOfOffset(offset + length);
+			return document.get(start, last.getOffset() + last.getLength() - start);
+		}
+	}
+
+	/** The default maximum number of characters of indexed words. */
+	public static final int DEFAULT_MAX_CHARACTERS= 2 * 1024 * 1024;
+
+	/** The indexed documents, weakly referenced so that discarded documents are released. */
+	private final Map<IDocument, DocumentWords> fDocuments= new WeakHashMap<IDocument, DocumentWords>();
+	private final int fMaxCharacters;
+	private long fAccessCount;
+
+	/**
+	 * Creates a new index with the {@link #DEFAULT_MAX_CHARACTERS default} cap.
+	 */
+	public HippieWordIndex() {
+		this(DEFAULT_MAX_CHARACTERS);
+	}
+
+	/**
+	 * Creates a new index.
+	 *
+	 * @param maxCharacters the maximum number of characters of indexed words, must be &gt; 0
+	 */
+	public HippieWordIndex(int maxCharacters) {
+		Assert.isLegal(maxCharacters > 0);
+		fMaxCharacters= maxCharacters;
+	}
+
+	/**
+	 * Returns the words of the given document that start with the given prefix and are longer
+	 * than the prefix, in ascending order.
+	 *
+	 * @param document the document
+	 * @param prefix the prefix
+	 * @return the completions of <code>prefix</code> in <code>document</code>
+	 */
+	public synchronized List<String> getCompletions(IDocument document, String prefix) {
+		List<String> completions= new ArrayList<String>();
+		DocumentWords words= fDocuments.get(document);
+		if (words != null && !words.fIsValid) {
+			remove(document);
+			words= null;
+		}
+		if (words == null) {
+			words= new DocumentWords();
+			words.add(document.get());
+			if (words.fCharacters > fMaxCharacters) {
+				// too large to be indexed
+				words.getCompletions(prefix, completions);
+				return completions;
+			}
+			document.addDocumentListener(words);
+			fDocuments.put(document, words);
+		}
+		words.fLastAccess= ++fAccessCount;
+		words.getCompletions(prefix, completions);
+
+		evict(words);
+		return completions;
+	}
+
+	/**
+	 * Removes the given document from the index.
+	 *
+	 * @param document the document to remove
+	 */
+	public synchronized void remove(IDocument document) {
+		DocumentWords words= fDocuments.remove(document);
+		if (words != null)
+			document.removeDocumentListener(words);
+	}
+
+	/**
+	 * Removes all documents from the index.
+	 */
+	public synchronized void clear() {
+		List<IDocument> documents= new ArrayList<IDocument>(fDocuments.keySet());
+		for (Iterator<IDocument> it= documents.iterator(); it.hasNext();)
+			remove(it.next());
+	}
+
+	/**
+	 * Returns the number of characters of the indexed words.
+	 *
+	 * @return the number of indexed characters
+	 */
+	public synchronized int getIndexedCharacters() {
+		int characters= 0;
+		for (Iterator<DocumentWords> it= fDocuments.values().iterator(); it.hasNext();)
+			characters+= it.next().fCharacters;
+		return characters;
+	}
+
+	/**
+	 * Tells whether the given document is indexed.
+	 *
+	 * @param document the document
+	 * @return <code>true</code> if the document is indexed
+	 */
+	public synchronized boolean isIndexed(IDocument document) {
+		return fDocuments.containsKey(document);
+	}
+
+	/**
+	 * Drops the least recently queried documents until the index is within its cap.
+	 *
+	 * @param keep the words that must not be dropped
+	 */
+	private void evict(DocumentWords keep) {
+		while (getIndexedCharacters() > fMaxCharacters) {
+			IDocument eldest= null;
+			long eldestAccess= Long.MAX_VALUE;
+			for (Iterator<Map.Entry<IDocument, DocumentWords>> it= fDocuments.entrySet().iterator(); it.hasNext();) {
+				Map.Entry<IDocument, DocumentWords> entry= it.next();
+				DocumentWords words= entry.getValue();
+				if (words != keep && words.fLastAccess < eldestAccess) {
+					eldest= entry.getKey();
+					eldestAccess= words.fLastAccess;
+				}
+			}
+			if (eldest == null)
+				return;
+			remove(eldest);
+		}
+	}
+
+	/**
+	 * Tells whether the given character is part of a word.
+	 *
+	 * @param ch the character
+	 * @return <code>true</code> if <code>ch</code> is part of a word
+	 */
+	public static boolean isWordPart(char ch) {
+		if (Character.isLetterOrDigit(ch))
+			return true;
+		switch (Character.getType(ch)) {
+			case Character.NON_SPACING_MARK:
+			case Character.CONNECTOR_PUNCTUATION:
+			case Character.LETTER_NUMBER:
+				return true;
+			default:
+				return false;
+		}
+	}
+}
@@ -16,6 +16,8 @@ import java.util.List;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.contentassist.ContentAssistant;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
@@ -125,4 +127,15 @@ public class JavaCompletionProcessor extends ContentAssistProcessor {
 	protected ContentAssistInvocationContext createContext(ITextViewer viewer, int offset) {
 		return new JavaContentAssistInvocationContext(viewer, offset, fEditor);
 	}
+
+	/*
+	 * @see org.eclipse.jdt.internal.ui.text.java.ContentAssistProcessor#createBackgroundContext(org.eclipse.jdt.ui.text.java.ContentAssistInvocationContext)
+	 * @since 3.9
+	 */
+	@Override
+	protected ContentAssistInvocationContext createBackgroundContext(ContentAssistInvocationContext context) {
+		JavaContentAssistInvocationContext javaContext= (JavaContentAssistInvocationContext) context;
+		IDocument document= new Document(javaContext.getDocument().get());
+		return new JavaContentAssistInvocationContext(document, javaContext.getInvocationOffset(), javaContext.getCompilationUnit());
+	}
 }
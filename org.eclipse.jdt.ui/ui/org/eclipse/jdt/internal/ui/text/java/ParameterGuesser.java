@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,9 +13,11 @@ package org.eclipse.jdt.internal.ui.text.java;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.swt.graphics.Image;
@@ -26,6 +28,7 @@ import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
 
 import org.eclipse.jdt.core.BindingKey;
+import org.eclipse.jdt.core.CompletionContext;
 import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.IField;
 import org.eclipse.jdt.core.IJavaElement;
@@ -107,10 +110,64 @@ public class ParameterGuesser {
 		}
 	}
 
+	/**
+	 * The visible elements of a completion invocation, built once and shared by all parameter
+	 * guessing proposals of the invocation. Caches the elements assignable to a parameter type
+	 * and the variables created from the elements. Not thread safe.
+	 *
+	 * @since 3.9
+	 */
+	static final class ScopeIndex {
+
+		private final CompletionContext fCoreContext;
+		/** The visible elements assignable to a type, keyed by type signature. */
+		private final Map<String, IJavaElement[]> fVisibleElements= new HashMap<String, IJavaElement[]>();
+		/**
+		 * The variables created from the visible elements, or <code>null</code> for elements
+		 * that are not suggested. The position score and the autoboxing flag of these variables
+		 * are not set, as they depend on the parameter.
+		 */
+		private final Map<IJavaElement, Variable> fVariables= new HashMap<IJavaElement, Variable>();
+
+		/**
+		 * Creates a new index.
+		 *
+		 * @param coreContext the extended core context of the completion invocation
+		 */
+		ScopeIndex(CompletionContext coreContext) {
+			fCoreContext= coreContext;
+		}
+
+		/**
+		 * Returns the core context of the completion invocation.
+		 *
+		 * @return the core context
+		 */
+		CompletionContext getCoreContext() {
+			return fCoreContext;
+		}
+
+		/**
+		 * Returns the visible elements that are assignable to the given type.
+		 *
+		 * @param typeSignature the signature of the type
+		 * @return the assignable visible elements
+		 */
+		IJavaElement[] getVisibleElements(String typeSignature) {
+			IJavaElement[] elements= fVisibleElements.get(typeSignature);
+			if (elements == null) {
+				elements= fCoreContext.getVisibleElements(typeSignature);
+				fVisibleElements.put(typeSignature, elements);
+			}
+			return elements;
+		}
+	}
+
 	private static final char[] NO_TRIGGERS= new char[0];
 
 	private final Set<String> fAlreadyMatchedNames;
 	private final IJavaElement fEnclosingElement;
+	private final ScopeIndex fScopeIndex;
 
 	/**
 	 * Creates a parameter guesser
@@ -118,7 +175,20 @@ public class ParameterGuesser {
 	 * @param enclosingElement the enclosing Java element
 	 */
 	public ParameterGuesser(IJavaElement enclosingElement) {
+		this(enclosingElement, null);
+	}
+
+	/**
+	 * Creates a parameter guesser that shares the variables created from the visible elements
+	 * with the other guessers of the same completion invocation.
+	 * 
+	 * @param enclosingElement the enclosing Java element
+	 * @param scopeIndex the scope index of the completion invocation, or <code>null</code>
+	 * @since 3.9
+	 */
+	ParameterGuesser(IJavaElement enclosingElement, ScopeIndex scopeIndex) {
 		fEnclosingElement= enclosingElement;
+		fScopeIndex= scopeIndex;
 		fAlreadyMatchedNames= new HashSet<String>();
 	}
 
@@ -130,7 +200,7 @@ public class ParameterGuesser {
 
 		ArrayList<Variable> res= new ArrayList<Variable>();
 		for (int i= 0; i < suggestions.length; i++) {
-			Variable variable= createVariable(suggestions[i], currentType, expectedType, i);
+			Variable variable= getVariable(suggestions[i], currentType, expectedType, i);
 			if (variable != null) {
 				if (fAlreadyMatchedNames.contains(variable.name)) {
 					variable.alreadyMatched= true;
@@ -167,6 +237,24 @@ public class ParameterGuesser {
 		return res;
 	}
 
+	private Variable getVariable(IJavaElement element, IType enclosingType, String expectedType, int positionScore) throws JavaModelException {
+		if (fScopeIndex == null)
+			return createVariable(element, enclosingType, expectedType, positionScore);
+
+		Variable variable;
+		if (fScopeIndex.fVariables.containsKey(element)) {
+			variable= fScopeIndex.fVariables.get(element);
+		} else {
+			variable= createVariable(element, enclosingType, expectedType, 0);
+			fScopeIndex.fVariables.put(element, variable);
+		}
+		if (variable == null)
+			return null;
+
+		boolean isAutoboxMatch= isPrimitiveType(expectedType) != isPrimitiveType(variable.qualifiedTypeName);
+		return new Variable(variable.qualifiedTypeName, variable.name, variable.variableType, isAutoboxMatch, positionScore, variable.triggerChars, variable.descriptor);
+	}
+
 	public Variable createVariable(IJavaElement element, IType enclosingType, String expectedType, int positionScore) throws JavaModelException {
 		int variableType;
 		int elementType= element.getElementType();
@@ -72,9 +72,29 @@ public class ParameterGuessingProposal extends JavaMethodCompletionProposal {
 	 * @return a proposal or <code>null</code>
 	 */
 	public static ParameterGuessingProposal createProposal(CompletionProposal proposal, JavaContentAssistInvocationContext context, boolean fillBestGuess) {
+		return createProposal(proposal, context, null, fillBestGuess);
+	}
+
+	/**
+	 * Creates a {@link ParameterGuessingProposal} or <code>null</code> if the core context isn't available or extended.
+	 * The proposal guesses its parameters from the given scope index, which can be shared by all
+	 * proposals of the same completion invocation.
+	 *
+	 * @param proposal the original completion proposal
+	 * @param context the current context
+	 * @param scopeIndex the scope index of the completion invocation, or <code>null</code> to use
+	 *            an index of this proposal only; ignored if it was built for another core context
+	 * @param fillBestGuess if set, the best guess will be filled in
+	 *
+	 * @return a proposal or <code>null</code>
+	 * @since 3.9
+	 */
+	static ParameterGuessingProposal createProposal(CompletionProposal proposal, JavaContentAssistInvocationContext context, ParameterGuesser.ScopeIndex scopeIndex, boolean fillBestGuess) {
 		CompletionContext coreContext= context.getCoreContext();
  		if (coreContext != null && coreContext.isExtended()) {
-			return new ParameterGuessingProposal(proposal, context, coreContext, fillBestGuess);
+			if (scopeIndex == null || scopeIndex.getCoreContext() != coreContext)
+				scopeIndex= new ParameterGuesser.ScopeIndex(coreContext);
+			return new ParameterGuessingProposal(proposal, context, coreContext, scopeIndex, fillBestGuess);
  		}
  		return null;
 	}
@@ -94,12 +114,29 @@ public class ParameterGuessingProposal extends JavaMethodCompletionProposal {
 
 	private final CompletionContext fCoreContext;
 
- 	private ParameterGuessingProposal(CompletionProposal proposal, JavaContentAssistInvocationContext context, CompletionContext coreContext, boolean fillBestGuess) {
+	/**
+	 * The scope index shared with the other proposals of the completion invocation.
+	 * @since 3.9
+	 */
+	private final ParameterGuesser.ScopeIndex fScopeIndex;
+
+ 	private ParameterGuessingProposal(CompletionProposal proposal, JavaContentAssistInvocationContext context, CompletionContext coreContext, ParameterGuesser.ScopeIndex scopeIndex, boolean fillBestGuess) {
  		super(proposal, context);
 		fCoreContext= coreContext;
+		fScopeIndex= scopeIndex;
 		fFillBestGuess= fillBestGuess;
  	}
 
+	/**
+	 * Returns the scope index from which this proposal guesses its parameters.
+	 *
+	 * @return the scope index
+	 * @since 3.9
+	 */
+	ParameterGuesser.ScopeIndex getScopeIndex() {
+		return fScopeIndex;
+	}
+
 	private IJavaElement getEnclosingElement() {
 		return fCoreContext.getEnclosingElement();
 	}
@@ -110,7 +147,7 @@ public class ParameterGuessingProposal extends JavaMethodCompletionProposal {
 
 		IJavaElement[][] assignableElements= new IJavaElement[types.length][];
 		for (int i= 0; i < types.length; i++) {
-			assignableElements[i]= fCoreContext.getVisibleElements(new String(types[i]));
+			assignableElements[i]= fScopeIndex.getVisibleElements(new String(types[i]));
 		}
 		return assignableElements;
 	}
@@ -307,7 +344,7 @@ public class ParameterGuessingProposal extends JavaMethodCompletionProposal {
 		fChoices= new ICompletionProposal[count][];
 
 		String[] parameterTypes= getParameterTypes();
-		ParameterGuesser guesser= new ParameterGuesser(getEnclosingElement());
+		ParameterGuesser guesser= new ParameterGuesser(getEnclosingElement(), fScopeIndex);
 		IJavaElement[][] assignableElements= getAssignableElements();
 
 		for (int i= count - 1; i >= 0; i--) {
@@ -37,6 +37,8 @@ final class JavaHoverMessages extends NLS {
 	public static String JavadocHover_noInformation;
 	public static String JavadocHover_constantValue_hexValue;
 	public static String JavadocHover_error_gettingJavadoc;
+	public static String JavadocHover_loading;
+	public static String JavadocHover_loading_job;
 	public static String JavadocHover_forward;
 	public static String JavadocHover_forward_toElement_toolTip;
 	public static String JavadocHover_forward_toolTip;
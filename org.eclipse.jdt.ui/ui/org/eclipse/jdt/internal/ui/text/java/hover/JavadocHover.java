@@ -18,16 +18,23 @@ import java.io.Reader;
 import java.io.StringReader;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.osgi.framework.Bundle;
 
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.FontData;
+import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.ToolBarManager;
@@ -261,6 +268,137 @@ public class JavadocHover extends AbstractJavaEditorTextHover {
 	}
 
 
+	/**
+	 * Hover input that is shown while the Javadoc of its element is loaded.
+	 *
+	 * @since 3.9
+	 */
+	private static final class LoadingInput extends JavadocBrowserInformationControlInput {
+		private final JavadocLoader fLoader;
+
+		public LoadingInput(JavadocBrowserInformationControlInput input, JavadocLoader loader) {
+			super(null, input.getElement(), input.getHtml(), input.getLeadingImageWidth());
+			fLoader= loader;
+		}
+	}
+
+	/**
+	 * Job that computes the hover info of a member whose Javadoc is not cached. Controls
+	 * that show the {@link LoadingInput} of the loader are updated with the hover info once
+	 * it is computed.
+	 *
+	 * @since 3.9
+	 */
+	private static final class JavadocLoader extends Job {
+		private final IJavaElement[] fElements;
+		private final ITypeRoot fEditorInputElement;
+		private final IRegion fHoverRegion;
+		private final List<BrowserInformationControl> fControls= new ArrayList<BrowserInformationControl>();
+		private LoadingInput fLoadingInput;
+		private JavadocBrowserInformationControlInput fInput;
+		private boolean fIsDone;
+
+		public JavadocLoader(IJavaElement[] elements, ITypeRoot editorInputElement, IRegion hoverRegion) {
+			super(JavaHoverMessages.JavadocHover_loading_job);
+			fElements= elements;
+			fEditorInputElement= editorInputElement;
+			fHoverRegion= hoverRegion;
+			setSystem(true);
+			setPriority(INTERACTIVE);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			JavadocBrowserInformationControlInput input= getHoverInfo(fElements, fEditorInputElement, fHoverRegion, null, false);
+			final BrowserInformationControl[] controls;
+			synchronized (this) {
+				fInput= input;
+				fIsDone= true;
+				notifyAll();
+				controls= fControls.toArray(new BrowserInformationControl[fControls.size()]);
+				fControls.clear();
+			}
+			if (controls.length > 0) {
+				Display.getDefault().asyncExec(new Runnable() {
+					public void run() {
+						for (int i= 0; i < controls.length; i++) {
+							if (controls[i].isVisible())
+								update(controls[i]);
+						}
+					}
+				});
+			}
+			return Status.OK_STATUS;
+		}
+
+		/**
+		 * Waits until the hover info is computed.
+		 *
+		 * @param timeout the maximal time to wait in milliseconds
+		 * @return <code>true</code> if the hover info is computed
+		 */
+		public synchronized boolean waitUntilDone(long timeout) {
+			long end= System.currentTimeMillis() + timeout;
+			long remaining= timeout;
+			while (!fIsDone && remaining > 0) {
+				try {
+					wait(remaining);
+				} catch (InterruptedException e) {
+					break;
+				}
+				remaining= end - System.currentTimeMillis();
+			}
+			return fIsDone;
+		}
+
+		/**
+		 * Returns the hover info.
+		 *
+		 * @return the hover info or <code>null</code> if it is not computed yet
+		 */
+		public synchronized JavadocBrowserInformationControlInput getInput() {
+			return fInput;
+		}
+
+		/**
+		 * Returns the input to show until the hover info is computed.
+		 *
+		 * @return the loading input
+		 */
+		public synchronized LoadingInput getLoadingInput() {
+			if (fLoadingInput == null) {
+				JavadocBrowserInformationControlInput input= getHoverInfo(fElements, fEditorInputElement, fHoverRegion, null, true);
+				fLoadingInput= new LoadingInput(input, this);
+			}
+			return fLoadingInput;
+		}
+
+		/**
+		 * Updates the given control once the hover info is computed. Must be called in the UI
+		 * thread.
+		 *
+		 * @param control the control that shows the loading input
+		 */
+		public void addControl(BrowserInformationControl control) {
+			synchronized (this) {
+				if (!fIsDone) {
+					fControls.add(control);
+					return;
+				}
+			}
+			update(control);
+		}
+
+		private void update(BrowserInformationControl control) {
+			JavadocBrowserInformationControlInput input= getInput();
+			if (control.getInput() != fLoadingInput || input == null)
+				return;
+			control.setInput(input);
+			Point size= control.computeSizeHint();
+			control.setSize(size.x, size.y);
+		}
+	}
+
 	/**
 	 * Presenter control creator.
 	 *
@@ -334,6 +472,7 @@ public class JavadocHover extends AbstractJavaEditorTextHover {
 				tbm.update(true);
 
 				addLinkListener(iControl);
+				addLoadingListener(iControl);
 				return iControl;
 
 			} else {
@@ -395,6 +534,7 @@ public class JavadocHover extends AbstractJavaEditorTextHover {
 					}
 				};
 				addLinkListener(iControl);
+				addLoadingListener(iControl);
 				return iControl;
 			} else {
 				return new DefaultInformationControl(parent, tooltipAffordanceString);
@@ -431,6 +571,13 @@ public class JavadocHover extends AbstractJavaEditorTextHover {
 	 */
 	private static String fgStyleSheet;
 
+	/**
+	 * The time in milliseconds to wait for Javadoc that is not cached before the hover is
+	 * shown with a loading message.
+	 * @since 3.9
+	 */
+	private static final long LOADING_DELAY= 200;
+
 	/**
 	 * The hover control creator.
 	 *
@@ -541,6 +688,22 @@ public class JavadocHover extends AbstractJavaEditorTextHover {
 		}));
 	}
 
+	/**
+	 * Adds a listener to the given control that updates the control with the Javadoc when it
+	 * shows a {@link LoadingInput} and the Javadoc has been loaded.
+	 *
+	 * @param control the control
+	 * @since 3.9
+	 */
+	private static void addLoadingListener(final BrowserInformationControl control) {
+		control.addInputChangeListener(new IInputChangedListener() {
+			public void inputChanged(Object newInput) {
+				if (newInput instanceof LoadingInput)
+					((LoadingInput) newInput).fLoader.addControl(control);
+			}
+		});
+	}
+
 	/**
 	 * @deprecated see {@link org.eclipse.jface.text.ITextHover#getHoverInfo(ITextViewer, IRegion)}
 	 */
@@ -562,7 +725,21 @@ public class JavadocHover extends AbstractJavaEditorTextHover {
 		if (elements == null || elements.length == 0)
 			return null;
 
-		return getHoverInfo(elements, getEditorInputJavaElement(), hoverRegion, null);
+		ITypeRoot editorInputElement= getEditorInputJavaElement();
+		if (elements.length == 1 && elements[0] instanceof IMember) {
+			IMember member= (IMember) elements[0];
+			JavadocContentAccess2.prefetchHTMLContent(member);
+			if (!JavadocContentAccess2.isHTMLContentCached(member, true)) {
+				// show the hover with a loading message if the Javadoc takes long
+				JavadocLoader loader= new JavadocLoader(elements, editorInputElement, hoverRegion);
+				loader.schedule();
+				if (loader.waitUntilDone(LOADING_DELAY))
+					return loader.getInput();
+				return loader.getLoadingInput();
+			}
+		}
+
+		return getHoverInfo(elements, editorInputElement, hoverRegion, null);
 	}
 
 	/**
@@ -576,6 +753,22 @@ public class JavadocHover extends AbstractJavaEditorTextHover {
 	 * @since 3.4
 	 */
 	private static JavadocBrowserInformationControlInput getHoverInfo(IJavaElement[] elements, ITypeRoot editorInputElement, IRegion hoverRegion, JavadocBrowserInformationControlInput previousInput) {
+		return getHoverInfo(elements, editorInputElement, hoverRegion, previousInput, false);
+	}
+
+	/**
+	 * Computes the hover info.
+	 *
+	 * @param elements the resolved elements
+	 * @param editorInputElement the editor input, or <code>null</code>
+	 * @param hoverRegion the text range of the hovered word, or <code>null</code>
+	 * @param previousInput the previous input, or <code>null</code>
+	 * @param isLoading <code>true</code> to show a loading message instead of the Javadoc of a
+	 *            member
+	 * @return the HTML hover info for the given element(s) or <code>null</code> if no information is available
+	 * @since 3.9
+	 */
+	private static JavadocBrowserInformationControlInput getHoverInfo(IJavaElement[] elements, ITypeRoot editorInputElement, IRegion hoverRegion, JavadocBrowserInformationControlInput previousInput, boolean isLoading) {
 		int nResults= elements.length;
 		StringBuffer buffer= new StringBuffer();
 		boolean hasContents= false;
@@ -608,7 +801,13 @@ public class JavadocHover extends AbstractJavaEditorTextHover {
 		} else {
 
 			element= elements[0];
-			if (element instanceof IMember) {
+			if (element instanceof IMember && isLoading) {
+				HTMLPrinter.addSmallHeader(buffer, getInfoText(element, editorInputElement, hoverRegion, true));
+				buffer.append("<br>"); //$NON-NLS-1$
+				HTMLPrinter.addParagraph(buffer, JavaHoverMessages.JavadocHover_loading);
+				hasContents= true;
+
+			} else if (element instanceof IMember) {
 				HTMLPrinter.addSmallHeader(buffer, getInfoText(element, editorInputElement, hoverRegion, true));
 				buffer.append("<br>"); //$NON-NLS-1$
 				addAnnotations(buffer, element, editorInputElement, hoverRegion);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -65,4 +65,14 @@ public class JavadocCompletionProcessor extends JavaCompletionProcessor {
 		return new JavadocContentAssistInvocationContext(viewer, offset, fEditor, fSubProcessorFlags);
 	}
 
+	/*
+	 * @see org.eclipse.jdt.internal.ui.text.java.JavaCompletionProcessor#createBackgroundContext(org.eclipse.jdt.ui.text.java.ContentAssistInvocationContext)
+	 * @since 3.9
+	 */
+	@Override
+	protected ContentAssistInvocationContext createBackgroundContext(ContentAssistInvocationContext context) {
+		// Javadoc contexts access the viewer, all computers run in the UI thread
+		return null;
+	}
+
 }
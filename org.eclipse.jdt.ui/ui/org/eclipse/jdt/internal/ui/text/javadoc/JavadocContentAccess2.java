@@ -25,6 +25,10 @@ import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 
 import org.eclipse.core.resources.IResource;
 
@@ -32,6 +36,7 @@ import org.eclipse.jface.internal.text.html.HTMLPrinter;
 
 import org.eclipse.jdt.core.IBuffer;
 import org.eclipse.jdt.core.IField;
+import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IMember;
 import org.eclipse.jdt.core.IMethod;
@@ -96,6 +101,13 @@ public class JavadocContentAccess2 {
 	private static final String PARAM_NAME_START= "<b>"; //$NON-NLS-1$
 	private static final String PARAM_NAME_END= "</b> "; //$NON-NLS-1$
 
+	/**
+	 * The job that prefetches the Javadoc of the members of a type.
+	 *
+	 * @since 3.9
+	 */
+	private static PrefetchJob fgPrefetchJob;
+
 	/**
 	 * Implements the "Algorithm for Inheriting Method Comments" as specified for <a href=
 	 * "http://download.oracle.com/javase/1.4.2/docs/tooldocs/solaris/javadoc.html#inheritingcomments"
@@ -219,6 +231,64 @@ public class JavadocContentAccess2 {
 		}
 	}
 
+	/**
+	 * Renders the Javadoc of the members of a type in the background.
+	 *
+	 * @since 3.9
+	 */
+	private static final class PrefetchJob extends Job {
+
+		/**
+		 * The maximal number of members whose Javadoc is rendered per type.
+		 */
+		private static final int MAX_MEMBERS= 200;
+
+		private IType fType;
+
+		public PrefetchJob() {
+			super(JavaDocMessages.JavadocContentAccess2_prefetch_job);
+			setSystem(true);
+			setPriority(DECORATE);
+		}
+
+		public synchronized void prefetch(IType type) {
+			if (type.equals(fType))
+				return;
+			fType= type;
+			cancel();
+			schedule();
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			IType type;
+			synchronized (this) {
+				type= fType;
+			}
+			if (type == null)
+				return Status.OK_STATUS;
+
+			try {
+				IJavaElement[] children= type.getChildren();
+				int count= Math.min(children.length, MAX_MEMBERS);
+				for (int i= 0; i < count; i++) {
+					if (monitor.isCanceled())
+						return Status.CANCEL_STATUS;
+					if (children[i] instanceof IMember && !isHTMLContentCached((IMember) children[i], true))
+						getHTMLContent((IMember) children[i], true);
+				}
+			} catch (JavaModelException e) {
+				// the Javadoc is rendered again when it is requested
+			} finally {
+				synchronized (this) {
+					if (fType == type && !monitor.isCanceled())
+						fType= null;
+				}
+			}
+			return Status.OK_STATUS;
+		}
+	}
+
 	private static class JavadocLookup {
 		private static final JavadocLookup NONE= new JavadocLookup(null) {
 			@Override
@@ -456,6 +526,52 @@ public class JavadocContentAccess2 {
 	 * @throws JavaModelException is thrown when the element's Javadoc can not be accessed
 	 */
 	public static String getHTMLContent(IMember member, boolean useAttachedJavadoc) throws JavaModelException {
+		JavadocHTMLCache cache= JavaPlugin.getDefault().getJavadocHTMLCache();
+		String stamp= JavadocHTMLCache.getStamp(member);
+		JavadocHTMLCache.Content content= cache.get(member, useAttachedJavadoc, stamp);
+		if (content == null) {
+			int modelStamp= cache.getModelStamp(member);
+			content= cache.put(member, useAttachedJavadoc, computeHTMLContent(member, useAttachedJavadoc), stamp, modelStamp);
+		}
+		return content.getHTML();
+	}
+
+	/**
+	 * Tells whether the Javadoc of the given member is cached, so that
+	 * {@link #getHTMLContent(IMember, boolean)} returns without rendering it.
+	 *
+	 * @param member the member
+	 * @param useAttachedJavadoc if <code>true</code> Javadoc will be extracted from attached
+	 *            Javadoc if there's no source
+	 * @return <code>true</code> if the Javadoc of the member is cached
+	 * @since 3.9
+	 */
+	public static boolean isHTMLContentCached(IMember member, boolean useAttachedJavadoc) {
+		return JavaPlugin.getDefault().getJavadocHTMLCache().contains(member, useAttachedJavadoc, JavadocHTMLCache.getStamp(member));
+	}
+
+	/**
+	 * Renders the Javadoc of the members of the type of the given member in the background, so
+	 * that it is cached when it is requested next. The type of a member is the member itself if
+	 * it is a type and its declaring type otherwise. Only the most recently requested type is
+	 * prefetched.
+	 *
+	 * @param member the member
+	 * @since 3.9
+	 */
+	public static void prefetchHTMLContent(IMember member) {
+		IType type= member instanceof IType ? (IType) member : member.getDeclaringType();
+		if (type == null)
+			return;
+
+		synchronized (JavadocContentAccess2.class) {
+			if (fgPrefetchJob == null)
+				fgPrefetchJob= new PrefetchJob();
+		}
+		fgPrefetchJob.prefetch(type);
+	}
+
+	private static String computeHTMLContent(IMember member, boolean useAttachedJavadoc) throws JavaModelException {
 		String sourceJavadoc= getHTMLContentFromSource(member);
 		if (sourceJavadoc == null || sourceJavadoc.length() == 0 || sourceJavadoc.trim().equals("{@inheritDoc}")) { //$NON-NLS-1$
 			if (useAttachedJavadoc) {
@@ -0,0 +1,402 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.javadoc;
+
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.eclipse.core.runtime.IPath;
+
+import org.eclipse.core.resources.IResource;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IBuffer;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+
+import org.eclipse.jdt.internal.corext.javadoc.JavaDocLocations;
+
+import org.eclipse.jdt.internal.ui.javaeditor.DocumentAdapter;
+
+
+/**
+ * A bounded cache of the Javadoc HTML rendered by {@link JavadocContentAccess2}.
+ * <p>
+ * Entries are keyed by the handle of the member and are only valid as long as the stamp of
+ * the member's source and of its source and Javadoc attachments did not change. The cache is
+ * bounded by the number of entries and by their accumulated weight, where the weight of an
+ * entry is the length of its HTML. The least recently used entries are evicted first. The HTML
+ * is only softly referenced, so that it is dropped when the memory is low.
+ * </p>
+ * <p>
+ * The Javadoc of a member can be inherited from other members, so the entries of source
+ * members are dropped whenever the Java model changes. The entries of binary members are
+ * only dropped when the Java model changes other than by modifications of compilation units,
+ * see {@link #modelChanged(IJavaElementDelta)}.
+ * </p>
+ *
+ * @since 3.9
+ */
+public final class JavadocHTMLCache {
+
+	/**
+	 * The cached Javadoc of a member.
+	 */
+	public static final class Content {
+
+		private final String fHTML;
+
+		private Content(String html) {
+			fHTML= html;
+		}
+
+		/**
+		 * Returns the Javadoc HTML.
+		 *
+		 * @return the HTML or <code>null</code> if the member has no Javadoc
+		 */
+		public String getHTML() {
+			return fHTML;
+		}
+	}
+
+	private static final class Entry {
+
+		private final SoftReference<Content> fContent;
+		private final String fStamp;
+		private final boolean fIsBinary;
+		private final int fWeight;
+
+		public Entry(Content content, String stamp, boolean isBinary) {
+			fContent= new SoftReference<Content>(content);
+			fStamp= stamp;
+			fIsBinary= isBinary;
+			fWeight= content.fHTML == null ? 1 : Math.max(1, content.fHTML.length());
+		}
+	}
+
+	/**
+	 * The default for the maximal number of cached members.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES= 500;
+
+	/**
+	 * The default for the maximal accumulated HTML length of all cached members.
+	 */
+	public static final int DEFAULT_MAX_WEIGHT= 2 * 1024 * 1024;
+
+	private static final int CONTENT_FLAGS= IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_FINE_GRAINED | IJavaElementDelta.F_AST_AFFECTED | IJavaElementDelta.F_PRIMARY_RESOURCE | IJavaElementDelta.F_PRIMARY_WORKING_COPY;
+
+	private final LinkedHashMap<String, Entry> fEntries= new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	private int fWeight= 0;
+	private int fMaxEntries= DEFAULT_MAX_ENTRIES;
+	private int fMaxWeight= DEFAULT_MAX_WEIGHT;
+	private int fSourceModelStamp= 0;
+	private int fBinaryModelStamp= 0;
+
+	private int fHits= 0;
+	private int fMisses= 0;
+	private int fEvictions= 0;
+
+	private final IElementChangedListener fListener= new IElementChangedListener() {
+		public void elementChanged(ElementChangedEvent event) {
+			modelChanged(event.getDelta());
+		}
+	};
+
+	/**
+	 * Creates a new cache that listens to changes of the Java model.
+	 */
+	public JavadocHTMLCache() {
+		JavaCore.addElementChangedListener(fListener);
+	}
+
+	/**
+	 * Stops listening to the Java model and removes all entries.
+	 */
+	public void dispose() {
+		JavaCore.removeElementChangedListener(fListener);
+		clear();
+	}
+
+	/**
+	 * Returns the cached Javadoc of the given member.
+	 *
+	 * @param member the member
+	 * @param useAttachedJavadoc whether the Javadoc was allowed to be extracted from the attached
+	 *            Javadoc
+	 * @param stamp the current stamp of the member, see {@link #getStamp(IMember)}
+	 * @return the Javadoc or <code>null</code> if no valid Javadoc is cached
+	 */
+	public synchronized Content get(IMember member, boolean useAttachedJavadoc, String stamp) {
+		String key= getKey(member, useAttachedJavadoc);
+		Entry entry= fEntries.get(key);
+		if (entry != null) {
+			Content content= entry.fContent.get();
+			if (content != null && stamp != null && entry.fStamp.equals(stamp)) {
+				fHits++;
+				return content;
+			}
+			remove(key, entry);
+			if (content == null)
+				fEvictions++;
+		}
+		fMisses++;
+		return null;
+	}
+
+	/**
+	 * Tells whether valid Javadoc of the given member is cached. Unlike
+	 * {@link #get(IMember, boolean, String)} this is not counted as a hit or a miss.
+	 *
+	 * @param member the member
+	 * @param useAttachedJavadoc whether the Javadoc was allowed to be extracted from the attached
+	 *            Javadoc
+	 * @param stamp the current stamp of the member, see {@link #getStamp(IMember)}
+	 * @return <code>true</code> if valid Javadoc is cached
+	 */
+	public synchronized boolean contains(IMember member, boolean useAttachedJavadoc, String stamp) {
+		Entry entry= fEntries.get(getKey(member, useAttachedJavadoc));
+		return entry != null && stamp != null && entry.fStamp.equals(stamp) && entry.fContent.get() != null;
+	}
+
+	/**
+	 * Caches the Javadoc of the given member.
+	 *
+	 * @param member the member
+	 * @param useAttachedJavadoc whether the Javadoc was allowed to be extracted from the attached
+	 *            Javadoc
+	 * @param html the Javadoc HTML or <code>null</code> if the member has no Javadoc
+	 * @param stamp the stamp of the member before the Javadoc was rendered
+	 * @param modelStamp the model stamp before the Javadoc was rendered, see
+	 *            {@link #getModelStamp(IMember)}
+	 * @return the cached content
+	 */
+	public synchronized Content put(IMember member, boolean useAttachedJavadoc, String html, String stamp, int modelStamp) {
+		Content content= new Content(html);
+		String key= getKey(member, useAttachedJavadoc);
+		Entry old= fEntries.get(key);
+		if (old != null)
+			remove(key, old);
+
+		if (stamp == null || modelStamp != getModelStamp(member))
+			return content;
+
+		Entry entry= new Entry(content, stamp, member.isBinary());
+		if (entry.fWeight > fMaxWeight)
+			return content;
+
+		fEntries.put(key, entry);
+		fWeight+= entry.fWeight;
+		evict();
+		return content;
+	}
+
+	/**
+	 * Removes all entries from the cache.
+	 */
+	public synchronized void clear() {
+		fEntries.clear();
+		fWeight= 0;
+	}
+
+	/**
+	 * Returns the model stamp for the given member, which is incremented whenever the entries
+	 * of members like the given one are invalidated by a change of the Java model.
+	 *
+	 * @param member the member
+	 * @return the model stamp
+	 */
+	public synchronized int getModelStamp(IMember member) {
+		return member.isBinary() ? fBinaryModelStamp : fSourceModelStamp;
+	}
+
+	/**
+	 * Invalidates the entries that may be affected by the given delta.
+	 *
+	 * @param delta the Java element delta
+	 */
+	public void modelChanged(IJavaElementDelta delta) {
+		boolean isContentChange= isContentChange(delta);
+
+		synchronized (this) {
+			fSourceModelStamp++;
+			if (!isContentChange)
+				fBinaryModelStamp++;
+
+			Iterator<Entry> iter= fEntries.values().iterator();
+			while (iter.hasNext()) {
+				Entry entry= iter.next();
+				if (entry.fIsBinary && isContentChange)
+					continue;
+				iter.remove();
+				fWeight-= entry.fWeight;
+				fEvictions++;
+			}
+		}
+	}
+
+	/**
+	 * Sets the bounds of the cache and evicts entries if necessary.
+	 *
+	 * @param maxEntries the maximal number of cached members
+	 * @param maxWeight the maximal accumulated HTML length of all cached members
+	 */
+	public synchronized void setCapacity(int maxEntries, int maxWeight) {
+		if (maxEntries < 0 || maxWeight < 0)
+			throw new IllegalArgumentException();
+		fMaxEntries= maxEntries;
+		fMaxWeight= maxWeight;
+		evict();
+	}
+
+	public synchronized int getSize() {
+		return fEntries.size();
+	}
+
+	public synchronized int getHits() {
+		return fHits;
+	}
+
+	public synchronized int getMisses() {
+		return fMisses;
+	}
+
+	public synchronized int getEvictions() {
+		return fEvictions;
+	}
+
+	public synchronized void resetStatistics() {
+		fHits= 0;
+		fMisses= 0;
+		fEvictions= 0;
+	}
+
+	private void remove(String key, Entry entry) {
+		fEntries.remove(key);
+		fWeight-= entry.fWeight;
+	}
+
+	private void evict() {
+		Iterator<Entry> iter= fEntries.values().iterator();
+		while (iter.hasNext()) {
+			Entry entry= iter.next();
+			if (entry.fContent.get() != null && fEntries.size() <= fMaxEntries && fWeight <= fMaxWeight)
+				continue;
+			iter.remove();
+			fWeight-= entry.fWeight;
+			fEvictions++;
+		}
+	}
+
+	private static String getKey(IMember member, boolean useAttachedJavadoc) {
+		return member.getHandleIdentifier() + (useAttachedJavadoc ? '+' : '-');
+	}
+
+	/**
+	 * Tells whether the given delta only describes modifications of the content of compilation
+	 * units, which cannot affect the Javadoc of binary members.
+	 *
+	 * @param delta the Java element delta
+	 * @return <code>true</code> if the delta only describes content modifications
+	 */
+	private static boolean isContentChange(IJavaElementDelta delta) {
+		if (delta.getKind() != IJavaElementDelta.CHANGED)
+			return delta.getElement().getElementType() > IJavaElement.PACKAGE_FRAGMENT_ROOT;
+
+		int flags= delta.getFlags();
+		switch (delta.getElement().getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+			case IJavaElement.JAVA_PROJECT:
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+			case IJavaElement.PACKAGE_FRAGMENT:
+				if ((flags & ~IJavaElementDelta.F_CHILDREN) != 0)
+					return false;
+				break;
+			case IJavaElement.COMPILATION_UNIT:
+				if ((flags & ~CONTENT_FLAGS) != 0)
+					return false;
+				break;
+			default:
+				return true;
+		}
+
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (!isContentChange(children[i]))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the stamp of the source and of the source and Javadoc attachments of the given
+	 * member.
+	 * <p>
+	 * The source stamp of a working copy is the modification stamp of its document, otherwise
+	 * it is the modification stamp of the underlying resource. The attachment stamp of a binary
+	 * member consists of the source attachment path of its package fragment root and of the
+	 * location of its attached Javadoc.
+	 * </p>
+	 *
+	 * @param member the member
+	 * @return the stamp or <code>null</code> if it is not known
+	 */
+	public static String getStamp(IMember member) {
+		try {
+			ITypeRoot typeRoot= member.getTypeRoot();
+			if (typeRoot == null)
+				return null;
+
+			long modificationStamp;
+			if (typeRoot instanceof ICompilationUnit && ((ICompilationUnit) typeRoot).isWorkingCopy()) {
+				IBuffer buffer= typeRoot.getBuffer();
+				if (!(buffer instanceof DocumentAdapter))
+					return null;
+				IDocument document= ((DocumentAdapter) buffer).getDocument();
+				if (!(document instanceof IDocumentExtension4))
+					return null;
+				modificationStamp= ((IDocumentExtension4) document).getModificationStamp();
+			} else {
+				IResource resource= typeRoot.getResource();
+				// class file in an archive, changes are reported as Java model deltas
+				modificationStamp= resource != null ? resource.getModificationStamp() : 0;
+			}
+			if (modificationStamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP)
+				return null;
+
+			StringBuffer stamp= new StringBuffer();
+			stamp.append(modificationStamp);
+			if (member.isBinary()) {
+				IPackageFragmentRoot root= (IPackageFragmentRoot) member.getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+				IPath sourceAttachment= root != null ? root.getSourceAttachmentPath() : null;
+				URL javadocLocation= JavaDocLocations.getJavadocBaseLocation(member);
+				stamp.append('|').append(sourceAttachment);
+				stamp.append('|').append(javadocLocation);
+			}
+			return stamp.toString();
+		} catch (JavaModelException e) {
+			return null;
+		}
+	}
+}
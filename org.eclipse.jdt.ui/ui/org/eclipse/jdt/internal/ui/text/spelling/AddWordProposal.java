@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -94,6 +94,7 @@ public class AddWordProposal implements IJavaCompletionProposal {
 
 		if (checker.acceptsWords()) {
 			checker.addWord(fWord);
+			SpellCheckEngine.incrementModificationStamp();
 			if (fContext != null && fContext.getSourceViewer() != null)
 				SpellingProblem.removeAll(fContext.getSourceViewer(), fWord);
 		}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,12 +10,25 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.text.spelling;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.eclipse.core.runtime.AssertionFailedException;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.content.IContentType;
 
 import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.DocumentPartitioningChangedEvent;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.IDocumentPartitioningListener;
+import org.eclipse.jface.text.IDocumentPartitioningListenerExtension2;
 import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ITypedRegion;
+import org.eclipse.jface.text.Region;
+import org.eclipse.jface.text.TextUtilities;
 import org.eclipse.jface.text.source.IAnnotationModel;
 import org.eclipse.jface.text.source.ISourceViewer;
 
@@ -34,9 +47,20 @@ import org.eclipse.jdt.core.IProblemRequestor;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.compiler.IProblem;
 
+import org.eclipse.jdt.ui.PreferenceConstants;
+import org.eclipse.jdt.ui.text.IJavaPartitions;
+
+import org.eclipse.jdt.internal.ui.text.spelling.SpellingProblemTracker.CachedProblem;
+
 
 /**
  * Reconcile strategy for spell checking comments.
+ * <p>
+ * Since 3.9 the strategy remembers the reported spelling problems and only checks the
+ * partitions that have been changed since the last reconcile. The remembered problems are
+ * shifted with the document changes and reported together with the problems of the checked
+ * partitions.
+ * </p>
  *
  * @since 3.1
  */
@@ -44,52 +68,105 @@ public class JavaSpellingReconcileStrategy extends SpellingReconcileStrategy {
 
 
 	/**
-	 * Spelling problem collector that forwards {@link SpellingProblem}s as
-	 * {@link IProblem}s to the {@link IProblemRequestor}.
+	 * Spelling problem collector that remembers the {@link SpellingProblem}s of the checked
+	 * region and forwards all known problems as {@link IProblem}s to the
+	 * {@link IProblemRequestor}.
 	 */
 	private class SpellingProblemCollector implements ISpellingProblemCollector {
 
+		/**
+		 * The problems collected during the current check.
+		 * @since 3.9
+		 */
+		private List<CachedProblem> fCollected;
+
 		/*
 		 * @see org.eclipse.ui.texteditor.spelling.ISpellingProblemCollector#accept(org.eclipse.ui.texteditor.spelling.SpellingProblem)
 		 */
 		public void accept(SpellingProblem problem) {
-			IProblemRequestor requestor= fRequestor;
-			if (requestor != null) {
-				try {
-					int line= getDocument().getLineOfOffset(problem.getOffset()) + 1;
-					String word= getDocument().get(problem.getOffset(), problem.getLength());
-					boolean dictionaryMatch= false;
-					boolean sentenceStart= false;
-					if (problem instanceof JavaSpellingProblem) {
-						dictionaryMatch= ((JavaSpellingProblem)problem).isDictionaryMatch();
-						sentenceStart= ((JavaSpellingProblem) problem).isSentenceStart();
-					}
-					// see https://bugs.eclipse.org/bugs/show_bug.cgi?id=81514
-					IEditorInput editorInput= fEditor.getEditorInput();
-					if (editorInput != null) {
-						CoreSpellingProblem iProblem= new CoreSpellingProblem(problem.getOffset(), problem.getOffset() + problem.getLength() - 1, line, problem.getMessage(), word, dictionaryMatch, sentenceStart, getDocument(), editorInput.getName());
-						requestor.acceptProblem(iProblem);
-					}
-				} catch (BadLocationException x) {
-					// drop this SpellingProblem
-				}
-			}
+			if (fCollected != null)
+				fCollected.add(new CachedProblem(problem));
 		}
 
 		/*
 		 * @see org.eclipse.ui.texteditor.spelling.ISpellingProblemCollector#beginCollecting()
 		 */
 		public void beginCollecting() {
-			if (fRequestor != null)
-				fRequestor.beginReporting();
+			fCollected= new ArrayList<CachedProblem>();
 		}
 
 		/*
 		 * @see org.eclipse.ui.texteditor.spelling.ISpellingProblemCollector#endCollecting()
 		 */
 		public void endCollecting() {
-			if (fRequestor != null)
-				fRequestor.endReporting();
+			List<CachedProblem> collected= fCollected;
+			fCollected= null;
+			if (collected != null)
+				report(mergeProblems(collected));
+		}
+	}
+
+	/**
+	 * Tracks the changes of the document, in order to shift the remembered problems and to
+	 * compute the region that needs to be checked again.
+	 *
+	 * @since 3.9
+	 */
+	private class DocumentListener implements IDocumentListener, IDocumentPartitioningListener, IDocumentPartitioningListenerExtension2 {
+
+		/*
+		 * @see org.eclipse.jface.text.IDocumentListener#documentAboutToBeChanged(org.eclipse.jface.text.DocumentEvent)
+		 */
+		public void documentAboutToBeChanged(DocumentEvent event) {
+			synchronized (fLock) {
+				fIsChanging= true;
+			}
+		}
+
+		/*
+		 * @see org.eclipse.jface.text.IDocumentListener#documentChanged(org.eclipse.jface.text.DocumentEvent)
+		 */
+		public void documentChanged(DocumentEvent event) {
+			synchronized (fLock) {
+				fIsChanging= false;
+				fModificationCount++;
+				fTracker.documentChanged(event.getOffset(), event.getLength(), event.getText() == null ? 0 : event.getText().length());
+				if (fPartitioningChange != null) {
+					fTracker.addDirtyRegion(fPartitioningChange.getOffset(), fPartitioningChange.getOffset() + fPartitioningChange.getLength());
+					fPartitioningChange= null;
+				}
+			}
+		}
+
+		/*
+		 * @see org.eclipse.jface.text.IDocumentPartitioningListener#documentPartitioningChanged(org.eclipse.jface.text.IDocument)
+		 */
+		public void documentPartitioningChanged(IDocument document) {
+			// not called, see IDocumentPartitioningListenerExtension2
+		}
+
+		/*
+		 * @see org.eclipse.jface.text.IDocumentPartitioningListenerExtension2#documentPartitioningChanged(org.eclipse.jface.text.DocumentPartitioningChangedEvent)
+		 */
+		public void documentPartitioningChanged(DocumentPartitioningChangedEvent event) {
+			IRegion region= event.getCoverage();
+			if (region == null)
+				return;
+
+			synchronized (fLock) {
+				if (fIsChanging) {
+					// the region refers to the changed document, add it after the document change
+					if (fPartitioningChange == null) {
+						fPartitioningChange= region;
+					} else {
+						int offset= Math.min(fPartitioningChange.getOffset(), region.getOffset());
+						int end= Math.max(fPartitioningChange.getOffset() + fPartitioningChange.getLength(), region.getOffset() + region.getLength());
+						fPartitioningChange= new Region(offset, end - offset);
+					}
+				} else {
+					fTracker.addDirtyRegion(region.getOffset(), region.getOffset() + region.getLength());
+				}
+			}
 		}
 	}
 
@@ -106,6 +183,75 @@ public class JavaSpellingReconcileStrategy extends SpellingReconcileStrategy {
 	/** The problem requester. */
 	private IProblemRequestor fRequestor;
 
+	/**
+	 * The lock for the remembered problems and the dirty region.
+	 * @since 3.9
+	 */
+	private final Object fLock= new Object();
+
+	/**
+	 * The document listener.
+	 * @since 3.9
+	 */
+	private final DocumentListener fDocumentListener= new DocumentListener();
+
+	/**
+	 * The document the listener is registered with.
+	 * @since 3.9
+	 */
+	private IDocument fDocument;
+
+	/**
+	 * The spelling problems of the whole document and the region that has been changed since
+	 * the last check.
+	 * @since 3.9
+	 */
+	private final SpellingProblemTracker fTracker= new SpellingProblemTracker();
+
+	/**
+	 * The problems outside of the region that is currently checked, or <code>null</code> if the
+	 * whole document is checked.
+	 * @since 3.9
+	 */
+	private List<CachedProblem> fUncheckedProblems;
+
+	/**
+	 * The region that is currently checked, or <code>null</code> if the problems found by the
+	 * current check cannot be remembered.
+	 * @since 3.9
+	 */
+	private IRegion fCheckedRegion;
+
+	/**
+	 * Incremented with every document change.
+	 * @since 3.9
+	 */
+	private int fModificationCount;
+
+	/**
+	 * The modification count when the current check started.
+	 * @since 3.9
+	 */
+	private int fCheckedModificationCount;
+
+	/**
+	 * The modification stamp of the spell check engine when the problems were checked.
+	 * @since 3.9
+	 */
+	private int fEngineModificationStamp;
+
+	/**
+	 * Tells whether the document is being changed.
+	 * @since 3.9
+	 */
+	private boolean fIsChanging;
+
+	/**
+	 * The partitioning change reported during the current document change, or <code>null</code>.
+	 * @since 3.9
+	 */
+	private IRegion fPartitioningChange;
+
 
 	/**
 	 * Creates a new comment reconcile strategy.
@@ -123,8 +269,153 @@ public class JavaSpellingReconcileStrategy extends SpellingReconcileStrategy {
 	 */
 	@Override
 	public void reconcile(IRegion region) {
-		if (fRequestor != null && isSpellingEnabled())
-			super.reconcile(region);
+		if (fRequestor == null || !isSpellingEnabled())
+			return;
+
+		IDocument document= getDocument();
+		boolean isWholeDocument= document != null && region.getOffset() == 0 && region.getLength() == document.getLength();
+
+		int dirtyOffset, dirtyEnd, modificationCount;
+		List<CachedProblem> problems;
+		synchronized (fLock) {
+			problems= fTracker.getProblems();
+			dirtyOffset= fTracker.getDirtyOffset();
+			dirtyEnd= fTracker.getDirtyEnd();
+			modificationCount= fModificationCount;
+			if (!isWholeDocument || fEngineModificationStamp != SpellCheckEngine.getModificationStamp())
+				problems= null;
+		}
+
+		IRegion regionToCheck= null;
+		List<CachedProblem> problemsToReport= null;
+		IRegion checkRegion= null;
+		if (problems != null && dirtyOffset != -1)
+			checkRegion= computeCheckRegion(document, dirtyOffset, dirtyEnd);
+
+		synchronized (fLock) {
+			if (modificationCount != fModificationCount || dirtyOffset != -1 && checkRegion == null)
+				problems= null;
+
+			fTracker.setProblems(null);
+			fTracker.clearDirtyRegion();
+			fCheckedModificationCount= fModificationCount;
+			fEngineModificationStamp= SpellCheckEngine.getModificationStamp();
+
+			if (problems != null && dirtyOffset == -1) {
+				// nothing changed, report the known problems again
+				fTracker.setProblems(problems);
+				fCheckedRegion= null;
+				problemsToReport= new ArrayList<CachedProblem>(problems);
+			} else if (problems != null) {
+				fUncheckedProblems= SpellingProblemTracker.getProblemsOutside(problems, checkRegion.getOffset(), checkRegion.getOffset() + checkRegion.getLength());
+				fCheckedRegion= checkRegion;
+				regionToCheck= checkRegion;
+			} else {
+				// only the problems of the whole document can be remembered
+				fUncheckedProblems= null;
+				fCheckedRegion= isWholeDocument ? region : null;
+				regionToCheck= region;
+			}
+		}
+
+		if (problemsToReport != null)
+			report(problemsToReport);
+		else
+			super.reconcile(regionToCheck);
+	}
+
+	/**
+	 * Computes the region to check for the given changed region. The region is extended to
+	 * the partitions at its boundaries.
+	 *
+	 * @param document the document
+	 * @param offset the start offset of the changed region
+	 * @param end the end offset of the changed region
+	 * @return the region to check or <code>null</code> if the document has been changed
+	 *         concurrently
+	 * @since 3.9
+	 */
+	private static IRegion computeCheckRegion(IDocument document, int offset, int end) {
+		try {
+			int length= document.getLength();
+			offset= Math.min(offset, length);
+			end= Math.min(end, length);
+			ITypedRegion first= TextUtilities.getPartition(document, IJavaPartitions.JAVA_PARTITIONING, offset, false);
+			ITypedRegion last= TextUtilities.getPartition(document, IJavaPartitions.JAVA_PARTITIONING, end, false);
+			int start= Math.min(offset, first.getOffset());
+			int stop= Math.max(end, last.getOffset() + last.getLength());
+			return new Region(start, stop - start);
+		} catch (BadLocationException x) {
+			// the document has been changed in another thread and will be checked again
+			return null;
+		} catch (AssertionFailedException x) {
+			// the document has been changed in another thread and will be checked again
+			return null;
+		}
+	}
+
+	/**
+	 * Merges the problems of the checked region with the remembered problems outside of the
+	 * checked region.
+	 *
+	 * @param collected the problems found in the checked region
+	 * @return all problems of the document
+	 * @since 3.9
+	 */
+	private List<CachedProblem> mergeProblems(List<CachedProblem> collected) {
+		synchronized (fLock) {
+			List<CachedProblem> problems;
+			if (fUncheckedProblems != null) {
+				problems= fUncheckedProblems;
+				problems.addAll(collected);
+			} else {
+				problems= collected;
+			}
+			fUncheckedProblems= null;
+
+			int threshold= PreferenceConstants.getPreferenceStore().getInt(PreferenceConstants.SPELLING_PROBLEMS_THRESHOLD);
+			boolean isComplete= fCheckedRegion != null && collected.size() < threshold;
+			if (isComplete && fCheckedModificationCount == fModificationCount && problems.size() < threshold)
+				fTracker.setProblems(problems);
+			fCheckedRegion= null;
+			return new ArrayList<CachedProblem>(problems);
+		}
+	}
+
+	/**
+	 * Reports the given problems to the problem requestor.
+	 *
+	 * @param problems the problems to report
+	 * @since 3.9
+	 */
+	private void report(List<CachedProblem> problems) {
+		IProblemRequestor requestor= fRequestor;
+		IDocument document= getDocument();
+		if (requestor == null || document == null)
+			return;
+
+		requestor.beginReporting();
+		try {
+			// see https://bugs.eclipse.org/bugs/show_bug.cgi?id=81514
+			IEditorInput editorInput= fEditor.getEditorInput();
+			if (editorInput == null)
+				return;
+
+			for (Iterator<CachedProblem> iter= problems.iterator(); iter.hasNext();) {
+				CachedProblem problem= iter.next();
+				try {
+					int offset= problem.getOffset();
+					int line= document.getLineOfOffset(offset) + 1;
+					String word= document.get(offset, problem.getLength());
+					CoreSpellingProblem iProblem= new CoreSpellingProblem(offset, offset + problem.getLength() - 1, line, problem.getMessage(), word, problem.isDictionaryMatch(), problem.isSentenceStart(), document, editorInput.getName());
+					requestor.acceptProblem(iProblem);
+				} catch (BadLocationException x) {
+					// drop this SpellingProblem
+				}
+			}
+		} finally {
+			requestor.endReporting();
+		}
 	}
 
 	private boolean isSpellingEnabled() {
@@ -156,6 +447,42 @@ public class JavaSpellingReconcileStrategy extends SpellingReconcileStrategy {
 	public void setDocument(IDocument document) {
 		super.setDocument(document);
 		updateProblemRequester();
+
+		synchronized (fLock) {
+			fTracker.setProblems(null);
+			fTracker.clearDirtyRegion();
+			fUncheckedProblems= null;
+			fPartitioningChange= null;
+			fIsChanging= false;
+		}
+		removeDocumentListener();
+		fDocument= document;
+		if (fDocument != null) {
+			fDocument.addDocumentListener(fDocumentListener);
+			fDocument.addDocumentPartitioningListener(fDocumentListener);
+		}
+	}
+
+	/**
+	 * Removes the document listener and forgets the remembered problems. Called when the
+	 * reconciler is uninstalled.
+	 *
+	 * @since 3.9
+	 */
+	public void uninstall() {
+		removeDocumentListener();
+		fDocument= null;
+		synchronized (fLock) {
+			fTracker.setProblems(null);
+			fUncheckedProblems= null;
+		}
+	}
+
+	private void removeDocumentListener() {
+		if (fDocument != null) {
+			fDocument.removeDocumentListener(fDocumentListener);
+			fDocument.removeDocumentPartitioningListener(fDocumentListener);
+		}
 	}
 
 	/**
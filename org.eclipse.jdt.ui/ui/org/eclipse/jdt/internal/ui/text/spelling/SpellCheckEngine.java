@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -63,6 +63,13 @@ public class SpellCheckEngine implements ISpellCheckEngine, IPropertyChangeListe
 	/** The singleton engine instance */
 	private static ISpellCheckEngine fgEngine= null;
 
+	/**
+	 * The modification stamp of the spelling settings and dictionaries.
+	 *
+	 * @since 3.9
+	 */
+	private static volatile int fgModificationStamp= 0;
+
 	/**
 	 * Caches the locales of installed dictionaries.
 	 *
@@ -237,6 +244,28 @@ public class SpellCheckEngine implements ISpellCheckEngine, IPropertyChangeListe
 		return fgEngine;
 	}
 
+	/**
+	 * Returns the modification stamp of the spelling settings and dictionaries. The stamp
+	 * changes whenever spell checking a text again could report different problems, for example
+	 * when the locale or the user dictionary changes, or when a word is added or ignored.
+	 *
+	 * @return the modification stamp
+	 * @since 3.9
+	 */
+	public static int getModificationStamp() {
+		return fgModificationStamp;
+	}
+
+	/**
+	 * Increments the modification stamp of the spelling settings and dictionaries.
+	 *
+	 * @see #getModificationStamp()
+	 * @since 3.9
+	 */
+	public static synchronized void incrementModificationStamp() {
+		fgModificationStamp++;
+	}
+
 	/**
 	 * Shuts down the singleton instance of the spell check engine.
 	 */
@@ -365,6 +394,9 @@ public class SpellCheckEngine implements ISpellCheckEngine, IPropertyChangeListe
 	 * @see org.eclipse.jface.util.IPropertyChangeListener#propertyChange(org.eclipse.jface.util.PropertyChangeEvent)
 	 */
 	public final void propertyChange(final PropertyChangeEvent event) {
+		if (event.getProperty().startsWith("spelling")) //$NON-NLS-1$
+			incrementModificationStamp();
+
 		if (event.getProperty().equals(PreferenceConstants.SPELLING_LOCALE)) {
 			resetSpellChecker();
 			return;
@@ -392,6 +424,7 @@ public class SpellCheckEngine implements ISpellCheckEngine, IPropertyChangeListe
 	 * Resets the current checker's user dictionary.
 	 */
 	private synchronized void resetUserDictionary() {
+		incrementModificationStamp();
 		if (fChecker == null)
 			return;
 
@@ -479,9 +512,11 @@ public class SpellCheckEngine implements ISpellCheckEngine, IPropertyChangeListe
 
 		fUserDictionary= null;
 		fChecker= null;
+		incrementModificationStamp();
 	}
 
 	private synchronized void resetSpellChecker() {
+		incrementModificationStamp();
 		if (fChecker != null) {
 			ISpellDictionary dictionary= fLocaleDictionaries.get(fChecker.getLocale());
 			if (dictionary != null)
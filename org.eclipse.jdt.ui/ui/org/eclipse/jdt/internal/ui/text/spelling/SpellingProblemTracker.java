@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.spelling;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.eclipse.ui.texteditor.spelling.SpellingProblem;
+
+
+/**
+ * Remembers the spelling problems of a document and the region of the document that has been
+ * changed since the problems were checked. Both are shifted with the document changes.
+ * <p>
+ * This class is not thread safe, see {@link JavaSpellingReconcileStrategy}.
+ * </p>
+ *
+ * @since 3.9
+ */
+public final class SpellingProblemTracker {
+
+	/**
+	 * A spelling problem that has been reported by the spelling engine.
+	 */
+	public static final class CachedProblem {
+
+		private int fOffset;
+		private final int fLength;
+		private final String fMessage;
+		private final boolean fDictionaryMatch;
+		private final boolean fSentenceStart;
+
+		/**
+		 * Creates a new problem.
+		 *
+		 * @param offset the offset of the misspelled word
+		 * @param length the length of the misspelled word
+		 * @param message the message of the problem
+		 * @param dictionaryMatch <code>true</code> if the word matches a dictionary word
+		 * @param sentenceStart <code>true</code> if the word starts a sentence
+		 */
+		public CachedProblem(int offset, int length, String message, boolean dictionaryMatch, boolean sentenceStart) {
+			fOffset= offset;
+			fLength= length;
+			fMessage= message;
+			fDictionaryMatch= dictionaryMatch;
+			fSentenceStart= sentenceStart;
+		}
+
+		/**
+		 * Creates a new problem from the given problem of the spelling engine.
+		 *
+		 * @param problem the problem
+		 */
+		public CachedProblem(SpellingProblem problem) {
+			this(problem.getOffset(), problem.getLength(), problem.getMessage(),
+					problem instanceof JavaSpellingProblem && ((JavaSpellingProblem) problem).isDictionaryMatch(),
+					problem instanceof JavaSpellingProblem && ((JavaSpellingProblem) problem).isSentenceStart());
+		}
+
+		public int getOffset() {
+			return fOffset;
+		}
+
+		public int getLength() {
+			return fLength;
+		}
+
+		public String getMessage() {
+			return fMessage;
+		}
+
+		public boolean isDictionaryMatch() {
+			return fDictionaryMatch;
+		}
+
+		public boolean isSentenceStart() {
+			return fSentenceStart;
+		}
+
+		/**
+		 * Tells whether this problem overlaps the given region.
+		 *
+		 * @param offset the start offset of the region
+		 * @param end the end offset of the region
+		 * @return <code>true</code> if this problem overlaps the region
+		 */
+		public boolean overlaps(int offset, int end) {
+			return fOffset < end && fOffset + fLength > offset;
+		}
+	}
+
+
+	/**
+	 * The spelling problems of the whole document, or <code>null</code> if the whole document
+	 * needs to be checked.
+	 */
+	private List<CachedProblem> fProblems;
+
+	/**
+	 * The start offset of the region that has been changed since the last check, or
+	 * <code>-1</code> if the document has not been changed.
+	 */
+	private int fDirtyOffset= -1;
+
+	/**
+	 * The end offset of the region that has been changed since the last check.
+	 */
+	private int fDirtyEnd= -1;
+
+
+	/**
+	 * Returns the spelling problems of the whole document.
+	 *
+	 * @return the problems, or <code>null</code> if the whole document needs to be checked
+	 */
+	public List<CachedProblem> getProblems() {
+		return fProblems;
+	}
+
+	/**
+	 * Sets the spelling problems of the whole document.
+	 *
+	 * @param problems the problems, or <code>null</code> if the whole document needs to be
+	 *            checked
+	 */
+	public void setProblems(List<CachedProblem> problems) {
+		fProblems= problems;
+	}
+
+	/**
+	 * Returns the start offset of the region that has been changed since the last check.
+	 *
+	 * @return the start offset, or <code>-1</code> if the document has not been changed
+	 */
+	public int getDirtyOffset() {
+		return fDirtyOffset;
+	}
+
+	/**
+	 * Returns the end offset of the region that has been changed since the last check.
+	 *
+	 * @return the end offset, or <code>-1</code> if the document has not been changed
+	 */
+	public int getDirtyEnd() {
+		return fDirtyEnd;
+	}
+
+	/**
+	 * Forgets the region that has been changed since the last check.
+	 */
+	public void clearDirtyRegion() {
+		fDirtyOffset= -1;
+		fDirtyEnd= -1;
+	}
+
+	/**
+	 * Adds the given region to the dirty region.
+	 *
+	 * @param offset the start offset of the region
+	 * @param end the end offset of the region
+	 */
+	public void addDirtyRegion(int offset, int end) {
+		if (fDirtyOffset == -1) {
+			fDirtyOffset= offset;
+			fDirtyEnd= end;
+		} else {
+			fDirtyOffset= Math.min(fDirtyOffset, offset);
+			fDirtyEnd= Math.max(fDirtyEnd, end);
+		}
+	}
+
+	/**
+	 * Shifts the problems and the dirty region for the given document change and adds the
+	 * inserted text to the dirty region. Problems that overlap the replaced text, or that
+	 * contain an insertion, are dropped.
+	 *
+	 * @param offset the offset of the replaced text
+	 * @param length the length of the replaced text
+	 * @param textLength the length of the inserted text
+	 */
+	public void documentChanged(int offset, int length, int textLength) {
+		int delta= textLength - length;
+		if (fProblems != null) {
+			for (Iterator<CachedProblem> iter= fProblems.iterator(); iter.hasNext();) {
+				CachedProblem problem= iter.next();
+				if (problem.fOffset >= offset + length)
+					problem.fOffset+= delta;
+				else if (problem.overlaps(offset, offset + Math.max(length, 1)))
+					iter.remove();
+			}
+		}
+		if (fDirtyOffset != -1) {
+			fDirtyOffset= shift(fDirtyOffset, offset, length, textLength);
+			fDirtyEnd= shift(fDirtyEnd, offset, length, textLength);
+		}
+		addDirtyRegion(offset, offset + textLength);
+	}
+
+	/**
+	 * Returns the given problems that do not overlap the given region.
+	 *
+	 * @param problems the problems
+	 * @param offset the start offset of the region
+	 * @param end the end offset of the region
+	 * @return a new list with the problems outside of the region
+	 */
+	public static List<CachedProblem> getProblemsOutside(List<CachedProblem> problems, int offset, int end) {
+		List<CachedProblem> outside= new ArrayList<CachedProblem>(problems.size());
+		for (Iterator<CachedProblem> iter= problems.iterator(); iter.hasNext();) {
+			CachedProblem problem= iter.next();
+			if (!problem.overlaps(offset, end))
+				outside.add(problem);
+		}
+		return outside;
+	}
+
+	private static int shift(int position, int offset, int length, int textLength) {
+		if (position <= offset)
+			return position;
+		if (position >= offset + length)
+			return position + textLength - length;
+		return offset + textLength;
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2009 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -67,6 +67,7 @@ public class WordIgnoreProposal implements IJavaCompletionProposal {
 
 		if (checker != null) {
 			checker.ignoreWord(fWord);
+			SpellCheckEngine.incrementModificationStamp();
 			ISourceViewer sourceViewer= fContext.getSourceViewer();
 			if (sourceViewer != null)
 				SpellingProblem.removeAll(sourceViewer, fWord);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -154,12 +154,17 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 
 	/**
 	 * Returns all candidates with the same phonetic hash.
+	 * <p>
+	 * The result is either the UTF-8 bytes of a single word or an <code>ArrayList</code> with the
+	 * UTF-8 bytes of several words. Subclasses may replace this method if they store the words
+	 * differently.
+	 * </p>
 	 *
 	 * @param hash
 	 *                   The hash to retrieve the candidates of
 	 * @return Array of candidates for the phonetic hash
 	 */
-	protected final Object getCandidates(final String hash) {
+	protected Object getCandidates(final String hash) {
 		ByteArrayWrapper hashBytes;
 		try {
 			hashBytes= new ByteArrayWrapper(hash.getBytes(UTF_8));
@@ -503,6 +508,19 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 		}
 	}
 
+	/**
+	 * Adds a word that has been read by {@link #load(URL)} to the dictionary.
+	 * <p>
+	 * The default implementation hashes the word into the dictionary. Subclasses may extend.
+	 * </p>
+	 *
+	 * @param word the word read from the word list
+	 * @since 3.9
+	 */
+	protected void loadWord(final String word) {
+		hashWord(word);
+	}
+
 	/*
 	 * @see org.eclipse.jdt.internal.ui.text.spelling.engine.ISpellDictionary#isCorrect(java.lang.String)
 	 */
@@ -645,7 +663,7 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 						}
 						doRead= word != null;
 						if (doRead)
-							hashWord(word);
+							loadWord(word);
 					}
 					return true;
 				}
@@ -0,0 +1,360 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.spelling.engine;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Immutable word list that maps phonetic hashes to words, stored in a compact file that is read
+ * into a single heap buffer.
+ * <p>
+ * The phonetic hashes are sorted by their UTF-8 bytes and front coded: every hash only stores
+ * the suffix that differs from the previous hash. The hashes are grouped into blocks of
+ * {@link #BLOCK_SIZE} hashes, the first hash of every block is stored completely. A lookup does
+ * a binary search over the first hashes of the blocks and then decodes a single block. The
+ * words of every hash are stored in the order in which they have been added, as UTF-8 bytes.
+ * </p>
+ * <p>
+ * The file starts with a key that describes the source of the word list. A file whose key does
+ * not match the expected one is not opened, so that it is compiled again.
+ * </p>
+ * <p>
+ * The file is not memory-mapped, since a mapping is only released when it is garbage collected
+ * and prevents that the file is deleted or replaced on some platforms. The file is closed when
+ * it has been read.
+ * </p>
+ *
+ * @since 3.9
+ */
+final class CompactWordList {
+
+	/** The magic number of the file */
+	private static final int MAGIC= 0x4A535044; // "JSPD"
+
+	/** The version of the file format */
+	private static final int VERSION= 1;
+
+	/** The number of hashes in a block */
+	private static final int BLOCK_SIZE= 16;
+
+	/** The maximal length of a hash in bytes */
+	private static final int MAX_HASH_LENGTH= 255;
+
+	/** The UTF-8 encoding */
+	private static final String UTF_8= "UTF-8"; //$NON-NLS-1$
+
+	/**
+	 * Compares byte arrays by their unsigned bytes.
+	 */
+	private static final Comparator<byte[]> BYTES_COMPARATOR= new Comparator<byte[]>() {
+		public int compare(byte[] o1, byte[] o2) {
+			return CompactWordList.compare(o1, o1.length, o2);
+		}
+	};
+
+	/**
+	 * Opens the compiled word list in the given file.
+	 *
+	 * @param file the compiled word list
+	 * @param key the expected key of the word list
+	 * @return the word list, or <code>null</code> if the file has been compiled for a
+	 *         different key
+	 * @throws IOException if the file cannot be read or is corrupt
+	 */
+	public static CompactWordList open(File file, String key) throws IOException {
+		FileInputStream stream= new FileInputStream(file);
+		try {
+			FileChannel channel= stream.getChannel();
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Invalid word list: " + file); //$NON-NLS-1$
+			ByteBuffer buffer= ByteBuffer.allocate((int) channel.size());
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) == -1)
+					throw new IOException("Invalid word list: " + file); //$NON-NLS-1$
+			}
+			buffer.flip();
+			if (buffer.remaining() < 12 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+				throw new IOException("Invalid word list: " + file); //$NON-NLS-1$
+
+			byte[] expected= key.getBytes(UTF_8);
+			int keyLength= buffer.getInt();
+			if (keyLength != expected.length || keyLength > buffer.remaining())
+				return null;
+			byte[] actual= new byte[keyLength];
+			buffer.get(actual);
+			if (!Arrays.equals(expected, actual))
+				return null;
+
+			return new CompactWordList(buffer, file);
+		} catch (RuntimeException e) {
+			// BufferUnderflowException, IndexOutOfBoundsException
+			IOException exception= new IOException("Invalid word list: " + file); //$NON-NLS-1$
+			exception.initCause(e);
+			throw exception;
+		} finally {
+			stream.close();
+		}
+	}
+
+	/**
+	 * Writes a compiled word list. The file is written to a temporary file first, which then
+	 * replaces the given file.
+	 *
+	 * @param file the file to write
+	 * @param key the key of the word list
+	 * @param buckets the mapping from phonetic hashes to words
+	 * @throws IOException if the file cannot be written, or if a hash is too long
+	 */
+	public static void write(File file, String key, Map<String, ? extends List<String>> buckets) throws IOException {
+		byte[][] hashes= new byte[buckets.size()][];
+		Map<byte[], List<String>> words= new java.util.IdentityHashMap<byte[], List<String>>(buckets.size());
+		int index= 0;
+		for (Iterator<? extends Map.Entry<String, ? extends List<String>>> iter= buckets.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry<String, ? extends List<String>> entry= iter.next();
+			byte[] hash= entry.getKey().getBytes(UTF_8);
+			if (hash.length > MAX_HASH_LENGTH)
+				throw new IOException("Phonetic hash too long: " + entry.getKey()); //$NON-NLS-1$
+			hashes[index++]= hash;
+			words.put(hash, entry.getValue());
+		}
+		Arrays.sort(hashes, BYTES_COMPARATOR);
+
+		ByteArrayOutputStream hashBytes= new ByteArrayOutputStream();
+		DataOutputStream hashData= new DataOutputStream(hashBytes);
+		ByteArrayOutputStream wordBytes= new ByteArrayOutputStream();
+		int blockCount= (hashes.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		int[] blockOffsets= new int[blockCount];
+		List<Integer> wordOffsets= new ArrayList<Integer>();
+
+		byte[] previous= new byte[0];
+		for (int i= 0; i < hashes.length; i++) {
+			byte[] hash= hashes[i];
+			int shared= 0;
+			if (i % BLOCK_SIZE == 0) {
+				blockOffsets[i / BLOCK_SIZE]= hashData.size();
+			} else {
+				int max= Math.min(previous.length, hash.length);
+				while (shared < max && previous[shared] == hash[shared])
+					shared++;
+			}
+			hashData.writeByte(shared);
+			hashData.writeByte(hash.length - shared);
+			hashData.write(hash, shared, hash.length - shared);
+
+			List<String> list= words.get(hash);
+			hashData.writeInt(wordOffsets.size());
+			hashData.writeInt(list.size());
+			for (int j= 0; j < list.size(); j++) {
+				wordOffsets.add(new Integer(wordBytes.size()));
+				wordBytes.write(list.get(j).getBytes(UTF_8));
+			}
+			previous= hash;
+		}
+		wordOffsets.add(new Integer(wordBytes.size()));
+		hashData.flush();
+
+		File parent= file.getParentFile();
+		if (!parent.isDirectory() && !parent.mkdirs())
+			throw new IOException("Could not create " + parent); //$NON-NLS-1$
+		File temp= File.createTempFile(file.getName(), ".tmp", parent); //$NON-NLS-1$
+		DataOutputStream stream= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+		try {
+			byte[] keyBytes= key.getBytes(UTF_8);
+			stream.writeInt(MAGIC);
+			stream.writeInt(VERSION);
+			stream.writeInt(keyBytes.length);
+			stream.write(keyBytes);
+			stream.writeInt(hashes.length);
+			stream.writeInt(blockCount);
+			stream.writeInt(wordOffsets.size() - 1);
+			stream.writeInt(hashBytes.size());
+			for (int i= 0; i < blockCount; i++)
+				stream.writeInt(blockOffsets[i]);
+			hashBytes.writeTo(stream);
+			for (int i= 0; i < wordOffsets.size(); i++)
+				stream.writeInt(wordOffsets.get(i).intValue());
+			wordBytes.writeTo(stream);
+		} finally {
+			stream.close();
+		}
+		if (file.exists() && !file.delete() || !temp.renameTo(file)) {
+			temp.delete();
+			throw new IOException("Could not write " + file); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Compares the first <code>length</code> bytes of <code>bytes</code> with
+	 * <code>other</code>.
+	 *
+	 * @param bytes the bytes
+	 * @param length the number of bytes to compare
+	 * @param other the other bytes
+	 * @return a negative number, zero, or a positive number as the bytes are less than, equal
+	 *         to, or greater than the other bytes
+	 */
+	private static int compare(byte[] bytes, int length, byte[] other) {
+		int max= Math.min(length, other.length);
+		for (int i= 0; i < max; i++) {
+			int difference= (bytes[i] & 0xff) - (other[i] & 0xff);
+			if (difference != 0)
+				return difference;
+		}
+		return length - other.length;
+	}
+
+	/** The content of the file */
+	private final ByteBuffer fBuffer;
+
+	/** The number of blocks */
+	private final int fBlockCount;
+
+	/** The number of words */
+	private final int fWordCount;
+
+	/** The position of the block offsets */
+	private final int fBlockIndex;
+
+	/** The position of the hashes */
+	private final int fHashData;
+
+	/** The end position of the hashes */
+	private final int fHashDataEnd;
+
+	/** The position of the word offsets */
+	private final int fWordIndex;
+
+	/** The position of the words */
+	private final int fWordData;
+
+	/**
+	 * Creates a new word list.
+	 *
+	 * @param buffer the content of the file, positioned after the key
+	 * @param file the file, used for error messages
+	 * @throws IOException if the file is corrupt
+	 */
+	private CompactWordList(ByteBuffer buffer, File file) throws IOException {
+		fBuffer= buffer;
+		int hashCount= buffer.getInt();
+		fBlockCount= buffer.getInt();
+		fWordCount= buffer.getInt();
+		int hashDataLength= buffer.getInt();
+		fBlockIndex= buffer.position();
+		fHashData= fBlockIndex + 4 * fBlockCount;
+		fHashDataEnd= fHashData + hashDataLength;
+		fWordIndex= fHashDataEnd;
+		fWordData= fWordIndex + 4 * (fWordCount + 1);
+		if (hashCount < 0 || fBlockCount < 0 || fWordCount < 0 || hashDataLength < 0 || fBlockCount != (hashCount + BLOCK_SIZE - 1) / BLOCK_SIZE || fWordData > buffer.limit()
+				|| fWordData + buffer.getInt(fWordIndex + 4 * fWordCount) != buffer.limit())
+			throw new IOException("Invalid word list: " + file); //$NON-NLS-1$
+	}
+
+	/**
+	 * Tells whether this word list is empty.
+	 *
+	 * @return <code>true</code> if the word list does not contain any words
+	 */
+	public boolean isEmpty() {
+		return fWordCount == 0;
+	}
+
+	/**
+	 * Returns the words with the given phonetic hash.
+	 *
+	 * @param hash the UTF-8 bytes of the phonetic hash
+	 * @return the UTF-8 bytes of the word if there is exactly one word, a list with the UTF-8
+	 *         bytes of the words if there are several words, or <code>null</code> if there is no
+	 *         word with the given hash
+	 */
+	public Object getWords(byte[] hash) {
+		int low= 0;
+		int high= fBlockCount - 1;
+		int block= -1;
+		while (low <= high) {
+			int mid= (low + high) >>> 1;
+			if (compareFirstHash(mid, hash) <= 0) {
+				block= mid;
+				low= mid + 1;
+			} else {
+				high= mid - 1;
+			}
+		}
+		if (block == -1)
+			return null;
+
+		byte[] current= new byte[MAX_HASH_LENGTH];
+		int position= fHashData + fBuffer.getInt(fBlockIndex + 4 * block);
+		for (int i= 0; i < BLOCK_SIZE && position < fHashDataEnd; i++) {
+			int shared= fBuffer.get(position++) & 0xff;
+			int suffix= fBuffer.get(position++) & 0xff;
+			for (int j= 0; j < suffix; j++)
+				current[shared + j]= fBuffer.get(position++);
+			int first= fBuffer.getInt(position);
+			int count= fBuffer.getInt(position + 4);
+			position+= 8;
+
+			int comparison= compare(current, shared + suffix, hash);
+			if (comparison == 0)
+				return getWords(first, count);
+			if (comparison > 0)
+				return null;
+		}
+		return null;
+	}
+
+	private int compareFirstHash(int block, byte[] hash) {
+		int position= fHashData + fBuffer.getInt(fBlockIndex + 4 * block);
+		int length= fBuffer.get(position + 1) & 0xff;
+		position+= 2;
+		int max= Math.min(length, hash.length);
+		for (int i= 0; i < max; i++) {
+			int difference= (fBuffer.get(position + i) & 0xff) - (hash[i] & 0xff);
+			if (difference != 0)
+				return difference;
+		}
+		return length - hash.length;
+	}
+
+	private Object getWords(int first, int count) {
+		if (count == 1)
+			return getWord(first);
+
+		ArrayList<byte[]> words= new ArrayList<byte[]>(count);
+		for (int i= 0; i < count; i++)
+			words.add(getWord(first + i));
+		return words;
+	}
+
+	private byte[] getWord(int index) {
+		int start= fBuffer.getInt(fWordIndex + 4 * index);
+		int end= fBuffer.getInt(fWordIndex + 4 * (index + 1));
+		byte[] word= new byte[end - start];
+		for (int i= 0; i < word.length; i++)
+			word[i]= fBuffer.get(fWordData + start + i);
+		return word;
+	}
+}
@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.spelling.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.eclipse.core.runtime.Path;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+
+/**
+ * Read-only dictionary whose word list is compiled into a compact file, which is read as a
+ * whole instead of being hashed into the heap.
+ * <p>
+ * The word list is compiled the first time it is loaded and stored in the state location of the
+ * plug-in. Subsequent loads only read the compiled file, as long as the word list, its encoding
+ * and the phonetic hash provider did not change. If the word list cannot be compiled, the words
+ * are hashed into the heap like in {@link AbstractSpellDictionary}.
+ * </p>
+ *
+ * @see CompactWordList
+ * @since 3.9
+ */
+public abstract class CompiledSpellDictionary extends AbstractSpellDictionary {
+
+	/** The folder of the compiled word lists in the state location */
+	private static final String COMPILED_LOCATION= "dictionaries"; //$NON-NLS-1$
+
+	/** The file extension of compiled word lists */
+	private static final String COMPILED_EXTENSION= ".compiled"; //$NON-NLS-1$
+
+	/** The UTF-8 encoding */
+	private static final String UTF_8= "UTF-8"; //$NON-NLS-1$
+
+	/** The compiled word list, or <code>null</code> if not compiled */
+	private volatile CompactWordList fWordList;
+
+	/** The words collected while loading the word list, mapped by their phonetic hash */
+	private Map<String, ArrayList<String>> fCollectedWords;
+
+	/*
+	 * @see org.eclipse.jdt.internal.ui.text.spelling.engine.AbstractSpellDictionary#load(java.net.URL)
+	 */
+	@Override
+	protected synchronized boolean load(final URL url) {
+		if (fWordList != null)
+			return true;
+		if (url == null || fCollectedWords != null)
+			return super.load(url);
+
+		File file= getCompiledFile(url);
+		String key= file != null ? getKey(url) : null;
+		if (key == null)
+			return super.load(url);
+
+		if (file.isFile()) {
+			try {
+				fWordList= CompactWordList.open(file, key);
+				if (fWordList != null)
+					return true;
+			} catch (IOException e) {
+				JavaPlugin.log(e);
+			}
+		}
+
+		Map<String, ArrayList<String>> words= new HashMap<String, ArrayList<String>>();
+		fCollectedWords= words;
+		boolean loaded;
+		try {
+			loaded= super.load(url);
+		} finally {
+			fCollectedWords= null;
+		}
+		if (!loaded)
+			return false;
+
+		try {
+			CompactWordList.write(file, key, words);
+			fWordList= CompactWordList.open(file, key);
+			if (fWordList != null)
+				return true;
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+		}
+
+		for (Iterator<ArrayList<String>> iter= words.values().iterator(); iter.hasNext();) {
+			ArrayList<String> list= iter.next();
+			for (int i= 0; i < list.size(); i++)
+				hashWord(list.get(i));
+		}
+		return true;
+	}
+
+	/*
+	 * @see org.eclipse.jdt.internal.ui.text.spelling.engine.AbstractSpellDictionary#loadWord(java.lang.String)
+	 */
+	@Override
+	protected void loadWord(final String word) {
+		if (fCollectedWords == null) {
+			super.loadWord(word);
+			return;
+		}
+
+		String hash= getHashProvider().getHash(word);
+		ArrayList<String> list= fCollectedWords.get(hash);
+		if (list == null) {
+			list= new ArrayList<String>(1);
+			fCollectedWords.put(hash, list);
+		}
+		list.add(word);
+	}
+
+	/*
+	 * @see org.eclipse.jdt.internal.ui.text.spelling.engine.AbstractSpellDictionary#getCandidates(java.lang.String)
+	 */
+	@Override
+	protected Object getCandidates(final String hash) {
+		CompactWordList wordList= fWordList;
+		if (wordList == null)
+			return super.getCandidates(hash);
+
+		try {
+			return wordList.getWords(hash.getBytes(UTF_8));
+		} catch (UnsupportedEncodingException e) {
+			JavaPlugin.log(e);
+			return null;
+		}
+	}
+
+	/*
+	 * @see org.eclipse.jdt.internal.ui.text.spelling.engine.AbstractSpellDictionary#isEmpty()
+	 */
+	@Override
+	protected boolean isEmpty() {
+		CompactWordList wordList= fWordList;
+		if (wordList == null)
+			return super.isEmpty();
+		return wordList.isEmpty();
+	}
+
+	/*
+	 * @see org.eclipse.jdt.internal.ui.text.spelling.engine.AbstractSpellDictionary#unload()
+	 */
+	@Override
+	public synchronized void unload() {
+		super.unload();
+		fWordList= null;
+	}
+
+	/**
+	 * Returns the file into which the word list at the given URL is compiled.
+	 * <p>
+	 * Subclasses may replace.
+	 * </p>
+	 *
+	 * @param url the URL of the word list
+	 * @return the file for the compiled word list, or <code>null</code> if the word list should
+	 *         not be compiled
+	 */
+	protected File getCompiledFile(final URL url) {
+		JavaPlugin plugin= JavaPlugin.getDefault();
+		if (plugin == null)
+			return null;
+
+		String name= new Path(url.getPath()).lastSegment();
+		if (name == null)
+			name= ""; //$NON-NLS-1$
+		name= name + '-' + Integer.toHexString(url.toExternalForm().hashCode()) + COMPILED_EXTENSION;
+		return plugin.getStateLocation().append(COMPILED_LOCATION).append(name).toFile();
+	}
+
+	/**
+	 * Returns the key that identifies the compiled word list of the given URL. The key changes
+	 * when the word list, its encoding or the phonetic hash provider change.
+	 *
+	 * @param url the URL of the word list
+	 * @return the key, or <code>null</code> if the word list cannot be accessed
+	 */
+	private String getKey(final URL url) {
+		long lastModified;
+		int length;
+		try {
+			URLConnection connection= url.openConnection();
+			InputStream stream= connection.getInputStream();
+			try {
+				lastModified= connection.getLastModified();
+				length= connection.getContentLength();
+			} finally {
+				stream.close();
+			}
+		} catch (IOException e) {
+			return null;
+		}
+
+		StringBuffer buffer= new StringBuffer();
+		buffer.append(url.toExternalForm()).append('\n');
+		buffer.append(getEncoding()).append('\n');
+		buffer.append(getHashProvider().getClass().getName()).append('\n');
+		buffer.append(lastModified).append('\n');
+		buffer.append(length);
+		return buffer.toString();
+	}
+}
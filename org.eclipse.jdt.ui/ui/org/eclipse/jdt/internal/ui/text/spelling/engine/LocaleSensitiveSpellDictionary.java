@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,10 +17,13 @@ import java.util.Locale;
 
 /**
  * Platform wide read-only locale sensitive dictionary for spell checking.
+ * <p>
+ * Since 3.9 the word list is compiled into a compact file, see {@link CompiledSpellDictionary}.
+ * </p>
  *
  * @since 3.0
  */
-public class LocaleSensitiveSpellDictionary extends AbstractSpellDictionary {
+public class LocaleSensitiveSpellDictionary extends CompiledSpellDictionary {
 
 	/** The locale of this dictionary */
 	private final Locale fLocale;
@@ -57,13 +60,4 @@ public class LocaleSensitiveSpellDictionary extends AbstractSpellDictionary {
 	protected final URL getURL() throws MalformedURLException {
 		return new URL(fLocation, fLocale.toString() + ".dictionary");  //$NON-NLS-1$
 	}
-
-	/*
-	 * @see org.eclipse.jdt.internal.ui.text.spelling.engine.AbstractSpellDictionary#getInitialSize()
-	 * @since 3.6
-	 */
-	@Override
-	protected int getInitialSize() {
-		return 32 * 1024;
-	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,7 +13,12 @@ package org.eclipse.jdt.internal.ui.typehierarchy;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.swt.widgets.Display;
 
@@ -21,6 +26,7 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.core.runtime.jobs.Job;
 
 import org.eclipse.jface.operation.IRunnableContext;
@@ -35,7 +41,9 @@ import org.eclipse.jdt.core.IElementChangedListener;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaElementDelta;
 import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IParent;
 import org.eclipse.jdt.core.IRegion;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.ITypeHierarchy;
@@ -50,10 +58,26 @@ import org.eclipse.jdt.internal.ui.JavaPlugin;
 
 /**
  * Manages a type hierarchy, to keep it refreshed, and to allow it to be shared.
+ * <p>
+ * Java element changes are applied incrementally where possible: the declarations of added types
+ * and of types with changed supertypes or modifiers are checked against the hierarchy in a
+ * background job, and the hierarchy is only rebuilt if one of them changes its shape. Other
+ * changes, for example class path changes, rebuild the hierarchy. A rebuilt hierarchy replaces
+ * the current hierarchy only when it is complete. The changes that arrive while the hierarchy is
+ * rebuilt are applied to the rebuilt hierarchy, since it may have been computed before them.
+ * </p>
  */
 public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IElementChangedListener {
 
-	private boolean fHierarchyRefreshNeeded;
+	/**
+	 * The maximal number of changed type declarations that are checked against the hierarchy.
+	 * If more declarations change, the hierarchy is rebuilt.
+	 *
+	 * @since 3.9
+	 */
+	private static final int MAX_CHECKED_DECLARATIONS= 20;
+
+	private volatile boolean fHierarchyRefreshNeeded;
 	private ITypeHierarchy fHierarchy;
 	private IJavaElement[] fInputElements;
 	private boolean fIsSuperTypesOnly;
@@ -79,7 +103,45 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 	 * 
 	 * @since 3.6
 	 */
-	private boolean fRefreshJobCanceledExplicitly= true;
+	private volatile boolean fRefreshJobCanceledExplicitly= true;
+
+	/**
+	 * The job that checks the changed type declarations against the hierarchy. The job belongs to
+	 * the family of this life cycle.
+	 *
+	 * @since 3.9
+	 */
+	private Job fHierarchyCheckJob;
+
+	/**
+	 * The type declarations that changed since the last check, see {@link #fHierarchyCheckJob}.
+	 *
+	 * @since 3.9
+	 */
+	private final List<IType> fChangedDeclarations= new ArrayList<IType>();
+
+	/**
+	 * The types of the hierarchy by their compilation unit or class file, or <code>null</code>
+	 * if not computed yet.
+	 *
+	 * @since 3.9
+	 */
+	private Map<IJavaElement, List<IType>> fTypesByOpenable;
+
+	/**
+	 * The simple names of the types of the hierarchy, or <code>null</code> if not computed yet.
+	 *
+	 * @since 3.9
+	 */
+	private Set<String> fTypeNames;
+
+	/**
+	 * The deltas that arrived while the hierarchy is rebuilt, or <code>null</code> if the
+	 * hierarchy is not being rebuilt. Guarded by this life cycle.
+	 *
+	 * @since 3.9
+	 */
+	private List<IJavaElementDelta> fPendingDeltas;
 
 	/**
 	 * Creates the type hierarchy life cycle.
@@ -115,17 +177,23 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 
 
 	public void freeHierarchy() {
-		if (fHierarchy != null) {
-			fHierarchy.removeTypeHierarchyChangedListener(this);
-			JavaCore.removeElementChangedListener(this);
-			fHierarchy= null;
-			fInputElements= null;
-		}
 		synchronized (this) {
+			if (fHierarchy != null) {
+				JavaCore.removeElementChangedListener(this);
+				fHierarchy= null;
+				fInputElements= null;
+			}
 			if (fRefreshHierarchyJob != null) {
 				fRefreshHierarchyJob.cancel();
 				fRefreshHierarchyJob= null;
 			}
+			if (fHierarchyCheckJob != null) {
+				fHierarchyCheckJob.cancel();
+				fHierarchyCheckJob= null;
+			}
+			fChangedDeclarations.clear();
+			fTypesByOpenable= null;
+			fTypeNames= null;
 		}
 	}
 
@@ -208,8 +276,8 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 					}
 				};
 				fHierarchyRefreshNeeded= true;
+				// doHierarchyRefresh clears the flag unless changes arrived during the rebuild
 				context.run(true, true, op);
-				fHierarchyRefreshNeeded= false;
 			} else {
 				final String label= Messages.format(TypeHierarchyMessages.TypeHierarchyLifeCycle_computeInput, HistoryAction.getElementLabel(elements));
 				synchronized (this) {
@@ -223,14 +291,15 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 							try {
 								doHierarchyRefreshBackground(elements, pm);
 							} catch (OperationCanceledException e) {
+								fHierarchyRefreshNeeded= true;
 								if (fRefreshJobCanceledExplicitly) {
 									fTypeHierarchyViewPart.showEmptyViewer();
 								}
 								return Status.CANCEL_STATUS;
 							} catch (JavaModelException e) {
+								fHierarchyRefreshNeeded= true;
 								return e.getStatus();
 							} finally {
-								fHierarchyRefreshNeeded= true;
 								pm.done();
 							}
 							return Status.OK_STATUS;
@@ -268,8 +337,16 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 	 * @since 3.6
 	 */
 	protected void doHierarchyRefreshBackground(final IJavaElement[] elements, final IProgressMonitor pm) throws JavaModelException {
+		ITypeHierarchy oldHierarchy;
+		IJavaElement[] oldInputElements;
+		synchronized (this) {
+			oldHierarchy= fHierarchy;
+			oldInputElements= fInputElements;
+		}
 		doHierarchyRefresh(elements, pm);
 		if (!pm.isCanceled()) {
+			// a rebuild for the same input only refreshes the changed types of the viewers
+			final IType[] changedTypes= oldHierarchy != null && Arrays.equals(elements, oldInputElements) ? computeChangedTypes(oldHierarchy, fHierarchy) : null;
 			Display.getDefault().asyncExec(new Runnable() {
 				/*
 				 * @see java.lang.Runnable#run()
@@ -283,13 +360,48 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 					}
 					if (pm.isCanceled())
 						return;
-					fTypeHierarchyViewPart.setViewersInput();
-					fTypeHierarchyViewPart.updateViewers();
+					if (changedTypes != null) {
+						fTypeHierarchyViewPart.refreshChangedTypes(changedTypes);
+					} else {
+						fTypeHierarchyViewPart.setViewersInput();
+						fTypeHierarchyViewPart.updateViewers();
+					}
 				}
 			});
 		}
 	}
 
+	/**
+	 * Returns the types whose supertypes, subtypes or flags differ between the given hierarchies.
+	 *
+	 * @param oldHierarchy the hierarchy before the rebuild
+	 * @param newHierarchy the rebuilt hierarchy
+	 * @return the changed types or <code>null</code> if the root types differ
+	 * @since 3.9
+	 */
+	private static IType[] computeChangedTypes(ITypeHierarchy oldHierarchy, ITypeHierarchy newHierarchy) {
+		if (!isSameTypes(oldHierarchy.getRootClasses(), newHierarchy.getRootClasses())
+				|| !isSameTypes(oldHierarchy.getRootInterfaces(), newHierarchy.getRootInterfaces())) {
+			return null;
+		}
+		Set<IType> types= new HashSet<IType>(Arrays.asList(oldHierarchy.getAllTypes()));
+		types.addAll(Arrays.asList(newHierarchy.getAllTypes()));
+		List<IType> changedTypes= new ArrayList<IType>();
+		for (Iterator<IType> iter= types.iterator(); iter.hasNext();) {
+			IType type= iter.next();
+			if (oldHierarchy.getCachedFlags(type) != newHierarchy.getCachedFlags(type)
+					|| !isSameTypes(oldHierarchy.getSubtypes(type), newHierarchy.getSubtypes(type))
+					|| !isSameTypes(oldHierarchy.getSupertypes(type), newHierarchy.getSupertypes(type))) {
+				changedTypes.add(type);
+			}
+		}
+		return changedTypes.toArray(new IType[changedTypes.size()]);
+	}
+
+	private static boolean isSameTypes(IType[] types1, IType[] types2) {
+		return types1.length == types2.length && new HashSet<IType>(Arrays.asList(types1)).equals(new HashSet<IType>(Arrays.asList(types2)));
+	}
+
 	private ITypeHierarchy createTypeHierarchy(IJavaElement[] elements, IProgressMonitor pm) throws JavaModelException {
 		if (elements.length == 1 && elements[0].getElementType() == IJavaElement.TYPE) {
 			IType type= (IType)elements[0];
@@ -319,33 +431,53 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 
 
 	public void doHierarchyRefresh(IJavaElement[] elements, IProgressMonitor pm) throws JavaModelException {
-		boolean hierachyCreationNeeded= (fHierarchy == null || !Arrays.equals(elements, fInputElements));
-		// to ensure the order of the two listeners always remove / add listeners on operations
-		// on type hierarchies
-		if (fHierarchy != null) {
-			fHierarchy.removeTypeHierarchyChangedListener(this);
-			JavaCore.removeElementChangedListener(this);
-		}
-		if (hierachyCreationNeeded) {
-			fHierarchy= createTypeHierarchy(elements, pm);
-			if (pm != null && pm.isCanceled()) {
-				throw new OperationCanceledException();
+		synchronized (this) {
+			fPendingDeltas= new ArrayList<IJavaElementDelta>();
+		}
+		// the current hierarchy stays in place until the new hierarchy is complete
+		ITypeHierarchy hierarchy= null;
+		List<IJavaElementDelta> pendingDeltas;
+		try {
+			hierarchy= createTypeHierarchy(elements, pm);
+		} finally {
+			synchronized (this) {
+				pendingDeltas= fPendingDeltas;
+				fPendingDeltas= null;
+				if (hierarchy != null && (pm == null || !pm.isCanceled())) {
+					fHierarchy= hierarchy;
+					fInputElements= elements;
+					fChangedDeclarations.clear();
+					fTypesByOpenable= null;
+					fTypeNames= null;
+					fHierarchyRefreshNeeded= false;
+				}
 			}
-			fInputElements= elements;
-		} else {
-			fHierarchy.refresh(pm);
-			if (pm != null && pm.isCanceled())
-				throw new OperationCanceledException();
 		}
-		fHierarchy.addTypeHierarchyChangedListener(this);
+		if (pm != null && pm.isCanceled()) {
+			throw new OperationCanceledException();
+		}
 		JavaCore.addElementChangedListener(this);
-		fHierarchyRefreshNeeded= false;
+
+		// the hierarchy may have been computed before these changes
+		for (int i= 0; i < pendingDeltas.size(); i++) {
+			if (fHierarchyRefreshNeeded) {
+				break;
+			}
+			processElementDelta(hierarchy, pendingDeltas.get(i));
+		}
 	}
 
-	/*
+	/**
+	 * Marks the hierarchy as to be rebuilt and notifies the listeners. Also called when the user
+	 * requests a refresh.
+	 *
+	 * @param typeHierarchy the changed hierarchy
 	 * @see ITypeHierarchyChangedListener#typeHierarchyChanged
 	 */
 	public void typeHierarchyChanged(ITypeHierarchy typeHierarchy) {
+		synchronized (this) {
+			fChangedDeclarations.clear();
+		}
 	 	fHierarchyRefreshNeeded= true;
  		fireChange(null);
 	}
@@ -354,19 +486,360 @@ public class TypeHierarchyLifeCycle implements ITypeHierarchyChangedListener, IE
 	 * @see IElementChangedListener#elementChanged(ElementChangedEvent)
 	 */
 	public void elementChanged(ElementChangedEvent event) {
-		if (fChangeListeners.isEmpty()) {
+		ITypeHierarchy hierarchy;
+		synchronized (this) {
+			if (fPendingDeltas != null) {
+				// applied when the rebuilt hierarchy is in place
+				fPendingDeltas.add(event.getDelta());
+				return;
+			}
+			hierarchy= fHierarchy;
+		}
+		if (fHierarchyRefreshNeeded || hierarchy == null) {
+			return;
+		}
+		processElementDelta(hierarchy, event.getDelta());
+	}
+
+	/*
+	 * Applies the given delta to the given hierarchy: checks changed declarations in the
+	 * background, or marks the hierarchy as to be rebuilt, and notifies the listeners.
+	 */
+	private void processElementDelta(ITypeHierarchy hierarchy, IJavaElementDelta delta) {
+		ArrayList<IType> changedDeclarations= new ArrayList<IType>();
+		boolean isIncremental;
+		try {
+			isIncremental= collectChangedDeclarations(delta, changedDeclarations);
+		} catch (JavaModelException e) {
+			// elements of the delta do not exist anymore
+			isIncremental= false;
+		}
+		if (!isIncremental) {
+			typeHierarchyChanged(hierarchy);
 			return;
 		}
+		if (!changedDeclarations.isEmpty()) {
+			scheduleHierarchyCheck(changedDeclarations);
+		}
 
-		if (fHierarchyRefreshNeeded) {
+		if (fChangeListeners.isEmpty()) {
 			return;
+		}
+		ArrayList<IType> changedTypes= new ArrayList<IType>();
+		processDelta(delta, changedTypes);
+		if (changedTypes.size() > 0) {
+			fireChange(changedTypes.toArray(new IType[changedTypes.size()]));
+		}
+	}
+
+	/*
+	 * Collects the types whose declarations may have changed. Returns false if the delta contains
+	 * changes that cannot be checked against the hierarchy.
+	 */
+	private boolean collectChangedDeclarations(IJavaElementDelta delta, List<IType> changedDeclarations) throws JavaModelException {
+		IJavaElement element= delta.getElement();
+		int kind= delta.getKind();
+		switch (element.getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+			case IJavaElement.JAVA_PROJECT:
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+				// projects, source folders, class path and archive changes
+				if (kind != IJavaElementDelta.CHANGED || !isChildrenOrContentChange(delta.getFlags())) {
+					return false;
+				}
+				return collectChildrenChangedDeclarations(delta, changedDeclarations);
+			case IJavaElement.PACKAGE_FRAGMENT:
+				if (kind == IJavaElementDelta.ADDED) {
+					return !((IPackageFragment) element).containsJavaResources();
+				} else if (kind == IJavaElementDelta.REMOVED) {
+					return !containsTypeIn(element, false);
+				} else if (!isChildrenOrContentChange(delta.getFlags())) {
+					return false;
+				}
+				return collectChildrenChangedDeclarations(delta, changedDeclarations);
+			case IJavaElement.COMPILATION_UNIT:
+				ICompilationUnit cu= (ICompilationUnit) element;
+				if (!JavaModelUtil.isPrimary(cu)) {
+					return true;
+				}
+				if (kind == IJavaElementDelta.REMOVED) {
+					return !containsTypeIn(cu, false) && !containsTypeNamed(JavaCore.removeJavaLikeExtension(cu.getElementName()));
+				}
+				if (kind == IJavaElementDelta.ADDED || isPossibleStructuralChange(delta.getFlags()) || hasImportChanges(delta)) {
+					// check all types of the compilation unit
+					if (containsTypeIn(cu, true)) {
+						return false;
+					}
+					collectTypes(cu, changedDeclarations);
+					return true;
+				}
+				return collectChildrenChangedDeclarations(delta, changedDeclarations);
+			case IJavaElement.CLASS_FILE:
+				return false;
+			case IJavaElement.TYPE:
+				if (kind == IJavaElementDelta.ADDED) {
+					collectTypes(element, changedDeclarations);
+					return true;
+				} else if (kind == IJavaElementDelta.REMOVED) {
+					return !containsTypeIn(element, false) && !containsTypeNamed(element.getElementName());
+				}
+				if ((delta.getFlags() & (IJavaElementDelta.F_SUPER_TYPES | IJavaElementDelta.F_MODIFIERS)) != 0) {
+					changedDeclarations.add((IType) element);
+				}
+				return collectChildrenChangedDeclarations(delta, changedDeclarations);
+			case IJavaElement.METHOD:
+			case IJavaElement.FIELD:
+			case IJavaElement.INITIALIZER:
+				// local and anonymous types
+				if (kind == IJavaElementDelta.REMOVED) {
+					return !containsTypeIn(element, false);
+				}
+				if (kind == IJavaElementDelta.ADDED || (delta.getFlags() & IJavaElementDelta.F_CONTENT) != 0) {
+					if (containsTypeIn(element, true)) {
+						return false;
+					}
+					collectTypes(element, changedDeclarations);
+				}
+				return true;
+			default:
+				return true;
+		}
+	}
+
+	private boolean collectChildrenChangedDeclarations(IJavaElementDelta delta, List<IType> changedDeclarations) throws JavaModelException {
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (!collectChangedDeclarations(children[i], changedDeclarations)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isChildrenOrContentChange(int flags) {
+		return (flags & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_CONTENT)) == 0;
+	}
+
+	private static boolean hasImportChanges(IJavaElementDelta delta) {
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			int type= children[i].getElement().getElementType();
+			if (type == IJavaElement.IMPORT_CONTAINER || type == IJavaElement.IMPORT_DECLARATION || type == IJavaElement.PACKAGE_DECLARATION) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Collects the given element if it is a type, and all member, local and anonymous types in it.
+	 */
+	private static void collectTypes(IJavaElement element, List<IType> types) throws JavaModelException {
+		if (element.getElementType() == IJavaElement.TYPE) {
+			types.add((IType) element);
+		}
+		if (element instanceof IParent) {
+			IJavaElement[] children= ((IParent) element).getChildren();
+			for (int i= 0; i < children.length; i++) {
+				switch (children[i].getElementType()) {
+					case IJavaElement.TYPE:
+					case IJavaElement.METHOD:
+					case IJavaElement.FIELD:
+					case IJavaElement.INITIALIZER:
+						collectTypes(children[i], types);
+						break;
+				}
+			}
+		}
+	}
+
+	/*
+	 * Returns whether the hierarchy contains the given element, a type declared in it or, if
+	 * onlyRemoved is set, a type declared in it that does not exist anymore.
+	 */
+	private synchronized boolean containsTypeIn(IJavaElement element, boolean onlyRemoved) {
+		Map<IJavaElement, List<IType>> typesByOpenable= getTypesByOpenable();
+		if (typesByOpenable == null) {
+			return false;
+		}
+		List<IType> types;
+		if (element.getElementType() == IJavaElement.PACKAGE_FRAGMENT) {
+			types= new ArrayList<IType>();
+			for (Iterator<Map.Entry<IJavaElement, List<IType>>> iter= typesByOpenable.entrySet().iterator(); iter.hasNext();) {
+				Map.Entry<IJavaElement, List<IType>> entry= iter.next();
+				if (element.equals(entry.getKey().getParent())) {
+					types.addAll(entry.getValue());
+				}
+			}
 		} else {
-			ArrayList<IType> changedTypes= new ArrayList<IType>();
-			processDelta(event.getDelta(), changedTypes);
-			if (changedTypes.size() > 0) {
-				fireChange(changedTypes.toArray(new IType[changedTypes.size()]));
+			types= typesByOpenable.get(element.getOpenable());
+			if (types == null) {
+				return false;
+			}
+		}
+		for (int i= 0; i < types.size(); i++) {
+			IType type= types.get(i);
+			if (isAncestor(element, type) && (!onlyRemoved || !type.exists())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private synchronized boolean containsTypeNamed(String name) {
+		if (name.length() == 0 || getTypesByOpenable() == null) {
+			return false;
+		}
+		return fTypeNames.contains(name);
+	}
+
+	private Map<IJavaElement, List<IType>> getTypesByOpenable() {
+		if (fTypesByOpenable == null && fHierarchy != null) {
+			Map<IJavaElement, List<IType>> typesByOpenable= new HashMap<IJavaElement, List<IType>>();
+			Set<String> typeNames= new HashSet<String>();
+			IType[] types= fHierarchy.getAllTypes();
+			for (int i= 0; i < types.length; i++) {
+				IJavaElement openable= (IJavaElement) types[i].getOpenable();
+				List<IType> list= typesByOpenable.get(openable);
+				if (list == null) {
+					list= new ArrayList<IType>(1);
+					typesByOpenable.put(openable, list);
+				}
+				list.add(types[i]);
+				typeNames.add(types[i].getElementName());
+			}
+			fTypesByOpenable= typesByOpenable;
+			fTypeNames= typeNames;
+		}
+		return fTypesByOpenable;
+	}
+
+	private static boolean isAncestor(IJavaElement ancestor, IJavaElement element) {
+		while (element != null) {
+			if (ancestor.equals(element)) {
+				return true;
+			}
+			element= element.getParent();
+		}
+		return false;
+	}
+
+	private void scheduleHierarchyCheck(List<IType> changedDeclarations) {
+		synchronized (this) {
+			for (int i= 0; i < changedDeclarations.size(); i++) {
+				IType type= changedDeclarations.get(i);
+				if (!fChangedDeclarations.contains(type)) {
+					fChangedDeclarations.add(type);
+				}
+			}
+			if (fHierarchyCheckJob == null) {
+				fHierarchyCheckJob= new Job(TypeHierarchyMessages.TypeHierarchyLifeCycle_updateHierarchy) {
+					/*
+					 * @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
+					 */
+					@Override
+					protected IStatus run(IProgressMonitor pm) {
+						return checkChangedDeclarations(pm);
+					}
+
+					/*
+					 * @see org.eclipse.core.runtime.jobs.Job#belongsTo(java.lang.Object)
+					 */
+					@Override
+					public boolean belongsTo(Object family) {
+						return family == TypeHierarchyLifeCycle.this;
+					}
+				};
+				fHierarchyCheckJob.setSystem(true);
+			}
+			fHierarchyCheckJob.schedule();
+		}
+	}
+
+	/*
+	 * Checks the changed type declarations against the hierarchy and requests a rebuild if one of
+	 * them changes the shape of the hierarchy.
+	 */
+	private IStatus checkChangedDeclarations(IProgressMonitor pm) {
+		ITypeHierarchy hierarchy;
+		IJavaElement[] inputElements;
+		IType[] types;
+		synchronized (this) {
+			hierarchy= fHierarchy;
+			inputElements= fInputElements;
+			types= fChangedDeclarations.toArray(new IType[fChangedDeclarations.size()]);
+			fChangedDeclarations.clear();
+		}
+		if (hierarchy == null || inputElements == null || types.length == 0) {
+			return Status.OK_STATUS;
+		}
+
+		pm.beginTask("", types.length); //$NON-NLS-1$
+		try {
+			boolean isAffected= types.length > MAX_CHECKED_DECLARATIONS;
+			for (int i= 0; !isAffected && i < types.length; i++) {
+				if (pm.isCanceled()) {
+					return Status.CANCEL_STATUS;
+				}
+				isAffected= isHierarchyAffected(hierarchy, inputElements, types[i], new SubProgressMonitor(pm, 1));
+			}
+			if (isAffected && hierarchy == fHierarchy && !fHierarchyRefreshNeeded) {
+				typeHierarchyChanged(hierarchy);
+			}
+		} catch (JavaModelException e) {
+			if (hierarchy == fHierarchy && !fHierarchyRefreshNeeded) {
+				typeHierarchyChanged(hierarchy);
+			}
+		} catch (OperationCanceledException e) {
+			return Status.CANCEL_STATUS;
+		} finally {
+			pm.done();
+		}
+		return Status.OK_STATUS;
+	}
+
+	/*
+	 * Returns whether the current declaration of the given type changes the shape of the hierarchy.
+	 */
+	private boolean isHierarchyAffected(ITypeHierarchy hierarchy, IJavaElement[] inputElements, IType type, IProgressMonitor pm) throws JavaModelException {
+		boolean isContained= hierarchy.contains(type);
+		if (!type.exists()) {
+			return isContained;
+		}
+		ITypeHierarchy supertypeHierarchy= type.newSupertypeHierarchy(pm);
+		IType[] supertypes= supertypeHierarchy.getSupertypes(type);
+		if (isContained) {
+			return hierarchy.getCachedFlags(type) != supertypeHierarchy.getCachedFlags(type)
+					|| !new HashSet<IType>(Arrays.asList(hierarchy.getSupertypes(type))).equals(new HashSet<IType>(Arrays.asList(supertypes)));
+		}
+
+		if (containsTypeNamed(type.getElementName())) {
+			// the type can hide a type of the hierarchy
+			return true;
+		}
+		if (inputElements.length == 1 && inputElements[0].getElementType() == IJavaElement.TYPE) {
+			if (fIsSuperTypesOnly) {
+				return false;
+			}
+			// a new subtype of the focus type
+			IType focus= (IType) inputElements[0];
+			for (int i= 0; i < supertypes.length; i++) {
+				if (focus.equals(supertypes[i])) {
+					return true;
+				}
+				if (hierarchy.contains(supertypes[i]) && Arrays.asList(hierarchy.getAllSupertypes(supertypes[i])).contains(focus)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		// a new type in the region
+		for (int i= 0; i < inputElements.length; i++) {
+			if (isAncestor(inputElements[i], type)) {
+				return true;
 			}
 		}
+		return false;
 	}
 
 	/*
@@ -14,6 +14,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 
 import org.eclipse.help.IContextProvider;
@@ -199,6 +200,33 @@ public class TypeHierarchyViewPart extends ViewPart implements ITypeHierarchyVie
 	private boolean fNeedRefresh;
 	private boolean fIsEnableMemberFilter;
 	private boolean fIsRefreshRunnablePosted;
+	/**
+	 * Set when a full hierarchy change arrives while a refresh runnable is already posted.
+	 *
+	 * @since 3.9
+	 */
+	private boolean fIsHierarchyChangePending;
+
+	/**
+	 * The maximal time in milliseconds spent in one slice of a progressive refresh.
+	 *
+	 * @since 3.9
+	 */
+	private static final long REFRESH_TIME_SLICE= 100;
+
+	/**
+	 * The types that remain to be refreshed by the progressive refresh.
+	 *
+	 * @since 3.9
+	 */
+	private final LinkedList<IType> fTypesToRefresh= new LinkedList<IType>();
+
+	/**
+	 * Tells whether a slice of the progressive refresh is posted.
+	 *
+	 * @since 3.9
+	 */
+	private boolean fIsRefreshSlicePosted;
 
 	private int fCurrentViewerIndex;
 	private TypeHierarchyViewer[] fAllViewers;
@@ -263,6 +291,7 @@ public class TypeHierarchyViewPart extends ViewPart implements ITypeHierarchyVie
 		fInputElements= null;
 		fIsVisible= false;
 		fIsRefreshRunnablePosted= false;
+		fIsHierarchyChangePending= false;
 		fSelectInEditor= true;
 		fRestoreStateJob= null;
 
@@ -1564,6 +1593,9 @@ public class TypeHierarchyViewPart extends ViewPart implements ITypeHierarchyVie
 			return;
 		}
 		if (fIsRefreshRunnablePosted) {
+			// a label update must not swallow a later hierarchy change
+			if (changedTypes == null)
+				fIsHierarchyChangePending= true;
 			return;
 		}
 
@@ -1573,8 +1605,10 @@ public class TypeHierarchyViewPart extends ViewPart implements ITypeHierarchyVie
 			display.asyncExec(new Runnable() {
 				public void run() {
 					try {
+						IType[] types= fIsHierarchyChangePending ? null : changedTypes;
+						fIsHierarchyChangePending= false;
 						if (fPagebook != null && !fPagebook.isDisposed()) {
-							doTypeHierarchyChangedOnViewers(changedTypes);
+							doTypeHierarchyChangedOnViewers(types);
 						}
 					} finally {
 						fIsRefreshRunnablePosted= false;
@@ -1599,8 +1633,16 @@ public class TypeHierarchyViewPart extends ViewPart implements ITypeHierarchyVie
 				} catch (InterruptedException e) {
 					return;
 				}
-				fMethodsViewer.refresh();
-				updateHierarchyViewer(false);
+				if (fHierarchyLifeCycle.getHierarchy() == null) {
+					// the input has been deleted
+					clearInput();
+					return;
+				}
+				if (!fHierarchyLifeCycle.isRefreshJobRunning()) {
+					// otherwise the viewers are refreshed when the rebuilt hierarchy is available
+					fMethodsViewer.refresh();
+					updateHierarchyViewer(false);
+				}
 			} else {
 				// elements in hierarchy modified
 				Object methodViewerInput= fMethodsViewer.getInput();
@@ -1930,12 +1972,62 @@ public class TypeHierarchyViewPart extends ViewPart implements ITypeHierarchyVie
 	 * @since 3.6
 	 */
 	public void setViewersInput() {
+		fTypesToRefresh.clear();
 		for (int i= 0; i < fAllViewers.length; i++) {
 			fAllViewers[i].setInput(fAllViewers[i]);
 		}
 		setKeepShowingEmptyViewers(false);
 	}
 
+	/**
+	 * Refreshes the given types in the current hierarchy viewer after the hierarchy has been
+	 * rebuilt for the same input. Unlike {@link #updateViewers()}, the expansion and the selection
+	 * are kept. The types are refreshed in slices of {@link #REFRESH_TIME_SLICE} milliseconds, so
+	 * that the view stays responsive while large hierarchies are updated. The other viewers are
+	 * refreshed when they are shown.
+	 *
+	 * @param changedTypes the types whose supertypes, subtypes or flags have changed
+	 * @since 3.9
+	 */
+	public void refreshChangedTypes(IType[] changedTypes) {
+		if (fPagebook == null || fPagebook.isDisposed())
+			return;
+		if (getCurrentViewer().isMethodFiltering()) {
+			updateHierarchyViewer(false);
+			fMethodsViewer.refresh();
+			return;
+		}
+		fTypesToRefresh.addAll(Arrays.asList(changedTypes));
+		runRefreshSlice();
+	}
+
+	private void runRefreshSlice() {
+		if (fPagebook == null || fPagebook.isDisposed()) {
+			fTypesToRefresh.clear();
+			return;
+		}
+		TypeHierarchyViewer viewer= getCurrentViewer();
+		long start= System.currentTimeMillis();
+		while (!fTypesToRefresh.isEmpty()) {
+			viewer.refresh(fTypesToRefresh.removeFirst());
+			if (System.currentTimeMillis() - start >= REFRESH_TIME_SLICE)
+				break;
+		}
+		if (fTypesToRefresh.isEmpty()) {
+			fMethodsViewer.refresh();
+			return;
+		}
+		if (!fIsRefreshSlicePosted) {
+			fIsRefreshSlicePosted= true;
+			getDisplay().asyncExec(new Runnable() {
+				public void run() {
+					fIsRefreshSlicePosted= false;
+					runRefreshSlice();
+				}
+			});
+		}
+	}
+
 	/**
 	 * Sets whether empty viewers should keep showing. If false, replace with fEmptyTypesViewer.
 	 * 
@@ -0,0 +1,467 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.viewsupport;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
+import org.eclipse.jface.viewers.StyledString;
+import org.eclipse.jface.viewers.StyledString.Styler;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IField;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+
+import org.eclipse.jdt.ui.JavaElementLabels;
+import org.eclipse.jdt.ui.PreferenceConstants;
+
+import org.eclipse.jdt.internal.ui.viewsupport.JavaElementLabelComposer.FlexibleBuffer;
+
+
+/**
+ * A bounded cache of the labels composed by {@link JavaElementLabelComposer} for
+ * {@link JavaElementLabels}.
+ * <p>
+ * Labels are keyed by the element handle and the rendering flags. A cached label consists of
+ * its text and of the styles that the composer set, so that the same entry serves plain and
+ * styled labels. Looking up the text of a cached label does not allocate.
+ * </p>
+ * <p>
+ * The labels of an element only depend on its compilation unit or class file, on the
+ * classpath and on the package name appearance preferences. The labels of the elements of a
+ * changed compilation unit or class file are dropped when the Java model reports the change;
+ * all labels are dropped when the classpath or the appearance preferences change. Resolved
+ * elements are not cached, since their handles do not include the resolved key.
+ * </p>
+ *
+ * @since 3.9
+ */
+public final class JavaElementLabelCache {
+
+	/**
+	 * A cached label. The labels of an element with different flags are chained.
+	 */
+	private static final class Label {
+
+		private final long fFlags;
+		private final String fText;
+		/** The offsets and lengths of the styled ranges, or <code>null</code> if not styled */
+		private final int[] fRanges;
+		private final Styler[] fStylers;
+		private Label fNext;
+
+		public Label(long flags, String text, int[] ranges, Styler[] stylers) {
+			fFlags= flags;
+			fText= text;
+			fRanges= ranges;
+			fStylers= stylers;
+		}
+
+		public void appendTo(FlexibleBuffer buffer) {
+			int offset= buffer.length();
+			buffer.append(fText);
+			if (fStylers != null) {
+				for (int i= 0; i < fStylers.length; i++)
+					buffer.setStyle(offset + fRanges[2 * i], fRanges[2 * i + 1], fStylers[i]);
+			}
+		}
+	}
+
+	/**
+	 * A buffer that records the text and the styles of a composed label. A recorder is reused
+	 * by the thread that composes labels.
+	 */
+	private static final class LabelRecorder extends FlexibleBuffer {
+
+		private final StringBuffer fText= new StringBuffer();
+		private int[] fRanges= new int[8];
+		private final List<Styler> fStylers= new ArrayList<Styler>();
+		private boolean fIsInUse;
+
+		@Override
+		public FlexibleBuffer append(char ch) {
+			fText.append(ch);
+			return this;
+		}
+
+		@Override
+		public FlexibleBuffer append(String string) {
+			fText.append(string);
+			return this;
+		}
+
+		@Override
+		public int length() {
+			return fText.length();
+		}
+
+		@Override
+		public void setStyle(int offset, int length, Styler styler) {
+			int index= fStylers.size();
+			if (2 * index + 1 >= fRanges.length) {
+				int[] ranges= new int[2 * fRanges.length];
+				System.arraycopy(fRanges, 0, ranges, 0, fRanges.length);
+				fRanges= ranges;
+			}
+			fRanges[2 * index]= offset;
+			fRanges[2 * index + 1]= length;
+			fStylers.add(styler);
+		}
+
+		public Label toLabel(long flags) {
+			int count= fStylers.size();
+			if (count == 0)
+				return new Label(flags, fText.toString(), null, null);
+			int[] ranges= new int[2 * count];
+			System.arraycopy(fRanges, 0, ranges, 0, ranges.length);
+			return new Label(flags, fText.toString(), ranges, fStylers.toArray(new Styler[count]));
+		}
+
+		public void reset() {
+			fText.setLength(0);
+			fStylers.clear();
+		}
+	}
+
+	/**
+	 * The default for the maximal number of cached labels.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES= 5000;
+
+	private static final int CLASSPATH_FLAGS= IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED | IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH | IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED | IJavaElementDelta.F_SOURCEATTACHED | IJavaElementDelta.F_SOURCEDETACHED;
+
+	private final LinkedHashMap<IJavaElement, Label> fLabels= new LinkedHashMap<IJavaElement, Label>(256, 0.75f, true);
+	private int fSize= 0;
+	private int fMaxEntries= DEFAULT_MAX_ENTRIES;
+	private int fModelStamp= 0;
+
+	private int fHits= 0;
+	private int fMisses= 0;
+	private int fEvictions= 0;
+
+	private final ThreadLocal<LabelRecorder> fRecorder= new ThreadLocal<LabelRecorder>() {
+		@Override
+		protected LabelRecorder initialValue() {
+			return new LabelRecorder();
+		}
+	};
+
+	private final IElementChangedListener fElementListener= new IElementChangedListener() {
+		public void elementChanged(ElementChangedEvent event) {
+			modelChanged(event.getDelta());
+		}
+	};
+
+	private final IPropertyChangeListener fPropertyListener= new IPropertyChangeListener() {
+		public void propertyChange(PropertyChangeEvent event) {
+			String property= event.getProperty();
+			if (PreferenceConstants.APPEARANCE_COMPRESS_PACKAGE_NAMES.equals(property)
+					|| PreferenceConstants.APPEARANCE_PKG_NAME_PATTERN_FOR_PKG_VIEW.equals(property)
+					|| PreferenceConstants.APPEARANCE_ABBREVIATE_PACKAGE_NAMES.equals(property)
+					|| PreferenceConstants.APPEARANCE_PKG_NAME_ABBREVIATION_PATTERN_FOR_PKG_VIEW.equals(property)) {
+				invalidateAll();
+			}
+		}
+	};
+
+	private final IPreferenceStore fPreferenceStore;
+
+	/**
+	 * Creates a new cache that listens to changes of the Java model and of the given
+	 * preference store.
+	 *
+	 * @param store the preference store with the appearance preferences
+	 */
+	public JavaElementLabelCache(IPreferenceStore store) {
+		fPreferenceStore= store;
+		JavaCore.addElementChangedListener(fElementListener);
+		fPreferenceStore.addPropertyChangeListener(fPropertyListener);
+	}
+
+	/**
+	 * Stops listening to changes and removes all labels.
+	 */
+	public void dispose() {
+		JavaCore.removeElementChangedListener(fElementListener);
+		fPreferenceStore.removePropertyChangeListener(fPropertyListener);
+		clear();
+	}
+
+	/**
+	 * Returns the label of the given element, see
+	 * {@link JavaElementLabels#getElementLabel(IJavaElement, long)}. The label is not
+	 * BiDi-processed.
+	 *
+	 * @param element the element
+	 * @param flags the rendering flags
+	 * @return the label
+	 */
+	public String getElementLabel(IJavaElement element, long flags) {
+		return getLabel(element, flags).fText;
+	}
+
+	/**
+	 * Appends the label of the given element to the given buffer, see
+	 * {@link JavaElementLabels#getElementLabel(IJavaElement, long, StringBuffer)}.
+	 *
+	 * @param element the element
+	 * @param flags the rendering flags
+	 * @param buffer the buffer to append the label to
+	 */
+	public void appendElementLabel(IJavaElement element, long flags, StringBuffer buffer) {
+		buffer.append(getLabel(element, flags).fText);
+	}
+
+	/**
+	 * Appends the styled label of the given element to the given string, see
+	 * {@link JavaElementLabels#getElementLabel(IJavaElement, long, StyledString)}.
+	 *
+	 * @param element the element
+	 * @param flags the rendering flags
+	 * @param result the styled string to append the label to
+	 */
+	public void appendElementLabel(IJavaElement element, long flags, StyledString result) {
+		getLabel(element, flags).appendTo(new JavaElementLabelComposer.FlexibleStyledString(result));
+	}
+
+	private Label getLabel(IJavaElement element, long flags) {
+		if (isResolved(element))
+			return composeLabel(element, flags);
+
+		int modelStamp;
+		synchronized (this) {
+			Label label= fLabels.get(element);
+			while (label != null) {
+				if (label.fFlags == flags) {
+					fHits++;
+					return label;
+				}
+				label= label.fNext;
+			}
+			fMisses++;
+			modelStamp= fModelStamp;
+		}
+
+		// compose outside of the lock, the composer accesses the Java model
+		Label label= composeLabel(element, flags);
+
+		synchronized (this) {
+			if (modelStamp == fModelStamp && fMaxEntries > 0) {
+				Label first= fLabels.get(element);
+				Label other= first;
+				while (other != null && other.fFlags != flags)
+					other= other.fNext;
+				if (other != null)
+					return other; // composed concurrently
+
+				label.fNext= first;
+				fLabels.put(element, label);
+				fSize++;
+				evict(element);
+			}
+		}
+		return label;
+	}
+
+	private Label composeLabel(IJavaElement element, long flags) {
+		LabelRecorder recorder= fRecorder.get();
+		if (recorder.fIsInUse)
+			recorder= new LabelRecorder(); // re-entered while composing
+		recorder.fIsInUse= true;
+		try {
+			recorder.reset();
+			new JavaElementLabelComposer(recorder).appendElementLabel(element, flags);
+			return recorder.toLabel(flags);
+		} finally {
+			recorder.fIsInUse= false;
+		}
+	}
+
+	/**
+	 * Removes all labels from the cache.
+	 */
+	public synchronized void clear() {
+		fLabels.clear();
+		fSize= 0;
+	}
+
+	/**
+	 * Invalidates the labels that may be affected by the given delta.
+	 *
+	 * @param delta the Java element delta
+	 */
+	public void modelChanged(IJavaElementDelta delta) {
+		Set<IJavaElement> changed= new HashSet<IJavaElement>();
+		if (!collectChangedElements(delta, changed)) {
+			invalidateAll();
+			return;
+		}
+		if (changed.isEmpty())
+			return;
+
+		synchronized (this) {
+			fModelStamp++;
+			Iterator<Map.Entry<IJavaElement, Label>> iter= fLabels.entrySet().iterator();
+			while (iter.hasNext()) {
+				Map.Entry<IJavaElement, Label> entry= iter.next();
+				if (isInside(entry.getKey(), changed)) {
+					iter.remove();
+					fSize-= getCount(entry.getValue());
+				}
+			}
+		}
+	}
+
+	private synchronized void invalidateAll() {
+		fModelStamp++;
+		clear();
+	}
+
+	/**
+	 * Sets the bound of the cache and evicts labels if necessary.
+	 *
+	 * @param maxEntries the maximal number of cached labels
+	 */
+	public synchronized void setCapacity(int maxEntries) {
+		if (maxEntries < 0)
+			throw new IllegalArgumentException();
+		fMaxEntries= maxEntries;
+		evict(null);
+	}
+
+	public synchronized int getSize() {
+		return fSize;
+	}
+
+	public synchronized int getHits() {
+		return fHits;
+	}
+
+	public synchronized int getMisses() {
+		return fMisses;
+	}
+
+	public synchronized int getEvictions() {
+		return fEvictions;
+	}
+
+	public synchronized void resetStatistics() {
+		fHits= 0;
+		fMisses= 0;
+		fEvictions= 0;
+	}
+
+	/**
+	 * Evicts the labels of the least recently used elements until the cache is within its
+	 * bound.
+	 *
+	 * @param keep the element whose labels are kept, or <code>null</code>
+	 */
+	private void evict(IJavaElement keep) {
+		Iterator<Map.Entry<IJavaElement, Label>> iter= fLabels.entrySet().iterator();
+		while (fSize > fMaxEntries && iter.hasNext()) {
+			Map.Entry<IJavaElement, Label> entry= iter.next();
+			if (entry.getKey().equals(keep) && fMaxEntries > 0)
+				continue;
+			iter.remove();
+			int count= getCount(entry.getValue());
+			fSize-= count;
+			fEvictions+= count;
+		}
+	}
+
+	private static int getCount(Label label) {
+		int count= 0;
+		for (; label != null; label= label.fNext)
+			count++;
+		return count;
+	}
+
+	private static boolean isInside(IJavaElement element, Set<IJavaElement> ancestors) {
+		for (; element != null; element= element.getParent()) {
+			if (ancestors.contains(element))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Collects the elements of the given delta whose labels and whose descendants' labels have
+	 * to be invalidated.
+	 *
+	 * @param delta the Java element delta
+	 * @param changed the set to add the elements to
+	 * @return <code>false</code> if all labels have to be invalidated
+	 */
+	private static boolean collectChangedElements(IJavaElementDelta delta, Set<IJavaElement> changed) {
+		IJavaElement element= delta.getElement();
+		switch (element.getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+			case IJavaElement.JAVA_PROJECT:
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+			case IJavaElement.PACKAGE_FRAGMENT:
+				if (delta.getKind() != IJavaElementDelta.CHANGED) {
+					changed.add(element);
+					return true;
+				}
+				int flags= delta.getFlags();
+				if ((flags & CLASSPATH_FLAGS) != 0)
+					return false;
+				if ((flags & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_CONTENT)) != 0)
+					changed.add(element);
+				break;
+			default:
+				// labels only depend on the compilation unit or class file
+				changed.add(element.getOpenable() instanceof IJavaElement ? (IJavaElement) element.getOpenable() : element);
+				return true;
+		}
+
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (!collectChangedElements(children[i], changed))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Tells whether the given element is resolved. Resolved elements are equal to their
+	 * unresolved counterparts, but their labels may show the resolved type arguments.
+	 *
+	 * @param element the element
+	 * @return <code>true</code> if the element is resolved
+	 */
+	private static boolean isResolved(IJavaElement element) {
+		switch (element.getElementType()) {
+			case IJavaElement.TYPE:
+				return ((IType) element).isResolved();
+			case IJavaElement.METHOD:
+				return ((IMethod) element).isResolved();
+			case IJavaElement.FIELD:
+				return ((IField) element).isResolved();
+			default:
+				return false;
+		}
+	}
+}
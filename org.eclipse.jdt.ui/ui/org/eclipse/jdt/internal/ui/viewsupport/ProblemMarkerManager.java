@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -110,6 +110,12 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 
 	private UIJob fNotifierJob;
 
+	/**
+	 * The index of the problem severities, or <code>null</code> if not requested yet.
+	 * @since 3.9
+	 */
+	private ProblemSeverityIndex fSeverityIndex;
+
 	public ProblemMarkerManager() {
 		fListeners= new ListenerList();
 		fResourcesWithMarkerChanges= new HashSet<IResource>();
@@ -124,8 +130,17 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 
 		try {
 			IResourceDelta delta= event.getDelta();
-			if (delta != null)
+			if (delta != null) {
+				// update the index before the listeners are notified
+				ProblemSeverityIndex severityIndex;
+				synchronized (this) {
+					severityIndex= fSeverityIndex;
+				}
+				if (severityIndex != null)
+					severityIndex.resourceChanged(delta);
+
 				delta.accept(new ProjectErrorVisitor(changedElements));
+			}
 		} catch (CoreException e) {
 			JavaPlugin.log(e.getStatus());
 		}
@@ -192,11 +207,46 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 	public void removeListener(IProblemChangedListener listener) {
 		fListeners.remove(listener);
 		if (fListeners.isEmpty()) {
-			JavaPlugin.getWorkspace().removeResourceChangeListener(this);
+			if (!hasSeverityIndex())
+				JavaPlugin.getWorkspace().removeResourceChangeListener(this);
 			JavaPlugin.getDefault().getCompilationUnitDocumentProvider().removeGlobalAnnotationModelListener(this);
 		}
 	}
 
+	/**
+	 * Returns the index of the maximal problem severities of resources, which is kept up to
+	 * date from the resource deltas before the listeners are notified of problem changes.
+	 *
+	 * @return the problem severity index
+	 * @since 3.9
+	 */
+	public synchronized ProblemSeverityIndex getProblemSeverityIndex() {
+		if (fSeverityIndex == null) {
+			fSeverityIndex= new ProblemSeverityIndex();
+			JavaPlugin.getWorkspace().addResourceChangeListener(this);
+		}
+		return fSeverityIndex;
+	}
+
+	private synchronized boolean hasSeverityIndex() {
+		return fSeverityIndex != null;
+	}
+
+	/**
+	 * Stops listening to resource changes and releases the problem severity index.
+	 *
+	 * @since 3.9
+	 */
+	public void dispose() {
+		synchronized (this) {
+			if (fSeverityIndex != null) {
+				fSeverityIndex.clear();
+				fSeverityIndex= null;
+			}
+		}
+		JavaPlugin.getWorkspace().removeResourceChangeListener(this);
+	}
+
 	private void fireChanges() {
 		Display display= PlatformUI.getWorkbench().getDisplay();
 		if (display != null && !display.isDisposed()) {
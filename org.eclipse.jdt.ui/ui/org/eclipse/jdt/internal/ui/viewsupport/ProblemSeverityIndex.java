@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.viewsupport;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+
+/**
+ * An index of the maximal severity of the problem markers of resources and of the resource
+ * trees below containers, as returned by
+ * {@link IResource#findMaxProblemSeverity(String, boolean, int)} for
+ * {@link IMarker#PROBLEM} and its subtypes.
+ * <p>
+ * The problem markers of a project are read once when a resource of the project is first
+ * queried. Afterwards the index is kept up to date from the marker changes of the resource
+ * deltas passed to {@link #resourceChanged(IResourceDelta)}: the severity of a changed
+ * resource is read again and the number of resources per severity is updated for the
+ * resource and all its parents. Queries are answered without looking at the markers.
+ * </p>
+ * <p>
+ * Only resources with problem markers and their parents are stored.
+ * </p>
+ *
+ * @since 3.9
+ */
+public final class ProblemSeverityIndex {
+
+	/**
+	 * The severities of a resource and of the resources below it.
+	 */
+	private static final class Node {
+
+		/** The maximal severity of the markers on the resource itself, or -1 */
+		private int fSeverity= -1;
+
+		/**
+		 * The number of resources in the tree of the resource, including the resource, by the
+		 * maximal severity of their markers, indexed by {@link IMarker#SEVERITY_INFO},
+		 * {@link IMarker#SEVERITY_WARNING} and {@link IMarker#SEVERITY_ERROR}.
+		 */
+		private final int[] fCounts= new int[3];
+
+		public int getMaxSeverity() {
+			for (int severity= IMarker.SEVERITY_ERROR; severity >= IMarker.SEVERITY_INFO; severity--) {
+				if (fCounts[severity] > 0)
+					return severity;
+			}
+			return -1;
+		}
+
+		public boolean isEmpty() {
+			return fSeverity == -1 && getMaxSeverity() == -1;
+		}
+	}
+
+	private final Map<IResource, Node> fNodes= new HashMap<IResource, Node>();
+	private final Set<IProject> fIndexedProjects= new HashSet<IProject>();
+
+	/**
+	 * Returns the maximal severity of the problem markers on the given resource, see
+	 * {@link IResource#findMaxProblemSeverity(String, boolean, int)}. Resources with depth
+	 * {@link IResource#DEPTH_ZERO} and {@link IResource#DEPTH_INFINITE} are looked up in the
+	 * index, other queries are passed on to the resource.
+	 *
+	 * @param resource the resource
+	 * @param depth the depth, one of the <code>IResource.DEPTH_*</code> constants
+	 * @return the maximal severity or -1 if the resource has no problem markers with a severity
+	 * @throws CoreException if the markers cannot be read
+	 */
+	public int getMaxProblemSeverity(IResource resource, int depth) throws CoreException {
+		IProject project= resource.getProject();
+		boolean isIndexed= project != null && project.isAccessible()
+				&& (depth == IResource.DEPTH_INFINITE || depth == IResource.DEPTH_ZERO || resource.getType() == IResource.FILE);
+		if (!isIndexed)
+			return resource.findMaxProblemSeverity(IMarker.PROBLEM, true, depth);
+
+		synchronized (this) {
+			if (!fIndexedProjects.contains(project))
+				indexProject(project);
+
+			Node node= fNodes.get(resource);
+			if (node == null)
+				return -1;
+			return depth == IResource.DEPTH_ZERO ? node.fSeverity : node.getMaxSeverity();
+		}
+	}
+
+	/**
+	 * Updates the index from the marker changes and the removed resources of the given delta.
+	 *
+	 * @param delta the resource delta
+	 */
+	public void resourceChanged(IResourceDelta delta) {
+		synchronized (this) {
+			if (fIndexedProjects.isEmpty())
+				return;
+		}
+
+		try {
+			delta.accept(new IResourceDeltaVisitor() {
+				public boolean visit(IResourceDelta child) throws CoreException {
+					IResource resource= child.getResource();
+					if (resource.getType() == IResource.ROOT)
+						return true;
+
+					synchronized (ProblemSeverityIndex.this) {
+						IProject project= resource.getProject();
+						if (!fIndexedProjects.contains(project))
+							return false;
+
+						if (resource.getType() == IResource.PROJECT
+								&& (child.getKind() == IResourceDelta.REMOVED || (child.getFlags() & IResourceDelta.OPEN) != 0)) {
+							// re-indexed when queried again
+							removeProject(project);
+							return false;
+						}
+
+						int kind= child.getKind();
+						if (kind == IResourceDelta.REMOVED) {
+							setSeverity(resource, -1);
+						} else if (kind == IResourceDelta.ADDED || (child.getFlags() & IResourceDelta.MARKERS) != 0) {
+							setSeverity(resource, resource.exists() ? resource.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_ZERO) : -1);
+						}
+					}
+					return true;
+				}
+			});
+		} catch (CoreException e) {
+			JavaPlugin.log(e);
+			clear();
+		}
+	}
+
+	/**
+	 * Removes all resources from the index. Projects are indexed again when they are queried.
+	 */
+	public synchronized void clear() {
+		fNodes.clear();
+		fIndexedProjects.clear();
+	}
+
+	/**
+	 * Returns the number of resources in the index.
+	 *
+	 * @return the number of stored resources
+	 */
+	public synchronized int getSize() {
+		return fNodes.size();
+	}
+
+	private void indexProject(IProject project) throws CoreException {
+		IMarker[] markers= project.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE);
+		Map<IResource, Integer> severities= new HashMap<IResource, Integer>();
+		for (int i= 0; i < markers.length; i++) {
+			int severity= markers[i].getAttribute(IMarker.SEVERITY, -1);
+			if (severity < IMarker.SEVERITY_INFO)
+				continue;
+			IResource resource= markers[i].getResource();
+			Integer old= severities.get(resource);
+			if (old == null || old.intValue() < severity)
+				severities.put(resource, new Integer(severity));
+		}
+
+		fIndexedProjects.add(project);
+		for (Iterator<Map.Entry<IResource, Integer>> iter= severities.entrySet().iterator(); iter.hasNext();) {
+			Map.Entry<IResource, Integer> entry= iter.next();
+			setSeverity(entry.getKey(), entry.getValue().intValue());
+		}
+	}
+
+	private void removeProject(IProject project) {
+		fIndexedProjects.remove(project);
+		for (Iterator<IResource> iter= fNodes.keySet().iterator(); iter.hasNext();) {
+			if (project.equals(iter.next().getProject()))
+				iter.remove();
+		}
+	}
+
+	/**
+	 * Sets the maximal severity of the markers on the given resource and updates the counts of
+	 * the resource and its parents.
+	 *
+	 * @param resource the resource
+	 * @param severity the new maximal severity or -1
+	 */
+	private void setSeverity(IResource resource, int severity) {
+		if (severity > IMarker.SEVERITY_ERROR)
+			severity= IMarker.SEVERITY_ERROR;
+		else if (severity < IMarker.SEVERITY_INFO)
+			severity= -1;
+
+		Node node= fNodes.get(resource);
+		int old= node != null ? node.fSeverity : -1;
+		if (old == severity)
+			return;
+		if (node == null) {
+			node= new Node();
+			fNodes.put(resource, node);
+		}
+		node.fSeverity= severity;
+
+		for (IResource current= resource; current.getType() != IResource.ROOT; current= current.getParent()) {
+			Node currentNode= current == resource ? node : fNodes.get(current);
+			if (currentNode == null) {
+				currentNode= new Node();
+				fNodes.put(current, currentNode);
+			}
+			if (old != -1)
+				currentNode.fCounts[old]--;
+			if (severity != -1)
+				currentNode.fCounts[severity]++;
+			if (currentNode.isEmpty())
+				fNodes.remove(current);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -44,6 +44,7 @@ import org.eclipse.jdt.internal.corext.util.Strings;
 
 import org.eclipse.jdt.launching.JavaRuntime;
 
+import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.JavaUIMessages;
 import org.eclipse.jdt.internal.ui.packageview.ClassPathContainer;
 import org.eclipse.jdt.internal.ui.viewsupport.BasicElementLabels;
@@ -487,9 +488,8 @@ public class JavaElementLabels {
 	 * @return the label of the Java element
 	 */
 	public static String getElementLabel(IJavaElement element, long flags) {
-		StringBuffer result= new StringBuffer();
-		getElementLabel(element, flags, result);
-		return Strings.markJavaElementLabelLTR(result.toString());
+		String label= JavaPlugin.getDefault().getJavaElementLabelCache().getElementLabel(element, flags);
+		return Strings.markJavaElementLabelLTR(label);
 	}
 
 	/**
@@ -515,7 +515,7 @@ public class JavaElementLabels {
 	 * @param buf the buffer to append the resulting label to
 	 */
 	public static void getElementLabel(IJavaElement element, long flags, StringBuffer buf) {
-		new JavaElementLabelComposer(buf).appendElementLabel(element, flags);
+		JavaPlugin.getDefault().getJavaElementLabelCache().appendElementLabel(element, flags, buf);
 	}
 
 	/**
@@ -528,7 +528,7 @@ public class JavaElementLabels {
 	 * @since 3.4
 	 */
 	public static void getElementLabel(IJavaElement element, long flags, StyledString result) {
-		new JavaElementLabelComposer(result).appendElementLabel(element, flags);
+		JavaPlugin.getDefault().getJavaElementLabelCache().appendElementLabel(element, flags, result);
 	}
 
 
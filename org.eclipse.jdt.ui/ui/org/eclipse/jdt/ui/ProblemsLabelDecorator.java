@@ -61,6 +61,7 @@ import org.eclipse.jdt.internal.ui.JavaPluginImages;
 import org.eclipse.jdt.internal.ui.viewsupport.IProblemChangedListener;
 import org.eclipse.jdt.internal.ui.viewsupport.ImageDescriptorRegistry;
 import org.eclipse.jdt.internal.ui.viewsupport.ImageImageDescriptor;
+import org.eclipse.jdt.internal.ui.viewsupport.ProblemSeverityIndex;
 
 /**
  * LabelDecorator that decorates an element's image with error and warning overlays that
@@ -296,8 +297,12 @@ public class ProblemsLabelDecorator implements ILabelDecorator, ILightweightLabe
 					return ERRORTICK_BUILDPATH_ERROR;
 				}
 			}
-			severity= res.findMaxProblemSeverity(IMarker.PROBLEM, true, depth);
+			severity= getSeverityIndex().getMaxProblemSeverity(res, depth);
 		} else {
+			if (getSeverityIndex().getMaxProblemSeverity(res, depth) < IMarker.SEVERITY_WARNING) {
+				// no need to look at the ranges
+				return 0;
+			}
 			IMarker[] markers= res.findMarkers(IMarker.PROBLEM, true, depth);
 			if (markers != null && markers.length > 0) {
 				for (int i= 0; i < markers.length && (severity != IMarker.SEVERITY_ERROR); i++) {
@@ -327,14 +332,20 @@ public class ProblemsLabelDecorator implements ILabelDecorator, ILightweightLabe
 			return 0;
 		}
 		
+		ProblemSeverityIndex severityIndex= getSeverityIndex();
+		if (severityIndex.getMaxProblemSeverity(res, IResource.DEPTH_INFINITE) < IMarker.SEVERITY_WARNING) {
+			// no problems in the package or its subpackages
+			return 0;
+		}
+
 		// markers on package itself (e.g. missing @NonNullByDefault)
-		int severity= res.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_ZERO);
+		int severity= severityIndex.getMaxProblemSeverity(res, IResource.DEPTH_ZERO);
 		if (severity == IMarker.SEVERITY_ERROR)
 			return ERRORTICK_ERROR;
 		
 		// markers on CUs
 		for (ICompilationUnit cu : pack.getCompilationUnits()) {
-			severity= Math.max(severity, cu.getResource().findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_ZERO));
+			severity= Math.max(severity, severityIndex.getMaxProblemSeverity(cu.getResource(), IResource.DEPTH_ZERO));
 			if (severity == IMarker.SEVERITY_ERROR)
 				return ERRORTICK_ERROR;
 		}
@@ -343,7 +354,7 @@ public class ProblemsLabelDecorator implements ILabelDecorator, ILightweightLabe
 		for (Object object : pack.getNonJavaResources()) {
 			if (object instanceof IResource) {
 				IResource resource= (IResource) object;
-				severity= Math.max(severity, resource.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+				severity= Math.max(severity, severityIndex.getMaxProblemSeverity(resource, IResource.DEPTH_INFINITE));
 				if (severity == IMarker.SEVERITY_ERROR)
 					return ERRORTICK_ERROR;
 			}
@@ -356,6 +367,10 @@ public class ProblemsLabelDecorator implements ILabelDecorator, ILightweightLabe
 		return 0;
 	}
 
+	private static ProblemSeverityIndex getSeverityIndex() {
+		return JavaPlugin.getDefault().getProblemMarkerManager().getProblemSeverityIndex();
+	}
+
 	private boolean isMarkerInRange(IMarker marker, ISourceReference sourceElement) throws CoreException {
 		if (marker.isSubtypeOf(IMarker.TEXT)) {
 			int pos= marker.getAttribute(IMarker.CHAR_START, -1);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2011 IBM Corporation and others.
+ * Copyright (c) 2006, 2012 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,6 +19,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -28,7 +29,9 @@ import org.eclipse.core.runtime.Assert;
 import org.eclipse.jface.preference.IPreferenceStore;
 
 import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.Region;
@@ -344,6 +347,97 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		}
 	}
 
+	/**
+	 * A region of the document in document coordinates, which is kept up to date while the
+	 * document changes.
+	 *
+	 * @since 3.9
+	 */
+	private static final class DirtyRegion {
+		private int fStart= -1;
+		private int fEnd= -1;
+
+		boolean isEmpty() {
+			return fStart == -1;
+		}
+
+		void add(int start, int end) {
+			if (isEmpty()) {
+				fStart= start;
+				fEnd= end;
+			} else {
+				fStart= Math.min(fStart, start);
+				fEnd= Math.max(fEnd, end);
+			}
+		}
+
+		void add(DirtyRegion region) {
+			if (!region.isEmpty())
+				add(region.fStart, region.fEnd);
+		}
+
+		void set(DirtyRegion region) {
+			fStart= region.fStart;
+			fEnd= region.fEnd;
+		}
+
+		void clear() {
+			fStart= -1;
+			fEnd= -1;
+		}
+
+		/**
+		 * Updates this region after the replacement of <code>removed</code> characters at
+		 * <code>offset</code> by <code>inserted</code> characters.
+		 *
+		 * @param offset the offset of the replacement
+		 * @param removed the number of removed characters
+		 * @param inserted the number of inserted characters
+		 */
+		void update(int offset, int removed, int inserted) {
+			if (isEmpty() || fEnd < offset)
+				return;
+
+			int shift= inserted - removed;
+			if (fStart > offset + removed) {
+				fStart+= shift;
+				fEnd+= shift;
+			} else {
+				fStart= Math.min(fStart, offset);
+				fEnd= fEnd >= offset + removed ? fEnd + shift : offset + inserted;
+			}
+		}
+	}
+
+	/**
+	 * Tracks the regions of the document that changed since the last update of the folding
+	 * structure.
+	 *
+	 * @since 3.9
+	 */
+	private final class DocumentListener implements IDocumentListener {
+
+		/*
+		 * @see org.eclipse.jface.text.IDocumentListener#documentAboutToBeChanged(org.eclipse.jface.text.DocumentEvent)
+		 */
+		public void documentAboutToBeChanged(DocumentEvent event) {
+		}
+
+		/*
+		 * @see org.eclipse.jface.text.IDocumentListener#documentChanged(org.eclipse.jface.text.DocumentEvent)
+		 */
+		public void documentChanged(DocumentEvent event) {
+			int offset= event.getOffset();
+			int removed= event.getLength();
+			int inserted= event.getText() == null ? 0 : event.getText().length();
+			synchronized (fDirtyRegionLock) {
+				fDirtyRegion.update(offset, removed, inserted);
+				fPreviousDirtyRegion.update(offset, removed, inserted);
+				fDirtyRegion.add(offset, offset + inserted);
+			}
+		}
+	}
+
 	private class ElementChangedListener implements IElementChangedListener {
 
 		/*
@@ -356,15 +450,55 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 				if (shouldIgnoreDelta(e.getDelta().getCompilationUnitAST(), delta))
 					return;
 
+				IRegion dirtyRegion= takeDirtyRegion();
+				Set<IJavaElement> changedMembers= new HashSet<IJavaElement>();
+				Set<IJavaElement> affectedElements= null;
+				if ((delta.getFlags() & IJavaElementDelta.F_FINE_GRAINED) != 0 && collectChangedMembers(delta, changedMembers))
+					affectedElements= computeAffectedElements(dirtyRegion, changedMembers);
+
 				fUpdatingCount++;
 				try {
-					update(createContext(false));
+					update(createContext(false), affectedElements);
 				} finally {
 					fUpdatingCount--;
 				}
 			}
 		}
 
+		/**
+		 * Collects the members whose content has changed according to the given delta.
+		 *
+		 * @param delta the delta of the input element or one of its descendants
+		 * @param members the set to which the changed members are added
+		 * @return <code>true</code> if the delta only describes changes of existing members,
+		 *         <code>false</code> if elements have been added, removed or reordered, or if
+		 *         elements other than types and members are affected
+		 * @since 3.9
+		 */
+		private boolean collectChangedMembers(IJavaElementDelta delta, Set<IJavaElement> members) {
+			IJavaElementDelta[] children= delta.getAffectedChildren();
+			for (int i= 0; i < children.length; i++) {
+				IJavaElementDelta child= children[i];
+				if (child.getKind() != IJavaElementDelta.CHANGED || (child.getFlags() & ~MEMBER_CHANGE_FLAGS) != 0)
+					return false;
+
+				switch (child.getElement().getElementType()) {
+					case IJavaElement.TYPE:
+					case IJavaElement.METHOD:
+					case IJavaElement.FIELD:
+					case IJavaElement.INITIALIZER:
+						if (!collectChangedMembers(child, members))
+							return false;
+						if ((child.getFlags() & ~IJavaElementDelta.F_CHILDREN) != 0)
+							members.add(child.getElement());
+						break;
+					default:
+						return false;
+				}
+			}
+			return true;
+		}
+
 		/**
 		 * Ignore the delta if there are errors on the caret line.
 		 * <p>
@@ -716,6 +850,43 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 
 	private volatile int fUpdatingCount= 0;
 
+	/**
+	 * The delta flags of changed types and members that do not invalidate the folding structure
+	 * of unchanged members.
+	 * @since 3.9
+	 */
+	private static final int MEMBER_CHANGE_FLAGS= IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_MODIFIERS | IJavaElementDelta.F_SUPER_TYPES;
+
+	/**
+	 * The document whose changes are tracked by {@link #fDocumentListener}.
+	 * @since 3.9
+	 */
+	private IDocument fDocument;
+
+	/**
+	 * @since 3.9
+	 */
+	private final IDocumentListener fDocumentListener= new DocumentListener();
+
+	/**
+	 * Guards {@link #fDirtyRegion} and {@link #fPreviousDirtyRegion}.
+	 * @since 3.9
+	 */
+	private final Object fDirtyRegionLock= new Object();
+
+	/**
+	 * The region changed since the last update.
+	 * @since 3.9
+	 */
+	private final DirtyRegion fDirtyRegion= new DirtyRegion();
+
+	/**
+	 * The region changed before the last update. The Java model used by the last update may not
+	 * yet have reflected all of these changes, so they are also considered by the next update.
+	 * @since 3.9
+	 */
+	private final DirtyRegion fPreviousDirtyRegion= new DirtyRegion();
+
 	/**
 	 * Creates a new folding provider. It must be
 	 * {@link #install(ITextEditor, ProjectionViewer) installed} on an editor/viewer pair before it
@@ -818,6 +989,7 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 			JavaCore.removeElementChangedListener(fElementListener);
 			fElementListener= null;
 		}
+		trackDocument(null);
 	}
 
 	/*
@@ -826,7 +998,9 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 	public final void initialize() {
 		fUpdatingCount++;
 		try {
-			update(createInitialContext());
+			FoldingStructureComputationContext ctx= createInitialContext();
+			trackDocument(ctx != null ? ctx.getDocument() : null);
+			update(ctx, null);
 		} finally {
 			fUpdatingCount--;
 		}
@@ -873,7 +1047,122 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		fCollapseHeaderComments= store.getBoolean(PreferenceConstants.EDITOR_FOLDING_HEADERS);
 	}
 
-	private void update(FoldingStructureComputationContext ctx) {
+	/**
+	 * Starts tracking the changes of the given document and clears the dirty regions.
+	 *
+	 * @param document the document to track or <code>null</code> to stop tracking
+	 * @since 3.9
+	 */
+	private void trackDocument(IDocument document) {
+		if (fDocument != document) {
+			if (fDocument != null)
+				fDocument.removeDocumentListener(fDocumentListener);
+			fDocument= document;
+			if (fDocument != null)
+				fDocument.addDocumentListener(fDocumentListener);
+		}
+		synchronized (fDirtyRegionLock) {
+			fDirtyRegion.clear();
+			fPreviousDirtyRegion.clear();
+		}
+	}
+
+	/**
+	 * Returns the region that may have changed since the Java model was used by the last update
+	 * and starts a new dirty region.
+	 *
+	 * @return the dirty region or <code>null</code> if the document did not change
+	 * @since 3.9
+	 */
+	private IRegion takeDirtyRegion() {
+		synchronized (fDirtyRegionLock) {
+			DirtyRegion region= new DirtyRegion();
+			region.add(fDirtyRegion);
+			region.add(fPreviousDirtyRegion);
+			fPreviousDirtyRegion.set(fDirtyRegion);
+			fDirtyRegion.clear();
+			if (region.isEmpty())
+				return null;
+			return new Region(region.fStart, region.fEnd - region.fStart);
+		}
+	}
+
+	/**
+	 * Computes the elements whose folding structure has to be recomputed after changes that did
+	 * not add, remove or reorder any elements.
+	 *
+	 * @param dirtyRegion the region of the document that changed, or <code>null</code>
+	 * @param changedMembers the members reported as changed by the Java element delta
+	 * @return the affected elements in the order of a full traversal, or <code>null</code> if
+	 *         the whole folding structure has to be recomputed
+	 * @since 3.9
+	 */
+	private Set<IJavaElement> computeAffectedElements(IRegion dirtyRegion, Set<IJavaElement> changedMembers) {
+		if (dirtyRegion == null && changedMembers.isEmpty())
+			return null;
+
+		IJavaElement input= fInput;
+		if (!(input instanceof IParent))
+			return null;
+
+		try {
+			IType firstType= getFirstType((IParent) input);
+			if (firstType == null)
+				return null;
+
+			// header comment, package declaration and imports
+			ISourceRange firstTypeRange= firstType.getSourceRange();
+			if (dirtyRegion != null && (!SourceRange.isAvailable(firstTypeRange) || dirtyRegion.getOffset() <= firstTypeRange.getOffset()))
+				return null;
+
+			Set<IJavaElement> affected= new LinkedHashSet<IJavaElement>();
+			if (dirtyRegion != null)
+				collectAffectedElements(((IParent) input).getChildren(), dirtyRegion, affected);
+			affected.addAll(changedMembers);
+			return affected;
+		} catch (JavaModelException x) {
+			return null;
+		}
+	}
+
+	private void collectAffectedElements(IJavaElement[] elements, IRegion dirtyRegion, Set<IJavaElement> affected) throws JavaModelException {
+		int dirtyStart= dirtyRegion.getOffset();
+		int dirtyEnd= dirtyStart + dirtyRegion.getLength();
+		for (int i= 0; i < elements.length; i++) {
+			IJavaElement element= elements[i];
+			if (!(element instanceof ISourceReference))
+				continue;
+
+			ISourceRange range= ((ISourceReference) element).getSourceRange();
+			if (!SourceRange.isAvailable(range))
+				continue;
+
+			int start= range.getOffset();
+			if (start <= dirtyEnd && dirtyStart <= start + range.getLength()) {
+				affected.add(element);
+				if (element instanceof IParent)
+					collectAffectedElements(((IParent) element).getChildren(), dirtyRegion, affected);
+			}
+		}
+	}
+
+	private static IType getFirstType(IParent parent) throws JavaModelException {
+		IJavaElement[] children= parent.getChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (children[i] instanceof IType)
+				return (IType) children[i];
+		}
+		return null;
+	}
+
+	/**
+	 * Updates the folding structure.
+	 *
+	 * @param ctx the computation context
+	 * @param affectedElements the elements whose folding structure has to be recomputed, or
+	 *            <code>null</code> to recompute the folding structure of all elements
+	 */
+	private void update(FoldingStructureComputationContext ctx, Set<IJavaElement> affectedElements) {
 		if (ctx == null)
 			return;
 
@@ -881,9 +1170,12 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		List<JavaProjectionAnnotation> deletions= new ArrayList<JavaProjectionAnnotation>();
 		List<JavaProjectionAnnotation> updates= new ArrayList<JavaProjectionAnnotation>();
 
-		computeFoldingStructure(ctx);
+		if (affectedElements == null)
+			computeFoldingStructure(ctx);
+		else
+			computeFoldingStructure(affectedElements, ctx);
 		Map<JavaProjectionAnnotation, Position> newStructure= ctx.fMap;
-		Map<IJavaElement, List<Tuple>> oldStructure= computeCurrentStructure(ctx);
+		Map<IJavaElement, List<Tuple>> oldStructure= computeCurrentStructure(ctx, affectedElements);
 
 		Iterator<JavaProjectionAnnotation> e= newStructure.keySet().iterator();
 		while (e.hasNext()) {
@@ -891,6 +1183,8 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 			Position newPosition= newStructure.get(newAnnotation);
 
 			IJavaElement element= newAnnotation.getElement();
+			if (affectedElements != null && !affectedElements.contains(element))
+				continue;
 			/*
 			 * See https://bugs.eclipse.org/bugs/show_bug.cgi?id=130472 and
 			 * https://bugs.eclipse.org/bugs/show_bug.cgi?id=127445 In the presence of syntax
@@ -969,6 +1263,31 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		}
 	}
 
+	/**
+	 * Computes the folding structure of the given elements only, without their children.
+	 *
+	 * @param elements the elements in the order of a full traversal
+	 * @param ctx the computation context
+	 * @since 3.9
+	 */
+	private void computeFoldingStructure(Set<IJavaElement> elements, FoldingStructureComputationContext ctx) {
+		try {
+			String source= ((ISourceReference) fInput).getSource();
+			if (source == null)
+				return;
+
+			// the header comment is only computed together with the first type
+			IType firstType= getFirstType((IParent) fInput);
+			if (firstType != null && !elements.contains(firstType))
+				ctx.setFirstType(firstType);
+
+			ctx.getScanner().setSource(source.toCharArray());
+			for (Iterator<IJavaElement> iter= elements.iterator(); iter.hasNext();)
+				computeFoldingStructure(iter.next(), ctx);
+		} catch (JavaModelException x) {
+		}
+	}
+
 	private void computeFoldingStructure(IJavaElement[] elements, FoldingStructureComputationContext ctx) throws JavaModelException {
 		for (int i= 0; i < elements.length; i++) {
 			IJavaElement element= elements[i];
@@ -1376,7 +1695,7 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		return null;
 	}
 
-	private Map<IJavaElement, List<Tuple>> computeCurrentStructure(FoldingStructureComputationContext ctx) {
+	private Map<IJavaElement, List<Tuple>> computeCurrentStructure(FoldingStructureComputationContext ctx, Set<IJavaElement> elements) {
 		Map<IJavaElement, List<Tuple>> map= new HashMap<IJavaElement, List<Tuple>>();
 		ProjectionAnnotationModel model= ctx.getModel();
 		Iterator<Annotation> e= model.getAnnotationIterator();
@@ -1384,6 +1703,8 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 			Object annotation= e.next();
 			if (annotation instanceof JavaProjectionAnnotation) {
 				JavaProjectionAnnotation java= (JavaProjectionAnnotation) annotation;
+				if (elements != null && !elements.contains(java.getElement()))
+					continue;
 				Position position= model.getPosition(java);
 				Assert.isNotNull(position);
 				List<Tuple> list= map.get(java.getElement());
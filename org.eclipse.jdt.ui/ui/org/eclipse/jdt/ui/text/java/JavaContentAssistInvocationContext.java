@@ -12,6 +12,7 @@ package org.eclipse.jdt.ui.text.java;
 
 import org.eclipse.core.runtime.Assert;
 
+import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.ITextViewer;
 
 import org.eclipse.ui.IEditorPart;
@@ -82,6 +83,22 @@ public class JavaContentAssistInvocationContext extends ContentAssistInvocationC
 		fEditor= null;
 	}
 
+	/**
+	 * Creates a new context for the given document. The context does not access the viewer or the
+	 * editor, which allows to use it outside the UI thread.
+	 *
+	 * @param document the document that content assist is invoked in
+	 * @param offset the invocation offset
+	 * @param unit the compilation unit in <code>document</code>, or <code>null</code> if none
+	 * @since 3.9
+	 */
+	public JavaContentAssistInvocationContext(IDocument document, int offset, ICompilationUnit unit) {
+		super(document, offset);
+		fCU= unit;
+		fCUComputed= true;
+		fEditor= null;
+	}
+
 	/**
 	 * Creates a new context.
 	 * 
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.core.refactoring.tests.history;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.resources.IProject;
+
+import org.eclipse.ltk.core.refactoring.RefactoringDescriptor;
+import org.eclipse.ltk.core.refactoring.RefactoringDescriptorProxy;
+import org.eclipse.ltk.core.refactoring.history.RefactoringHistory;
+import org.eclipse.ltk.core.refactoring.tests.util.SimpleTestProject;
+import org.eclipse.ltk.internal.core.refactoring.history.RefactoringDescriptorProxyAdapter;
+import org.eclipse.ltk.internal.core.refactoring.history.RefactoringHistoryService;
+
+public class RefactoringHistoryConcurrencyTests extends TestCase {
+
+	private static final int READER_NUMBER= 4;
+
+	private static final int STAMP_FACTOR= 10000000;
+
+	private static final int WRITE_NUMBER= 50;
+
+	private final List fFailures= Collections.synchronizedList(new ArrayList());
+
+	private SimpleTestProject fProject;
+
+	private volatile boolean fWriting;
+
+	private void addRefactorings(String project, int offset) {
+		final RefactoringHistoryService service= RefactoringHistoryService.getInstance();
+		for (int index= 0; index < WRITE_NUMBER; index++) {
+			final int number= 2 * index + offset;
+			final MockRefactoringDescriptor descriptor= new MockRefactoringDescriptor(project, "A mock description number " + number, "A mock comment number " + number, RefactoringDescriptor.NONE);
+			descriptor.setTimeStamp((number + 1) * STAMP_FACTOR);
+			service.addRefactoringDescriptor(new RefactoringDescriptorProxyAdapter(descriptor), null);
+		}
+	}
+
+	private void readRefactorings() {
+		final RefactoringHistoryService service= RefactoringHistoryService.getInstance();
+		final IProject project= fProject.getProject();
+		int previous= 0;
+		do {
+			final RefactoringHistory history= service.getProjectHistory(project, null);
+			final RefactoringDescriptorProxy[] proxies= history.getDescriptors();
+			assertTrue("Refactoring history must not shrink", proxies.length >= previous);
+			assertTrue("Refactoring history has wrong size", proxies.length <= 2 * WRITE_NUMBER);
+			if (proxies.length > 0)
+				assertNotNull("Could not resolve refactoring descriptor", proxies[0].requestDescriptor(null));
+			previous= proxies.length;
+		} while (fWriting);
+	}
+
+	private Thread startThread(String name, final Runnable runnable) {
+		final Thread thread= new Thread(new Runnable() {
+
+			public void run() {
+				try {
+					runnable.run();
+				} catch (Throwable throwable) {
+					fFailures.add(throwable);
+				}
+			}
+		}, name);
+		thread.start();
+		return thread;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	protected void setUp() throws Exception {
+		super.setUp();
+		RefactoringHistoryService.getInstance().connect();
+		fProject= new SimpleTestProject();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	protected void tearDown() throws Exception {
+		final RefactoringHistoryService service= RefactoringHistoryService.getInstance();
+		service.deleteRefactoringHistory(fProject.getProject(), null);
+		RefactoringHistory history= service.getWorkspaceHistory(null);
+		service.deleteRefactoringDescriptors(history.getDescriptors(), null);
+		service.disconnect();
+		fProject.delete();
+		super.tearDown();
+	}
+
+	public void testConcurrentReadWrite() throws Exception {
+		final String name= fProject.getProject().getName();
+		fWriting= true;
+		final Thread[] readers= new Thread[READER_NUMBER];
+		for (int index= 0; index < readers.length; index++) {
+			readers[index]= startThread("Reader " + index, new Runnable() {
+
+				public void run() {
+					readRefactorings();
+				}
+			});
+		}
+		final Thread first= startThread("Writer 0", new Runnable() {
+
+			public void run() {
+				addRefactorings(name, 0);
+			}
+		});
+		final Thread second= startThread("Writer 1", new Runnable() {
+
+			public void run() {
+				addRefactorings(name, 1);
+			}
+		});
+		first.join();
+		second.join();
+		fWriting= false;
+		for (int index= 0; index < readers.length; index++)
+			readers[index].join();
+		if (!fFailures.isEmpty()) {
+			final Throwable failure= (Throwable) fFailures.get(0);
+			if (failure instanceof Error)
+				throw (Error) failure;
+			throw (Exception) failure;
+		}
+		final RefactoringHistory history= RefactoringHistoryService.getInstance().getProjectHistory(fProject.getProject(), null);
+		assertEquals("Refactoring history has wrong size", 2 * WRITE_NUMBER, history.getDescriptors().length);
+	}
+}
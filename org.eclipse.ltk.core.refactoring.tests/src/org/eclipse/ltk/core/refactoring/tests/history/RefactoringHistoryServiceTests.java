@@ -642,6 +642,27 @@ public class RefactoringHistoryServiceTests extends TestCase {
 		assertTrue("Refactoring history folder should exist.", folder.exists());
 	}
 
+	public void testSharing2() throws Exception {
+		final IProject project= fProject.getProject();
+		final RefactoringHistoryService service= RefactoringHistoryService.getInstance();
+		RefactoringHistory previousHistory= service.getProjectHistory(project, null);
+		setSharedRefactoringHistory(false);
+		RefactoringHistory nextHistory= service.getProjectHistory(project, null);
+		assertEquals("Refactoring history should be the same:", previousHistory, nextHistory);
+		RefactoringHistory indexedHistory= service.getProjectHistory(project, null);
+		assertEquals("Refactoring history should be the same:", previousHistory, indexedHistory);
+		RefactoringHistory rangeHistory= service.getProjectHistory(project, STAMP_FACTOR * 3, STAMP_FACTOR * 5, RefactoringDescriptor.NONE, null);
+		assertEquals("Refactoring history has wrong size", 3, rangeHistory.getDescriptors().length);
+		executeRefactoring(project.getName(), TOTAL_PROJECT_NUMBER, RefactoringDescriptor.NONE);
+		RefactoringHistory lastHistory= service.getProjectHistory(project, null);
+		assertEquals("Refactoring history has wrong size", TOTAL_PROJECT_NUMBER + 1, lastHistory.getDescriptors().length);
+		rangeHistory= service.getProjectHistory(project, STAMP_FACTOR * (TOTAL_PROJECT_NUMBER + 1), Long.MAX_VALUE, RefactoringDescriptor.NONE, null);
+		assertEquals("Refactoring history has wrong size", 1, rangeHistory.getDescriptors().length);
+		setSharedRefactoringHistory(true);
+		RefactoringHistory sharedHistory= service.getProjectHistory(project, null);
+		assertEquals("Refactoring history should be the same:", lastHistory, sharedHistory);
+	}
+
 	public void testSortOrder0() throws Exception {
 		RefactoringHistory history= RefactoringHistoryService.getInstance().getProjectHistory(fProject.getProject(), null);
 		assertTrue("Refactoring history must not be empty", !history.isEmpty());
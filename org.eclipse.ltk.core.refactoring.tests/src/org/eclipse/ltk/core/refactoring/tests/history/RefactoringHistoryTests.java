@@ -19,6 +19,7 @@ public class RefactoringHistoryTests {
 		TestSuite suite= new TestSuite("All LTK Refactoring History Tests"); //$NON-NLS-1$
 		suite.addTestSuite(RefactoringHistorySerializationTests.class);
 		suite.addTestSuite(RefactoringHistoryServiceTests.class);
+		suite.addTestSuite(RefactoringHistoryConcurrencyTests.class);
 		return suite;
 	}
 }
\ No newline at end of file
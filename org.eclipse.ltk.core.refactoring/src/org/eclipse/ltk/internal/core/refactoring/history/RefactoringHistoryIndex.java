@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.internal.core.refactoring.history;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.filesystem.IFileStore;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+import org.eclipse.ltk.core.refactoring.RefactoringDescriptorProxy;
+import org.eclipse.ltk.internal.core.refactoring.IRefactoringSerializationConstants;
+import org.eclipse.ltk.internal.core.refactoring.RefactoringCorePlugin;
+
+/**
+ * Compact index of a refactoring history store.
+ * <p>
+ * The index contains the time stamp and the description of every refactoring
+ * in the history, so that the history can be queried by time range without
+ * walking the history folders and reading their index files. Entries are
+ * appended in the order in which the refactorings are added to the history.
+ * The index is read into a single buffer in one read operation. It is not
+ * memory-mapped, since mapped files cannot be deleted on some platforms until
+ * the mapping has been garbage collected, and history folders are deleted
+ * and moved when projects are deleted, renamed or shared.
+ * </p>
+ * <p>
+ * The index is a cache of the history index files and is only maintained for
+ * history stores in the state location of the plug-in, which are not modified
+ * by anyone else than the {@link RefactoringHistoryManager}. Shared
+ * refactoring histories in the projects are always read from their history
+ * index files. The history files themselves are not affected, so refactoring
+ * scripts are imported and exported as before.
+ * </p>
+ *
+ * @since 3.6
+ */
+final class RefactoringHistoryIndex {
+
+	/** The file name of the index */
+	public static final String NAME_STORE_INDEX_FILE= "refactorings.store"; //$NON-NLS-1$
+
+	/** The magic number of the index file */
+	private static final int MAGIC= 0x52484958; // "RHIX"
+
+	/** The version of the index file format */
+	private static final int VERSION= 1;
+
+	/** The size of the header */
+	private static final int HEADER_SIZE= 8;
+
+	/**
+	 * Returns the index of the specified history store.
+	 *
+	 * @param store
+	 *            the history store
+	 * @return the index, or <code>null</code> if the store is not in the state
+	 *         location of the plug-in
+	 */
+	public static RefactoringHistoryIndex getIndex(final IFileStore store) {
+		final IPath state= RefactoringCorePlugin.getDefault().getStateLocation();
+		try {
+			final File file= store.toLocalFile(EFS.NONE, null);
+			if (file != null && state.isPrefixOf(new Path(file.getAbsolutePath())))
+				return new RefactoringHistoryIndex(new File(file, NAME_STORE_INDEX_FILE));
+		} catch (CoreException exception) {
+			// Not a local store
+		}
+		return null;
+	}
+
+	/** The index file */
+	private final File fFile;
+
+	/**
+	 * Creates a new refactoring history index.
+	 *
+	 * @param file
+	 *            the index file
+	 */
+	private RefactoringHistoryIndex(final File file) {
+		fFile= file;
+	}
+
+	/**
+	 * Appends an entry to the index. Does nothing if the index does not exist,
+	 * since the index is only complete if it has been built from the history.
+	 *
+	 * @param stamp
+	 *            the time stamp of the refactoring
+	 * @param description
+	 *            the description of the refactoring
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	public void append(final long stamp, final String description) throws IOException {
+		if (!fFile.isFile())
+			return;
+		final DataOutputStream stream= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fFile, true)));
+		try {
+			writeEntry(stream, stamp, description);
+		} finally {
+			stream.close();
+		}
+	}
+
+	/**
+	 * Deletes the index. The index is rebuilt from the history the next time
+	 * the history is read.
+	 */
+	public void delete() {
+		if (fFile.exists() && !fFile.delete())
+			fFile.deleteOnExit();
+	}
+
+	/**
+	 * Does the index exist?
+	 *
+	 * @return <code>true</code> if the index exists, <code>false</code>
+	 *         otherwise
+	 */
+	public boolean exists() {
+		return fFile.isFile();
+	}
+
+	/**
+	 * Reads the refactoring descriptor proxies in the specified time range.
+	 *
+	 * @param project
+	 *            the name of the project, or <code>null</code> for the
+	 *            workspace
+	 * @param collection
+	 *            the collection of proxies to fill in
+	 * @param start
+	 *            the start time stamp, inclusive
+	 * @param end
+	 *            the end time stamp, inclusive
+	 * @throws IOException
+	 *             if an input/output error occurs, or if the index is corrupt
+	 */
+	public void read(final String project, final Collection collection, final long start, final long end) throws IOException {
+		final FileInputStream stream= new FileInputStream(fFile);
+		try {
+			final FileChannel channel= stream.getChannel();
+			final long size= channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException("Invalid refactoring history index: " + fFile); //$NON-NLS-1$
+			final ByteBuffer buffer= ByteBuffer.allocate((int) size);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0)
+					throw new IOException("Unexpected end of refactoring history index: " + fFile); //$NON-NLS-1$
+			}
+			buffer.flip();
+			if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+				throw new IOException("Invalid refactoring history index: " + fFile); //$NON-NLS-1$
+			final List list= new ArrayList();
+			while (buffer.hasRemaining()) {
+				if (buffer.remaining() < 12)
+					throw new IOException("Invalid refactoring history index: " + fFile); //$NON-NLS-1$
+				final long stamp= buffer.getLong();
+				final int length= buffer.getInt();
+				if (length < 0 || length > buffer.remaining())
+					throw new IOException("Invalid refactoring history index: " + fFile); //$NON-NLS-1$
+				if (stamp >= start && stamp <= end)
+					list.add(new DefaultRefactoringDescriptorProxy(readString(buffer, length), project, stamp));
+				else
+					buffer.position(buffer.position() + length);
+			}
+			collection.addAll(list);
+		} finally {
+			stream.close();
+		}
+	}
+
+	/**
+	 * Replaces the index by the specified refactoring descriptor proxies.
+	 * <p>
+	 * The index is written to a temporary file first, so that concurrent
+	 * readers building the same index do not interfere with each other.
+	 * </p>
+	 *
+	 * @param proxies
+	 *            the proxies of all refactorings in the history
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	public void write(final RefactoringDescriptorProxy[] proxies) throws IOException {
+		final File parent= fFile.getParentFile();
+		if (!parent.isDirectory() && !parent.mkdirs())
+			throw new IOException("Could not create " + parent); //$NON-NLS-1$
+		final File temp= File.createTempFile(NAME_STORE_INDEX_FILE, ".tmp", parent); //$NON-NLS-1$
+		final DataOutputStream stream= new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+		try {
+			stream.writeInt(MAGIC);
+			stream.writeInt(VERSION);
+			for (int index= 0; index < proxies.length; index++)
+				writeEntry(stream, proxies[index].getTimeStamp(), proxies[index].getDescription());
+		} finally {
+			stream.close();
+		}
+		if (fFile.exists() && !fFile.delete() || !temp.renameTo(fFile)) {
+			temp.delete();
+			throw new IOException("Could not write " + fFile); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Reads a string from the buffer.
+	 *
+	 * @param buffer
+	 *            the buffer positioned at the string
+	 * @param length
+	 *            the length of the encoded string
+	 * @return the string
+	 * @throws IOException
+	 *             if the encoding is not supported
+	 */
+	private static String readString(final ByteBuffer buffer, final int length) throws IOException {
+		final byte[] bytes= new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, IRefactoringSerializationConstants.OUTPUT_ENCODING);
+	}
+
+	/**
+	 * Writes an entry of the index.
+	 *
+	 * @param stream
+	 *            the output stream
+	 * @param stamp
+	 *            the time stamp
+	 * @param description
+	 *            the description
+	 * @throws IOException
+	 *             if an input/output error occurs
+	 */
+	private static void writeEntry(final DataOutputStream stream, final long stamp, final String description) throws IOException {
+		final byte[] bytes= description.getBytes(IRefactoringSerializationConstants.OUTPUT_ENCODING);
+		stream.writeLong(stamp);
+		stream.writeInt(bytes.length);
+		stream.write(bytes);
+	}
+}
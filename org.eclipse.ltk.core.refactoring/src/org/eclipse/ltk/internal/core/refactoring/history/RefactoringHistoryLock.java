@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2012 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.ltk.internal.core.refactoring.history;
+
+/**
+ * Read/write lock guarding the refactoring history stores on disk.
+ * <p>
+ * Any number of threads may read the refactoring history at the same time,
+ * while modifications of the history stores are exclusive. A reader holds the
+ * read lock for the whole query, so that it sees the history either before or
+ * after a modification, but never in between. Waiting writers take precedence
+ * over new readers, so that a steady stream of history queries cannot starve
+ * the refactoring history serializer.
+ * </p>
+ * <p>
+ * The write lock is reentrant, and the thread holding the write lock may also
+ * acquire the read lock. The read lock is not reentrant, and a thread holding
+ * the read lock must not acquire the write lock.
+ * </p>
+ *
+ * @since 3.6
+ */
+final class RefactoringHistoryLock {
+
+	/** The number of modifications of the history stores */
+	private int fModifications= 0;
+
+	/** The number of threads holding the read lock */
+	private int fReaders= 0;
+
+	/** The number of threads waiting for the write lock */
+	private int fWaitingWriters= 0;
+
+	/** The thread holding the write lock, or <code>null</code> */
+	private Thread fWriter= null;
+
+	/** The number of times the writer has acquired the lock */
+	private int fWriterDepth= 0;
+
+	/**
+	 * Acquires the read lock, waiting until no thread holds or waits for the
+	 * write lock.
+	 */
+	public synchronized void acquireRead() {
+		final Thread thread= Thread.currentThread();
+		if (fWriter == thread) {
+			fWriterDepth++;
+			return;
+		}
+		boolean interrupted= false;
+		while (fWriter != null || fWaitingWriters > 0) {
+			try {
+				wait();
+			} catch (InterruptedException exception) {
+				interrupted= true;
+			}
+		}
+		fReaders++;
+		if (interrupted)
+			thread.interrupt();
+	}
+
+	/**
+	 * Acquires the write lock, waiting until no other thread holds the read
+	 * or the write lock.
+	 */
+	public synchronized void acquireWrite() {
+		final Thread thread= Thread.currentThread();
+		if (fWriter == thread) {
+			fWriterDepth++;
+			return;
+		}
+		boolean interrupted= false;
+		fWaitingWriters++;
+		try {
+			while (fWriter != null || fReaders > 0) {
+				try {
+					wait();
+				} catch (InterruptedException exception) {
+					interrupted= true;
+				}
+			}
+		} finally {
+			fWaitingWriters--;
+		}
+		fWriter= thread;
+		fWriterDepth= 1;
+		fModifications++;
+		if (interrupted)
+			thread.interrupt();
+	}
+
+	/**
+	 * Returns the number of times the write lock has been acquired. Readers
+	 * may use the count to validate data cached from the history stores.
+	 *
+	 * @return the modification count
+	 */
+	public synchronized int getModificationCount() {
+		return fModifications;
+	}
+
+	/**
+	 * Releases the read lock.
+	 */
+	public synchronized void releaseRead() {
+		if (fWriter == Thread.currentThread()) {
+			releaseWrite();
+			return;
+		}
+		if (fReaders > 0 && --fReaders == 0)
+			notifyAll();
+	}
+
+	/**
+	 * Releases the write lock.
+	 */
+	public synchronized void releaseWrite() {
+		if (fWriter == Thread.currentThread() && --fWriterDepth == 0) {
+			fWriter= null;
+			notifyAll();
+		}
+	}
+}
@@ -98,6 +98,9 @@ public final class RefactoringHistoryManager {
 	/** The calendar instance */
 	private static final Calendar fgCalendar= Calendar.getInstance(TimeZone.getTimeZone("GMT+00:00")); //$NON-NLS-1$
 
+	/** The lock guarding the refactoring history stores */
+	static final RefactoringHistoryLock fgHistoryLock= new RefactoringHistoryLock();
+
 	/**
 	 * Checks whether the argument map is well-formed.
 	 * <p>
@@ -454,13 +457,15 @@ public final class RefactoringHistoryManager {
 	 * @return A path representing the folder of the history part
 	 */
 	public static IPath stampToPath(final long stamp) {
-		fgCalendar.setTimeInMillis(stamp);
 		final StringBuffer buffer= new StringBuffer(256);
-		buffer.append(fgCalendar.get(Calendar.YEAR));
-		buffer.append(IPath.SEPARATOR);
-		buffer.append(fgCalendar.get(Calendar.MONTH) + 1);
-		buffer.append(IPath.SEPARATOR);
-		buffer.append(fgCalendar.get(Calendar.WEEK_OF_YEAR));
+		synchronized (fgCalendar) {
+			fgCalendar.setTimeInMillis(stamp);
+			buffer.append(fgCalendar.get(Calendar.YEAR));
+			buffer.append(IPath.SEPARATOR);
+			buffer.append(fgCalendar.get(Calendar.MONTH) + 1);
+			buffer.append(IPath.SEPARATOR);
+			buffer.append(fgCalendar.get(Calendar.WEEK_OF_YEAR));
+		}
 		return new Path(buffer.toString());
 	}
 
@@ -771,6 +776,9 @@ public final class RefactoringHistoryManager {
 	/** The cached session descriptor, or <code>null</code> */
 	private RefactoringSessionDescriptor fCachedDescriptor= null;
 
+	/** The modification count of the history stores of the cached descriptor */
+	private int fCachedModifications= -1;
+
 	/** The cached document, or <code>null</code> */
 	private Document fCachedDocument= null;
 
@@ -783,6 +791,12 @@ public final class RefactoringHistoryManager {
 	/** The history file store */
 	private final IFileStore fHistoryStore;
 
+	/**
+	 * The index of the history file store, or <code>null</code> if the store
+	 * is not indexed
+	 */
+	private final RefactoringHistoryIndex fIndex;
+
 	/**
 	 * The non-empty name of the managed project, or <code>null</code> for the
 	 * workspace
@@ -803,6 +817,7 @@ public final class RefactoringHistoryManager {
 		Assert.isTrue(name == null || !"".equals(name)); //$NON-NLS-1$
 		fHistoryStore= store;
 		fProjectName= name;
+		fIndex= RefactoringHistoryIndex.getIndex(store);
 	}
 
 	/**
@@ -821,6 +836,7 @@ public final class RefactoringHistoryManager {
 	 *             if an error occurs while adding the descriptor to the history
 	 */
 	void addRefactoringDescriptor(final RefactoringDescriptor descriptor, final boolean sort, final IProgressMonitor monitor) throws CoreException {
+		fgHistoryLock.acquireWrite();
 		try {
 			monitor.beginTask(RefactoringCoreMessages.RefactoringHistoryService_updating_history, 18);
 			final long stamp= descriptor.getTimeStamp();
@@ -870,6 +886,7 @@ public final class RefactoringHistoryManager {
 								writeIndexEntry(index, (RefactoringDescriptorProxy[]) set.toArray(new RefactoringDescriptorProxy[set.size()]), EFS.NONE, new SubProgressMonitor(monitor, 3, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL), RefactoringCoreMessages.RefactoringHistoryService_updating_history);
 							} else
 								writeIndexEntry(index, proxies, EFS.APPEND, new SubProgressMonitor(monitor, 5, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL), RefactoringCoreMessages.RefactoringHistoryService_updating_history);
+							appendStoreIndexEntry(descriptor);
 						}
 					} catch (ParserConfigurationException exception) {
 						throw createCoreException(exception);
@@ -891,16 +908,36 @@ public final class RefactoringHistoryManager {
 						final Document result= transformDescriptor(descriptor, false);
 						writeHistoryEntry(history, result, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL), RefactoringCoreMessages.RefactoringHistoryService_updating_history);
 							writeIndexEntry(index, proxies, EFS.NONE, new SubProgressMonitor(monitor, 1, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL), RefactoringCoreMessages.RefactoringHistoryService_updating_history);
+						appendStoreIndexEntry(descriptor);
 					} catch (IOException exception) {
 						throw createCoreException(exception);
 					}
 				}
 			}
 		} finally {
+			fgHistoryLock.releaseWrite();
 			monitor.done();
 		}
 	}
 
+	/**
+	 * Appends the specified refactoring descriptor to the index of the history
+	 * store, if any. The index is discarded if it cannot be updated.
+	 *
+	 * @param descriptor
+	 *            the refactoring descriptor which has been added to the
+	 *            history
+	 */
+	private void appendStoreIndexEntry(final RefactoringDescriptor descriptor) {
+		if (fIndex != null) {
+			try {
+				fIndex.append(descriptor.getTimeStamp(), descriptor.getDescription());
+			} catch (IOException exception) {
+				fIndex.delete();
+			}
+		}
+	}
+
 	/**
 	 * Returns the cached refactoring history document.
 	 *
@@ -941,13 +978,19 @@ public final class RefactoringHistoryManager {
 	 *             if an error occurs while reading the session
 	 */
 	private RefactoringSessionDescriptor getCachedSession(final IFileStore store, String projectName, final InputStream input) throws CoreException {
-		if (store.equals(fCachedStore) && fCachedDescriptor != null)
-			return fCachedDescriptor;
+		final int modifications= fgHistoryLock.getModificationCount();
+		synchronized (this) {
+			if (store.equals(fCachedStore) && fCachedDescriptor != null && fCachedModifications == modifications)
+				return fCachedDescriptor;
+		}
 		final RefactoringSessionDescriptor descriptor;
 		try {
 			descriptor= new RefactoringSessionReader(false, projectName).readSession(new InputSource(input));
-			fCachedDescriptor= descriptor;
-			fCachedStore= store;
+			synchronized (this) {
+				fCachedDescriptor= descriptor;
+				fCachedModifications= modifications;
+				fCachedStore= store;
+			}
 			return descriptor;
 		} catch (CoreException e) {
 			throw new CoreException(new MultiStatus(
@@ -971,15 +1014,16 @@ public final class RefactoringHistoryManager {
 	 * @return the refactoring history
 	 */
 	RefactoringHistory readRefactoringHistory(final long start, final long end, final IProgressMonitor monitor) {
+		fgHistoryLock.acquireRead();
 		try {
 			monitor.beginTask(RefactoringCoreMessages.RefactoringHistoryService_retrieving_history, 200);
 			final Set set= new HashSet();
 			try {
 				if (fHistoryStore.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 20, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists())
-					readRefactoringDescriptorProxies(fHistoryStore, fProjectName, set, start, end, new SubProgressMonitor(monitor, 80), RefactoringCoreMessages.RefactoringHistoryService_retrieving_history);
+					readRefactoringDescriptorProxies(fHistoryStore, fIndex, fProjectName, set, start, end, new SubProgressMonitor(monitor, 80));
 				final IFileStore store= EFS.getLocalFileSystem().getStore(RefactoringCorePlugin.getDefault().getStateLocation()).getChild(RefactoringHistoryService.NAME_HISTORY_FOLDER).getChild(RefactoringHistoryService.NAME_WORKSPACE_PROJECT);
 				if (store.fetchInfo(EFS.NONE, new SubProgressMonitor(monitor, 20, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL)).exists())
-					readRefactoringDescriptorProxies(store, null, set, start, end, new SubProgressMonitor(monitor, 80), RefactoringCoreMessages.RefactoringHistoryService_retrieving_history);
+					readRefactoringDescriptorProxies(store, store.equals(fHistoryStore) ? fIndex : RefactoringHistoryIndex.getIndex(store), null, set, start, end, new SubProgressMonitor(monitor, 80));
 			} catch (CoreException exception) {
 				RefactoringCorePlugin.log(exception);
 			}
@@ -987,10 +1031,70 @@ public final class RefactoringHistoryManager {
 			set.toArray(proxies);
 			return new RefactoringHistoryImplementation(proxies);
 		} finally {
+			fgHistoryLock.releaseRead();
 			monitor.done();
 		}
 	}
 
+	/**
+	 * Reads refactoring descriptor proxies from the specified history store,
+	 * using the index of the store if available.
+	 * <p>
+	 * If the store is indexed but the index does not exist yet, the index is
+	 * built while reading the history store. If the index cannot be read, it is
+	 * discarded and the history store is read instead.
+	 * </p>
+	 *
+	 * @param store
+	 *            the history store to read
+	 * @param index
+	 *            the index of the history store, or <code>null</code> if the
+	 *            store is not indexed
+	 * @param project
+	 *            the name of the project, or <code>null</code> for the
+	 *            workspace
+	 * @param collection
+	 *            the collection of proxies to fill in
+	 * @param start
+	 *            the start time stamp, inclusive
+	 * @param end
+	 *            the end time stamp, inclusive
+	 * @param monitor
+	 *            the progress monitor to use
+	 * @throws CoreException
+	 *             if an error occurs
+	 */
+	private static void readRefactoringDescriptorProxies(final IFileStore store, final RefactoringHistoryIndex index, final String project, final Collection collection, final long start, final long end, final IProgressMonitor monitor) throws CoreException {
+		final String task= RefactoringCoreMessages.RefactoringHistoryService_retrieving_history;
+		if (index == null) {
+			readRefactoringDescriptorProxies(store, project, collection, start, end, monitor, task);
+			return;
+		}
+		if (index.exists()) {
+			try {
+				index.read(project, collection, start, end);
+				monitor.done();
+				return;
+			} catch (IOException exception) {
+				index.delete();
+			}
+		}
+		final Set set= new HashSet();
+		readRefactoringDescriptorProxies(store, project, set, 0, Long.MAX_VALUE, monitor, task);
+		final RefactoringDescriptorProxy[] proxies= new RefactoringDescriptorProxy[set.size()];
+		set.toArray(proxies);
+		try {
+			index.write(proxies);
+		} catch (IOException exception) {
+			// The index is built again on the next read
+		}
+		for (int offset= 0; offset < proxies.length; offset++) {
+			final long stamp= proxies[offset].getTimeStamp();
+			if (stamp >= start && stamp <= end)
+				collection.add(proxies[offset]);
+		}
+	}
+
 	/**
 	 * Removes refactoring descriptors from the managed history.
 	 * <p>
@@ -1096,6 +1200,7 @@ public final class RefactoringHistoryManager {
 	 *             if an error occurs
 	 */
 	void removeRefactoringDescriptors(final RefactoringDescriptorProxy[] proxies, final IProgressMonitor monitor, final String task) throws CoreException {
+		fgHistoryLock.acquireWrite();
 		try {
 			final Map paths= new HashMap();
 			monitor.beginTask(task, proxies.length + 300);
@@ -1121,6 +1226,9 @@ public final class RefactoringHistoryManager {
 				subMonitor.done();
 			}
 		} finally {
+			if (fIndex != null)
+				fIndex.delete();
+			fgHistoryLock.releaseWrite();
 			monitor.done();
 		}
 	}
@@ -1136,6 +1244,7 @@ public final class RefactoringHistoryManager {
 	 * @return the associated refactoring descriptor, or <code>null</code>
 	 */
 	RefactoringDescriptor requestDescriptor(final RefactoringDescriptorProxy proxy, final IProgressMonitor monitor) {
+		fgHistoryLock.acquireRead();
 		try {
 			monitor.beginTask(RefactoringCoreMessages.RefactoringHistoryService_resolving_information, 2);
 			final long stamp= proxy.getTimeStamp();
@@ -1169,6 +1278,7 @@ public final class RefactoringHistoryManager {
 				}
 			}
 		} finally {
+			fgHistoryLock.releaseRead();
 			monitor.done();
 		}
 		return null;
@@ -1187,6 +1297,7 @@ public final class RefactoringHistoryManager {
 	 *             if an error occurs while setting the comment
 	 */
 	void setComment(final RefactoringDescriptorProxy proxy, final String comment, final IProgressMonitor monitor) throws CoreException {
+		fgHistoryLock.acquireWrite();
 		try {
 			monitor.beginTask(RefactoringCoreMessages.RefactoringHistoryService_updating_history, 100);
 			final long stamp= proxy.getTimeStamp();
@@ -1233,6 +1344,7 @@ public final class RefactoringHistoryManager {
 				}
 			}
 		} finally {
+			fgHistoryLock.releaseWrite();
 			monitor.done();
 		}
 	}
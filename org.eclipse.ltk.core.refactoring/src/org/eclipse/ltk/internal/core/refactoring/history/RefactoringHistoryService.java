@@ -250,6 +250,7 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 			final String name= project.getName();
 			final URI uri= project.getLocationURI();
 			if (uri != null) {
+				RefactoringHistoryManager.fgHistoryLock.acquireWrite();
 				try {
 					final IFileStore history= EFS.getLocalFileSystem().getStore(RefactoringCorePlugin.getDefault().getStateLocation()).getChild(NAME_HISTORY_FOLDER);
 					if (enable) {
@@ -260,6 +261,7 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 								destination.delete(EFS.NONE, new SubProgressMonitor(monitor, 20));
 							destination.mkdir(EFS.NONE, new SubProgressMonitor(monitor, 20));
 							source.copy(destination, EFS.OVERWRITE, new SubProgressMonitor(monitor, 20));
+							destination.getChild(RefactoringHistoryIndex.NAME_STORE_INDEX_FILE).delete(EFS.NONE, null);
 							source.delete(EFS.NONE, new SubProgressMonitor(monitor, 20));
 						}
 					} else {
@@ -274,6 +276,7 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 						}
 					}
 				} finally {
+					RefactoringHistoryManager.fgHistoryLock.releaseWrite();
 					if (enable)
 						project.refreshLocal(IResource.DEPTH_INFINITE, new SubProgressMonitor(monitor, 30));
 					else {
@@ -533,16 +536,23 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 			final IFileStore stateStore= EFS.getLocalFileSystem().getStore(RefactoringCorePlugin.getDefault().getStateLocation());
 			if (name.equals(NAME_WORKSPACE_PROJECT)) {
 				final IFileStore metaStore= stateStore.getChild(NAME_HISTORY_FOLDER).getChild(name);
-				metaStore.delete(EFS.NONE, new SubProgressMonitor(monitor, 100));
+				RefactoringHistoryManager.fgHistoryLock.acquireWrite();
+				try {
+					metaStore.delete(EFS.NONE, new SubProgressMonitor(monitor, 100));
+				} finally {
+					RefactoringHistoryManager.fgHistoryLock.releaseWrite();
+				}
 			} else {
 				final URI uri= project.getLocationURI();
 				if (uri != null && project.isAccessible()) {
+					RefactoringHistoryManager.fgHistoryLock.acquireWrite();
 					try {
 						final IFileStore metaStore= stateStore.getChild(NAME_HISTORY_FOLDER).getChild(name);
 						metaStore.delete(EFS.NONE, new SubProgressMonitor(monitor, 20));
 						final IFileStore projectStore= EFS.getStore(uri).getChild(NAME_HISTORY_FOLDER);
 						projectStore.delete(EFS.NONE, new SubProgressMonitor(monitor, 20));
 					} finally {
+						RefactoringHistoryManager.fgHistoryLock.releaseWrite();
 						project.refreshLocal(IResource.DEPTH_INFINITE, new SubProgressMonitor(monitor, 60));
 					}
 				}
@@ -557,7 +567,9 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 	 */
 	public void disconnect() {
 		if (fReferenceCount > 0) {
-			fManagerCache.clear();
+			synchronized (fManagerCache) {
+				fManagerCache.clear();
+			}
 			fReferenceCount--;
 		}
 		if (fReferenceCount == 0) {
@@ -887,6 +899,7 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 	 *            the progress monitor to use
 	 */
 	private void moveHistory(final IProject oldProject, final IProject newProject, final IProgressMonitor monitor) {
+		RefactoringHistoryManager.fgHistoryLock.acquireWrite();
 		try {
 			monitor.beginTask(RefactoringCoreMessages.RefactoringHistoryService_updating_history, 60);
 			final IFileStore historyStore= EFS.getLocalFileSystem().getStore(RefactoringCorePlugin.getDefault().getStateLocation()).getChild(NAME_HISTORY_FOLDER);
@@ -902,6 +915,7 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 		} catch (CoreException exception) {
 			RefactoringCorePlugin.log(exception);
 		} finally {
+			RefactoringHistoryManager.fgHistoryLock.releaseWrite();
 			monitor.done();
 		}
 	}
@@ -1032,12 +1046,14 @@ public final class RefactoringHistoryService implements IRefactoringHistoryServi
 	 */
 	private RefactoringHistoryManager getManager(final IFileStore store, final String name) {
 		Assert.isNotNull(store);
-		RefactoringHistoryManager manager= (RefactoringHistoryManager) fManagerCache.get(store);
-		if (manager == null) {
-			manager= new RefactoringHistoryManager(store, name);
-			fManagerCache.put(store, manager);
+		synchronized (fManagerCache) {
+			RefactoringHistoryManager manager= (RefactoringHistoryManager) fManagerCache.get(store);
+			if (manager == null) {
+				manager= new RefactoringHistoryManager(store, name);
+				fManagerCache.put(store, manager);
+			}
+			return manager;
 		}
-		return manager;
 	}
 
 }